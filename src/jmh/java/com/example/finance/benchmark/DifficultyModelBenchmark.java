@@ -0,0 +1,164 @@
+package com.example.finance.benchmark;
+
+import com.example.finance.followread.SubtitleSentenceProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 句子难度评估基准：词频排名模型与原来的长度启发式（英文词数 + 长词比例，中日韩字数 + CJK 字符比例）对比
+ *
+ * 样本是人工标注的句子集（src/jmh/resources/difficulty/eval.tsv），setUp 时先输出两种方法与标注的一致率和混淆矩阵，
+ * 再测每句的评估耗时。注意这份标注与 {@link com.example.finance.followread.DifficultyModel} 的权重、分档阈值出自
+ * 同一作者，阈值也是对着它调的，一致率是样本内的结果，只用来发现回归，不能当作模型准确率；
+ * 要评估准确率需要另外由别人标注、调参时没用过的句子集。整份字幕的难度评估耗时见 SubtitleIngestionBenchmark.calculateDifficulty。
+ *
+ * 运行：mvn -Pbenchmark verify -Djmh.include=DifficultyModelBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DifficultyModelBenchmark {
+
+    private static final String[] LABELS = {"easy", "medium", "hard"};
+
+    @Param({"en", "zh", "ja"})
+    public String language;
+
+    private final SubtitleSentenceProcessor processor = new SubtitleSentenceProcessor();
+
+    private final List<String> sentences = new ArrayList<>();
+    private final List<String> labels = new ArrayList<>();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (InputStream in = DifficultyModelBenchmark.class.getClassLoader().getResourceAsStream("difficulty/eval.tsv")) {
+            if (in == null) {
+                throw new IllegalStateException("缺少评估集 difficulty/eval.tsv");
+            }
+            for (String line : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                String[] fields = line.split("\t");
+                if (line.startsWith("#") || fields.length != 3 || !fields[0].equals(language)) {
+                    continue;
+                }
+                labels.add(fields[1]);
+                sentences.add(fields[2]);
+            }
+        }
+        int[][] model = new int[3][3];
+        int[][] legacy = new int[3][3];
+        for (int i = 0; i < sentences.size(); i++) {
+            int expected = indexOf(labels.get(i));
+            model[expected][indexOf(processor.calculateDifficulty(sentences.get(i), "auto", language))]++;
+            legacy[expected][indexOf(legacyDifficulty(sentences.get(i), language))]++;
+        }
+        System.out.printf("%n%s: %d 句%n", language, sentences.size());
+        print("词频排名", model);
+        print("长度启发式", legacy);
+    }
+
+    @Benchmark
+    public void model(Blackhole bh) {
+        bh.consume(processor.calculateDifficulty(nextSentence(), "auto", language));
+    }
+
+    @Benchmark
+    public void legacy(Blackhole bh) {
+        bh.consume(legacyDifficulty(nextSentence(), language));
+    }
+
+    private String nextSentence() {
+        String sentence = sentences.get(next);
+        next = next + 1 == sentences.size() ? 0 : next + 1;
+        return sentence;
+    }
+
+    /**
+     * 原来的评估方法：英文按词数和超过 8 个字母的长词比例，中日韩按字符数和 CJK 字符比例
+     */
+    static String legacyDifficulty(String text, String language) {
+        if (!"en".equals(language)) {
+            int cjkCharCount = 0;
+            for (int i = 0; i < text.length(); ) {
+                int cp = text.codePointAt(i);
+                Character.UnicodeBlock block = Character.UnicodeBlock.of(cp);
+                if (block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
+                        || block == Character.UnicodeBlock.HIRAGANA
+                        || block == Character.UnicodeBlock.KATAKANA
+                        || block == Character.UnicodeBlock.HANGUL_SYLLABLES) {
+                    cjkCharCount++;
+                }
+                i += Character.charCount(cp);
+            }
+            int charCount = text.length();
+            if (charCount < 15 && cjkCharCount > charCount * 0.7) {
+                return "easy";
+            } else if (charCount > 50 || cjkCharCount < charCount * 0.3) {
+                return "hard";
+            }
+            return "medium";
+        }
+        String[] words = text.trim().split("\\s+");
+        int longWords = 0;
+        for (String word : words) {
+            if (word.length() > 8) {
+                longWords++;
+            }
+        }
+        double longWordRatio = longWords / (double) words.length;
+        if (words.length < 12 && longWordRatio < 0.2) {
+            return "easy";
+        } else if (words.length > 25 || longWordRatio > 0.4) {
+            return "hard";
+        }
+        return "medium";
+    }
+
+    private static int indexOf(String label) {
+        for (int i = 0; i < LABELS.length; i++) {
+            if (LABELS[i].equals(label)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("未知难度: " + label);
+    }
+
+    private static void print(String name, int[][] confusion) {
+        int correct = 0;
+        int total = 0;
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                total += confusion[i][j];
+                if (i == j) {
+                    correct += confusion[i][j];
+                }
+            }
+        }
+        System.out.printf("  %s: 与标注一致 %.1f%%（%d/%d，样本内）%n", name, 100.0 * correct / total, correct, total);
+        System.out.println("    标注\\评估   easy  medium  hard");
+        for (int i = 0; i < 3; i++) {
+            System.out.printf("    %-10s %5d %7d %5d%n", LABELS[i], confusion[i][0], confusion[i][1], confusion[i][2]);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.finance.benchmark;
+
+import com.example.finance.followread.FollowReadSentence;
+import com.example.finance.followread.FollowReadSentenceRepository;
+import com.example.finance.followread.SubtitleSegment;
+import com.example.finance.followread.SubtitleSegmentRepository;
+import com.example.finance.followread.VideoDownloadTask;
+import com.example.finance.followread.VideoDownloadTaskRepository;
+import com.example.finance.followread.YoutubeVideo;
+import com.example.finance.followread.YoutubeVideoCard;
+import com.example.finance.followread.YoutubeVideoRepository;
+import com.example.finance.persistence.SingleWriterQueue;
+import com.example.finance.persistence.SqliteDataSourceConfig;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sqlite.SQLiteErrorCode;
+import org.sqlite.SQLiteException;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.elasticsearch.ElasticsearchClientAutoConfiguration;
+import org.springframework.boot.autoconfigure.elasticsearch.ElasticsearchRestClientAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 持久层基准：同一套写入/读取负载分别跑在 SQLite 和 H2（PostgreSQL 兼容模式）上，
+ * 用于评估迁移到服务端数据库的收益，不依赖外部服务。
+ *
+ * - SQLite 使用生产配置（SqliteDataSourceConfig：WAL + 单写连接，自增主键）
+ * - H2 使用 db/migration/postgresql 的迁移脚本和 pooled 序列主键，ddl-auto=validate 顺带校验迁移脚本
+ *
+ * 运行：mvn -Pbenchmark verify -Djmh.include=PersistenceBenchmark
+ * 并发写入可加 -Djmh.args="-f 1 -t 4"
+ *
+ * readUnderWrites 组：3 个读线程查首页卡片/字幕片段的同时，1 个写线程持续经 SingleWriterQueue 提交下载进度更新
+ * （与 DownloadEngine 相同的写法），按 SampleTime 报告读延迟分布；读写两侧遇到的 SQLITE_BUSY 以辅助计数器
+ * readBusy / writeBusy 报告。只跑这一组：-Djmh.include="PersistenceBenchmark.readUnderWrites"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PersistenceBenchmark {
+
+    private static final int SEGMENTS_PER_VIDEO = 300;
+    private static final int SENTENCES_PER_VIDEO = 60;
+    private static final int SEGMENT_SAVE_BATCH = 100;
+    private static final int PRELOADED_VIDEOS = 200;
+    // 同时“下载中”的任务数，写线程轮流更新它们的进度（与写队列的默认批大小一致）
+    private static final int DOWNLOADING_TASKS = 200;
+
+    @Param({"sqlite", "h2-postgres"})
+    public String backend;
+
+    private ConfigurableApplicationContext context;
+    private YoutubeVideoRepository videoRepository;
+    private SubtitleSegmentRepository segmentRepository;
+    private FollowReadSentenceRepository sentenceRepository;
+    private VideoDownloadTaskRepository downloadTaskRepository;
+    private SingleWriterQueue writeQueue;
+
+    private final AtomicLong videoSequence = new AtomicLong();
+    private final List<Long> videoIds = new ArrayList<>();
+    private final List<Long> downloadTaskIds = new ArrayList<>();
+    private final AtomicLong progressSequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        File workDir = new File("target/bench");
+        workDir.mkdirs();
+
+        // 以命令行参数传入，优先级高于 application.properties
+        List<String> args = new ArrayList<>(List.of(
+            "--logging.file.name=target/bench/bench.log",
+            "--logging.level.root=WARN",
+            "--spring.jpa.open-in-view=false"));
+
+        if ("sqlite".equals(backend)) {
+            File db = new File(workDir, "bench.db");
+            for (String suffix : new String[]{"", "-wal", "-shm"}) {
+                new File(db.getPath() + suffix).delete();
+            }
+            args.add("--spring.datasource.url=jdbc:sqlite:" + db.getPath());
+        } else {
+            args.addAll(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=validate",
+                "--spring.flyway.locations=classpath:db/migration/postgresql"));
+        }
+
+        context = new SpringApplicationBuilder(BenchmarkApplication.class)
+            .web(WebApplicationType.NONE)
+            .run(args.toArray(new String[0]));
+        videoRepository = context.getBean(YoutubeVideoRepository.class);
+        segmentRepository = context.getBean(SubtitleSegmentRepository.class);
+        sentenceRepository = context.getBean(FollowReadSentenceRepository.class);
+        downloadTaskRepository = context.getBean(VideoDownloadTaskRepository.class);
+        writeQueue = context.getBean(SingleWriterQueue.class);
+
+        for (int i = 0; i < PRELOADED_VIDEOS; i++) {
+            videoIds.add(ingestOneVideo());
+        }
+        for (int i = 0; i < DOWNLOADING_TASKS; i++) {
+            VideoDownloadTask task = new VideoDownloadTask();
+            task.setPlatform("youtube");
+            task.setYoutubeVideoId(videoIds.get(i % videoIds.size()));
+            task.setDownloadType("video");
+            task.setStatus("DOWNLOADING");
+            task.setProgress(0);
+            task.setCreatedBy(1L);
+            downloadTaskIds.add(downloadTaskRepository.save(task).getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    /**
+     * 写入一个完整解析结果：视频 + 字幕片段（每 100 条一批）+ 学习句子（一次 saveAll），与解析流程一致
+     */
+    @Benchmark
+    public Long ingestVideo() {
+        return ingestOneVideo();
+    }
+
+    /**
+     * 首页卡片分页
+     */
+    @Benchmark
+    public Page<YoutubeVideoCard> readVideoCards() {
+        return videoRepository.findCardsOrderByPinned(PageRequest.of(0, 20));
+    }
+
+    /**
+     * 读取单个视频的全部字幕片段（SEO 页、跟读页）
+     */
+    @Benchmark
+    public List<SubtitleSegment> readSegments() {
+        return segmentRepository.findByVideoIdOrderBySegmentOrder(randomVideoId());
+    }
+
+    /**
+     * 读取单个视频的学习句子
+     */
+    @Benchmark
+    public List<FollowReadSentence> readSentences() {
+        return sentenceRepository.findByYoutubeVideoIdOrderBySentenceOrder(randomVideoId());
+    }
+
+    /**
+     * 读写并发：读线程（首页卡片 + 单个视频字幕片段）
+     */
+    @Benchmark
+    @Group("readUnderWrites")
+    @GroupThreads(3)
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int readUnderWritesReader(BusyCounters counters) {
+        try {
+            return videoRepository.findCardsOrderByPinned(PageRequest.of(0, 20)).getNumberOfElements()
+                + segmentRepository.findByVideoIdOrderBySegmentOrder(randomVideoId()).size();
+        } catch (RuntimeException e) {
+            if (!isBusy(e)) {
+                throw e;
+            }
+            counters.readBusy++;
+            return 0;
+        }
+    }
+
+    /**
+     * 读写并发：写线程，经单写队列提交一次下载进度更新（同一任务的未执行更新会被合并）
+     */
+    @Benchmark
+    @Group("readUnderWrites")
+    @GroupThreads(1)
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void readUnderWritesWriter(BusyCounters counters) {
+        long n = progressSequence.incrementAndGet();
+        Long id = downloadTaskIds.get((int) (n % downloadTaskIds.size()));
+        int progress = (int) (n % 100);
+        writeQueue.submit("download-progress:" + id, () -> {
+            try {
+                downloadTaskRepository.updateDownloadProgress(id, progress, "下载中 " + progress + "%",
+                    "1.00MiB/s", n * 1024, 100L * 1024 * 1024);
+            } catch (RuntimeException e) {
+                // 在写线程上执行，只有 db-writer 一个线程修改该计数
+                if (isBusy(e)) {
+                    counters.writeBusy++;
+                }
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * 异常链中是否有 SQLITE_BUSY（含 SQLITE_BUSY_SNAPSHOT 等扩展码）
+     */
+    private static boolean isBusy(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLiteException sqlite
+                    && (sqlite.getResultCode().code & 0xff) == SQLiteErrorCode.SQLITE_BUSY.code) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 每个线程遇到的 SQLITE_BUSY 次数，JMH 按迭代汇总输出（readUnderWrites:readBusy / writeBusy）
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class BusyCounters {
+
+        public long readBusy;
+        public volatile long writeBusy;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            readBusy = 0;
+            writeBusy = 0;
+        }
+    }
+
+    private Long randomVideoId() {
+        return videoIds.get(ThreadLocalRandom.current().nextInt(videoIds.size()));
+    }
+
+    private Long ingestOneVideo() {
+        long n = videoSequence.incrementAndGet();
+        YoutubeVideo video = new YoutubeVideo();
+        video.setVideoId("bench" + n);
+        video.setSourceUrl("https://www.youtube.com/watch?v=bench" + n);
+        video.setTitle("Benchmark video " + n);
+        video.setDuration(600);
+        video.setStatus("completed");
+        video.setSubtitleLanguage("en");
+        video.setCreatedBy(1L);
+        video = videoRepository.save(video);
+
+        List<SubtitleSegment> segments = new ArrayList<>(SEGMENTS_PER_VIDEO);
+        for (int i = 0; i < SEGMENTS_PER_VIDEO; i++) {
+            SubtitleSegment segment = new SubtitleSegment();
+            segment.setVideoId(video.getId());
+            segment.setStartTime(i * 2.0);
+            segment.setEndTime(i * 2.0 + 1.8);
+            segment.setRawText("this is subtitle line number " + i + " of the benchmark video");
+            segment.setCleanText("this is subtitle line number " + i + " of the benchmark video");
+            segment.setSegmentOrder(i);
+            segments.add(segment);
+        }
+        for (int from = 0; from < segments.size(); from += SEGMENT_SAVE_BATCH) {
+            segmentRepository.saveAll(segments.subList(from, Math.min(from + SEGMENT_SAVE_BATCH, segments.size())));
+        }
+
+        List<FollowReadSentence> sentences = new ArrayList<>(SENTENCES_PER_VIDEO);
+        for (int i = 0; i < SENTENCES_PER_VIDEO; i++) {
+            FollowReadSentence sentence = new FollowReadSentence();
+            sentence.setText("This is learning sentence number " + i + ".");
+            sentence.setPhonetic("");
+            sentence.setDifficulty("medium");
+            sentence.setCategory("YouTube");
+            sentence.setYoutubeVideoId(video.getId());
+            sentence.setStartTime(i * 10.0);
+            sentence.setEndTime(i * 10.0 + 4.0);
+            sentence.setSentenceOrder(i);
+            sentences.add(sentence);
+        }
+        sentenceRepository.saveAll(sentences);
+        return video.getId();
+    }
+
+    /**
+     * 只包含持久层的最小 Spring Boot 应用（不扫描 Web、安全、搜索等组件）
+     */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration(exclude = {
+        ElasticsearchClientAutoConfiguration.class,
+        ElasticsearchRestClientAutoConfiguration.class
+    })
+    @EntityScan(basePackageClasses = com.example.finance.User.class)
+    @EnableJpaRepositories(basePackageClasses = YoutubeVideoRepository.class)
+    @Import({SqliteDataSourceConfig.class, SingleWriterQueue.class})
+    static class BenchmarkApplication {
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.finance.benchmark;
+
+import com.example.finance.followread.PhoneticLexiconCompiler;
+import com.example.finance.followread.PhoneticTranscriber;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 音标词典加载基准：读取词典、加载拼读规则，目标低于 100ms
+ *
+ * 应用启动时只加载一次，关心的是冷启动耗时：每个 fork 是新的 JVM，不预热，只测第一次加载。
+ * 每句音标生成的耗时见 SubtitleIngestionBenchmark.transcribePhonetics。
+ *
+ * - load：读取构建时编译好的二进制词典（完美哈希已构建）
+ * - loadText：解析文本词典并构建完美哈希（编译前的加载方式，作为对照）
+ * lexicon=bundled 为随包发布的常用词词典；full 为与完整 CMUdict 同规模（约 13.4 万词）的合成词典，
+ * 在 setup 中生成并编译（target/bench/，不计入耗时）。
+ *
+ * 运行：mvn -Pbenchmark verify -Djmh.include=PhoneticLexiconLoadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class PhoneticLexiconLoadBenchmark {
+
+    // 完整 cmudict-0.7b 去掉多音词其余读音后的词数
+    private static final int FULL_SIZE = 134_000;
+    private static final String BUNDLED_DICT = "src/main/resources/phonetics/cmudict-common.dict";
+    private static final String[] VOWELS = {"AA1", "AE1", "AH0", "AH1", "AO1", "EH1", "ER0", "IH0", "IY1", "OW1", "UW1"};
+    private static final String[] CONSONANTS = {"B", "D", "F", "G", "K", "L", "M", "N", "NG", "P", "R", "S", "SH",
+        "T", "TH", "V", "W", "Z"};
+
+    @Param({"bundled", "full"})
+    public String lexicon;
+
+    private String compiledFile;
+    private String textFile;
+
+    /**
+     * 先完成类初始化（日志框架初始化不算在词典加载里），full 时准备合成词典
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws ClassNotFoundException, IOException {
+        Class.forName(PhoneticTranscriber.class.getName());
+        if ("full".equals(lexicon)) {
+            Path dict = Paths.get("target/bench/cmudict-full.dict");
+            Path compiled = Paths.get("target/bench/cmudict-full.lex");
+            if (!Files.exists(dict)) {
+                generate(dict, FULL_SIZE);
+            }
+            PhoneticLexiconCompiler.compile(dict, compiled);
+            textFile = dict.toString();
+            compiledFile = compiled.toString();
+        } else {
+            // 随包的二进制词典在类路径上，不需要指定文件
+            textFile = BUNDLED_DICT;
+            compiledFile = "";
+        }
+    }
+
+    @Benchmark
+    public PhoneticTranscriber load() {
+        PhoneticTranscriber transcriber = new PhoneticTranscriber();
+        transcriber.setLexiconFile(compiledFile);
+        transcriber.init();
+        return transcriber;
+    }
+
+    @Benchmark
+    public PhoneticTranscriber loadText() {
+        PhoneticTranscriber transcriber = new PhoneticTranscriber();
+        transcriber.setLexiconFile(textFile);
+        transcriber.init();
+        return transcriber;
+    }
+
+    /**
+     * 生成 CMUdict 格式的合成词典：互不相同的 3~12 字母词，每词 2~9 个音素（固定种子，结果可复现）
+     */
+    private static void generate(Path dict, int size) throws IOException {
+        Files.createDirectories(dict.getParent());
+        Random random = new Random(42);
+        Set<String> seen = new HashSet<>();
+        StringBuilder word = new StringBuilder();
+        try (BufferedWriter writer = Files.newBufferedWriter(dict, StandardCharsets.UTF_8)) {
+            writer.write(";;; 合成词典，仅用于加载基准\n");
+            while (seen.size() < size) {
+                word.setLength(0);
+                int length = 3 + random.nextInt(10);
+                for (int i = 0; i < length; i++) {
+                    word.append((char) ('A' + random.nextInt(26)));
+                }
+                if (!seen.add(word.toString())) {
+                    continue;
+                }
+                writer.write(word.toString());
+                writer.write(' ');
+                int phones = 2 + random.nextInt(8);
+                for (int i = 0; i < phones; i++) {
+                    String[] pool = i % 2 == 0 ? CONSONANTS : VOWELS;
+                    writer.write(' ');
+                    writer.write(pool[random.nextInt(pool.length)]);
+                }
+                writer.write('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.finance.benchmark;
+
+import com.example.finance.followread.AudioDecoder;
+import com.example.finance.followread.PronunciationResult;
+import com.example.finance.followread.PronunciationScorer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发音评分基准：一次完整评分（两段 MFCC + 音高提取、DTW 对齐、逐词打分），目标是 10 秒的句子远低于 200ms
+ *
+ * 没有可随仓库分发的语音样本，参考音频和录音用共振峰合成的"语音"代替：
+ * 同一串音素（每个音素 3 个共振峰，浊音用声门脉冲、清音用噪声激励），录音换一个声道长度和基频、
+ * 语速慢 15% 并加噪声，计算量与真实录音相同（帧数和 DTW 带宽只取决于时长）。
+ *
+ * 运行：mvn -Pbenchmark verify -Djmh.include=PronunciationScoringBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PronunciationScoringBenchmark {
+
+    private static final int SAMPLE_RATE = AudioDecoder.SAMPLE_RATE;
+    // 平均每个音素 0.1 秒，每个词 3 个音素
+    private static final double PHONE_SECONDS = 0.1;
+    private static final int PHONES_PER_WORD = 3;
+    // F1, F2, F3（Hz），F1 为 0 表示清音
+    private static final double[][] PHONES = {
+        {730, 1090, 2440}, {270, 2290, 3010}, {530, 1840, 2480}, {660, 1720, 2410}, {300, 870, 2240},
+        {570, 840, 2410}, {440, 1020, 2240}, {490, 1350, 1690}, {390, 1990, 2550}, {640, 1190, 2390},
+        {0, 2500, 4500}, {0, 1500, 3500}, {0, 4000, 6500}
+    };
+
+    @Param({"5", "10", "20"})
+    public int seconds;
+
+    private final PronunciationScorer scorer = new PronunciationScorer();
+
+    private float[] reference;
+    private float[] recording;
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int words = (int) Math.round(seconds / (PHONE_SECONDS * PHONES_PER_WORD));
+        Random random = new Random(seconds);
+        int[] phones = new int[words * PHONES_PER_WORD];
+        for (int i = 0; i < phones.length; i++) {
+            phones[i] = random.nextInt(PHONES.length);
+        }
+        StringBuilder sentence = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            sentence.append("word").append(w).append(' ');
+        }
+        text = sentence.toString();
+        reference = synthesize(phones, 1.0, 110, 1.0, 1);
+        recording = synthesize(phones, 1.15, 200, 1.15, 2);
+
+        PronunciationResult result = scorer.score(reference, recording, text, null);
+        System.out.printf("%n%d 秒: 参考 %.1fs, 录音 %.1fs, 总分 %d（发音 %d, 流利 %d, 语调 %d）%n",
+            seconds, reference.length / (double) SAMPLE_RATE, recording.length / (double) SAMPLE_RATE,
+            result.getOverallScore(), result.getPronunciationScore(), result.getFluencyScore(), result.getIntonationScore());
+    }
+
+    @Benchmark
+    public PronunciationResult score() {
+        return scorer.score(reference, recording, text, null);
+    }
+
+    /**
+     * 共振峰合成：formantScale 模拟声道长度，f0 为基频，tempo 为时长倍数，前后各留 0.3 秒静音
+     */
+    private static float[] synthesize(int[] phones, double formantScale, double f0, double tempo, long seed) {
+        Random random = new Random(seed);
+        int silence = (int) (0.3 * SAMPLE_RATE);
+        int[] lengths = new int[phones.length];
+        int total = 2 * silence;
+        for (int i = 0; i < phones.length; i++) {
+            lengths[i] = (int) (PHONE_SECONDS * tempo * (0.8 + 0.4 * random.nextDouble()) * SAMPLE_RATE);
+            total += lengths[i];
+        }
+        float[] out = new float[total];
+        double[] y1 = new double[3];
+        double[] y2 = new double[3];
+        double phase = 0;
+        int pos = silence;
+        for (int p = 0; p < phones.length; p++) {
+            double[] formants = PHONES[phones[p]];
+            boolean voiced = formants[0] > 0;
+            double[] a1 = new double[3];
+            double[] a2 = new double[3];
+            for (int k = 0; k < 3; k++) {
+                double f = Math.min(7500, (voiced || k > 0 ? formants[k] : formants[1] * 0.6) * formantScale);
+                double r = Math.exp(-Math.PI * (80 + 0.05 * f) / SAMPLE_RATE);
+                a1[k] = 2 * r * Math.cos(2 * Math.PI * f / SAMPLE_RATE);
+                a2[k] = -r * r;
+            }
+            int n = lengths[p];
+            for (int i = 0; i < n; i++) {
+                // 整句缓慢下降的语调
+                double pitch = f0 * (1.15 - 0.3 * (pos - silence) / (double) (total - 2 * silence));
+                double source;
+                if (voiced) {
+                    phase += pitch / SAMPLE_RATE;
+                    if (phase >= 1) {
+                        phase -= 1;
+                    }
+                    source = phase < 0.05 ? 0.95 : -0.05;
+                } else {
+                    source = (random.nextDouble() - 0.5) * 0.5;
+                }
+                double envelope = Math.min(1, Math.min(i, n - i) / (0.01 * SAMPLE_RATE));
+                double sum = 0;
+                for (int k = 0; k < 3; k++) {
+                    double y = source + a1[k] * y1[k] + a2[k] * y2[k];
+                    y2[k] = y1[k];
+                    y1[k] = y;
+                    sum += y / (k + 1);
+                }
+                out[pos++] = (float) (sum * envelope * 0.01);
+            }
+        }
+        float max = 1e-9f;
+        for (float v : out) {
+            max = Math.max(max, Math.abs(v));
+        }
+        for (int i = 0; i < out.length; i++) {
+            out[i] = out[i] / max * 0.8f + (float) (random.nextGaussian() * 0.005);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.finance.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 基准用字幕样本（src/jmh/resources/vtt）
+ *
+ * - en-manual：人工英文字幕（实体、斜体/声音标签、多行 cue）
+ * - en-auto：YouTube 英文自动字幕（滚动格式，逐词时间戳）
+ * - zh / ja：中文、日文字幕
+ *
+ * short 为样本原文；3h 把样本的 cue 按时间平移重复拼接，直到总时长达到 3 小时，
+ * 模拟长直播/讲座回放的字幕规模。
+ */
+final class SubtitleCorpus {
+
+    static final double THREE_HOURS = 3 * 3600;
+
+    private static final Pattern TIMESTAMP = Pattern.compile("(\\d{2}):(\\d{2}):(\\d{2})\\.(\\d{3})");
+
+    private SubtitleCorpus() {
+    }
+
+    /**
+     * 样本对应的字幕语言
+     */
+    static String language(String sample) {
+        switch (sample) {
+            case "zh":
+                return "zh-Hans";
+            case "ja":
+                return "ja";
+            default:
+                return "en";
+        }
+    }
+
+    /**
+     * 读取样本的 VTT 文本行
+     *
+     * @param size short 或 3h
+     */
+    static List<String> lines(String sample, String size) throws IOException {
+        List<String> lines = Arrays.asList(read("vtt/" + sample + ".vtt").split("\r?\n", -1));
+        if ("short".equals(size)) {
+            return lines;
+        }
+        if (!"3h".equals(size)) {
+            throw new IllegalArgumentException("未知样本规模: " + size);
+        }
+        return repeatToDuration(lines, THREE_HOURS);
+    }
+
+    private static List<String> repeatToDuration(List<String> lines, double targetSeconds) {
+        // 头部（第一个 cue 之前的部分）只保留一份
+        int firstCue = 0;
+        while (firstCue < lines.size() && !lines.get(firstCue).contains("-->")) {
+            firstCue++;
+        }
+        // 带序号的 cue 序号行在时间行之前
+        if (firstCue > 0 && !lines.get(firstCue - 1).trim().isEmpty()
+                && !lines.get(firstCue - 1).startsWith("WEBVTT")
+                && !lines.get(firstCue - 1).contains(":")) {
+            firstCue--;
+        }
+        List<String> header = lines.subList(0, firstCue);
+        List<String> body = lines.subList(firstCue, lines.size());
+
+        double period = 0;
+        for (String line : body) {
+            if (line.contains("-->")) {
+                Matcher m = TIMESTAMP.matcher(line.substring(line.indexOf("-->")));
+                if (m.find()) {
+                    period = Math.max(period, toSeconds(m));
+                }
+            }
+        }
+        period = Math.ceil(period + 1);
+
+        List<String> result = new ArrayList<>(header);
+        for (int r = 0; r * period < targetSeconds; r++) {
+            long offsetMs = Math.round(r * period * 1000);
+            for (String line : body) {
+                result.add(offsetMs == 0 ? line : shift(line, offsetMs));
+            }
+            result.add("");
+        }
+        return result;
+    }
+
+    private static String shift(String line, long offsetMs) {
+        Matcher m = TIMESTAMP.matcher(line);
+        if (!m.find()) {
+            return line;
+        }
+        StringBuilder sb = new StringBuilder(line.length());
+        int last = 0;
+        do {
+            long ms = Math.round(toSeconds(m) * 1000) + offsetMs;
+            sb.append(line, last, m.start());
+            sb.append(String.format("%02d:%02d:%02d.%03d", ms / 3_600_000, ms / 60_000 % 60, ms / 1000 % 60, ms % 1000));
+            last = m.end();
+        } while (m.find());
+        sb.append(line, last, line.length());
+        return sb.toString();
+    }
+
+    private static double toSeconds(Matcher m) {
+        return Integer.parseInt(m.group(1)) * 3600 + Integer.parseInt(m.group(2)) * 60
+            + Integer.parseInt(m.group(3)) + Integer.parseInt(m.group(4)) / 1000.0;
+    }
+
+    private static String read(String resource) throws IOException {
+        try (InputStream in = SubtitleCorpus.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("样本不存在: " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
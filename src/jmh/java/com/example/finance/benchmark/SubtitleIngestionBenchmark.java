@@ -0,0 +1,131 @@
+package com.example.finance.benchmark;
+
+import com.example.finance.followread.PhoneticTranscriber;
+import com.example.finance.followread.SentenceUnit;
+import com.example.finance.followread.SubtitleLanguage;
+import com.example.finance.followread.SubtitleSegment;
+import com.example.finance.followread.SubtitleSentenceProcessor;
+import com.example.finance.followread.SubtitleTextNormalizer;
+import com.example.finance.followread.VttSubtitleParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 字幕入库热点路径基准：VTT 解析、文本清洗、句子切分（边界识别 + 过滤 + 难度）、填充词移除、难度评估、
+ * 英文句子音标生成（与 buildSentences 对比即可看出音标在一次解析中的占比）
+ *
+ * 每个样本（英文人工字幕 / 英文滚动自动字幕 / 中文 / 日文）分 short 和 3h 两种规模，
+ * 每次调用处理整份字幕，结果单位 ops/s 即"每秒可处理的字幕文件数"。
+ *
+ * 生成可对比的 JSON 报告（含分配速率）：
+ *   mvn -Pbenchmark verify -Djmh.include=SubtitleIngestionBenchmark -Djmh.args="-f 1 -prof gc"
+ * 报告写入 target/benchmark/jmh-result.json，改动前后各跑一次即可逐项对比。
+ * 只跑部分组合可追加 -p sample=en-auto -p size=3h。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubtitleIngestionBenchmark {
+
+    // 与 YoutubeVideoService.generateLearningSentences 一致
+    private static final double MERGE_MAX_GAP = 2.5;
+
+    @Param({"en-manual", "en-auto", "zh", "ja"})
+    public String sample;
+
+    @Param({"short", "3h"})
+    public String size;
+
+    private final SubtitleTextNormalizer normalizer = new SubtitleTextNormalizer();
+    private final VttSubtitleParser parser = new VttSubtitleParser(normalizer);
+    private final SubtitleSentenceProcessor processor = new SubtitleSentenceProcessor();
+    private final PhoneticTranscriber phoneticTranscriber = new PhoneticTranscriber();
+
+    private String language;
+    private boolean cjk;
+    private List<String> lines;
+    private List<SubtitleSegment> segments;
+    private List<String> segmentTexts;
+    private List<String> sentenceTexts;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        language = SubtitleCorpus.language(sample);
+        cjk = SubtitleLanguage.isCjk(language);
+        lines = SubtitleCorpus.lines(sample, size);
+        phoneticTranscriber.init();
+        segments = parser.parse(lines, 1L, language);
+        if (segments.isEmpty()) {
+            throw new IllegalStateException("样本没有解析出字幕片段: " + sample);
+        }
+
+        segmentTexts = new ArrayList<>();
+        for (SubtitleSegment segment : segments) {
+            segmentTexts.add(segment.getCleanText());
+        }
+        sentenceTexts = new ArrayList<>();
+        for (SentenceUnit unit : buildSentences()) {
+            sentenceTexts.add(unit.getText());
+        }
+    }
+
+    @Benchmark
+    public List<SubtitleSegment> parseVtt() {
+        return parser.parse(lines, 1L, language);
+    }
+
+    @Benchmark
+    public void cleanText(Blackhole bh) {
+        for (SubtitleSegment segment : segments) {
+            bh.consume(normalizer.normalize(segment.getRawText(), cjk));
+        }
+    }
+
+    @Benchmark
+    public List<SentenceUnit> buildSentences() {
+        return processor.buildSentences(segments, language, MERGE_MAX_GAP, "auto");
+    }
+
+    @Benchmark
+    public void removeFillerWords(Blackhole bh) {
+        for (String text : segmentTexts) {
+            bh.consume(processor.removeFillerWords(text, language));
+        }
+    }
+
+    @Benchmark
+    public void calculateDifficulty(Blackhole bh) {
+        for (String text : sentenceTexts) {
+            bh.consume(processor.calculateDifficulty(text, "auto", language));
+        }
+    }
+
+    @Benchmark
+    public void transcribePhonetics(Blackhole bh) {
+        if (!PhoneticTranscriber.supports(language)) {
+            return;
+        }
+        for (String text : sentenceTexts) {
+            bh.consume(phoneticTranscriber.transcribe(text));
+        }
+    }
+}
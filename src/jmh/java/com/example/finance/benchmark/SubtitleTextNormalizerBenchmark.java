@@ -0,0 +1,144 @@
+package com.example.finance.benchmark;
+
+import com.example.finance.followread.SubtitleTextNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 字幕文本清洗基准：原来的 replace/replaceAll 链 vs SubtitleTextNormalizer 单遍扫描
+ *
+ * 样本是 src/jmh/resources/vtt 下的真实格式字幕（人工英文字幕、YouTube 滚动自动字幕、中文字幕），
+ * 按解析流程取出每个 cue 的原始文本，一次调用清洗整个文件的全部 cue。
+ * Setup 阶段会逐条比对两种实现的输出，不一致时直接失败。
+ *
+ * 运行：mvn -Pbenchmark verify -Djmh.include=SubtitleTextNormalizerBenchmark
+ * 查看分配：-Djmh.args="-f 1 -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubtitleTextNormalizerBenchmark {
+
+    @Param({"en-manual", "en-auto", "zh"})
+    public String sample;
+
+    private final SubtitleTextNormalizer normalizer = new SubtitleTextNormalizer();
+
+    private List<String> cues;
+    private boolean cjk;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        cues = readCueTexts("vtt/" + sample + ".vtt");
+        cjk = sample.startsWith("zh");
+
+        for (String cue : cues) {
+            String expected = legacyCleanText(cue, cjk);
+            String actual = normalizer.normalize(cue, cjk);
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException("清洗结果不一致: [" + cue + "] legacy=[" + expected + "] normalizer=[" + actual + "]");
+            }
+        }
+    }
+
+    @Benchmark
+    public void legacyRegex(Blackhole bh) {
+        for (String cue : cues) {
+            bh.consume(legacyCleanText(cue, cjk));
+        }
+    }
+
+    @Benchmark
+    public void singlePass(Blackhole bh) {
+        for (String cue : cues) {
+            bh.consume(normalizer.normalize(cue, cjk));
+        }
+    }
+
+    /**
+     * 取出每个 cue 的文本行并用空格拼接（与 YoutubeVideoService.parseVttFile 的普通 VTT 分支一致）
+     */
+    static List<String> readCueTexts(String resource) throws IOException {
+        String content;
+        try (InputStream in = SubtitleTextNormalizerBenchmark.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("样本不存在: " + resource);
+            }
+            content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        List<String> cues = new ArrayList<>();
+        String[] lines = content.split("\r?\n");
+        int i = 0;
+        while (i < lines.length) {
+            if (!lines[i].contains("-->")) {
+                i++;
+                continue;
+            }
+            i++;
+            StringBuilder sb = new StringBuilder();
+            while (i < lines.length && !lines[i].trim().isEmpty() && !lines[i].contains("-->")) {
+                sb.append(lines[i].trim()).append(' ');
+                i++;
+            }
+            String text = sb.toString().trim();
+            if (!text.isEmpty()) {
+                cues.add(text);
+            }
+        }
+        return cues;
+    }
+
+    /**
+     * 改造前的实现（YoutubeVideoService.cleanText + decodeHtmlEntities），作为对照组
+     */
+    static String legacyCleanText(String text, boolean cjk) {
+        text = legacyDecodeHtmlEntities(text);
+        text = text.replaceAll("<[^>]+>", "");
+        text = text.replaceAll("\\s+", " ");
+        if (cjk) {
+            text = text.replaceAll("[\\p{Cntrl}&&[^\n\r\t]]", "");
+        } else {
+            text = text.replaceAll("[^a-zA-Z0-9\\s,.!?'-]", "");
+        }
+        return text.trim();
+    }
+
+    private static String legacyDecodeHtmlEntities(String text) {
+        if (text == null) return "";
+        text = text.replace("&nbsp;", " ");
+        text = text.replace("&amp;", "&");
+        text = text.replace("&lt;", "<");
+        text = text.replace("&gt;", ">");
+        text = text.replace("&quot;", "\"");
+        text = text.replace("&#39;", "'");
+        text = text.replace("&apos;", "'");
+        text = text.replace("&ndash;", "-");
+        text = text.replace("&mdash;", "-");
+        text = text.replace("&hellip;", "...");
+        text = text.replaceAll("&#160;", " ");
+        text = text.replaceAll("&#\\d+;", "");
+        return text;
+    }
+}
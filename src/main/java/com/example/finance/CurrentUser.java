@@ -0,0 +1,52 @@
+package com.example.finance;
+
+/**
+ * 当前登录用户的只读快照（缓存在 CurrentUserResolver 中，不含密码）
+ */
+public class CurrentUser {
+
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final String fullName;
+    private final String provider;
+    private final String avatarUrl;
+
+    public CurrentUser(Long id, String username, String email, String fullName, String provider, String avatarUrl) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.fullName = fullName;
+        this.provider = provider;
+        this.avatarUrl = avatarUrl;
+    }
+
+    public static CurrentUser of(User user) {
+        return new CurrentUser(user.getId(), user.getUsername(), user.getEmail(),
+            user.getFullName(), user.getProvider(), user.getAvatarUrl());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public String getAvatarUrl() {
+        return avatarUrl;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.finance;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 当前用户解析
+ *
+ * 登录时（表单登录 / OAuth2）把用户信息放进缓存，OAuth2 用户还会把 userId 写进 principal 属性，
+ * 之后的 API 请求按 principal 直接取缓存，不再每次查询 users 表。
+ * 缓存按访问顺序淘汰（LRU），用户资料变化时调用 {@link #invalidate(Long)}。
+ */
+@Component
+public class CurrentUserResolver {
+
+    /**
+     * OAuth2 principal 属性名 / Session 属性名：登录时写入的用户 ID
+     */
+    public static final String USER_ID_ATTRIBUTE = "userId";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${current-user.cache-size:1000}")
+    private int cacheSize;
+
+    private Map<String, CurrentUser> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CurrentUser> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * 解析当前用户（未登录返回 empty）
+     */
+    public Optional<CurrentUser> resolve(Authentication authentication) {
+        if (!isAuthenticated(authentication)) {
+            return Optional.empty();
+        }
+        String key = principalKey(authentication);
+        CurrentUser cached = get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<User> user = loadUser(authentication);
+        user.ifPresent(u -> put(key, CurrentUser.of(u)));
+        return user.map(CurrentUser::of);
+    }
+
+    /**
+     * 解析当前用户 ID，未登录或用户不存在时返回 defaultUserId
+     */
+    public Long resolveUserId(Authentication authentication, Long defaultUserId) {
+        if (isAuthenticated(authentication) && authentication.getPrincipal() instanceof OAuth2User oauth2User) {
+            // OAuth2 登录时已把 userId 写进 principal，无需查缓存
+            Object userId = oauth2User.getAttribute(USER_ID_ATTRIBUTE);
+            if (userId instanceof Long id) {
+                return id;
+            }
+        }
+        return resolve(authentication).map(CurrentUser::getId).orElse(defaultUserId);
+    }
+
+    /**
+     * 按用户 ID 获取（Session 降级场景）
+     */
+    public Optional<CurrentUser> resolveById(Long userId) {
+        String key = "id:" + userId;
+        CurrentUser cached = get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<User> user = userRepository.findById(userId);
+        user.ifPresent(u -> put(key, CurrentUser.of(u)));
+        return user.map(CurrentUser::of);
+    }
+
+    /**
+     * 表单登录成功后调用
+     */
+    public void rememberLocalLogin(User user) {
+        invalidate(user.getId());
+        put("local:" + user.getUsername(), CurrentUser.of(user));
+    }
+
+    /**
+     * OAuth2 登录成功后调用（principalName 为第三方平台的用户标识，即 Authentication.getName()）
+     */
+    public void rememberOAuth2Login(String registrationId, String principalName, User user) {
+        invalidate(user.getId());
+        put(registrationId + ":" + principalName, CurrentUser.of(user));
+    }
+
+    /**
+     * 用户资料变化时清除该用户的所有缓存项
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        synchronized (cache) {
+            cache.values().removeIf(user -> userId.equals(user.getId()));
+        }
+    }
+
+    private boolean isAuthenticated(Authentication authentication) {
+        return authentication != null && authentication.isAuthenticated()
+            && !"anonymousUser".equals(authentication.getPrincipal());
+    }
+
+    private String principalKey(Authentication authentication) {
+        if (authentication instanceof OAuth2AuthenticationToken oauth2) {
+            return oauth2.getAuthorizedClientRegistrationId() + ":" + oauth2.getName();
+        }
+        return "local:" + authentication.getName();
+    }
+
+    private Optional<User> loadUser(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof OAuth2User oauth2User) {
+            Object userId = oauth2User.getAttribute(USER_ID_ATTRIBUTE);
+            if (userId instanceof Long id) {
+                return userRepository.findById(id);
+            }
+            if (authentication instanceof OAuth2AuthenticationToken oauth2) {
+                Optional<User> user = userRepository.findByProviderAndProviderId(
+                    oauth2.getAuthorizedClientRegistrationId(), oauth2.getName());
+                if (user.isPresent()) {
+                    return user;
+                }
+            }
+            String email = oauth2User.getAttribute("email");
+            if (email != null) {
+                return userRepository.findByEmail(email);
+            }
+        }
+        return userRepository.findByUsername(authentication.getName());
+    }
+
+    private CurrentUser get(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private void put(String key, CurrentUser user) {
+        synchronized (cache) {
+            cache.put(key, user);
+        }
+    }
+}
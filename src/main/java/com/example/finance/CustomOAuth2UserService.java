@@ -6,10 +6,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
@@ -26,6 +28,9 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
         OAuth2User oauth2User = super.loadUser(userRequest);
@@ -72,7 +77,15 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
         log.info("OAuth2 用户登录成功: userId={}, username={}, provider={}",
             user.getId(), user.getUsername(), provider);
 
-        return oauth2User;
+        // 把本地用户 ID 写进 principal，后续请求无需再按第三方 ID 查询用户
+        Map<String, Object> principalAttributes = new HashMap<>(attributes);
+        principalAttributes.put(CurrentUserResolver.USER_ID_ATTRIBUTE, user.getId());
+        String userNameAttribute = userRequest.getClientRegistration().getProviderDetails()
+            .getUserInfoEndpoint().getUserNameAttributeName();
+        OAuth2User principal = new DefaultOAuth2User(oauth2User.getAuthorities(), principalAttributes, userNameAttribute);
+        currentUserResolver.rememberOAuth2Login(provider, principal.getName(), user);
+
+        return principal;
     }
 
     /**
@@ -28,6 +28,9 @@ public class UserController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody RegisterRequest request) {
         Map<String, String> response = new HashMap<>();
@@ -104,8 +107,9 @@ public class UserController {
         user.setLastLoginAt(LocalDateTime.now());
         userRepository.save(user);
 
-        // 设置会话
-        session.setAttribute("userId", user.getId());
+        // 设置会话，并缓存用户信息供后续请求解析
+        session.setAttribute(CurrentUserResolver.USER_ID_ATTRIBUTE, user.getId());
+        currentUserResolver.rememberLocalLogin(user);
         session.setAttribute("username", user.getUsername());
 
         // 设置 Spring Security 认证信息
@@ -147,42 +151,19 @@ public class UserController {
     public ResponseEntity<?> checkAuth(HttpSession session) {
         Map<String, Object> response = new HashMap<>();
 
-        // 优先检查 Spring Security 认证状态
+        // 优先检查 Spring Security 认证状态（登录时已缓存，不查库）
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.isAuthenticated()
-            && !"anonymousUser".equals(authentication.getPrincipal())) {
-
-            // 处理 OAuth2 用户
-            if (authentication.getPrincipal() instanceof org.springframework.security.oauth2.core.user.OAuth2User) {
-                org.springframework.security.oauth2.core.user.OAuth2User oauth2User =
-                    (org.springframework.security.oauth2.core.user.OAuth2User) authentication.getPrincipal();
-
-                String email = oauth2User.getAttribute("email");
-                if (email != null) {
-                    Optional<User> userOptional = userRepository.findByEmail(email);
-                    if (userOptional.isPresent()) {
-                        User user = userOptional.get();
-                        return ResponseEntity.ok(buildUserResponse(user));
-                    }
-                }
-            }
-
-            // 处理普通用户
-            String username = authentication.getName();
-            Optional<User> userOptional = userRepository.findByUsername(username);
-            if (userOptional.isPresent()) {
-                User user = userOptional.get();
-                return ResponseEntity.ok(buildUserResponse(user));
-            }
+        Optional<CurrentUser> currentUser = currentUserResolver.resolve(authentication);
+        if (currentUser.isPresent()) {
+            return ResponseEntity.ok(buildUserResponse(currentUser.get()));
         }
 
         // 降级检查 Session
-        Object userId = session.getAttribute("userId");
+        Object userId = session.getAttribute(CurrentUserResolver.USER_ID_ATTRIBUTE);
         if (userId != null) {
-            Optional<User> userOptional = userRepository.findById((Long) userId);
-            if (userOptional.isPresent()) {
-                User user = userOptional.get();
-                return ResponseEntity.ok(buildUserResponse(user));
+            currentUser = currentUserResolver.resolveById((Long) userId);
+            if (currentUser.isPresent()) {
+                return ResponseEntity.ok(buildUserResponse(currentUser.get()));
             }
         }
 
@@ -193,7 +174,7 @@ public class UserController {
     /**
      * 构建用户响应信息
      */
-    private Map<String, Object> buildUserResponse(User user) {
+    private Map<String, Object> buildUserResponse(CurrentUser user) {
         Map<String, Object> response = new HashMap<>();
         response.put("authenticated", true);
         response.put("username", user.getUsername());
@@ -0,0 +1,68 @@
+package com.example.finance.followread;
+
+/**
+ * 一段语音的逐帧声学特征（帧移 10ms），由 {@link MfccExtractor} 生成
+ *
+ * 所有逐帧数据都是平铺的 float 数组：mfcc[frame * NUM_CEPS + k]，便于顺序访问。
+ */
+public final class AcousticFeatures {
+
+    public static final int NUM_CEPS = 13;
+
+    final int frames;
+    // MFCC（c0 ~ c12），比较发音时只用 c1 ~ c12
+    final float[] mfcc;
+    // 对数能量
+    final float[] logEnergy;
+    // 音高（相对 100Hz 的半音数），清音/静音帧为 NaN
+    final float[] pitch;
+
+    AcousticFeatures(int frames) {
+        this.frames = frames;
+        this.mfcc = new float[frames * NUM_CEPS];
+        this.logEnergy = new float[frames];
+        this.pitch = new float[frames];
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    /**
+     * 帧 [from, to) 的副本
+     */
+    AcousticFeatures slice(int from, int to) {
+        AcousticFeatures copy = new AcousticFeatures(to - from);
+        System.arraycopy(mfcc, from * NUM_CEPS, copy.mfcc, 0, copy.mfcc.length);
+        System.arraycopy(logEnergy, from, copy.logEnergy, 0, copy.frames);
+        System.arraycopy(pitch, from, copy.pitch, 0, copy.frames);
+        return copy;
+    }
+
+    /**
+     * 倒谱均值方差归一化（CMVN）：消除麦克风、音量和说话人声道的整体差异，
+     * 归一化后不相关的两帧之间 c1 ~ c12 的欧氏距离期望约为 sqrt(2 * 12) ≈ 4.9
+     */
+    void normalize() {
+        if (frames < 2) {
+            return;
+        }
+        for (int k = 0; k < NUM_CEPS; k++) {
+            double sum = 0;
+            double sumSq = 0;
+            for (int f = 0; f < frames; f++) {
+                float v = mfcc[f * NUM_CEPS + k];
+                sum += v;
+                sumSq += v * v;
+            }
+            double mean = sum / frames;
+            double std = Math.sqrt(Math.max(sumSq / frames - mean * mean, 1e-8));
+            float m = (float) mean;
+            float inv = (float) (1 / std);
+            for (int f = 0; f < frames; f++) {
+                int i = f * NUM_CEPS + k;
+                mfcc[i] = (mfcc[i] - m) * inv;
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.finance.followread;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * ARPAbet 音素编码（CMUdict 使用的 39 个音素）与 IPA 转换
+ *
+ * 每个音素连同重音压成一个字节：音素序号 * 3 + 重音（0 无重音，1 主重音，2 次重音；辅音恒为 0），
+ * 词典和规则引擎都只处理这种字节序列，输出时再转成 IPA。
+ */
+final class Arpabet {
+
+    private static final String[] NAMES = {
+        "AA", "AE", "AH", "AO", "AW", "AY", "B", "CH", "D", "DH", "EH", "ER", "EY", "F", "G", "HH",
+        "IH", "IY", "JH", "K", "L", "M", "N", "NG", "OW", "OY", "P", "R", "S", "SH", "T", "TH",
+        "UH", "UW", "V", "W", "Y", "Z", "ZH"
+    };
+
+    // 与 NAMES 一一对应（美式发音）；AH、ER 的非重读形式见 toIpa
+    private static final String[] IPA = {
+        "ɑ", "æ", "ʌ", "ɔ", "aʊ", "aɪ", "b", "tʃ", "d", "ð", "ɛ", "ɜr", "eɪ", "f", "ɡ", "h",
+        "ɪ", "i", "dʒ", "k", "l", "m", "n", "ŋ", "oʊ", "ɔɪ", "p", "r", "s", "ʃ", "t", "θ",
+        "ʊ", "u", "v", "w", "j", "z", "ʒ"
+    };
+
+    static final int AH = index("AH");
+    static final int ER = index("ER");
+    static final int IY = index("IY");
+    static final int D = index("D");
+    static final int T = index("T");
+    static final int NG = index("NG");
+
+    // 可以作为音节首的辅音连缀（放重音符号时用最大首音原则）
+    private static final String[] ONSET_CLUSTERS = {
+        "P R", "P L", "B R", "B L", "T R", "D R", "K R", "K L", "G R", "G L", "F R", "F L",
+        "TH R", "SH R", "S P", "S T", "S K", "S M", "S N", "S L", "S W", "S F",
+        "S P R", "S T R", "S K R", "S P L", "S K W", "S K Y", "S P Y",
+        "T W", "D W", "K W", "G W", "TH W",
+        "P Y", "B Y", "F Y", "V Y", "M Y", "K Y", "HH Y"
+    };
+    private static final Set<String> ONSETS = Set.of(ONSET_CLUSTERS);
+
+    private static final boolean[] VOWELS = new boolean[NAMES.length];
+    // 音素名（一两个大写字母）到序号的直接索引，加载词典时不用逐个比较字符串
+    private static final byte[] BY_LETTERS = new byte[27 * 27];
+
+    static {
+        Arrays.fill(BY_LETTERS, (byte) -1);
+        for (int i = 0; i < NAMES.length; i++) {
+            String name = NAMES[i];
+            char c = name.charAt(0);
+            VOWELS[i] = c == 'A' || c == 'E' || c == 'I' || c == 'O' || c == 'U';
+            BY_LETTERS[letters(c, name.length() > 1 ? name.charAt(1) : 0)] = (byte) i;
+        }
+    }
+
+    private Arpabet() {
+    }
+
+    /**
+     * 音素名（如 "AH0"、"K"）编码为字节，无法识别时返回 -1
+     */
+    static int encode(String token) {
+        return encode(token, 0, token.length());
+    }
+
+    /**
+     * 编码 text[start, end) 中的音素名
+     */
+    static int encode(CharSequence text, int start, int end) {
+        int stress = 0;
+        char last = text.charAt(end - 1);
+        if (last >= '0' && last <= '2') {
+            stress = last - '0';
+            end--;
+        }
+        int length = end - start;
+        if (length < 1 || length > 2) {
+            return -1;
+        }
+        char first = text.charAt(start);
+        char second = length == 2 ? text.charAt(start + 1) : 0;
+        if (!isUpper(first) || length == 2 && !isUpper(second)) {
+            return -1;
+        }
+        int phone = BY_LETTERS[letters(first, second)];
+        if (phone < 0) {
+            return -1;
+        }
+        return phone * 3 + (isVowel(phone) ? stress : 0);
+    }
+
+    static int code(int phone, int stress) {
+        return phone * 3 + stress;
+    }
+
+    static int phone(int code) {
+        return code / 3;
+    }
+
+    static int stress(int code) {
+        return code % 3;
+    }
+
+    static boolean isVowel(int phone) {
+        return VOWELS[phone];
+    }
+
+    /**
+     * 清辅音（复数、过去式词尾据此选择 /s/、/t/）
+     */
+    static boolean isVoiceless(int phone) {
+        String name = NAMES[phone];
+        return name.equals("P") || name.equals("T") || name.equals("K") || name.equals("F")
+            || name.equals("TH") || name.equals("S") || name.equals("SH") || name.equals("CH") || name.equals("HH");
+    }
+
+    /**
+     * 咝音（复数词尾读 /ɪz/）
+     */
+    static boolean isSibilant(int phone) {
+        String name = NAMES[phone];
+        return name.equals("S") || name.equals("Z") || name.equals("SH") || name.equals("ZH")
+            || name.equals("CH") || name.equals("JH");
+    }
+
+    /**
+     * 一个词的音素序列转成 IPA；多音节词在重读音节前加 ˈ / ˌ，单音节词不标重音
+     */
+    static void toIpa(byte[] codes, StringBuilder out) {
+        int vowels = 0;
+        for (byte code : codes) {
+            if (isVowel(phone(code))) {
+                vowels++;
+            }
+        }
+        int previousVowel = -1;
+        int written = 0;
+        StringBuilder word = new StringBuilder();
+        int[] positions = new int[codes.length + 1];
+        for (int i = 0; i < codes.length; i++) {
+            positions[i] = word.length();
+            int phone = phone(codes[i]);
+            int stress = stress(codes[i]);
+            if (phone == AH) {
+                word.append(stress == 0 ? "ə" : "ʌ");
+            } else if (phone == ER) {
+                word.append(stress == 0 ? "ər" : "ɜr");
+            } else {
+                word.append(IPA[phone]);
+            }
+        }
+        positions[codes.length] = word.length();
+        if (vowels < 2) {
+            out.append(word);
+            return;
+        }
+        for (int i = 0; i < codes.length; i++) {
+            int phone = phone(codes[i]);
+            if (!isVowel(phone)) {
+                continue;
+            }
+            int stress = stress(codes[i]);
+            if (stress > 0) {
+                int onset = onsetStart(codes, previousVowel, i);
+                out.append(word, positions[written], positions[onset]);
+                out.append(stress == 1 ? 'ˈ' : 'ˌ');
+                written = onset;
+            }
+            previousVowel = i;
+        }
+        out.append(word, positions[written], positions[codes.length]);
+    }
+
+    /**
+     * 元音 vowel 所在音节的起点：向前取能构成合法音节首的最长辅音串（最大首音原则）
+     */
+    private static int onsetStart(byte[] codes, int previousVowel, int vowel) {
+        // 第一个音节包含词首所有辅音
+        if (previousVowel < 0) {
+            return 0;
+        }
+        int start = vowel;
+        for (int j = vowel - 1; j > previousVowel; j--) {
+            if (!isOnset(codes, j, vowel)) {
+                break;
+            }
+            start = j;
+        }
+        return start;
+    }
+
+    private static boolean isOnset(byte[] codes, int from, int to) {
+        if (to - from == 1) {
+            return phone(codes[from]) != NG;
+        }
+        StringBuilder cluster = new StringBuilder();
+        for (int k = from; k < to; k++) {
+            if (cluster.length() > 0) {
+                cluster.append(' ');
+            }
+            cluster.append(NAMES[phone(codes[k])]);
+        }
+        return ONSETS.contains(cluster.toString());
+    }
+
+    private static int letters(char first, char second) {
+        return (first - 'A') * 27 + (second == 0 ? 26 : second - 'A');
+    }
+
+    private static boolean isUpper(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static int index(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
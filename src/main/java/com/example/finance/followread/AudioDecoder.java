@@ -0,0 +1,296 @@
+package com.example.finance.followread;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 音频解码：统一输出 16kHz 单声道 float 采样（[-1, 1]）
+ *
+ * - PCM / float WAV 直接在 Java 中解析，下混为单声道并重采样
+ * - 其他格式（浏览器 MediaRecorder 录制的 WebM/Opus、下载的 mp4/mp3 等）交给本机 ffmpeg 解码
+ */
+@Component
+public class AudioDecoder {
+
+    public static final int SAMPLE_RATE = 16000;
+
+    // ffmpeg 解码超时
+    private static final long FFMPEG_TIMEOUT_SECONDS = 60;
+
+    @Value("${pronunciation.ffmpeg-path:ffmpeg}")
+    private String ffmpegPath = "ffmpeg";
+
+    /**
+     * 解码整个文件
+     */
+    public float[] decode(Path file) throws IOException {
+        return decodeAtMost(file, -1);
+    }
+
+    /**
+     * 解码文件的前 maxSeconds 秒（maxSeconds <= 0 表示不限制）
+     *
+     * WAV 通过只读内存映射直接读取采样，不把文件整体读入堆；
+     * ffmpeg 用 -t 截断输出，超长录音也只会读入 maxSeconds 秒的数据。
+     */
+    public float[] decodeAtMost(Path file, double maxSeconds) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() >= 12) {
+                ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (isWav(data)) {
+                    float[] samples = decodeWav(data);
+                    if (samples != null) {
+                        int limit = maxSeconds > 0 ? (int) Math.min(samples.length, maxSeconds * SAMPLE_RATE) : samples.length;
+                        return limit < samples.length ? Arrays.copyOf(samples, limit) : samples;
+                    }
+                }
+            }
+        }
+        return decodeWithFfmpeg(file.toString(), -1, maxSeconds);
+    }
+
+    /**
+     * WAV 头中声明的时长（秒），data 块长度超出文件实际大小（边录边写的 WAV 常见）时按文件大小计算；
+     * 不是 WAV 或头部不完整时返回 -1
+     */
+    public static double wavDurationSeconds(ByteBuffer header, long fileSize) {
+        if (!isWav(header)) {
+            return -1;
+        }
+        ByteBuffer buffer = header.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int byteRate = 0;
+        int pos = 12;
+        while (pos + 8 <= buffer.limit()) {
+            int size = buffer.getInt(pos + 4);
+            if (chunkIs(buffer, pos, "data")) {
+                long dataBytes = Math.min(size & 0xFFFFFFFFL, fileSize - pos - 8);
+                return byteRate > 0 ? (double) dataBytes / byteRate : -1;
+            }
+            if (size < 0) {
+                return -1;
+            }
+            if (chunkIs(buffer, pos, "fmt ") && pos + 20 <= buffer.limit()) {
+                byteRate = buffer.getInt(pos + 16);
+            }
+            pos = pos + 8 + size + (size & 1);
+        }
+        return -1;
+    }
+
+    /**
+     * 解码文件中 [startSeconds, startSeconds + durationSeconds) 的片段（用于从视频中截取参考音频）
+     */
+    public float[] decode(Path file, double startSeconds, double durationSeconds) throws IOException {
+        return decodeWithFfmpeg(file.toString(), startSeconds, durationSeconds);
+    }
+
+    /**
+     * 解码远程媒体地址中的片段（ffmpeg 按 HTTP Range 跳转，只下载需要的部分）
+     */
+    public float[] decodeUrl(String url, double startSeconds, double durationSeconds) throws IOException {
+        return decodeWithFfmpeg(url, startSeconds, durationSeconds);
+    }
+
+    /**
+     * 保存为 16kHz 单声道 16 位 PCM WAV
+     */
+    public static void writeWav(Path file, float[] samples) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(44 + samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(new byte[]{'R', 'I', 'F', 'F'}).putInt(36 + samples.length * 2)
+            .put(new byte[]{'W', 'A', 'V', 'E', 'f', 'm', 't', ' '}).putInt(16)
+            .putShort((short) 1).putShort((short) 1).putInt(SAMPLE_RATE).putInt(SAMPLE_RATE * 2)
+            .putShort((short) 2).putShort((short) 16)
+            .put(new byte[]{'d', 'a', 't', 'a'}).putInt(samples.length * 2);
+        for (float sample : samples) {
+            buffer.putShort((short) Math.round(Math.max(-1f, Math.min(1f, sample)) * 32767));
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.write(file, buffer.array());
+    }
+
+    /**
+     * 解析 WAV（PCM 8/16/24/32 位或 32 位 float），其他编码返回 null
+     */
+    static float[] decodeWav(ByteBuffer data) {
+        ByteBuffer buffer = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int format = -1;
+        int channels = 0;
+        int sampleRate = 0;
+        int bits = 0;
+        int pos = 12;
+        while (pos + 8 <= buffer.limit()) {
+            int size = buffer.getInt(pos + 4);
+            int body = pos + 8;
+            if (size < 0 && !chunkIs(buffer, pos, "data")) {
+                return null;
+            }
+            if (chunkIs(buffer, pos, "fmt ") && size >= 16) {
+                format = buffer.getShort(body) & 0xFFFF;
+                channels = buffer.getShort(body + 2) & 0xFFFF;
+                sampleRate = buffer.getInt(body + 4);
+                bits = buffer.getShort(body + 14) & 0xFFFF;
+                if (format == 0xFFFE && size >= 26) {
+                    // WAVE_FORMAT_EXTENSIBLE：实际编码在子格式 GUID 的前两个字节
+                    format = buffer.getShort(body + 24) & 0xFFFF;
+                }
+            } else if (chunkIs(buffer, pos, "data")) {
+                if (channels <= 0 || sampleRate <= 0) {
+                    return null;
+                }
+                // 边录边写的 WAV 可能把 data 长度写成 0xFFFFFFFF，以文件实际长度为准
+                int length = (int) Math.min(size & 0xFFFFFFFFL, buffer.limit() - body);
+                float[] mono = readMono(buffer, body, length, format, channels, bits);
+                return mono != null ? resample(mono, sampleRate) : null;
+            }
+            pos = body + size + (size & 1);
+        }
+        return null;
+    }
+
+    private static float[] readMono(ByteBuffer buffer, int offset, int length, int format, int channels, int bits) {
+        int bytesPerSample = bits / 8;
+        boolean pcm = format == 1 && (bits == 8 || bits == 16 || bits == 24 || bits == 32);
+        boolean ieeeFloat = format == 3 && bits == 32;
+        if (!pcm && !ieeeFloat) {
+            return null;
+        }
+        int frameBytes = bytesPerSample * channels;
+        int frames = length / frameBytes;
+        float[] mono = new float[frames];
+        for (int i = 0; i < frames; i++) {
+            float sum = 0;
+            int base = offset + i * frameBytes;
+            for (int c = 0; c < channels; c++) {
+                int p = base + c * bytesPerSample;
+                float value;
+                if (ieeeFloat) {
+                    value = buffer.getFloat(p);
+                } else if (bits == 8) {
+                    value = ((buffer.get(p) & 0xFF) - 128) / 128f;
+                } else if (bits == 16) {
+                    value = buffer.getShort(p) / 32768f;
+                } else if (bits == 24) {
+                    int v = (buffer.get(p) & 0xFF) | ((buffer.get(p + 1) & 0xFF) << 8) | (buffer.get(p + 2) << 16);
+                    value = v / 8388608f;
+                } else {
+                    value = buffer.getInt(p) / 2147483648f;
+                }
+                sum += value;
+            }
+            mono[i] = sum / channels;
+        }
+        return mono;
+    }
+
+    /**
+     * 重采样到 16kHz：降采样时先对每个输出点覆盖的输入区间取平均（简单抗混叠），升采样时线性插值
+     */
+    static float[] resample(float[] input, int sampleRate) {
+        if (sampleRate == SAMPLE_RATE) {
+            return input;
+        }
+        double ratio = (double) sampleRate / SAMPLE_RATE;
+        int outLength = (int) (input.length / ratio);
+        float[] out = new float[outLength];
+        if (ratio > 1) {
+            for (int i = 0; i < outLength; i++) {
+                int from = (int) (i * ratio);
+                int to = Math.min(input.length, Math.max(from + 1, (int) ((i + 1) * ratio)));
+                float sum = 0;
+                for (int k = from; k < to; k++) {
+                    sum += input[k];
+                }
+                out[i] = sum / (to - from);
+            }
+        } else {
+            for (int i = 0; i < outLength; i++) {
+                double x = i * ratio;
+                int k = (int) x;
+                float frac = (float) (x - k);
+                float a = input[k];
+                float b = k + 1 < input.length ? input[k + 1] : a;
+                out[i] = a + (b - a) * frac;
+            }
+        }
+        return out;
+    }
+
+    private float[] decodeWithFfmpeg(String input, double startSeconds, double durationSeconds) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(ffmpegPath);
+        command.add("-v");
+        command.add("error");
+        if (startSeconds >= 0) {
+            command.add("-ss");
+            command.add(String.format(Locale.ROOT, "%.3f", startSeconds));
+        }
+        command.add("-i");
+        command.add(input);
+        if (durationSeconds > 0) {
+            command.add("-t");
+            command.add(String.format(Locale.ROOT, "%.3f", durationSeconds));
+        }
+        command.add("-vn");
+        command.add("-ac");
+        command.add("1");
+        command.add("-ar");
+        command.add(String.valueOf(SAMPLE_RATE));
+        command.add("-f");
+        command.add("s16le");
+        command.add("-");
+
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        byte[] pcm;
+        try (InputStream in = process.getInputStream(); OutputStream ignored = process.getOutputStream()) {
+            pcm = in.readAllBytes();
+        }
+        try {
+            if (!process.waitFor(FFMPEG_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("ffmpeg 解码超时: " + input);
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("ffmpeg 解码被中断", e);
+        }
+        if (process.exitValue() != 0) {
+            throw new IOException("ffmpeg 解码失败(exit=" + process.exitValue() + "): " + input);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(pcm).order(ByteOrder.LITTLE_ENDIAN);
+        float[] samples = new float[pcm.length / 2];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = buffer.getShort(i * 2) / 32768f;
+        }
+        return samples;
+    }
+
+    private static boolean isWav(ByteBuffer data) {
+        return data.limit() >= 12 && chunkIs(data, 0, "RIFF") && chunkIs(data, 8, "WAVE");
+    }
+
+    private static boolean chunkIs(ByteBuffer data, int offset, String id) {
+        for (int i = 0; i < 4; i++) {
+            if (data.get(offset + i) != id.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.finance.followread;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 下载带宽调度：给每个下载中的任务分配 yt-dlp 的分片并发数（--concurrent-fragments）和限速（--limit-rate）
+ *
+ * 总分片连接数和总带宽按优先级权重（低 1、普通 2、高 4）在下载中的任务之间分配，分片数不超过单任务上限。
+ * 任务开始或结束时重新分配；yt-dlp 运行中不能修改参数，预算变化较大（限速变化 1.5 倍以上或分片数变化 2 倍以上）
+ * 且预计还要下载一段时间的任务会被重启（yt-dlp 从 .part 文件续传），同一任务两次重启至少间隔 RELAUNCH_COOLDOWN_MS，
+ * 冷却期间推迟的重启在之后的进度上报时进行。只在下载阶段、剩余时间已知时重启；开始合并/提取音频等后处理后不再重启。
+ * 每个任务根据进度统计实际吞吐量（当前速度取指数滑动平均，另记全程平均速度）。
+ */
+@Component
+public class BandwidthScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(BandwidthScheduler.class);
+
+    public static final int PRIORITY_LOW = 0;
+    public static final int PRIORITY_NORMAL = 1;
+    public static final int PRIORITY_HIGH = 2;
+
+    private static final double RATE_CHANGE_FACTOR = 1.5;
+    private static final double FRAGMENT_CHANGE_FACTOR = 2.0;
+    private static final long RELAUNCH_COOLDOWN_MS = 30_000;
+    private static final long MIN_RATE = 64 * 1024;
+    // 吞吐量滑动平均的时间常数（毫秒）
+    private static final double THROUGHPUT_TAU_MS = 5000;
+
+    // 所有下载任务每秒合计的带宽上限，0 表示不限速
+    @Value("${download.bandwidth.total-rate:0}")
+    private DataSize totalRate = DataSize.ofBytes(0);
+
+    // 所有下载任务合计的分片连接数
+    @Value("${download.bandwidth.total-fragments:16}")
+    private int totalFragments = 16;
+
+    // 单个任务的分片连接数上限
+    @Value("${download.bandwidth.max-fragments-per-task:8}")
+    private int maxFragmentsPerTask = 8;
+
+    // 预计剩余时间少于这个秒数的任务不因重新分配而重启（未知时视为足够长）
+    @Value("${download.bandwidth.relaunch-min-remaining-seconds:30}")
+    private long relaunchMinRemainingSeconds = 30;
+
+    private final Map<Long, Slot> slots = new LinkedHashMap<>();
+
+    /**
+     * 任务开始下载：加入分配并重新平衡其他任务，relaunch 用于以新预算重启该任务的下载进程
+     */
+    public void register(Long taskId, int priority, Runnable relaunch) {
+        List<Slot> relaunches;
+        synchronized (this) {
+            Slot slot = new Slot(taskId, priority, relaunch);
+            slots.put(taskId, slot);
+            relaunches = rebalance();
+        }
+        runRelaunches(relaunches);
+    }
+
+    /**
+     * 启动（或重启）下载进程前取当前预算，并记为该进程使用的预算
+     */
+    public synchronized Allocation launch(Long taskId) {
+        Slot slot = slots.get(taskId);
+        if (slot == null) {
+            return new Allocation(Math.min(totalFragments, maxFragmentsPerTask), rateLimited() ? totalRate.toBytes() : 0);
+        }
+        slot.launched = slot.target;
+        slot.launchedAt = System.currentTimeMillis();
+        return slot.launched;
+    }
+
+    /**
+     * 记录下载进度，downloadedBytes 变小说明开始下载另一个流（如视频后的音频）；
+     * 之前因冷却时间未到而推迟的重新分配在这里补上
+     */
+    public void reportProgress(Long taskId, Long downloadedBytes, long etaSeconds) {
+        Slot relaunch = null;
+        synchronized (this) {
+            Slot slot = slots.get(taskId);
+            if (slot == null || downloadedBytes == null) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            slot.etaSeconds = etaSeconds;
+            if (slot.lastSampleAt > 0 && downloadedBytes >= slot.lastBytes && now > slot.lastSampleAt) {
+                long delta = downloadedBytes - slot.lastBytes;
+                long elapsed = now - slot.lastSampleAt;
+                slot.transferredBytes += delta;
+                double instant = delta * 1000.0 / elapsed;
+                double alpha = 1 - Math.exp(-elapsed / THROUGHPUT_TAU_MS);
+                slot.throughput = slot.throughput == 0 ? instant : slot.throughput + alpha * (instant - slot.throughput);
+            }
+            slot.lastBytes = downloadedBytes;
+            slot.lastSampleAt = now;
+            if (shouldRelaunch(slot, now)) {
+                slot.launchedAt = now;
+                relaunch = slot;
+            }
+        }
+        if (relaunch != null) {
+            runRelaunches(List.of(relaunch));
+        }
+    }
+
+    /**
+     * 下载进程进入后处理（合并格式、提取音频等）：此后终止进程会丢掉处理到一半的输出，不再重启
+     */
+    public synchronized void reportPostProcessing(Long taskId) {
+        Slot slot = slots.get(taskId);
+        if (slot != null) {
+            slot.postProcessing = true;
+        }
+    }
+
+    /**
+     * 当前吞吐量（字节/秒），未在下载时为 0
+     */
+    public synchronized long throughput(Long taskId) {
+        Slot slot = slots.get(taskId);
+        return slot != null ? Math.round(slot.throughput) : 0;
+    }
+
+    /**
+     * 任务结束下载：释放预算并重新平衡，返回全程平均速度（字节/秒）
+     */
+    public long unregister(Long taskId) {
+        List<Slot> relaunches;
+        long average;
+        synchronized (this) {
+            Slot slot = slots.remove(taskId);
+            if (slot == null) {
+                return 0;
+            }
+            long elapsed = System.currentTimeMillis() - slot.registeredAt;
+            average = elapsed > 0 ? slot.transferredBytes * 1000 / elapsed : 0;
+            relaunches = rebalance();
+        }
+        runRelaunches(relaunches);
+        return average;
+    }
+
+    /**
+     * 下载中任务的预算和吞吐量
+     */
+    public synchronized List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Slot slot : slots.values()) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("taskId", slot.taskId);
+            item.put("priority", slot.priority);
+            Allocation allocation = slot.launched != null ? slot.launched : slot.target;
+            item.put("concurrentFragments", allocation.getConcurrentFragments());
+            item.put("rateLimit", allocation.getRateLimit());
+            item.put("throughput", Math.round(slot.throughput));
+            long elapsed = now - slot.registeredAt;
+            item.put("averageThroughput", elapsed > 0 ? slot.transferredBytes * 1000 / elapsed : 0);
+            item.put("relaunches", slot.relaunches);
+            result.add(item);
+        }
+        return result;
+    }
+
+    public static int parsePriority(String priority) {
+        if ("high".equalsIgnoreCase(priority)) {
+            return PRIORITY_HIGH;
+        }
+        if ("low".equalsIgnoreCase(priority)) {
+            return PRIORITY_LOW;
+        }
+        return PRIORITY_NORMAL;
+    }
+
+    /**
+     * 按权重重新计算所有任务的预算，返回需要重启的任务
+     */
+    private List<Slot> rebalance() {
+        List<Slot> relaunches = new ArrayList<>();
+        if (slots.isEmpty()) {
+            return relaunches;
+        }
+        long totalWeight = 0;
+        for (Slot slot : slots.values()) {
+            totalWeight += slot.weight;
+        }
+        long now = System.currentTimeMillis();
+        for (Slot slot : slots.values()) {
+            int fragments = (int) Math.max(1, Math.min(maxFragmentsPerTask, (long) totalFragments * slot.weight / totalWeight));
+            long rate = rateLimited() ? Math.max(MIN_RATE, totalRate.toBytes() * slot.weight / totalWeight) : 0;
+            slot.target = new Allocation(fragments, rate);
+            if (shouldRelaunch(slot, now)) {
+                slot.launchedAt = now;
+                relaunches.add(slot);
+            }
+        }
+        return relaunches;
+    }
+
+    /**
+     * 正在运行的进程预算与目标相差较大、距上次启动超过冷却时间，且仍在下载、已知的剩余时间超过阈值
+     *
+     * 剩余时间未知（还没有进度，或 yt-dlp 输出 N/A）时不重启，后处理阶段也不重启
+     */
+    private boolean shouldRelaunch(Slot slot, long now) {
+        return slot.launched != null && !slot.postProcessing && changedSignificantly(slot.launched, slot.target)
+            && now - slot.launchedAt >= RELAUNCH_COOLDOWN_MS
+            && slot.etaSeconds > relaunchMinRemainingSeconds;
+    }
+
+    private boolean changedSignificantly(Allocation launched, Allocation target) {
+        if (rateLimited() && ratio(launched.getRateLimit(), target.getRateLimit()) >= RATE_CHANGE_FACTOR) {
+            return true;
+        }
+        return ratio(launched.getConcurrentFragments(), target.getConcurrentFragments()) >= FRAGMENT_CHANGE_FACTOR;
+    }
+
+    private static double ratio(long a, long b) {
+        if (a <= 0 || b <= 0) {
+            return a == b ? 1 : Double.MAX_VALUE;
+        }
+        return a > b ? (double) a / b : (double) b / a;
+    }
+
+    private boolean rateLimited() {
+        return totalRate.toBytes() > 0;
+    }
+
+    private void runRelaunches(List<Slot> relaunches) {
+        for (Slot slot : relaunches) {
+            synchronized (this) {
+                slot.relaunches++;
+            }
+            log.info("下载预算变化，重启下载: taskId={}, target={}", slot.taskId, slot.target);
+            slot.relaunch.run();
+        }
+    }
+
+    /**
+     * 一个下载进程的预算：分片并发数和限速（字节/秒，0 表示不限速）
+     */
+    public static final class Allocation {
+
+        private final int concurrentFragments;
+        private final long rateLimit;
+
+        public Allocation(int concurrentFragments, long rateLimit) {
+            this.concurrentFragments = concurrentFragments;
+            this.rateLimit = rateLimit;
+        }
+
+        public int getConcurrentFragments() {
+            return concurrentFragments;
+        }
+
+        public long getRateLimit() {
+            return rateLimit;
+        }
+
+        @Override
+        public String toString() {
+            return "fragments=" + concurrentFragments + ", rate=" + (rateLimit > 0 ? rateLimit + "B/s" : "unlimited");
+        }
+    }
+
+    private static final class Slot {
+
+        final Long taskId;
+        final int priority;
+        final int weight;
+        final Runnable relaunch;
+        final long registeredAt = System.currentTimeMillis();
+
+        Allocation target;
+        Allocation launched;
+        long launchedAt;
+        int relaunches;
+
+        long etaSeconds = -1;
+        boolean postProcessing;
+        long lastBytes;
+        long lastSampleAt;
+        long transferredBytes;
+        double throughput;
+
+        Slot(Long taskId, int priority, Runnable relaunch) {
+            this.taskId = taskId;
+            this.priority = priority;
+            this.weight = 1 << Math.max(PRIORITY_LOW, Math.min(priority, PRIORITY_HIGH));
+            this.relaunch = relaunch;
+        }
+    }
+}
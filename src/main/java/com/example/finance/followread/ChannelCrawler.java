@@ -0,0 +1,303 @@
+package com.example.finance.followread;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 频道订阅轮询
+ *
+ * 每个订阅记录水位线（上次最新的视频 ID）和最新 window 个视频 ID 列表的哈希。一次轮询只调用一次
+ * yt-dlp --flat-playlist（只列出最新 window 个视频的 ID），哈希不变就结束；有变化时取水位线之前的视频，
+ * 去掉已在库中的，交给 {@link YoutubeImportService#importVideos} 获取信息并解析字幕。
+ * 第一次轮询只记录水位线，不导入频道的历史视频（历史视频用批量导入）。
+ * 新视频放入导入队列后水位线就前移，导入失败的视频留在库中（failed / added）：之后列表有变化的轮询会把窗口内
+ * 这类不在导入中的视频重新导入（{@link YoutubeImportService#retryVideos}）。
+ *
+ * 轮询间隔加 ±jitter 的随机抖动，避免同时订阅的频道每次都在同一时刻轮询；失败后按指数退避。
+ * yt-dlp 调用经过 {@link HostRateLimiter} 限速并占用 {@link YtDlpBudget} 的全局名额。
+ */
+@Component
+public class ChannelCrawler {
+
+    private static final Logger log = LoggerFactory.getLogger(ChannelCrawler.class);
+
+    private static final Pattern VIDEO_ID_PATTERN = Pattern.compile("[a-zA-Z0-9_-]{11}");
+    private static final int MAX_BACKOFF_SHIFT = 4;
+    private static final int POLL_BATCH = 20;
+
+    // 0 表示不自动轮询（仍可手动触发）
+    @Value("${youtube.crawler.interval-minutes:360}")
+    private long intervalMinutes = 360;
+
+    // 轮询间隔的随机抖动比例
+    @Value("${youtube.crawler.jitter:0.2}")
+    private double jitter = 0.2;
+
+    // 每次轮询列出的最新视频数
+    @Value("${youtube.crawler.window:30}")
+    private int window = 30;
+
+    // 检查到期订阅的间隔（秒）
+    @Value("${youtube.crawler.tick-seconds:60}")
+    private long tickSeconds = 60;
+
+    @Autowired
+    private ChannelSubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private YoutubeVideoRepository videoRepository;
+
+    @Autowired
+    private YoutubeImportService importService;
+
+    @Autowired
+    private HostRateLimiter rateLimiter;
+
+    @Autowired
+    private YtDlpBudget ytDlpBudget;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "channel-crawler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        if (intervalMinutes > 0) {
+            executor.scheduleWithFixedDelay(this::pollDueQuietly, tickSeconds, tickSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 订阅频道，随后在轮询线程中立即做第一次轮询（记录水位线）
+     */
+    public ChannelSubscription subscribe(String url, Long userId, String difficulty) {
+        String channelUrl = YoutubeImportService.normalizeCollectionUrl(url);
+        if (channelUrl == null) {
+            throw new IllegalArgumentException("Not a YouTube channel or playlist URL");
+        }
+        ChannelSubscription existing = subscriptionRepository.findByUserIdAndChannelUrl(userId, channelUrl).orElse(null);
+        if (existing != null) {
+            return existing;
+        }
+        ChannelSubscription subscription = new ChannelSubscription();
+        subscription.setUserId(userId);
+        subscription.setChannelUrl(channelUrl);
+        subscription.setDifficultyLevel(difficulty != null ? difficulty : "auto");
+        subscription.setNextCheckAt(LocalDateTime.now());
+        subscription = subscriptionRepository.save(subscription);
+        checkNow(subscription.getId());
+        return subscription;
+    }
+
+    /**
+     * 在轮询线程中立即轮询一次
+     */
+    public void checkNow(Long subscriptionId) {
+        executor.execute(() -> subscriptionRepository.findById(subscriptionId).ifPresent(this::pollQuietly));
+    }
+
+    private void pollDueQuietly() {
+        try {
+            List<ChannelSubscription> due;
+            do {
+                due = subscriptionRepository.findDue(LocalDateTime.now(), PageRequest.of(0, POLL_BATCH));
+                for (ChannelSubscription subscription : due) {
+                    pollQuietly(subscription);
+                }
+            } while (due.size() == POLL_BATCH && !Thread.currentThread().isInterrupted());
+        } catch (Exception e) {
+            log.error("频道轮询失败", e);
+        }
+    }
+
+    private void pollQuietly(ChannelSubscription subscription) {
+        try {
+            poll(subscription);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            int failures = subscription.getConsecutiveFailures() + 1;
+            LocalDateTime now = LocalDateTime.now();
+            subscriptionRepository.recordFailure(subscription.getId(), truncate(e.getMessage()), now,
+                nextCheckAt(now, failures));
+            log.warn("频道轮询失败: id={}, url={}, failures={}, error={}",
+                subscription.getId(), subscription.getChannelUrl(), failures, e.getMessage());
+        }
+    }
+
+    /**
+     * 轮询一个订阅：一次 yt-dlp 调用，列表没有变化时到此为止
+     */
+    void poll(ChannelSubscription subscription) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        rateLimiter.acquire(subscription.getChannelUrl());
+        Listing listing = listLatest(subscription.getChannelUrl());
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = nextCheckAt(now, 0);
+
+        String hash = hash(listing.videoIds);
+        if (hash.equals(subscription.getListingHash())) {
+            subscriptionRepository.recordPoll(subscription.getId(), subscription.getLastVideoId(), hash, listing.title,
+                now, subscription.getLastChangedAt(), next, 0);
+            log.debug("频道无变化: id={}, {} ms", subscription.getId(), (System.nanoTime() - started) / 1_000_000);
+            return;
+        }
+
+        String newest = listing.videoIds.isEmpty() ? subscription.getLastVideoId() : listing.videoIds.get(0);
+        List<String> unseen = subscription.getListingHash() == null
+            ? new ArrayList<>() : unseenVideoIds(listing.videoIds, subscription.getLastVideoId());
+        if (!unseen.isEmpty()) {
+            YoutubeImportService.ImportJob job = importService.importVideos(subscription.getChannelUrl(),
+                listing.title != null ? listing.title : subscription.getTitle(), unseen,
+                subscription.getUserId(), subscription.getDifficultyLevel());
+            log.info("频道有新视频: id={}, url={}, new={}, jobId={}",
+                subscription.getId(), subscription.getChannelUrl(), unseen.size(), job.getId());
+        }
+        List<Long> retry = subscription.getListingHash() == null
+            ? List.of() : unfinishedImports(listing.videoIds, subscription.getUserId());
+        if (!retry.isEmpty()) {
+            YoutubeImportService.ImportJob job = importService.retryVideos(subscription.getChannelUrl(),
+                listing.title != null ? listing.title : subscription.getTitle(), retry, subscription.getUserId());
+            log.info("频道重新导入上次未完成的视频: id={}, url={}, count={}, jobId={}",
+                subscription.getId(), subscription.getChannelUrl(), retry.size(), job.getId());
+        }
+        subscriptionRepository.recordPoll(subscription.getId(), newest, hash, listing.title, now, now, next, unseen.size());
+    }
+
+    /**
+     * 水位线之前（更新）的视频中不在库里的；水位线不在列表中（滚出窗口或被删除）时看整个列表
+     */
+    private List<String> unseenVideoIds(List<String> latest, String lastVideoId) {
+        int end = lastVideoId != null ? latest.indexOf(lastVideoId) : -1;
+        List<String> candidates = new ArrayList<>(end >= 0 ? latest.subList(0, end) : latest);
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        Set<String> existing = new HashSet<>(videoRepository.findExistingVideoIds(candidates));
+        candidates.removeIf(existing::contains);
+        return candidates;
+    }
+
+    /**
+     * 窗口内已在用户库中、但没有导入完成且不在导入中的视频
+     */
+    private List<Long> unfinishedImports(List<String> latest, Long userId) {
+        if (latest.isEmpty()) {
+            return List.of();
+        }
+        List<Long> videoIds = new ArrayList<>(videoRepository.findUnfinishedImports(latest, userId));
+        videoIds.removeIf(importService::isImporting);
+        return videoIds;
+    }
+
+    /**
+     * 最新 window 个视频的 ID（新的在前）和列表标题
+     */
+    private Listing listLatest(String url) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add("yt-dlp");
+        command.add("--flat-playlist");
+        command.add("--no-warnings");
+        command.add("--socket-timeout");
+        command.add("30");
+        command.add("--playlist-end");
+        command.add(String.valueOf(window));
+        command.add("--print");
+        command.add("%(id)s\t%(playlist_title)s");
+        command.add(url);
+
+        Listing listing = new Listing();
+        StringBuilder errors = new StringBuilder();
+        int exitCode;
+        try (YtDlpBudget.Permit permit = ytDlpBudget.acquire()) {
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.redirectErrorStream(true);
+            Process process = pb.start();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int tab = line.indexOf('\t');
+                    String id = tab >= 0 ? line.substring(0, tab) : line;
+                    if (VIDEO_ID_PATTERN.matcher(id).matches()) {
+                        listing.videoIds.add(id);
+                        if (listing.title == null && tab >= 0 && !line.endsWith("\tNA")) {
+                            listing.title = line.substring(tab + 1);
+                        }
+                    } else if (!line.isBlank()) {
+                        errors.setLength(0);
+                        errors.append(line);
+                    }
+                }
+            }
+            exitCode = process.waitFor();
+        }
+        if (exitCode != 0) {
+            throw new IOException("Failed to list channel: " + (errors.length() > 0 ? errors : "exit code " + exitCode));
+        }
+        return listing;
+    }
+
+    private LocalDateTime nextCheckAt(LocalDateTime now, int failures) {
+        long minutes = Math.max(intervalMinutes, 1) << Math.min(failures, MAX_BACKOFF_SHIFT);
+        double factor = 1 + jitter * (ThreadLocalRandom.current().nextDouble() * 2 - 1);
+        return now.plusSeconds(Math.round(minutes * 60 * factor));
+    }
+
+    private static String hash(List<String> videoIds) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String id : videoIds) {
+                digest.update(id.getBytes(StandardCharsets.US_ASCII));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private static final class Listing {
+        final List<String> videoIds = new ArrayList<>();
+        String title;
+    }
+}
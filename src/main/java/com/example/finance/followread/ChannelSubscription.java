@@ -0,0 +1,191 @@
+package com.example.finance.followread;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 频道订阅：定期轮询频道（或播放列表）的最新视频，新上传的视频自动导入，见 {@link ChannelCrawler}
+ */
+@Entity
+@Table(name = "channel_subscriptions")
+public class ChannelSubscription {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "channel_subscriptions_seq")
+    @SequenceGenerator(name = "channel_subscriptions_seq", sequenceName = "channel_subscriptions_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // 规范化后的频道标签页 / 播放列表 URL（见 YoutubeImportService.normalizeCollectionUrl）
+    @Column(name = "channel_url", nullable = false, length = 500)
+    private String channelUrl;
+
+    @Column(name = "title", length = 500)
+    private String title;
+
+    // 新视频的难度设置
+    @Column(name = "difficulty_level", length = 20)
+    private String difficultyLevel;
+
+    @Column(name = "enabled", nullable = false)
+    private boolean enabled = true;
+
+    // 水位线：上次轮询时最新的视频 ID
+    @Column(name = "last_video_id", length = 20)
+    private String lastVideoId;
+
+    // 上次轮询到的最新视频列表的哈希（SHA-256），不变说明没有新视频
+    @Column(name = "listing_hash", length = 64)
+    private String listingHash;
+
+    @Column(name = "last_checked_at")
+    private LocalDateTime lastCheckedAt;
+
+    // 最近一次发现列表变化的时间
+    @Column(name = "last_changed_at")
+    private LocalDateTime lastChangedAt;
+
+    @Column(name = "next_check_at", nullable = false)
+    private LocalDateTime nextCheckAt;
+
+    // 连续失败次数（失败后按指数退避推迟下次轮询）
+    @Column(name = "consecutive_failures", nullable = false)
+    private int consecutiveFailures;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    // 累计导入的新视频数
+    @Column(name = "imported_count", nullable = false)
+    private int importedCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getChannelUrl() {
+        return channelUrl;
+    }
+
+    public void setChannelUrl(String channelUrl) {
+        this.channelUrl = channelUrl;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDifficultyLevel() {
+        return difficultyLevel;
+    }
+
+    public void setDifficultyLevel(String difficultyLevel) {
+        this.difficultyLevel = difficultyLevel;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getLastVideoId() {
+        return lastVideoId;
+    }
+
+    public void setLastVideoId(String lastVideoId) {
+        this.lastVideoId = lastVideoId;
+    }
+
+    public String getListingHash() {
+        return listingHash;
+    }
+
+    public void setListingHash(String listingHash) {
+        this.listingHash = listingHash;
+    }
+
+    public LocalDateTime getLastCheckedAt() {
+        return lastCheckedAt;
+    }
+
+    public void setLastCheckedAt(LocalDateTime lastCheckedAt) {
+        this.lastCheckedAt = lastCheckedAt;
+    }
+
+    public LocalDateTime getLastChangedAt() {
+        return lastChangedAt;
+    }
+
+    public void setLastChangedAt(LocalDateTime lastChangedAt) {
+        this.lastChangedAt = lastChangedAt;
+    }
+
+    public LocalDateTime getNextCheckAt() {
+        return nextCheckAt;
+    }
+
+    public void setNextCheckAt(LocalDateTime nextCheckAt) {
+        this.nextCheckAt = nextCheckAt;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public void setConsecutiveFailures(int consecutiveFailures) {
+        this.consecutiveFailures = consecutiveFailures;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    public void setImportedCount(int importedCount) {
+        this.importedCount = importedCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.finance.followread;
+
+import com.example.finance.CurrentUserResolver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 频道订阅 API：订阅后新上传的视频自动导入
+ */
+@RestController
+@RequestMapping("/api/youtube/subscriptions")
+@CrossOrigin(origins = "*")
+public class ChannelSubscriptionController {
+
+    @Autowired
+    private ChannelSubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private ChannelCrawler channelCrawler;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
+    @GetMapping
+    public ResponseEntity<?> listSubscriptions(Authentication authentication) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("subscriptions", subscriptionRepository.findByUserIdOrderByCreatedAtDesc(getUserId(authentication)));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 订阅频道
+     * POST /api/youtube/subscriptions {"url": "https://www.youtube.com/@channel", "difficulty": "auto"}
+     */
+    @PostMapping
+    public ResponseEntity<?> subscribe(@RequestBody Map<String, String> request, Authentication authentication) {
+        String url = request.get("url");
+        if (url == null || url.trim().isEmpty()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Channel URL is required");
+            return ResponseEntity.badRequest().body(error);
+        }
+        try {
+            ChannelSubscription subscription = channelCrawler.subscribe(url.trim(), getUserId(authentication),
+                request.get("difficulty"));
+            return ResponseEntity.ok(subscription);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to subscribe: " + e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * 立即检查新视频
+     */
+    @PostMapping("/{id}/check")
+    public ResponseEntity<?> checkNow(@PathVariable Long id, Authentication authentication) {
+        Optional<ChannelSubscription> subscription = subscriptionRepository.findByIdAndUserId(id, getUserId(authentication));
+        if (!subscription.isPresent()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Subscription not found");
+            return ResponseEntity.status(404).body(error);
+        }
+        channelCrawler.checkNow(id);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Check scheduled");
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> unsubscribe(@PathVariable Long id, Authentication authentication) {
+        Optional<ChannelSubscription> subscription = subscriptionRepository.findByIdAndUserId(id, getUserId(authentication));
+        if (!subscription.isPresent()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Subscription not found");
+            return ResponseEntity.status(404).body(error);
+        }
+        subscriptionRepository.delete(subscription.get());
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
+
+    private Long getUserId(Authentication authentication) {
+        return currentUserResolver.resolveUserId(authentication, 0L);
+    }
+}
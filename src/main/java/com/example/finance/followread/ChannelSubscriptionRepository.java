@@ -0,0 +1,53 @@
+package com.example.finance.followread;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ChannelSubscriptionRepository extends JpaRepository<ChannelSubscription, Long> {
+
+    List<ChannelSubscription> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    Optional<ChannelSubscription> findByIdAndUserId(Long id, Long userId);
+
+    Optional<ChannelSubscription> findByUserIdAndChannelUrl(Long userId, String channelUrl);
+
+    /**
+     * 到期需要轮询的订阅，最早到期的在前（走 (enabled, next_check_at) 索引）
+     */
+    @Query("select s from ChannelSubscription s where s.enabled = true and s.nextCheckAt <= :now order by s.nextCheckAt")
+    List<ChannelSubscription> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * 轮询成功：更新水位线和下次轮询时间（只更新这几列，轮询期间订阅被删除时不会重新插入）
+     */
+    @Modifying
+    @Transactional
+    @Query("update ChannelSubscription s set s.lastVideoId = :lastVideoId, s.listingHash = :listingHash, "
+        + "s.title = coalesce(:title, s.title), s.lastCheckedAt = :checkedAt, s.lastChangedAt = :changedAt, "
+        + "s.nextCheckAt = :nextCheckAt, s.consecutiveFailures = 0, s.lastError = null, "
+        + "s.importedCount = s.importedCount + :imported where s.id = :id")
+    int recordPoll(@Param("id") Long id, @Param("lastVideoId") String lastVideoId,
+                   @Param("listingHash") String listingHash, @Param("title") String title,
+                   @Param("checkedAt") LocalDateTime checkedAt, @Param("changedAt") LocalDateTime changedAt,
+                   @Param("nextCheckAt") LocalDateTime nextCheckAt, @Param("imported") int imported);
+
+    /**
+     * 轮询失败：记录错误，推迟下次轮询
+     */
+    @Modifying
+    @Transactional
+    @Query("update ChannelSubscription s set s.lastError = :error, s.lastCheckedAt = :checkedAt, "
+        + "s.nextCheckAt = :nextCheckAt, s.consecutiveFailures = s.consecutiveFailures + 1 where s.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("error") String error,
+                      @Param("checkedAt") LocalDateTime checkedAt, @Param("nextCheckAt") LocalDateTime nextCheckAt);
+}
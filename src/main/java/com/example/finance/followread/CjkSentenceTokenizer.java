@@ -0,0 +1,171 @@
+package com.example.finance.followread;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 中日韩语言分词：按字符计算长度，填充词直接按子串移除
+ */
+public class CjkSentenceTokenizer implements SentenceTokenizer {
+
+    // Filler words to remove (Chinese)
+    private static final Set<String> FILLER_WORDS_ZH = new HashSet<>(Arrays.asList(
+        "嗯", "那个", "就是", "然后", "这个", "那个", "呃", "啊", "哦"
+    ));
+    
+    // Filler words to remove (Japanese)
+    private static final Set<String> FILLER_WORDS_JA = new HashSet<>(Arrays.asList(
+        "えー", "あの", "まあ", "その", "なんか", "っていうか", "てか"
+    ));
+
+    // 句末标点和分句标点（全角、半角）
+    private static final String SENTENCE_ENDS = "。！？!?…";
+    private static final String CLAUSE_ENDS = "，、；：,;";
+
+    public static final CjkSentenceTokenizer CHINESE = new CjkSentenceTokenizer(FILLER_WORDS_ZH);
+    public static final CjkSentenceTokenizer JAPANESE = new CjkSentenceTokenizer(FILLER_WORDS_JA);
+    // 韩语等暂无填充词表，沿用原来的行为（使用英文词表，对 CJK 文本基本不生效）
+    public static final CjkSentenceTokenizer OTHER = new CjkSentenceTokenizer(WhitespaceSentenceTokenizer.FILLER_WORDS_EN);
+
+    private final String[] fillerWords;
+
+    public CjkSentenceTokenizer(Set<String> fillerWords) {
+        this.fillerWords = fillerWords.toArray(new String[0]);
+    }
+
+    /**
+     * 与 {@link SubtitleLanguage#isCjk} 接受的语言代码一致（含 chi、jpn 这类三字母代码）
+     */
+    static CjkSentenceTokenizer forLanguage(String language) {
+        String lang = language.toLowerCase();
+        if (lang.startsWith("zh") || lang.equals("chi")) return CHINESE;
+        if (lang.startsWith("ja") || lang.equals("jpn")) return JAPANESE;
+        return OTHER;
+    }
+
+    /**
+     * 中日韩文本没有词间空格：在空白处和每个标点之后切开，得到"大家好，""欢迎回到我的频道。"这样的片段
+     */
+    @Override
+    public void tokenize(String text, double start, double end, boolean spaceBefore, List<WordTiming> out) {
+        int len = text.length();
+        int from = 0;
+        boolean space = spaceBefore;
+        // 是否处在一串标点（含紧随其后的右引号/右括号）中
+        boolean inPunctuation = false;
+        for (int i = 0; i < len; i++) {
+            char c = text.charAt(i);
+            if (SentenceTokenizer.isWhitespace(c)) {
+                if (i > from) {
+                    out.add(SentenceTokenizer.interpolate(text, from, i, start, end, space));
+                }
+                from = i + 1;
+                space = true;
+                inPunctuation = false;
+                continue;
+            }
+            inPunctuation = isBreak(c) || (inPunctuation && isClosing(c));
+            // 连续的标点归入同一片段，在整串标点之后切开
+            if (inPunctuation && (i + 1 == len || !(isBreak(text.charAt(i + 1)) || isClosing(text.charAt(i + 1))))) {
+                out.add(SentenceTokenizer.interpolate(text, from, i + 1, start, end, space));
+                from = i + 1;
+                space = false;
+                inPunctuation = false;
+            }
+        }
+        if (from < len) {
+            out.add(SentenceTokenizer.interpolate(text, from, len, start, end, space));
+        }
+    }
+
+    @Override
+    public boolean endsSentence(String word) {
+        int end = SentenceTokenizer.stripClosing(word);
+        if (end == 0) return false;
+        return SENTENCE_ENDS.indexOf(word.charAt(end - 1)) >= 0;
+    }
+
+    @Override
+    public boolean endsClause(String word) {
+        int end = SentenceTokenizer.stripClosing(word);
+        if (end == 0) return false;
+        return CLAUSE_ENDS.indexOf(word.charAt(end - 1)) >= 0;
+    }
+
+    @Override
+    public int weight(String word) {
+        return word.length();
+    }
+
+    private static boolean isBreak(char c) {
+        return SENTENCE_ENDS.indexOf(c) >= 0 || CLAUSE_ENDS.indexOf(c) >= 0;
+    }
+
+    private static boolean isClosing(char c) {
+        return "\"')]」』）】》”’".indexOf(c) >= 0;
+    }
+
+    /**
+     * 中文/日文：直接移除填充词，不需要空格分割；填充词移除后留在句首或重复的分句标点一并去掉
+     */
+    @Override
+    public String removeFillerWords(String text) {
+        String result = text;
+        boolean removed = false;
+        for (String filler : fillerWords) {
+            if (result.contains(filler)) {
+                result = result.replace(filler, "");
+                removed = true;
+            }
+        }
+        if (!removed) {
+            return result.trim();
+        }
+        StringBuilder sb = new StringBuilder(result.length());
+        for (int i = 0; i < result.length(); i++) {
+            char c = result.charAt(i);
+            boolean clause = CLAUSE_ENDS.indexOf(c) >= 0;
+            if (clause) {
+                int last = sb.length() - 1;
+                while (last >= 0 && SentenceTokenizer.isWhitespace(sb.charAt(last))) {
+                    last--;
+                }
+                if (last < 0 || CLAUSE_ENDS.indexOf(sb.charAt(last)) >= 0) {
+                    continue;
+                }
+            }
+            sb.append(c);
+        }
+        return sb.toString().trim();
+    }
+
+    @Override
+    public void measure(SentenceUnit unit, DifficultyModel model) {
+        String text = unit.text;
+        int cjkChars = 0;
+        double rarity = 0;
+        for (int i = 0, len = text.length(); i < len; ) {
+            int cp = text.codePointAt(i);
+            // 只比较码点区间，不查 Unicode 区块
+            if (DifficultyModel.isCjk(cp)) {
+                cjkChars++;
+                if (model != null) {
+                    rarity += DifficultyModel.rarity(model.charRank(cp), true);
+                }
+            }
+            i += Character.charCount(cp);
+        }
+        unit.wordCount = SentenceTokenizer.countWhitespaceTokens(text);
+        unit.charCount = text.length();
+        unit.cjkCharCount = cjkChars;
+        unit.rankedCount = model != null ? cjkChars : 0;
+        unit.rarity = rarity;
+    }
+
+    @Override
+    public boolean isCharacterBased() {
+        return true;
+    }
+}
@@ -0,0 +1,442 @@
+package com.example.finance.followread;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 基于词频排名的句子难度模型
+ *
+ * 英文按词、中日韩按字查频率排名（1 为最常用，0 为不在表中），排名越靠后越"生僻"：
+ * {@link #rarity} 把排名映射到 [0, 1]，常用词为 0，生僻词和表外词为 1。
+ * 句子难度 = 长度分 + 平均生僻度 + 生僻词数量，各项权重和分档阈值见 {@link #evaluate}。
+ *
+ * 排名表都是基本类型数组，查询不分配对象：
+ * - 词：开放寻址哈希表，一个 int[] 中交替存放 (词哈希, 排名)，只存哈希不存词本身
+ * - 字：按码点直接索引的 int[]，覆盖假名、CJK 统一汉字和韩文音节所在的区间
+ *
+ * 种子排名来自 resources/difficulty 下的常用词/字表；{@link DifficultyModelUpdater}
+ * 用已导入的字幕重新统计，合并后写入排名文件，启动时直接读取。不可变，可以跨线程共享。
+ */
+public final class DifficultyModel {
+
+    static final String WORDS_RESOURCE = "difficulty/english-words.txt";
+    static final String CHARS_RESOURCE = "difficulty/cjk-chars.txt";
+
+    // 排名文件格式：魔数、版本、词数、词表、字表
+    private static final int FILE_MAGIC = 0x44464D31; // "DFM1"
+    private static final int FILE_VERSION = 1;
+
+    // 字表覆盖的码点区间：平假名（3040）到韩文音节（D7AF）
+    static final int CHAR_FIRST = 0x3040;
+    static final int CHAR_LAST = 0xD7AF;
+
+    // 生僻度：排名不超过 COMMON 为 0，到 RARE 线性（按对数）升到 1
+    private static final int WORD_COMMON_RANK = 800;
+    private static final int WORD_RARE_RANK = 4000;
+    private static final int CHAR_COMMON_RANK = 500;
+    private static final int CHAR_RARE_RANK = 2500;
+    // 超过这个长度的英文"词"（网址、拼接串）不查表，按表外词处理
+    private static final int MAX_WORD_LENGTH = 32;
+
+    // 难度分 = LENGTH_WEIGHT * min(长度 / FULL_LENGTH, 1) + MEAN_WEIGHT * 平均生僻度 + COUNT_WEIGHT * min(生僻度之和 / FULL_RARE, 1)
+    private static final double WORD_FULL_LENGTH = 30;
+    private static final double CHAR_FULL_LENGTH = 50;
+    private static final double FULL_RARE = 4;
+    private static final double LENGTH_WEIGHT = 0.4;
+    private static final double MEAN_WEIGHT = 0.35;
+    private static final double COUNT_WEIGHT = 0.25;
+    private static final double WORD_EASY_BELOW = 0.13;
+    private static final double WORD_HARD_ABOVE = 0.49;
+    private static final double CHAR_EASY_BELOW = 0.14;
+    private static final double CHAR_HARD_ABOVE = 0.5;
+
+    private static final String[] SUFFIXES = {"'s", "ies", "es", "s", "ied", "ed", "ing", "ily", "ly", "ier", "iest", "er", "est"};
+
+    private final int[] wordTable;
+    private final int wordCount;
+    private final int[] charRanks;
+
+    private DifficultyModel(int[] wordTable, int wordCount, int[] charRanks) {
+        this.wordTable = wordTable;
+        this.wordCount = wordCount;
+        this.charRanks = charRanks;
+    }
+
+    /**
+     * 只用随应用分发的种子排名（没有排名文件时使用）
+     */
+    public static DifficultyModel bundled() {
+        return Bundled.INSTANCE;
+    }
+
+    private static final class Bundled {
+        static final DifficultyModel INSTANCE = of(seedWordRanks(), seedCharRanks());
+    }
+
+    /**
+     * 由词排名和字排名（按码点减 {@link #charIndex} 索引）构建模型
+     */
+    static DifficultyModel of(Map<String, Integer> wordRanks, int[] charRanks) {
+        int capacity = Integer.highestOneBit(Math.max(wordRanks.size(), 1) * 2 - 1) << 1;
+        int[] table = new int[capacity * 2];
+        int mask = capacity - 1;
+        for (Map.Entry<String, Integer> entry : wordRanks.entrySet()) {
+            String word = entry.getKey();
+            int hash = hash(word, 0, word.length(), null);
+            int slot = hash & mask;
+            while (table[slot * 2] != 0 && table[slot * 2] != hash) {
+                slot = (slot + 1) & mask;
+            }
+            // 哈希相同的两个词（极少见）保留排名靠前的
+            if (table[slot * 2] == 0 || entry.getValue() < table[slot * 2 + 1]) {
+                table[slot * 2] = hash;
+                table[slot * 2 + 1] = entry.getValue();
+            }
+        }
+        return new DifficultyModel(table, wordRanks.size(), Arrays.copyOf(charRanks, CHAR_LAST - CHAR_FIRST + 1));
+    }
+
+    /**
+     * 种子词排名：english-words.txt 中按出现顺序，重复的词保留第一次
+     */
+    static Map<String, Integer> seedWordRanks() {
+        Map<String, Integer> ranks = new LinkedHashMap<>();
+        for (String line : readResource(WORDS_RESOURCE)) {
+            for (String token : line.split("\\s+")) {
+                String word = normalizeWord(token);
+                if (word != null) {
+                    ranks.putIfAbsent(word, ranks.size() + 1);
+                }
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * 种子字排名：cjk-chars.txt 中按出现顺序，汉字和韩文音节各自从 1 开始排
+     */
+    static int[] seedCharRanks() {
+        int[] ranks = new int[CHAR_LAST - CHAR_FIRST + 1];
+        int han = 0;
+        int hangul = 0;
+        for (String line : readResource(CHARS_RESOURCE)) {
+            for (int i = 0; i < line.length(); i++) {
+                int index = charIndex(line.charAt(i));
+                if (index < 0 || ranks[index] != 0) {
+                    continue;
+                }
+                if (isHangul(line.charAt(i))) {
+                    ranks[index] = ++hangul;
+                } else if (isHan(line.charAt(i))) {
+                    ranks[index] = ++han;
+                }
+            }
+        }
+        return ranks;
+    }
+
+    private static Iterable<String> readResource(String name) {
+        InputStream in = DifficultyModel.class.getClassLoader().getResourceAsStream(name);
+        if (in == null) {
+            throw new IllegalStateException("缺少难度词频表: " + name);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            // 以 "# " 开头的行是注释
+            return reader.lines().filter(line -> !line.startsWith("#")).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 读取 {@link #write} 写出的排名文件
+     */
+    static DifficultyModel read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != FILE_MAGIC || data.readInt() != FILE_VERSION) {
+            throw new IOException("不是难度排名文件或版本不符");
+        }
+        int wordCount = data.readInt();
+        int[] wordTable = readInts(data);
+        int[] charRanks = readInts(data);
+        if (Integer.bitCount(wordTable.length) != 1 || charRanks.length != CHAR_LAST - CHAR_FIRST + 1) {
+            throw new IOException("难度排名文件已损坏");
+        }
+        return new DifficultyModel(wordTable, wordCount, charRanks);
+    }
+
+    /**
+     * 原样写出两个排名数组，读取时不需要重新建表
+     */
+    void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(FILE_MAGIC);
+        data.writeInt(FILE_VERSION);
+        data.writeInt(wordCount);
+        writeInts(data, wordTable);
+        writeInts(data, charRanks);
+        data.flush();
+    }
+
+    private static int[] readInts(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length < 0 || length > (1 << 26)) {
+            throw new IOException("难度排名文件已损坏");
+        }
+        byte[] bytes = new byte[length * 4];
+        data.readFully(bytes);
+        int[] values = new int[length];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(values);
+        return values;
+    }
+
+    private static void writeInts(DataOutputStream data, int[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4);
+        buffer.asIntBuffer().put(values);
+        data.writeInt(values.length);
+        data.write(buffer.array());
+    }
+
+    int wordCount() {
+        return wordCount;
+    }
+
+    /**
+     * 字表中有排名的字数
+     */
+    int charCount() {
+        int count = 0;
+        for (int rank : charRanks) {
+            if (rank > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 英文词 text[from, to) 的排名：去掉首尾标点后小写查表，查不到再去掉常见词尾（复数、过去式、-ing、-ly 等）
+     * 用词干的排名；不在表中返回 0。含数字的词和句中大写开头的表外词（人名、地名）返回 -1，不参与评估。
+     *
+     * @param sentenceStart 是否是句子的第一个词（句首大写不代表专有名词）
+     */
+    public int wordRank(CharSequence text, int from, int to, boolean sentenceStart) {
+        while (from < to && !isWordChar(text.charAt(from))) {
+            from++;
+        }
+        while (to > from && !isWordChar(text.charAt(to - 1))) {
+            to--;
+        }
+        if (from == to) {
+            return -1;
+        }
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                return -1;
+            }
+        }
+        if (to - from > MAX_WORD_LENGTH) {
+            return 0;
+        }
+        int rank = lookup(hash(text, from, to, null));
+        for (int s = 0; rank == 0 && s < SUFFIXES.length; s++) {
+            rank = stemRank(text, from, to, SUFFIXES[s]);
+        }
+        if (rank == 0 && !sentenceStart && Character.isUpperCase(text.charAt(from))) {
+            return -1;
+        }
+        return rank;
+    }
+
+    /**
+     * 去掉 suffix 后的词干排名：ies/ied/ily/ier/iest 还原为 y，其余依次尝试词干、词干 + e、去掉重复的末尾辅音
+     */
+    private int stemRank(CharSequence text, int from, int to, String suffix) {
+        int stemEnd = to - suffix.length();
+        if (stemEnd - from < 2 || !endsWith(text, from, to, suffix)) {
+            return 0;
+        }
+        if (suffix.charAt(0) == 'i' && !suffix.equals("ing")) {
+            return lookup(hash(text, from, stemEnd, "y"));
+        }
+        int rank = lookup(hash(text, from, stemEnd, null));
+        if (rank == 0 && (suffix.equals("ed") || suffix.equals("ing") || suffix.equals("er") || suffix.equals("est"))) {
+            rank = lookup(hash(text, from, stemEnd, "e"));
+            if (rank == 0 && lower(text.charAt(stemEnd - 1)) == lower(text.charAt(stemEnd - 2))) {
+                rank = lookup(hash(text, from, stemEnd - 1, null));
+            }
+        }
+        return rank;
+    }
+
+    private int lookup(int hash) {
+        int mask = wordTable.length / 2 - 1;
+        int slot = hash & mask;
+        while (true) {
+            int key = wordTable[slot * 2];
+            if (key == hash) {
+                return wordTable[slot * 2 + 1];
+            }
+            if (key == 0) {
+                return 0;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * 码点在字表中的下标，不是假名、汉字或韩文音节时返回 -1
+     */
+    static int charIndex(int codePoint) {
+        return isCjk(codePoint) ? codePoint - CHAR_FIRST : -1;
+    }
+
+    /**
+     * 码点的排名：假名按最常用处理，表外的汉字/韩文音节为 0；不是中日韩字符时返回 -1
+     */
+    public int charRank(int codePoint) {
+        if (!isCjk(codePoint)) {
+            return -1;
+        }
+        if (codePoint <= 0x30FF) {
+            return 1;
+        }
+        return charRanks[codePoint - CHAR_FIRST];
+    }
+
+    /**
+     * 是否为平假名、片假名、CJK 统一汉字或韩文音节（与 Character.UnicodeBlock 的对应区块相同，只比较区间）
+     */
+    public static boolean isCjk(int codePoint) {
+        return codePoint >= CHAR_FIRST && codePoint <= 0x30FF || isHan(codePoint) || isHangul(codePoint);
+    }
+
+    static boolean isHan(int codePoint) {
+        return codePoint >= 0x4E00 && codePoint <= 0x9FFF;
+    }
+
+    static boolean isHangul(int codePoint) {
+        return codePoint >= 0xAC00 && codePoint <= CHAR_LAST;
+    }
+
+    /**
+     * 排名的生僻度：0 常用，1 生僻或不在表中
+     */
+    public static double rarity(int rank, boolean character) {
+        int common = character ? CHAR_COMMON_RANK : WORD_COMMON_RANK;
+        int rare = character ? CHAR_RARE_RANK : WORD_RARE_RANK;
+        if (rank == 0 || rank >= rare) {
+            return 1;
+        }
+        if (rank <= common) {
+            return 0;
+        }
+        return Math.log((double) rank / common) / Math.log((double) rare / common);
+    }
+
+    /**
+     * 按 measure 统计的长度和生僻度评估难度（easy / medium / hard）
+     */
+    public static String evaluate(SentenceUnit unit, boolean characterBased) {
+        double score = score(unit, characterBased);
+        if (score < (characterBased ? CHAR_EASY_BELOW : WORD_EASY_BELOW)) {
+            return "easy";
+        }
+        return score > (characterBased ? CHAR_HARD_ABOVE : WORD_HARD_ABOVE) ? "hard" : "medium";
+    }
+
+    /**
+     * 难度分，约在 [0, 1]
+     */
+    static double score(SentenceUnit unit, boolean characterBased) {
+        double length = characterBased ? unit.cjkCharCount / CHAR_FULL_LENGTH : unit.wordCount / WORD_FULL_LENGTH;
+        double mean = unit.rankedCount > 0 ? unit.rarity / unit.rankedCount : 0;
+        return LENGTH_WEIGHT * Math.min(length, 1)
+            + MEAN_WEIGHT * mean
+            + COUNT_WEIGHT * Math.min(unit.rarity / FULL_RARE, 1);
+    }
+
+    /**
+     * 语料统计用：词的小写形式（去掉首尾标点，右单引号统一为 '），没有字母或含数字时返回 null
+     */
+    static String normalizeWord(String token) {
+        int from = 0;
+        int to = token.length();
+        while (from < to && !isWordChar(token.charAt(from))) {
+            from++;
+        }
+        while (to > from && !isWordChar(token.charAt(to - 1))) {
+            to--;
+        }
+        if (from == to || to - from > MAX_WORD_LENGTH) {
+            return null;
+        }
+        char[] word = new char[to - from];
+        for (int i = from; i < to; i++) {
+            char c = token.charAt(i);
+            if (c >= '0' && c <= '9') {
+                return null;
+            }
+            word[i - from] = lower(c);
+        }
+        return new String(word);
+    }
+
+    // 词内可以有撇号（don't），首尾的撇号在 wordRank 中去掉
+    private static boolean isWordChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c > 0x7F && Character.isLetter(c);
+    }
+
+    private static char lower(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        }
+        return c == '’' ? '\'' : c;
+    }
+
+    private static boolean endsWith(CharSequence text, int from, int to, String suffix) {
+        int start = to - suffix.length();
+        if (start < from) {
+            return false;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            if (lower(text.charAt(start + i)) != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 小写后的 text[from, to) 再接上 append 的哈希（FNV-1a + MurmurHash3 fmix32），0 留作空槽
+     */
+    private static int hash(CharSequence text, int from, int to, String append) {
+        int h = 0x811C9DC5;
+        for (int i = from; i < to; i++) {
+            h = (h ^ lower(text.charAt(i))) * 0x01000193;
+        }
+        if (append != null) {
+            for (int i = 0; i < append.length(); i++) {
+                h = (h ^ append.charAt(i)) * 0x01000193;
+            }
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h == 0 ? 1 : h;
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.finance.followread;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 难度排名的批处理刷新
+ *
+ * 用已解析完成的视频字幕统计词频（英文）和字频（中日韩），与内置种子排名合并：
+ * 每个词取两者中靠前的排名，所以种子表里的常用词不会因为语料少而变"生僻"，
+ * 语料里反复出现的领域词（频道常聊的话题）则会变得"常用"。
+ * 合并结果写入排名文件（两个 int 数组原样落盘），启动时直接读取，不用重新统计。
+ *
+ * 启动后延迟几分钟第一次刷新（排名文件未过期时等到下一个周期），之后每 refresh-interval-hours 小时一次，
+ * 在独立的单线程中执行，不占用下载和评估线程。
+ */
+@Component
+public class DifficultyModelUpdater {
+
+    private static final Logger log = LoggerFactory.getLogger(DifficultyModelUpdater.class);
+
+    private static final long STARTUP_DELAY_MINUTES = 5;
+
+    // 语料中出现次数不少于 min-count 的词/字才参与排名（过滤拼写错误和偶尔出现的专有名词）
+    @Value("${difficulty.min-count:3}")
+    private int minCount = 3;
+
+    // 语料排名最多保留的词数
+    @Value("${difficulty.max-words:50000}")
+    private int maxWords = 50000;
+
+    // 刷新间隔（小时），0 表示只读取已有的排名文件、不再统计
+    @Value("${difficulty.refresh-interval-hours:24}")
+    private long refreshIntervalHours = 24;
+
+    @Value("${difficulty.rank-file:uploads/features/difficulty-ranks.bin}")
+    private String rankFile = "uploads/features/difficulty-ranks.bin";
+
+    @Autowired
+    private YoutubeVideoRepository videoRepository;
+
+    @Autowired
+    private SubtitleSegmentRepository segmentRepository;
+
+    @Autowired
+    private SubtitleSentenceProcessor sentenceProcessor;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "difficulty-ranks");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        Path file = Paths.get(rankFile);
+        long delayMinutes = STARTUP_DELAY_MINUTES;
+        if (Files.isRegularFile(file)) {
+            long started = System.nanoTime();
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                DifficultyModel model = DifficultyModel.read(in);
+                sentenceProcessor.setDifficultyModel(model);
+                log.info("已加载难度排名: {} 个词, {} 个字, 耗时 {} ms",
+                    model.wordCount(), model.charCount(), (System.nanoTime() - started) / 1_000_000);
+                long ageMinutes = (System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis()) / 60_000;
+                delayMinutes = Math.max(STARTUP_DELAY_MINUTES, refreshIntervalHours * 60 - ageMinutes);
+            } catch (IOException e) {
+                log.warn("读取难度排名文件失败，使用内置词表: file={}, error={}", file, e.getMessage());
+            }
+        }
+        if (refreshIntervalHours > 0) {
+            executor.scheduleWithFixedDelay(this::refreshQuietly, delayMinutes, refreshIntervalHours * 60, TimeUnit.MINUTES);
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("刷新难度排名失败，继续使用当前排名", e);
+        }
+    }
+
+    /**
+     * 重新统计字幕语料并替换排名
+     */
+    public synchronized DifficultyModel refresh() throws IOException {
+        long started = System.nanoTime();
+        Map<String, int[]> wordCounts = new HashMap<>();
+        int[] charCounts = new int[DifficultyModel.CHAR_LAST - DifficultyModel.CHAR_FIRST + 1];
+        int videos = 0;
+        long tokens = 0;
+        for (Object[] row : videoRepository.findCompletedSubtitleLanguages()) {
+            Long videoId = (Long) row[0];
+            String language = (String) row[1];
+            boolean cjk = SubtitleLanguage.isCjk(language);
+            if (!cjk && !"en".equals(SubtitleLanguage.languageCode(language))) {
+                continue;
+            }
+            for (SubtitleSegment segment : segmentRepository.findByVideoIdOrderBySegmentOrder(videoId)) {
+                String text = segment.getCleanText();
+                if (text != null) {
+                    tokens += cjk ? countChars(text, charCounts) : countWords(text, wordCounts);
+                }
+            }
+            videos++;
+        }
+
+        Map<String, Integer> wordRanks = DifficultyModel.seedWordRanks();
+        List<Map.Entry<String, int[]>> frequent = new ArrayList<>();
+        for (Map.Entry<String, int[]> entry : wordCounts.entrySet()) {
+            if (entry.getValue()[0] >= minCount) {
+                frequent.add(entry);
+            }
+        }
+        frequent.sort((a, b) -> Integer.compare(b.getValue()[0], a.getValue()[0]));
+        for (int i = 0; i < frequent.size() && i < maxWords; i++) {
+            wordRanks.merge(frequent.get(i).getKey(), i + 1, Math::min);
+        }
+        int[] charRanks = mergeCharRanks(DifficultyModel.seedCharRanks(), charCounts);
+
+        DifficultyModel model = DifficultyModel.of(wordRanks, charRanks);
+        write(model);
+        sentenceProcessor.setDifficultyModel(model);
+        log.info("难度排名已刷新: {} 个视频, {} 个词/字, 排名 {} 个词（语料 {} 个）、{} 个字, 耗时 {} ms",
+            videos, tokens, model.wordCount(), Math.min(frequent.size(), maxWords), model.charCount(),
+            (System.nanoTime() - started) / 1_000_000);
+        return model;
+    }
+
+    private static int countWords(String text, Map<String, int[]> counts) {
+        int words = 0;
+        int len = text.length();
+        int i = 0;
+        while (i < len) {
+            while (i < len && SentenceTokenizer.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < len && !SentenceTokenizer.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                String word = DifficultyModel.normalizeWord(text.substring(start, i));
+                if (word != null) {
+                    counts.computeIfAbsent(word, key -> new int[1])[0]++;
+                    words++;
+                }
+            }
+        }
+        return words;
+    }
+
+    private static int countChars(String text, int[] counts) {
+        int chars = 0;
+        for (int i = 0, len = text.length(); i < len; i++) {
+            int index = DifficultyModel.charIndex(text.charAt(i));
+            if (index >= 0) {
+                counts[index]++;
+                chars++;
+            }
+        }
+        return chars;
+    }
+
+    /**
+     * 语料中的汉字、韩文音节各自按出现次数排名，与种子排名取较小值
+     */
+    private int[] mergeCharRanks(int[] seed, int[] counts) {
+        // 高 32 位为次数、低 32 位为下标，排序后从大到小即按次数降序
+        long[] frequent = new long[counts.length];
+        int n = 0;
+        for (int index = 0; index < counts.length; index++) {
+            if (counts[index] >= minCount) {
+                frequent[n++] = (long) counts[index] << 32 | index;
+            }
+        }
+        Arrays.sort(frequent, 0, n);
+        int han = 0;
+        int hangul = 0;
+        for (int k = n - 1; k >= 0; k--) {
+            int index = (int) frequent[k];
+            int codePoint = index + DifficultyModel.CHAR_FIRST;
+            int rank;
+            if (DifficultyModel.isHangul(codePoint)) {
+                rank = ++hangul;
+            } else if (DifficultyModel.isHan(codePoint)) {
+                rank = ++han;
+            } else {
+                continue;
+            }
+            seed[index] = seed[index] == 0 ? rank : Math.min(seed[index], rank);
+        }
+        return seed;
+    }
+
+    private void write(DifficultyModel model) throws IOException {
+        Path file = Paths.get(rankFile);
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = dir.resolve(file.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+            model.write(out);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,1099 @@
+package com.example.finance.followread;
+
+import com.example.finance.persistence.SingleWriterQueue;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 视频下载引擎：各平台共用的下载队列、并发限制、进度跟踪、SSE 推送和失败重试
+ *
+ * 任务按 {@link VideoDownloadTask#getPlatform()} 交给对应的 {@link DownloadPlatformAdapter} 查找视频和补充
+ * yt-dlp 参数，其余流程完全相同。下载在固定数量的下载线程中执行（不占用 @Async 线程池），下载期间不持有
+ * 数据库事务：状态变化各自是一次短事务，高频进度交给 {@link SingleWriterQueue} 合并落库。
+ * 网络错误等临时失败按指数退避重试，需要登录、视频不存在等失败直接结束。服务重启时未完成的任务重新排队。
+ * 每个下载进程的分片并发数和限速由 {@link BandwidthScheduler} 分配。
+ * 下载文件存入内容寻址的 {@link MediaStore}：同一视频同一格式只下载一次，其他任务（包括其他用户的）直接复用。
+ */
+@Service
+public class DownloadEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(DownloadEngine.class);
+
+    static final String DOWNLOAD_DIR = "downloads/";
+
+    private static final List<String> UNFINISHED_STATUSES = List.of("INIT", "QUEUED", "PARSING", "DOWNLOADING");
+
+    // 这些输出说明重试也不会成功
+    private static final List<String> PERMANENT_ERRORS = List.of(
+        "Unsupported URL", "Video unavailable", "This video is not available", "HTTP Error 404",
+        "members-only", "has been removed", "copyright");
+
+    private static final String ALL_PLATFORMS = "*";
+
+    // yt-dlp 输出中的文件名：下载目标、合并格式、提取音频、已下载过
+    private static final Pattern DESTINATION_PATTERN = Pattern.compile("^\\[(?:download|ExtractAudio)\\] Destination: (.+)$");
+    private static final Pattern MERGER_PATTERN = Pattern.compile("^\\[Merger\\] Merging formats into \"(.+)\"$");
+    private static final Pattern ALREADY_DOWNLOADED_PATTERN = Pattern.compile("^\\[download\\] (.+) has already been downloaded");
+    // 后处理阶段（合并格式、提取音频、修复容器、写入元数据等）的输出，此后不再以新预算重启下载进程
+    private static final Pattern POST_PROCESSING_PATTERN = Pattern.compile(
+        "^\\[(?:Merger|ExtractAudio|VideoConvertor|VideoRemuxer|Fixup\\w*|Metadata|Embed\\w*|MoveFiles)\\]");
+    // 合并前分别下载的视频流、音频流
+    private static final Pattern INTERMEDIATE_PATTERN = Pattern.compile("\\.f[0-9A-Za-z-]+\\.[^.]+$");
+
+    private static final int OUTPUT_TAIL_LINES = 30;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    // 同时下载的任务数
+    @Value("${download.max-concurrent:3}")
+    private int maxConcurrent = 3;
+
+    // 每个任务最多尝试次数（含第一次）
+    @Value("${download.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    // 第一次重试前的等待秒数，之后每次翻倍
+    @Value("${download.retry-delay-seconds:30}")
+    private long retryDelaySeconds = 30;
+
+    @Autowired
+    private VideoDownloadTaskRepository taskRepository;
+
+    @Autowired
+    private SingleWriterQueue writeQueue;
+
+    @Autowired
+    private MediaFileCleaner mediaFileCleaner;
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Autowired
+    private YtDlpBudget ytDlpBudget;
+
+    @Autowired
+    private BandwidthScheduler bandwidthScheduler;
+
+    @Autowired
+    private List<DownloadPlatformAdapter> adapterList;
+
+    private final Map<String, DownloadPlatformAdapter> adapters = new HashMap<>();
+
+    // 排队、下载中和等待重试的任务
+    private final Map<Long, DownloadJob> jobs = new ConcurrentHashMap<>();
+
+    // 按平台订阅的 SSE 连接（ALL_PLATFORMS 接收所有平台）
+    private final Map<String, List<SseEmitter>> sseEmitters = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "video-download-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        new File(DOWNLOAD_DIR).mkdirs();
+        for (DownloadPlatformAdapter adapter : adapterList) {
+            adapters.put(adapter.getPlatform(), adapter);
+        }
+        int threads = Math.max(maxConcurrent, 1);
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "video-download-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 重启前未完成的任务重新排队
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        List<VideoDownloadTask> unfinished = taskRepository.findByStatusIn(UNFINISHED_STATUSES);
+        for (VideoDownloadTask task : unfinished) {
+            if (adapters.containsKey(task.getPlatform())) {
+                submit(task.getId());
+            }
+        }
+        if (!unfinished.isEmpty()) {
+            log.info("重新排队未完成的下载任务: {} 个", unfinished.size());
+        }
+    }
+
+    // ========== SSE 管理 ==========
+
+    /**
+     * 订阅下载进度，platform 为 null 时接收所有平台
+     */
+    public SseEmitter createSseEmitter(String platform) {
+        SseEmitter emitter = new SseEmitter(0L); // 无超时
+        List<SseEmitter> emitters = sseEmitters.computeIfAbsent(platform != null ? platform : ALL_PLATFORMS, key -> new CopyOnWriteArrayList<>());
+        emitters.add(emitter);
+
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+
+        return emitter;
+    }
+
+    private void sendSseEvent(VideoDownloadTask task) {
+        List<SseEmitter> platformEmitters = task.getPlatform() != null ? sseEmitters.get(task.getPlatform()) : null;
+        List<SseEmitter> allEmitters = sseEmitters.get(ALL_PLATFORMS);
+        if ((platformEmitters == null || platformEmitters.isEmpty()) && (allEmitters == null || allEmitters.isEmpty())) {
+            return;
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("taskId", task.getId());
+        data.put("platform", task.getPlatform());
+        data.put("status", task.getStatus());
+        data.put("progress", task.getProgress());
+        data.put("progressMessage", task.getProgressMessage());
+        data.put("downloadSpeed", task.getDownloadSpeed());
+        data.put("downloadedBytes", task.getDownloadedBytes());
+        data.put("totalBytes", task.getTotalBytes());
+        data.put("outputFile", task.getOutputFile());
+        data.put("errorMessage", task.getErrorMessage());
+        data.put("priority", task.getPriority());
+        data.put("concurrentFragments", task.getConcurrentFragments());
+        data.put("rateLimit", task.getRateLimit());
+        data.put("throughput", bandwidthScheduler.throughput(task.getId()));
+        data.put("averageSpeed", task.getAverageSpeed());
+
+        sendSseEvent(platformEmitters, data);
+        sendSseEvent(allEmitters, data);
+    }
+
+    private void sendSseEvent(List<SseEmitter> emitters, Map<String, Object> data) {
+        if (emitters == null) {
+            return;
+        }
+        List<SseEmitter> deadEmitters = new ArrayList<>();
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name("download-progress")
+                        .data(data));
+            } catch (Exception e) {
+                deadEmitters.add(emitter);
+            }
+        }
+        emitters.removeAll(deadEmitters);
+    }
+
+    /**
+     * 获取视频的可用格式列表
+     */
+    public List<VideoFormat> getAvailableFormats(String platform, String videoUrl) throws Exception {
+        log.info("解析视频可用格式: {}", videoUrl);
+
+        List<String> command = new ArrayList<>();
+        command.add("yt-dlp");
+        command.add("--dump-json");
+        command.add("--no-download");
+        ProcessBuilder pb = new ProcessBuilder(command);
+        adapter(platform).customizeCommand(command, pb.environment());
+        command.add(videoUrl);
+
+        StringBuilder json = new StringBuilder();
+        int exitCode;
+        try (YtDlpBudget.Permit permit = ytDlpBudget.acquire()) {
+            Process process = pb.start();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    json.append(line);
+                }
+            }
+            exitCode = process.waitFor();
+        }
+        if (exitCode != 0) {
+            throw new RuntimeException("Failed to fetch video formats");
+        }
+
+        // 解析 JSON 获取格式列表
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode root = mapper.readTree(json.toString());
+        JsonNode formatsNode = root.path("formats");
+
+        List<VideoFormat> formats = new ArrayList<>();
+
+        if (formatsNode.isArray()) {
+            for (JsonNode formatNode : formatsNode) {
+                VideoFormat format = parseFormat(formatNode);
+                // 只返回有用的格式（有视频或音频）
+                if (format.isHasVideo() || format.isHasAudio()) {
+                    formats.add(format);
+                }
+            }
+        }
+
+        // 按质量排序
+        formats.sort((a, b) -> {
+            // 优先显示有视频+音频的格式
+            if (a.isHasVideo() && a.isHasAudio() && !(b.isHasVideo() && b.isHasAudio())) {
+                return -1;
+            }
+            if (b.isHasVideo() && b.isHasAudio() && !(a.isHasVideo() && a.isHasAudio())) {
+                return 1;
+            }
+            return b.getQuality().compareTo(a.getQuality());
+        });
+
+        log.info("解析完成，找到 {} 个可用格式", formats.size());
+        return formats;
+    }
+
+    /**
+     * 解析单个格式信息
+     */
+    private VideoFormat parseFormat(JsonNode node) {
+        VideoFormat format = new VideoFormat();
+
+        format.setFormatId(node.path("format_id").asText());
+        format.setExt(node.path("ext").asText());
+        format.setResolution(node.path("resolution").asText("N/A"));
+        format.setQuality(node.path("format_note").asText("unknown"));
+        format.setFps(node.path("fps").asText());
+        format.setVcodec(node.path("vcodec").asText("none"));
+        format.setAcodec(node.path("acodec").asText("none"));
+
+        long filesize = node.path("filesize").asLong(0);
+        format.setFilesize(filesize);
+        format.setFilesizeStr(formatFileSize(filesize));
+        format.setNote(node.path("format").asText());
+
+        // 判断是否有视频/音频
+        format.setHasVideo(!"none".equals(format.getVcodec()));
+        format.setHasAudio(!"none".equals(format.getAcodec()));
+
+        return format;
+    }
+
+    /**
+     * 格式化文件大小
+     */
+    private String formatFileSize(long bytes) {
+        if (bytes <= 0) return "Unknown";
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
+        if (bytes < 1024 * 1024 * 1024) return String.format("%.1f MB", bytes / (1024.0 * 1024));
+        return String.format("%.2f GB", bytes / (1024.0 * 1024 * 1024));
+    }
+
+    /**
+     * 创建下载任务（含去重检查）
+     */
+    public VideoDownloadTask createDownloadTask(String platform, Long platformVideoId, String downloadType,
+                                                String formatId, String quality, String priority, Long userId) {
+        DownloadPlatformAdapter adapter = adapter(platform);
+
+        VideoDownloadTask task = new VideoDownloadTask();
+        task.setPlatform(platform);
+        adapter.bindVideo(task, platformVideoId);
+
+        // 去重检查：该用户是否已有相同类型的成功或进行中的下载任务（其他用户下载过的文件由 MediaStore 直接复用）
+        for (VideoDownloadTask existing : adapter.findVideoTasks(platformVideoId)) {
+            if (!Objects.equals(existing.getDownloadType(), downloadType) || !Objects.equals(existing.getCreatedBy(), userId)) {
+                continue;
+            }
+            if ("SUCCESS".equals(existing.getStatus())) {
+                throw new RuntimeException("该视频已有相同类型的成功下载记录 (taskId=" + existing.getId() + ")，如需重新下载请先删除旧任务");
+            }
+            if (UNFINISHED_STATUSES.contains(existing.getStatus())) {
+                throw new RuntimeException("该视频已有相同类型的下载任务正在进行 (taskId=" + existing.getId() + ")");
+            }
+        }
+
+        task.setDownloadType(downloadType);
+        task.setFormatId(formatId);
+        task.setQuality(quality != null ? quality : "best");
+        task.setPriority(BandwidthScheduler.parsePriority(priority));
+        task.setStatus("QUEUED");
+        task.setProgress(0);
+        task.setCreatedBy(userId);
+        task.setProgressMessage("排队等待下载...");
+
+        return taskRepository.save(task);
+    }
+
+    /**
+     * 加入下载队列
+     */
+    public void submit(Long taskId) {
+        DownloadJob job = new DownloadJob(taskId, 1);
+        if (jobs.putIfAbsent(taskId, job) == null) {
+            executor.execute(job);
+        }
+    }
+
+    /**
+     * 取消排队、等待重试或下载中的任务，返回任务是否正在下载
+     */
+    private boolean cancel(Long taskId) {
+        DownloadJob job = jobs.remove(taskId);
+        if (job == null) {
+            return false;
+        }
+        Process process;
+        synchronized (job) {
+            job.cancelled = true;
+            process = job.process;
+        }
+        executor.remove(job);
+        if (process != null) {
+            process.destroy();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 执行一次下载尝试
+     */
+    private void runJob(DownloadJob job) {
+        Long taskId = job.taskId;
+        VideoDownloadTask task = taskRepository.findById(taskId).orElse(null);
+        if (task == null || job.cancelled) {
+            jobs.remove(taskId, job);
+            return;
+        }
+        DownloadPlatformAdapter adapter = adapters.get(task.getPlatform());
+
+        try {
+            // Step 1: 准备下载
+            updateTaskStatus(job, task, "PARSING", 5, "正在解析下载链接...");
+            if (adapter == null) {
+                throw new DownloadFailure("Unsupported platform: " + task.getPlatform(), false);
+            }
+            DownloadPlatformAdapter.Source source = adapter.resolveSource(task);
+
+            // Step 2: 已存储相同内容时直接复用，否则下载（同一内容同一时间只有一个任务在下载）
+            String formatKey = formatKey(task);
+            String contentKey = MediaStore.contentKey(task.getPlatform(), task.getVideoId(), formatKey);
+            String outputPath;
+            String message = "下载完成！";
+            try (MediaStore.Lease lease = mediaStore.lease(contentKey)) {
+                if (!lease.tryLock(0, TimeUnit.MILLISECONDS)) {
+                    updateTaskStatus(job, task, "QUEUED", 5, "等待相同内容的下载完成...");
+                    while (!lease.tryLock(1, TimeUnit.SECONDS)) {
+                        if (job.cancelled) {
+                            throw new DownloadFailure("下载已取消", false);
+                        }
+                    }
+                }
+                StoredFile stored = mediaStore.attach(contentKey);
+                if (stored != null) {
+                    outputPath = stored.getPath();
+                    message = "已有相同内容的文件，直接复用";
+                    log.info("复用已存储的下载文件: taskId={}, file={}", taskId, outputPath);
+                } else {
+                    task.setStartedAt(LocalDateTime.now());
+                    task.setErrorMessage(null);
+                    updateTaskStatus(job, task, "DOWNLOADING", 10,
+                        job.attempt > 1 ? "开始第 " + job.attempt + " 次下载..." : "开始下载...");
+
+                    Path downloaded = downloadVideo(job, task, adapter, source, mediaStore.tempDir(contentKey), contentKey);
+                    outputPath = mediaStore.commit(contentKey, task.getPlatform(), task.getVideoId(), formatKey, downloaded).getPath();
+                }
+            }
+
+            // Step 3: 下载完成（任务在此期间被删除时归还引用）
+            task.setOutputFile(outputPath);
+            task.setCompletedAt(LocalDateTime.now());
+            if (!updateTaskStatus(job, task, "SUCCESS", 100, message)) {
+                mediaStore.release(List.of(outputPath));
+                return;
+            }
+            jobs.remove(taskId, job);
+
+            log.info("下载任务完成: taskId={}, platform={}, file={}", taskId, task.getPlatform(), outputPath);
+            adapter.onDownloaded(task, outputPath);
+
+        } catch (Exception e) {
+            if (job.cancelled) {
+                log.info("下载任务已取消: taskId={}", taskId);
+                return;
+            }
+            boolean retryable = e instanceof DownloadFailure && ((DownloadFailure) e).retryable;
+            if (retryable && job.attempt < maxAttempts) {
+                scheduleRetry(job, task, e.getMessage());
+                return;
+            }
+            jobs.remove(taskId, job);
+            log.error("下载任务失败: taskId={}, platform={}, attempt={}", taskId, task.getPlatform(), job.attempt, e);
+            task.setStatus("FAILED");
+            task.setErrorMessage(truncate(e.getMessage()));
+            task.setProgressMessage(truncate("下载失败: " + e.getMessage()));
+            task.setCompletedAt(LocalDateTime.now());
+            if (saveTask(job, task)) {
+                sendSseEvent(task);
+            }
+        }
+    }
+
+    /**
+     * 临时失败：退避后重新排队
+     */
+    private void scheduleRetry(DownloadJob job, VideoDownloadTask task, String error) {
+        long delay = retryDelaySeconds << Math.min(job.attempt - 1, 6);
+        DownloadJob next = new DownloadJob(job.taskId, job.attempt + 1);
+        if (!jobs.replace(job.taskId, job, next)) {
+            return;
+        }
+        log.warn("下载失败，{} 秒后重试: taskId={}, attempt={}, error={}", delay, job.taskId, job.attempt, error);
+        task.setErrorMessage(truncate(error));
+        if (!updateTaskStatus(next, task, "QUEUED", 0, "下载失败，" + delay + " 秒后重试...")) {
+            return;
+        }
+        retryScheduler.schedule(() -> {
+            if (jobs.get(next.taskId) == next && !next.cancelled) {
+                executor.execute(next);
+            }
+        }, delay, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 下载内容的格式描述（参与内容键计算）：下载类型和实际传给 yt-dlp 的格式参数
+     */
+    private String formatKey(VideoDownloadTask task) {
+        if ("audio".equals(task.getDownloadType())) {
+            return "audio:bestaudio:mp3";
+        }
+        if ("video".equals(task.getDownloadType()) && task.getFormatId() != null) {
+            return "format:" + task.getFormatId();
+        }
+        return "quality:" + getFormatSelector(task.getQuality()) + ":mp4";
+    }
+
+    /**
+     * 执行视频下载，下载到内容键的临时目录，返回下载完成的文件
+     */
+    private Path downloadVideo(DownloadJob job, VideoDownloadTask task, DownloadPlatformAdapter adapter,
+                               DownloadPlatformAdapter.Source source, Path tempDir, String contentKey) throws Exception {
+        // 临时目录按内容键区分，文件名固定，重启或重试时 yt-dlp 从 .part 文件续传
+        String outputTemplate = tempDir.resolve(contentKey).toString() + ".%(ext)s";
+
+        List<String> command = new ArrayList<>();
+        command.add("yt-dlp");
+
+        // 根据下载类型设置参数
+        if ("audio".equals(task.getDownloadType())) {
+            // 仅下载音频
+            command.add("-f");
+            command.add("bestaudio");
+            command.add("-x"); // 提取音频
+            command.add("--audio-format");
+            command.add("mp3");
+        } else if ("video".equals(task.getDownloadType()) && task.getFormatId() != null) {
+            // 下载指定格式的视频
+            command.add("-f");
+            command.add(task.getFormatId());
+        } else {
+            // 默认：根据用户选择的质量下载视频
+            String quality = task.getQuality();
+            String formatSelector = getFormatSelector(quality);
+
+            command.add("-f");
+            command.add(formatSelector);
+
+            // 如果需要合并，自动选择最佳容器格式
+            command.add("--merge-output-format");
+            command.add("mp4");
+
+            // 确保视频质量优先
+            command.add("--format-sort");
+            command.add("res,fps,vcodec,acodec");
+
+            log.info("下载质量设置: {} -> {}", quality, formatSelector);
+        }
+
+        // 输出路径
+        command.add("-o");
+        command.add(outputTemplate);
+
+        // 使用 --progress-template 输出结构化进度
+        command.add("--progress-template");
+        command.add("download:%(progress._percent_str)s|%(progress._speed_str)s|%(progress._eta_str)s|%(progress._total_bytes_str)s");
+
+        // 启用进度输出
+        command.add("--newline");
+        command.add("--no-warnings");
+
+        Map<String, String> env = new HashMap<>(System.getenv());
+        adapter.customizeCommand(command, env);
+
+        // 分片并发数和限速由带宽调度分配；预算变化时下载进程被重启（yt-dlp 从 .part 文件续传）
+        bandwidthScheduler.register(task.getId(), task.getPriority() != null ? task.getPriority()
+            : BandwidthScheduler.PRIORITY_NORMAL, () -> relaunch(job));
+        try {
+            while (true) {
+                BandwidthScheduler.Allocation allocation = bandwidthScheduler.launch(task.getId());
+                task.setConcurrentFragments(allocation.getConcurrentFragments());
+                task.setRateLimit(allocation.getRateLimit());
+
+                List<String> launchCommand = new ArrayList<>(command);
+                launchCommand.add("--concurrent-fragments");
+                launchCommand.add(String.valueOf(allocation.getConcurrentFragments()));
+                if (allocation.getRateLimit() > 0) {
+                    launchCommand.add("--limit-rate");
+                    launchCommand.add(String.valueOf(allocation.getRateLimit()));
+                }
+                // 视频URL
+                launchCommand.add(source.getUrl());
+
+                int exitCode = runDownloadProcess(job, task, launchCommand, env);
+                synchronized (job) {
+                    if (job.relaunching && !job.cancelled) {
+                        job.relaunching = false;
+                        continue;
+                    }
+                }
+                if (exitCode != 0) {
+                    throw downloadFailure(job, adapter, source, exitCode);
+                }
+                break;
+            }
+        } finally {
+            long averageSpeed = bandwidthScheduler.unregister(task.getId());
+            if (averageSpeed > 0) {
+                task.setAverageSpeed(averageSpeed);
+            }
+        }
+
+        Path outputFile = findDownloadedFile(job, tempDir, contentKey);
+        if (outputFile == null) {
+            throw new DownloadFailure("Downloaded file not found", false);
+        }
+
+        log.info("文件下载完成: {}", outputFile);
+
+        return outputFile;
+    }
+
+    /**
+     * 运行一次下载进程，读取输出并更新进度，返回退出码
+     */
+    private int runDownloadProcess(DownloadJob job, VideoDownloadTask task, List<String> command,
+                                   Map<String, String> env) throws Exception {
+        log.info("执行下载命令: {}", String.join(" ", command));
+
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectErrorStream(true);
+        pb.environment().putAll(env);
+        Process process = pb.start();
+        synchronized (job) {
+            if (job.cancelled) {
+                process.destroy();
+                throw new DownloadFailure("下载已取消", false);
+            }
+            job.process = process;
+        }
+
+        // 读取输出并更新进度（只保留最后几行用于错误信息）
+        job.outputTail.clear();
+        job.postProcessing = false;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                log.debug("yt-dlp: {}", line);
+                if (job.outputTail.size() == OUTPUT_TAIL_LINES) {
+                    job.outputTail.removeFirst();
+                }
+                job.outputTail.addLast(line);
+
+                // 解析 --progress-template 输出：download:XX.X%|speed|eta|total
+                if (line.startsWith("download:")) {
+                    updateProgress(task, line.substring("download:".length()).trim());
+                    continue;
+                }
+
+                if (!job.postProcessing && POST_PROCESSING_PATTERN.matcher(line).find()) {
+                    synchronized (job) {
+                        job.postProcessing = true;
+                    }
+                    bandwidthScheduler.reportPostProcessing(task.getId());
+                }
+
+                // 记录输出文件名（合并、提取音频后以最后一个为准）
+                String destination = parseDestination(line);
+                if (destination != null) {
+                    job.destination = destination;
+                }
+
+                // 检测 cookies 错误并给出提示
+                if (line.contains("cookies") && (line.contains("error") || line.contains("ERROR") || line.contains("could not"))) {
+                    log.warn("Cookies 相关错误: {}。尝试不使用 cookies 继续下载。", line);
+                }
+            }
+        } catch (IOException e) {
+            // 重启或取消时 destroy 会关闭输出流
+            if (!job.relaunching && !job.cancelled) {
+                throw e;
+            }
+        }
+
+        int exitCode = process.waitFor();
+        synchronized (job) {
+            job.process = null;
+        }
+        return exitCode;
+    }
+
+    /**
+     * 从 yt-dlp 输出中解析输出文件名，不是文件名行时返回 null
+     */
+    private static String parseDestination(String line) {
+        Matcher matcher = DESTINATION_PATTERN.matcher(line);
+        if (matcher.find()) {
+            return matcher.group(1).trim();
+        }
+        matcher = MERGER_PATTERN.matcher(line);
+        if (matcher.find()) {
+            return matcher.group(1);
+        }
+        matcher = ALREADY_DOWNLOADED_PATTERN.matcher(line);
+        if (matcher.find()) {
+            return matcher.group(1).trim();
+        }
+        return null;
+    }
+
+    /**
+     * 根据 yt-dlp 输出判断失败类型
+     */
+    private DownloadFailure downloadFailure(DownloadJob job, DownloadPlatformAdapter adapter,
+                                            DownloadPlatformAdapter.Source source, int exitCode) {
+        String output = String.join("\n", job.outputTail);
+        if (job.cancelled) {
+            return new DownloadFailure("下载已取消", false);
+        }
+
+        // 如果是需要登录/cookies 的错误，提供友好提示
+        if (output.contains("Sign in") || output.contains("403") || output.contains("Private video")) {
+            String message = adapter.loginRequiredMessage();
+            if (message != null) {
+                log.warn("视频可能需要登录才能下载: {}", source.getUrl());
+                return new DownloadFailure(message, false);
+            }
+            return new DownloadFailure("Download failed with exit code: " + exitCode + ", output: " + output, false);
+        }
+
+        boolean permanent = PERMANENT_ERRORS.stream().anyMatch(output::contains);
+        log.error("yt-dlp 下载失败，输出:\n{}", output);
+        return new DownloadFailure("Download failed with exit code: " + exitCode + ", output: " + output, !permanent);
+    }
+
+    /**
+     * 带宽预算变化：终止当前下载进程，下载线程以新预算重新启动；已进入后处理时不终止
+     */
+    private void relaunch(DownloadJob job) {
+        synchronized (job) {
+            if (job.process != null && !job.cancelled && !job.postProcessing) {
+                job.relaunching = true;
+                job.process.destroy();
+            }
+        }
+    }
+
+    /**
+     * 解析一行进度（XX.X%|speed|eta|total），写入队列并推送 SSE
+     */
+    private void updateProgress(VideoDownloadTask task, String progressLine) {
+        try {
+            String[] parts = progressLine.split("\\|", -1);
+            // 百分比
+            String percentStr = parts[0].trim().replace("%", "");
+            double percent = Double.parseDouble(percentStr);
+            int progress = Math.min((int) (10 + percent * 0.9), 99); // 10-99%
+
+            task.setProgress(progress);
+            task.setProgressMessage("下载中... " + String.format("%.1f", percent) + "%");
+
+            // 速度
+            if (parts.length >= 2 && !parts[1].trim().isEmpty() && !"N/A".equalsIgnoreCase(parts[1].trim())) {
+                task.setDownloadSpeed(parts[1].trim());
+            }
+
+            // 总大小
+            if (parts.length >= 4 && !parts[3].trim().isEmpty() && !"N/A".equalsIgnoreCase(parts[3].trim())) {
+                // 解析总大小字符串，例如 "100.50MiB"
+                long totalBytes = parseSizeString(parts[3].trim());
+                if (totalBytes > 0) {
+                    task.setTotalBytes(totalBytes);
+                    task.setDownloadedBytes((long) (totalBytes * percent / 100.0));
+                }
+            }
+
+            // 剩余时间（如 "00:42"、"1:02:03"），带宽调度据此判断是否值得以新预算重启
+            bandwidthScheduler.reportProgress(task.getId(), task.getDownloadedBytes(),
+                parts.length >= 3 ? parseEtaSeconds(parts[2].trim()) : -1);
+
+            // 进度更新频繁，交给写队列合并后批量落库；SSE 仍实时推送
+            enqueueProgress(task);
+            sendSseEvent(task);
+        } catch (NumberFormatException e) {
+            // 忽略解析错误
+        }
+    }
+
+    /**
+     * 解析剩余时间字符串（[[HH:]MM:]SS）为秒数，无法解析时返回 -1
+     */
+    private long parseEtaSeconds(String eta) {
+        long seconds = 0;
+        for (String part : eta.split(":")) {
+            try {
+                seconds = seconds * 60 + Long.parseLong(part.trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return seconds;
+    }
+
+    /**
+     * 根据质量选项获取格式选择器
+     */
+    private String getFormatSelector(String quality) {
+        if (quality == null || "best".equals(quality)) {
+            // 最佳质量（1080p+）
+            return "bestvideo[height>=1080]+bestaudio/bestvideo+bestaudio/best";
+        }
+
+        switch (quality) {
+            case "4k":
+                // 4K (2160p)
+                return "bestvideo[height>=2160]+bestaudio/bestvideo[height>=1440]+bestaudio/best";
+            case "2k":
+                // 2K (1440p)
+                return "bestvideo[height>=1440][height<=2160]+bestaudio/bestvideo+bestaudio/best";
+            case "1080p":
+                // Full HD
+                return "bestvideo[height>=1080][height<=1440]+bestaudio/bestvideo[height=1080]+bestaudio/best";
+            case "720p":
+                // HD
+                return "bestvideo[height>=720][height<=1080]+bestaudio/bestvideo[height=720]+bestaudio/best";
+            case "480p":
+                // SD
+                return "bestvideo[height>=480][height<=720]+bestaudio/bestvideo[height=480]+bestaudio/best";
+            default:
+                return "bestvideo+bestaudio/best";
+        }
+    }
+
+    /**
+     * 解析大小字符串（如 "100.50MiB"）为字节数
+     */
+    private long parseSizeString(String sizeStr) {
+        try {
+            sizeStr = sizeStr.trim();
+            double value;
+            if (sizeStr.endsWith("GiB")) {
+                value = Double.parseDouble(sizeStr.replace("GiB", "").trim());
+                return (long) (value * 1024 * 1024 * 1024);
+            } else if (sizeStr.endsWith("MiB")) {
+                value = Double.parseDouble(sizeStr.replace("MiB", "").trim());
+                return (long) (value * 1024 * 1024);
+            } else if (sizeStr.endsWith("KiB")) {
+                value = Double.parseDouble(sizeStr.replace("KiB", "").trim());
+                return (long) (value * 1024);
+            } else if (sizeStr.endsWith("B")) {
+                value = Double.parseDouble(sizeStr.replace("B", "").trim());
+                return (long) value;
+            }
+        } catch (NumberFormatException e) {
+            // ignore
+        }
+        return 0;
+    }
+
+    /**
+     * 清理文件名（移除非法字符）
+     */
+    private String sanitizeFilename(String filename) {
+        if (filename == null || filename.isEmpty()) {
+            return "video_" + System.currentTimeMillis();
+        }
+
+        // 移除或替换文件系统不支持的字符
+        String sanitized = filename
+            .replaceAll("[\\\\/:*?\"<>|]", "_")  // Windows 非法字符
+            .replaceAll("[\\x00-\\x1F]", "")     // 控制字符
+            .replaceAll("\\s+", " ")              // 多个空格替换为单个
+            .trim();
+
+        // 限制长度（保留足够空间给扩展名）
+        if (sanitized.length() > 200) {
+            sanitized = sanitized.substring(0, 200);
+        }
+
+        // 如果清理后为空，使用默认名称
+        if (sanitized.isEmpty()) {
+            sanitized = "video_" + System.currentTimeMillis();
+        }
+
+        return sanitized;
+    }
+
+    /**
+     * 下载完成的文件：优先用 yt-dlp 输出的文件名，没有时在该内容键的临时目录中找（只有这一次下载的文件）
+     */
+    private Path findDownloadedFile(DownloadJob job, Path tempDir, String contentKey) throws IOException {
+        if (job.destination != null) {
+            Path destination = Paths.get(job.destination);
+            if (Files.isRegularFile(destination) && destination.toAbsolutePath().startsWith(tempDir.toAbsolutePath())) {
+                return destination;
+            }
+        }
+        Path found = null;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(tempDir, contentKey + ".*")) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                // 跳过未完成的文件和合并前的分离流（{键}.f137.mp4）
+                if (name.endsWith(".part") || name.endsWith(".ytdl") || INTERMEDIATE_PATTERN.matcher(name).find()) {
+                    continue;
+                }
+                if (found == null || Files.size(path) > Files.size(found)) {
+                    found = path;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 用户下载时的文件名：视频标题 + 存储文件的扩展名
+     */
+    public String getDownloadFilename(VideoDownloadTask task) {
+        String outputFile = task.getOutputFile();
+        String name = Paths.get(outputFile).getFileName().toString();
+        if (!MediaStore.isStoreFile(outputFile)) {
+            // 旧版本的下载文件已按标题命名
+            return name;
+        }
+        String extension = name.contains(".") ? name.substring(name.lastIndexOf('.')) : "";
+        String title = null;
+        DownloadPlatformAdapter adapter = adapters.get(task.getPlatform());
+        if (adapter != null) {
+            try {
+                title = adapter.resolveSource(task).getTitle();
+            } catch (RuntimeException e) {
+                // 视频已删除，使用视频 ID
+            }
+        }
+        return sanitizeFilename(title != null ? title : task.getVideoId()) + extension;
+    }
+
+    /**
+     * 将下载进度提交到写队列（同一任务只保留最新进度）
+     */
+    private void enqueueProgress(VideoDownloadTask task) {
+        Long id = task.getId();
+        Integer progress = task.getProgress();
+        String message = task.getProgressMessage();
+        String speed = task.getDownloadSpeed();
+        Long downloadedBytes = task.getDownloadedBytes();
+        Long totalBytes = task.getTotalBytes();
+        writeQueue.submit(progressKey(task), () ->
+            taskRepository.updateDownloadProgress(id, progress, message, speed, downloadedBytes, totalBytes));
+    }
+
+    private String progressKey(VideoDownloadTask task) {
+        return progressKey(task.getId());
+    }
+
+    private static String progressKey(Long taskId) {
+        return "download-task:" + taskId;
+    }
+
+    /**
+     * 保存整条任务记录（先丢弃队列中尚未落库的旧进度）；任务已取消（记录已删除）时不再保存，避免重新插入
+     */
+    private boolean saveTask(DownloadJob job, VideoDownloadTask task) {
+        writeQueue.discard(progressKey(task));
+        synchronized (job) {
+            if (job.cancelled) {
+                return false;
+            }
+            taskRepository.save(task);
+            return true;
+        }
+    }
+
+    /**
+     * 更新任务状态（同时推送 SSE）
+     */
+    private boolean updateTaskStatus(DownloadJob job, VideoDownloadTask task, String status, int progress, String message) {
+        task.setStatus(status);
+        task.setProgress(progress);
+        task.setProgressMessage(message);
+        if (!saveTask(job, task)) {
+            return false;
+        }
+        sendSseEvent(task);
+        log.info("[下载任务] ID={}, 平台={}, 状态={}, 进度={}%, 消息={}", task.getId(), task.getPlatform(), status, progress, message);
+        return true;
+    }
+
+    /**
+     * 获取用户在某个平台的下载任务列表
+     */
+    public List<VideoDownloadTask> getUserDownloadTasks(Long userId, String platform) {
+        return taskRepository.findByCreatedByAndPlatformOrderByCreatedAtDesc(userId, platform);
+    }
+
+    /**
+     * 获取任务详情
+     */
+    public VideoDownloadTask getTaskDetails(Long taskId) {
+        return taskRepository.findById(taskId)
+            .orElseThrow(() -> new RuntimeException("Task not found"));
+    }
+
+    /**
+     * 删除下载任务（正在下载时先终止下载进程），释放任务对下载文件的引用
+     */
+    @Transactional
+    public void deleteDownloadTask(Long taskId) {
+        // 先取消再读取任务：下载线程在取消前已保存为 SUCCESS 时这里能读到，引用由这里归还，否则由下载线程归还
+        cancel(taskId);
+        writeQueue.discard(progressKey(taskId));
+        Optional<VideoDownloadTask> taskOpt = taskRepository.findById(taskId);
+        if (!taskOpt.isPresent()) {
+            throw new RuntimeException("Task not found");
+        }
+
+        VideoDownloadTask task = taskOpt.get();
+
+        // 存储中的文件只减引用（可能被其他任务共用）；旧版本的文件事务提交后在后台删除，中断的下载还有 .part 临时文件。
+        // 取消的下载在临时目录中留下的文件由存储清理定期删除
+        String outputFile = task.getOutputFile();
+        if ("SUCCESS".equals(task.getStatus()) && outputFile != null) {
+            mediaStore.release(List.of(outputFile));
+        } else if (outputFile != null && !MediaStore.isStoreFile(outputFile)) {
+            mediaFileCleaner.deleteAfterCommit(List.of(outputFile, outputFile + ".part"));
+        }
+
+        // 删除任务记录
+        taskRepository.delete(task);
+        log.info("已删除下载任务: taskId={}", taskId);
+    }
+
+    /**
+     * 获取视频的所有下载任务
+     */
+    public List<VideoDownloadTask> getVideoDownloadTasks(String platform, Long platformVideoId) {
+        return adapter(platform).findVideoTasks(platformVideoId);
+    }
+
+    private DownloadPlatformAdapter adapter(String platform) {
+        DownloadPlatformAdapter adapter = adapters.get(platform);
+        if (adapter == null) {
+            throw new IllegalArgumentException("Unsupported platform: " + platform);
+        }
+        return adapter;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        retryScheduler.shutdownNow();
+        executor.shutdownNow();
+        // 终止下载进程，任务保持原状态，下次启动时重新排队（yt-dlp 会从 .part 文件续传）
+        for (DownloadJob job : jobs.values()) {
+            Process process;
+            synchronized (job) {
+                job.cancelled = true;
+                process = job.process;
+            }
+            if (process != null) {
+                process.destroy();
+            }
+        }
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 一次下载尝试，重试时创建新的实例（attempt + 1）
+     */
+    private final class DownloadJob implements Runnable {
+
+        private final Long taskId;
+        private final int attempt;
+        private volatile boolean cancelled;
+        private volatile boolean relaunching;
+        // 当前下载进程已开始后处理（合并、提取音频等）
+        private volatile boolean postProcessing;
+        private volatile Process process;
+        // yt-dlp 输出的最终文件名
+        private volatile String destination;
+        // 最近一次下载进程输出的最后几行（用于错误信息）
+        private final Deque<String> outputTail = new ArrayDeque<>();
+
+        private DownloadJob(Long taskId, int attempt) {
+            this.taskId = taskId;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public void run() {
+            runJob(this);
+        }
+    }
+
+    /**
+     * 下载失败，retryable 表示可能是临时错误（网络等），可以重试
+     */
+    private static final class DownloadFailure extends RuntimeException {
+
+        private final boolean retryable;
+
+        private DownloadFailure(String message, boolean retryable) {
+            super(message);
+            this.retryable = retryable;
+        }
+    }
+}
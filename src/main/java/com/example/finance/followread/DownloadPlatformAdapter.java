@@ -0,0 +1,72 @@
+package com.example.finance.followread;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 下载平台适配器：{@link DownloadEngine} 按 {@link VideoDownloadTask#getPlatform()} 选择适配器，
+ * 适配器只负责平台视频的查找和平台专属的 yt-dlp 参数，排队、并发、进度、SSE 和重试由引擎统一处理
+ */
+public interface DownloadPlatformAdapter {
+
+    /**
+     * 平台标识，与 VideoDownloadTask.platform 一致
+     */
+    String getPlatform();
+
+    /**
+     * 把任务关联到平台视频（设置 videoId 和关联的视频记录 ID），视频不存在时抛出异常
+     */
+    void bindVideo(VideoDownloadTask task, Long platformVideoId);
+
+    /**
+     * 任务对应的下载源，视频已被删除时抛出异常
+     */
+    Source resolveSource(VideoDownloadTask task);
+
+    /**
+     * 平台视频的全部下载任务
+     */
+    List<VideoDownloadTask> findVideoTasks(Long platformVideoId);
+
+    /**
+     * 追加平台专属的 yt-dlp 参数（放在视频 URL 之前）和进程环境变量
+     */
+    default void customizeCommand(List<String> command, Map<String, String> env) {
+    }
+
+    /**
+     * 下载失败且输出中提示需要登录时给用户的说明，null 表示使用 yt-dlp 原始输出
+     */
+    default String loginRequiredMessage() {
+        return null;
+    }
+
+    /**
+     * 下载成功后的平台处理（在下载线程中调用，不在事务中）
+     */
+    default void onDownloaded(VideoDownloadTask task, String outputFile) {
+    }
+
+    /**
+     * 下载源：视频 URL 和用于文件命名的标题
+     */
+    final class Source {
+
+        private final String url;
+        private final String title;
+
+        public Source(String url, String title) {
+            this.url = url;
+            this.title = title;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+    }
+}
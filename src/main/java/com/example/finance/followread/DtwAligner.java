@@ -0,0 +1,173 @@
+package com.example.finance.followread;
+
+import java.util.Arrays;
+
+/**
+ * 参考语音与用户录音的 DTW 对齐
+ *
+ * 使用 Sakoe-Chiba 带状约束：参考的第 i 帧只与录音中按时长比例对应位置附近的帧比较，
+ * 计算量和内存都是 O(参考帧数 × 带宽)，10 秒的句子约 50 万个单元格。
+ * 代价矩阵和回溯方向保存在实例的缓冲区中，按需扩容后重复使用；超过 {@link #MAX_RETAINED_CELLS} 的
+ * 超长录音临时分配、用完即丢，避免按线程缓存的实例长期占用内存。实例非线程安全。
+ */
+final class DtwAligner {
+
+    // 带宽：两段长度差的基础上，再允许最长一段 25% 的局部快慢变化，至少 ±30 帧（0.3 秒）
+    private static final double BAND_RATIO = 0.25;
+    private static final int MIN_HALF_BAND = 30;
+
+    // 缓冲区超过这个单元格数后不再复用（约 5MB，相当于 20 秒左右的句子）
+    static final int MAX_RETAINED_CELLS = 1 << 20;
+
+    private static final byte FROM_DIAGONAL = 0;
+    private static final byte FROM_REFERENCE = 1;  // (i-1, j)
+    private static final byte FROM_RECORDING = 2;  // (i, j-1)
+
+    private static final int FIRST_CEP = 1;
+    private static final int NUM_CEPS = AcousticFeatures.NUM_CEPS;
+
+    private float[] retainedCost = new float[0];
+    private byte[] retainedSteps = new byte[0];
+
+    /**
+     * 对齐结果：路径上第 k 个点是参考帧 reference[k] 对应录音帧 recording[k]，局部距离 distance[k]
+     */
+    static final class Alignment {
+        final int length;
+        final int[] reference;
+        final int[] recording;
+        final float[] distance;
+
+        Alignment(int length, int[] reference, int[] recording, float[] distance) {
+            this.length = length;
+            this.reference = reference;
+            this.recording = recording;
+            this.distance = distance;
+        }
+    }
+
+    Alignment align(AcousticFeatures ref, AcousticFeatures rec) {
+        int n = ref.frames;
+        int m = rec.frames;
+        int halfBand = Math.max(MIN_HALF_BAND, Math.abs(n - m) + (int) (BAND_RATIO * Math.max(n, m)));
+        int width = 2 * halfBand + 1;
+        float[] cost;
+        byte[] steps;
+        int cells = n * width;
+        if (cells > MAX_RETAINED_CELLS) {
+            cost = new float[cells];
+            steps = new byte[cells];
+        } else {
+            ensureCapacity(cells);
+            cost = retainedCost;
+            steps = retainedSteps;
+        }
+
+        for (int i = 0; i < n; i++) {
+            int lo = low(i, n, m, halfBand);
+            int hi = high(i, n, m, halfBand);
+            int row = i * width;
+            int previousRow = row - width;
+            int previousLo = i > 0 ? low(i - 1, n, m, halfBand) : 0;
+            int previousHi = i > 0 ? high(i - 1, n, m, halfBand) : -1;
+            for (int j = lo; j <= hi; j++) {
+                float d = distance(ref.mfcc, i, rec.mfcc, j);
+                float best;
+                byte step;
+                if (i == 0 && j == lo) {
+                    best = j == 0 ? 0 : Float.POSITIVE_INFINITY;
+                    step = FROM_RECORDING;
+                } else {
+                    best = Float.POSITIVE_INFINITY;
+                    step = FROM_DIAGONAL;
+                    if (i > 0 && j - 1 >= previousLo && j - 1 <= previousHi) {
+                        best = cost[previousRow + (j - 1 - previousLo)];
+                    }
+                    if (i > 0 && j >= previousLo && j <= previousHi) {
+                        float up = cost[previousRow + (j - previousLo)];
+                        if (up < best) {
+                            best = up;
+                            step = FROM_REFERENCE;
+                        }
+                    }
+                    if (j > lo) {
+                        float left = cost[row + (j - 1 - lo)];
+                        if (left < best) {
+                            best = left;
+                            step = FROM_RECORDING;
+                        }
+                    }
+                }
+                cost[row + (j - lo)] = best + d;
+                steps[row + (j - lo)] = step;
+            }
+        }
+
+        // 从 (n-1, m-1) 回溯到 (0, 0)
+        int capacity = n + m;
+        int[] refPath = new int[capacity];
+        int[] recPath = new int[capacity];
+        float[] distances = new float[capacity];
+        int k = capacity;
+        int i = n - 1;
+        int j = m - 1;
+        while (true) {
+            k--;
+            refPath[k] = i;
+            recPath[k] = j;
+            distances[k] = distance(ref.mfcc, i, rec.mfcc, j);
+            if (i == 0 && j == 0) {
+                break;
+            }
+            byte step = steps[i * width + (j - low(i, n, m, halfBand))];
+            if (i == 0) {
+                j--;
+            } else if (j == 0 || step == FROM_REFERENCE) {
+                i--;
+            } else if (step == FROM_RECORDING) {
+                j--;
+            } else {
+                i--;
+                j--;
+            }
+        }
+        int length = capacity - k;
+        return new Alignment(length,
+            Arrays.copyOfRange(refPath, k, capacity),
+            Arrays.copyOfRange(recPath, k, capacity),
+            Arrays.copyOfRange(distances, k, capacity));
+    }
+
+    /**
+     * c1 ~ c12 的欧氏距离（c0 与音量相关，不参与比较）
+     */
+    static float distance(float[] a, int frameA, float[] b, int frameB) {
+        int pa = frameA * NUM_CEPS;
+        int pb = frameB * NUM_CEPS;
+        float sum = 0;
+        for (int k = FIRST_CEP; k < NUM_CEPS; k++) {
+            float diff = a[pa + k] - b[pb + k];
+            sum += diff * diff;
+        }
+        return (float) Math.sqrt(sum);
+    }
+
+    private static int center(int i, int n, int m) {
+        return n <= 1 ? 0 : (int) ((long) i * (m - 1) / (n - 1));
+    }
+
+    private static int low(int i, int n, int m, int halfBand) {
+        return Math.max(0, center(i, n, m) - halfBand);
+    }
+
+    private static int high(int i, int n, int m, int halfBand) {
+        return Math.min(m - 1, center(i, n, m) + halfBand);
+    }
+
+    private void ensureCapacity(int cells) {
+        if (retainedCost.length < cells) {
+            retainedCost = new float[cells];
+            retainedSteps = new byte[cells];
+        }
+    }
+}
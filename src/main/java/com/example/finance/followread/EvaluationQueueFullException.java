@@ -0,0 +1,18 @@
+package com.example.finance.followread;
+
+/**
+ * 评估队列已满，客户端应在 retryAfterSeconds 秒后重新提交（HTTP 429 + Retry-After）
+ */
+public class EvaluationQueueFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public EvaluationQueueFullException(long retryAfterSeconds) {
+        super("评估队列已满，请 " + retryAfterSeconds + " 秒后重试");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.finance.followread;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 录音评估调度器
+ *
+ * 评估不再占用通用 @Async 线程池，而是由固定数量的评估线程从有界队列中取任务：
+ * - 有界：排队 + 正在评估的录音数不超过 queue-capacity，满了直接拒绝（429 + Retry-After），
+ *   提交前先用 {@link #reserve()} 占一个名额，避免读完整个上传才发现排不上
+ * - 攒批：队列按句子分组，评估线程每次取同一句子的一批录音（最多 max-batch-size 条），
+ *   参考特征（见 ReferenceFeatureCache）只取一次；最早的录音最多多等 linger-ms，让同时提交的录音进入同一批
+ * - 指标：各阶段耗时（排队、参考特征、解码、评分、落库、总耗时）注册到 Micrometer，
+ *   {@link #getStats()} 汇总队列状态和各阶段耗时分位数
+ */
+@Component
+public class EvaluationScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(EvaluationScheduler.class);
+
+    private static final String STAGE_METRIC = "followread.evaluation.stage";
+    private static final String[] STAGES = {"queue", "reference", "decode", "score", "persist", "total"};
+    private static final long MIN_RETRY_AFTER_SECONDS = 1;
+    private static final long MAX_RETRY_AFTER_SECONDS = 60;
+    // 单条录音平均评估耗时的平滑系数（用于估算 Retry-After）
+    private static final double AVERAGE_WEIGHT = 0.2;
+    private static final long SHUTDOWN_WAIT_MS = 10_000;
+
+    @Value("${evaluation.workers:2}")
+    private int workers;
+
+    @Value("${evaluation.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${evaluation.max-batch-size:16}")
+    private int maxBatchSize;
+
+    @Value("${evaluation.linger-ms:30}")
+    private long lingerMs;
+
+    @Autowired
+    private FollowReadSentenceRepository sentenceRepository;
+
+    @Autowired
+    private ReferenceAudioProvider referenceAudioProvider;
+
+    @Autowired
+    private ReferenceFeatureCache referenceFeatureCache;
+
+    @Autowired
+    private RecordingUploadStore uploadStore;
+
+    @Autowired
+    private PronunciationScorer pronunciationScorer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 待评估录音，按句子分组，按组内最早提交的顺序排列
+    private final LinkedHashMap<Long, ArrayDeque<Job>> pending = new LinkedHashMap<>();
+    private int pendingCount;
+
+    private Semaphore slots;
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private volatile boolean running = true;
+    private volatile double averageJobMillis = 100;
+
+    private final Map<String, Timer> stageTimers = new HashMap<>();
+    private DistributionSummary batchSizes;
+
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong sharedReferenceCount = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        slots = new Semaphore(queueCapacity);
+        for (String stage : STAGES) {
+            stageTimers.put(stage, Timer.builder(STAGE_METRIC)
+                .tag("stage", stage)
+                .publishPercentiles(0.5, 0.95)
+                .register(meterRegistry));
+        }
+        batchSizes = DistributionSummary.builder("followread.evaluation.batch.size").register(meterRegistry);
+        Gauge.builder("followread.evaluation.queued", this, EvaluationScheduler::queuedCount).register(meterRegistry);
+        Gauge.builder("followread.evaluation.outstanding", this, EvaluationScheduler::outstandingCount).register(meterRegistry);
+
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(this::runLoop, "evaluation-" + (i + 1));
+            thread.setDaemon(true);
+            thread.start();
+            workerThreads.add(thread);
+        }
+        log.info("录音评估调度器已启动: workers={}, capacity={}, maxBatchSize={}", workers, queueCapacity, maxBatchSize);
+    }
+
+    /**
+     * 占用一个评估名额，队列已满时抛出 EvaluationQueueFullException；名额随评估结束释放，未提交时关闭 Slot 释放
+     */
+    public Slot reserve() {
+        if (!running || !slots.tryAcquire()) {
+            rejectedCount.incrementAndGet();
+            throw new EvaluationQueueFullException(retryAfterSeconds());
+        }
+        return new Slot();
+    }
+
+    /**
+     * 记录调用方完成的阶段耗时（如评分结果落库）
+     */
+    public void recordStage(String stage, long startNanos) {
+        stageTimers.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 评估名额，通过 {@link #submit} 把录音放入队列
+     */
+    public final class Slot implements AutoCloseable {
+
+        private boolean held = true;
+
+        private Slot() {
+        }
+
+        /**
+         * 提交录音评估
+         *
+         * @param text    评分用的句子文本，null 表示使用句子本身的文本
+         * @param onStart 评估线程开始处理这条录音时回调，可以为 null
+         */
+        public CompletableFuture<PronunciationResult> submit(Long sentenceId, String text, Path recording, Runnable onStart) {
+            if (!held) {
+                throw new IllegalStateException("评估名额已使用");
+            }
+            held = false;
+            Job job = new Job(sentenceId, text, recording, onStart);
+            synchronized (pending) {
+                pending.computeIfAbsent(sentenceId, k -> new ArrayDeque<>()).addLast(job);
+                pendingCount++;
+                pending.notifyAll();
+            }
+            return job.result;
+        }
+
+        @Override
+        public void close() {
+            if (held) {
+                held = false;
+                slots.release();
+            }
+        }
+    }
+
+    /**
+     * 调度器统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", workers);
+        stats.put("capacity", queueCapacity);
+        stats.put("queued", queuedCount());
+        stats.put("outstanding", outstandingCount());
+        stats.put("completed", completedCount.get());
+        stats.put("failed", failedCount.get());
+        stats.put("rejected", rejectedCount.get());
+        stats.put("batches", batchCount.get());
+        stats.put("sharedReferences", sharedReferenceCount.get());
+        stats.put("averageJobMillis", Math.round(averageJobMillis));
+
+        Map<String, Object> stages = new LinkedHashMap<>();
+        for (String stage : STAGES) {
+            HistogramSnapshot snapshot = stageTimers.get(stage).takeSnapshot();
+            Map<String, Object> timing = new LinkedHashMap<>();
+            timing.put("count", snapshot.count());
+            timing.put("meanMs", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+            timing.put("maxMs", round(snapshot.max(TimeUnit.MILLISECONDS)));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                timing.put("p" + Math.round(percentile.percentile() * 100) + "Ms",
+                    round(percentile.value(TimeUnit.MILLISECONDS)));
+            }
+            stages.put(stage, timing);
+        }
+        stats.put("stages", stages);
+        return stats;
+    }
+
+    private int queuedCount() {
+        synchronized (pending) {
+            return pendingCount;
+        }
+    }
+
+    private int outstandingCount() {
+        return queueCapacity - slots.availablePermits();
+    }
+
+    /**
+     * 按当前积压量和平均评估耗时估算多久后会有空位
+     */
+    private long retryAfterSeconds() {
+        double seconds = (outstandingCount() + 1) * averageJobMillis / Math.max(1, workers) / 1000;
+        return Math.max(MIN_RETRY_AFTER_SECONDS, Math.min(MAX_RETRY_AFTER_SECONDS, (long) Math.ceil(seconds)));
+    }
+
+    private void runLoop() {
+        while (true) {
+            List<Job> batch;
+            try {
+                batch = takeBatch();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (batch == null) {
+                return;
+            }
+            try {
+                process(batch);
+            } catch (Exception e) {
+                // process 内部已处理每条录音的异常，这里只防止线程意外退出
+                log.error("录音评估批次执行异常", e);
+            }
+        }
+    }
+
+    /**
+     * 取最早的句子分组中的一批录音；调度器关闭且队列为空时返回 null
+     */
+    private List<Job> takeBatch() throws InterruptedException {
+        synchronized (pending) {
+            while (true) {
+                if (pending.isEmpty()) {
+                    if (!running) {
+                        return null;
+                    }
+                    pending.wait(1000);
+                    continue;
+                }
+                Map.Entry<Long, ArrayDeque<Job>> oldest = pending.entrySet().iterator().next();
+                ArrayDeque<Job> group = oldest.getValue();
+                // 批次未满时等最早的录音排满 linger-ms，让同一句子的并发提交攒进同一批
+                long waitMs = lingerMs - (System.nanoTime() - group.peekFirst().enqueuedNanos) / 1_000_000;
+                if (running && waitMs > 0 && group.size() < maxBatchSize) {
+                    pending.wait(waitMs);
+                    continue;
+                }
+                List<Job> batch = new ArrayList<>(Math.min(group.size(), maxBatchSize));
+                while (!group.isEmpty() && batch.size() < maxBatchSize) {
+                    batch.add(group.pollFirst());
+                }
+                if (group.isEmpty()) {
+                    pending.remove(oldest.getKey());
+                }
+                pendingCount -= batch.size();
+                return batch;
+            }
+        }
+    }
+
+    private void process(List<Job> batch) {
+        long started = System.nanoTime();
+        Long sentenceId = batch.get(0).sentenceId;
+        for (Job job : batch) {
+            stageTimers.get("queue").record(started - job.enqueuedNanos, TimeUnit.NANOSECONDS);
+            if (job.onStart != null) {
+                try {
+                    job.onStart.run();
+                } catch (Exception e) {
+                    log.warn("评估开始回调失败: sentenceId={}, error={}", sentenceId, e.getMessage());
+                }
+            }
+        }
+        batchCount.incrementAndGet();
+        batchSizes.record(batch.size());
+
+        FollowReadSentence sentence;
+        ReferenceFeatureCache.CachedReference reference;
+        try {
+            long start = System.nanoTime();
+            sentence = sentenceRepository.findById(sentenceId)
+                .orElseThrow(() -> new RecordingRejectedException(404, "句子不存在: " + sentenceId));
+            reference = referenceFeatureCache.get(sentence);
+            if (reference == null) {
+                throw new RecordingRejectedException(422, "该句子没有可用的参考音频");
+            }
+            recordStage("reference", start);
+        } catch (Exception e) {
+            log.warn("加载参考音频失败: sentenceId={}, error={}", sentenceId, e.getMessage());
+            for (Job job : batch) {
+                fail(job, e);
+            }
+            return;
+        }
+        sharedReferenceCount.addAndGet(batch.size() - 1);
+
+        for (Job job : batch) {
+            try {
+                long start = System.nanoTime();
+                float[] recording = uploadStore.decode(job.recording);
+                recordStage("decode", start);
+
+                start = System.nanoTime();
+                String text = job.text != null ? job.text : sentence.getText();
+                PronunciationResult result = pronunciationScorer.score(reference.getPrepared(), recording, text,
+                    referenceAudioProvider.wordStarts(sentence, reference.getClipStart(), reference.getDuration(), text));
+                recordStage("score", start);
+                complete(job, result);
+            } catch (Exception e) {
+                log.warn("录音评估失败: sentenceId={}, file={}, error={}", sentenceId, job.recording, e.getMessage());
+                fail(job, e);
+            }
+        }
+
+        double perJob = (System.nanoTime() - started) / 1e6 / batch.size();
+        averageJobMillis = AVERAGE_WEIGHT * perJob + (1 - AVERAGE_WEIGHT) * averageJobMillis;
+        if (batch.size() > 1) {
+            log.info("批量评估完成: sentenceId={}, 录音数={}, 耗时 {}ms", sentenceId, batch.size(),
+                (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    private void complete(Job job, PronunciationResult result) {
+        // 先释放名额再回调：回调（落库等）期间新的提交已经可以排队
+        slots.release();
+        recordStage("total", job.enqueuedNanos);
+        completedCount.incrementAndGet();
+        job.result.complete(result);
+    }
+
+    private void fail(Job job, Exception error) {
+        slots.release();
+        recordStage("total", job.enqueuedNanos);
+        failedCount.incrementAndGet();
+        job.result.completeExceptionally(error);
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 10) / 10.0;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        synchronized (pending) {
+            pending.notifyAll();
+        }
+        // 评估完已在队列中的录音
+        long deadline = System.currentTimeMillis() + SHUTDOWN_WAIT_MS;
+        for (Thread thread : workerThreads) {
+            thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+    }
+
+    private static final class Job {
+        final Long sentenceId;
+        final String text;
+        final Path recording;
+        final Runnable onStart;
+        final long enqueuedNanos = System.nanoTime();
+        final CompletableFuture<PronunciationResult> result = new CompletableFuture<>();
+
+        Job(Long sentenceId, String text, Path recording, Runnable onStart) {
+            this.sentenceId = sentenceId;
+            this.text = text;
+            this.recording = recording;
+            this.onStart = onStart;
+        }
+    }
+}
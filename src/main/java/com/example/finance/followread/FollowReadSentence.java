@@ -7,7 +7,8 @@ import java.time.LocalDateTime;
 @Table(name = "follow_read_sentences")
 public class FollowReadSentence {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "follow_read_sentences_seq")
+    @SequenceGenerator(name = "follow_read_sentences_seq", sequenceName = "follow_read_sentences_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 1000)
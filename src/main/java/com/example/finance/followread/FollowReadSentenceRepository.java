@@ -1,7 +1,11 @@
 package com.example.finance.followread;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 @Repository
@@ -10,5 +14,13 @@ public interface FollowReadSentenceRepository extends JpaRepository<FollowReadSe
     List<FollowReadSentence> findByCategory(String category);
     List<FollowReadSentence> findByYoutubeVideoId(Long youtubeVideoId);
     List<FollowReadSentence> findByYoutubeVideoIdOrderBySentenceOrder(Long youtubeVideoId);
+
+    /**
+     * 批量删除视频的全部学习句子（单条 DELETE，不加载实体）
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from FollowReadSentence s where s.youtubeVideoId = :videoId")
+    int deleteAllByYoutubeVideoId(@Param("videoId") Long youtubeVideoId);
 }
 
@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 public class FollowReadTask {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "follow_read_tasks_seq")
+    @SequenceGenerator(name = "follow_read_tasks_seq", sequenceName = "follow_read_tasks_seq", allocationSize = 50)
     private Long id;
     
     // 关联的句子 ID
@@ -22,7 +23,7 @@ public class FollowReadTask {
     @Column(name = "user_id", nullable = false)
     private Long userId;
     
-    // 任务状态: pending, processing, completed, failed
+    // 任务状态: pending, processing（已提交录音）, evaluating（排队或评估中）, completed, failed
     @Column(name = "status")
     private String status;
     
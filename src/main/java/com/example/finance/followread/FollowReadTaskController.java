@@ -1,13 +1,20 @@
 package com.example.finance.followread;
 
+import com.example.finance.CurrentUserResolver;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +32,15 @@ public class FollowReadTaskController {
     @Autowired
     private FollowReadTaskService taskService;
 
+    @Autowired
+    private EvaluationScheduler evaluationScheduler;
+
+    @Autowired
+    private ReferenceFeatureCache referenceFeatureCache;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
     /**
      * 创建跟读任务
      * POST /api/follow-read/tasks
@@ -57,19 +73,46 @@ public class FollowReadTaskController {
     }
 
     /**
-     * 提交录音
+     * 提交录音（multipart，字段名 audio）
      * POST /api/follow-read/tasks/{taskId}/submit
      */
-    @PostMapping("/{taskId}/submit")
+    @PostMapping(value = "/{taskId}/submit", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> submitRecording(
             @PathVariable Long taskId,
             @RequestParam("audio") MultipartFile audioFile,
             Authentication authentication) {
-        
+        try (InputStream audio = audioFile.getInputStream()) {
+            return submit(taskId, audio, audioFile.getSize(), authentication);
+        } catch (IOException e) {
+            log.error("读取录音失败: taskId={}", taskId, e);
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to submit recording: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 提交录音（请求体就是音频内容，可以 chunked 传输，不经过 multipart 解析）
+     * POST /api/follow-read/tasks/{taskId}/submit
+     * Content-Type: application/octet-stream 或 audio/*
+     */
+    @PostMapping(value = "/{taskId}/submit", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "audio/*"})
+    public ResponseEntity<?> submitRecordingStream(
+            @PathVariable Long taskId,
+            HttpServletRequest request,
+            Authentication authentication) {
+        try (InputStream audio = request.getInputStream()) {
+            return submit(taskId, audio, request.getContentLengthLong(), authentication);
+        } catch (IOException e) {
+            log.error("读取录音失败: taskId={}", taskId, e);
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to submit recording: " + e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> submit(Long taskId, InputStream audio, long declaredLength, Authentication authentication) {
         try {
             Long userId = getUserId(authentication);
             
-            FollowReadTask task = taskService.submitRecording(taskId, audioFile, userId);
+            // 录音保存后进入评估队列，结果通过 /{taskId}/events 推送（重复提交相同录音时不会重新评估）
+            FollowReadTask task = taskService.submitRecording(taskId, audio, declaredLength, userId);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -79,6 +122,12 @@ public class FollowReadTaskController {
             
             return ResponseEntity.ok(response);
             
+        } catch (RecordingRejectedException e) {
+            return ResponseEntity.status(e.getStatus()).body(Map.of("error", e.getMessage()));
+        } catch (EvaluationQueueFullException e) {
+            return ResponseEntity.status(429)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             log.error("提交录音失败: taskId={}", taskId, e);
             Map<String, String> error = new HashMap<>();
@@ -87,6 +136,28 @@ public class FollowReadTaskController {
         }
     }
 
+    /**
+     * 订阅任务评估状态（SSE），代替轮询任务详情
+     * GET /api/follow-read/tasks/{taskId}/events
+     */
+    @GetMapping(value = "/{taskId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTaskStatus(
+            @PathVariable Long taskId,
+            Authentication authentication) {
+        return taskService.subscribe(taskId, getUserId(authentication));
+    }
+
+    /**
+     * 评估队列状态、各阶段耗时和参考特征缓存命中情况
+     * GET /api/follow-read/tasks/evaluation-stats
+     */
+    @GetMapping("/evaluation-stats")
+    public ResponseEntity<?> getEvaluationStats() {
+        Map<String, Object> stats = new HashMap<>(evaluationScheduler.getStats());
+        stats.put("referenceCache", referenceFeatureCache.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
     /**
      * 获取任务详情和评分结果
      * GET /api/follow-read/tasks/{taskId}
@@ -147,28 +218,8 @@ public class FollowReadTaskController {
      * 从认证信息中获取用户 ID
      */
     private Long getUserId(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            // 如果没有认证，返回默认用户ID（用于开发测试）
-            return 1L;
-        }
-        
-        // 这里需要根据你的认证实现来获取用户ID
-        // 假设用户信息存储在 authentication.getPrincipal() 中
-        try {
-            // 如果使用 Spring Security 的 UserDetails
-            if (authentication.getPrincipal() instanceof org.springframework.security.core.userdetails.UserDetails) {
-                // 从 UserDetails 中提取用户ID
-                // 这里需要根据你的实际实现来调整
-                return 1L; // 临时返回默认值
-            }
-            
-            // 如果 principal 是用户名，可能需要查询数据库获取用户ID
-            // 这里简化处理，返回默认值
-            return 1L;
-        } catch (Exception e) {
-            log.warn("无法获取用户ID，使用默认值", e);
-            return 1L;
-        }
+        // 未登录时使用默认用户ID（用于开发测试）
+        return currentUserResolver.resolveUserId(authentication, 1L);
     }
 }
 
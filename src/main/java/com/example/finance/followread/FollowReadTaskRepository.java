@@ -1,8 +1,14 @@
 package com.example.finance.followread;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,5 +20,66 @@ public interface FollowReadTaskRepository extends JpaRepository<FollowReadTask,
     List<FollowReadTask> findBySentenceId(Long sentenceId);
     
     Optional<FollowReadTask> findByIdAndUserId(Long id, Long userId);
+
+    /**
+     * 录音是否还被未完成的任务使用（存储清理时跳过这些录音）
+     */
+    boolean existsByAudioUrlAndStatusIn(String audioUrl, Collection<String> statuses);
+
+    /**
+     * 录音是否还被任何任务引用（录音按用户和内容去重，换下的录音没有其他引用时才删除）
+     */
+    boolean existsByAudioUrl(String audioUrl);
+
+    /**
+     * 领取评估：换上新录音并置为 evaluating，任务已在评估时不更新、返回 0（评估中再次提交会被拒绝，不会并发评分）
+     */
+    @Modifying
+    @Transactional
+    @Query("update FollowReadTask t set t.status = 'evaluating', t.audioUrl = :audioUrl, t.errorMessage = null, "
+        + "t.submittedAt = :submittedAt where t.id = :id and t.status not in ('processing', 'evaluating')")
+    int claimForEvaluation(@Param("id") Long id, @Param("audioUrl") String audioUrl,
+                           @Param("submittedAt") LocalDateTime submittedAt);
+
+    /**
+     * 把已提交但未评估完的任务标记为失败（评估队列在内存中，重启后不会继续）
+     */
+    @Modifying
+    @Transactional
+    @Query("update FollowReadTask t set t.status = 'failed', t.errorMessage = :message "
+        + "where t.status in ('processing', 'evaluating')")
+    int failUnfinishedEvaluations(@Param("message") String message);
+
+    /**
+     * 已完成任务的 [用户, 句子, 总分, 完成时间]，按完成时间排序（首次生成复习计划时回放用）
+     */
+    @Query("select t.userId, t.sentenceId, t.overallScore, t.completedAt from FollowReadTask t "
+        + "where t.status = 'completed' and t.overallScore is not null and t.completedAt is not null "
+        + "and t.sentenceId in (select s.id from FollowReadSentence s) order by t.completedAt")
+    List<Object[]> findCompletedScores();
+
+    /**
+     * 视频下所有跟读任务的录音路径（删除视频时清理文件用）
+     */
+    @Query("select t.audioUrl from FollowReadTask t where t.audioUrl is not null and t.sentenceId in ("
+        + "select s.id from FollowReadSentence s where s.youtubeVideoId = :videoId)")
+    List<String> findAudioUrlsByYoutubeVideoId(@Param("videoId") Long youtubeVideoId);
+
+    /**
+     * 这些录音中仍被视频以外的跟读任务引用的部分（同一用户的相同录音去重后会在不同视频的任务间共用）
+     */
+    @Query("select distinct t.audioUrl from FollowReadTask t where t.audioUrl in :audioUrls and t.sentenceId not in ("
+        + "select s.id from FollowReadSentence s where s.youtubeVideoId = :videoId)")
+    List<String> findAudioUrlsReferencedOutsideVideo(@Param("audioUrls") Collection<String> audioUrls,
+                                                     @Param("videoId") Long youtubeVideoId);
+
+    /**
+     * 批量删除视频下所有句子的跟读任务
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from FollowReadTask t where t.sentenceId in ("
+        + "select s.id from FollowReadSentence s where s.youtubeVideoId = :videoId)")
+    int deleteAllByYoutubeVideoId(@Param("videoId") Long youtubeVideoId);
 }
 
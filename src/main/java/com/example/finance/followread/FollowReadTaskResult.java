@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 public class FollowReadTaskResult {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "follow_read_task_results_seq")
+    @SequenceGenerator(name = "follow_read_task_results_seq", sequenceName = "follow_read_task_results_seq", allocationSize = 50)
     private Long id;
     
     // 关联的任务 ID
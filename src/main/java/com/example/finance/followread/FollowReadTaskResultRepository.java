@@ -1,7 +1,11 @@
 package com.example.finance.followread;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -9,5 +13,23 @@ import java.util.List;
 public interface FollowReadTaskResultRepository extends JpaRepository<FollowReadTaskResult, Long> {
     
     List<FollowReadTaskResult> findByTaskIdOrderByWordPosition(Long taskId);
+
+    /**
+     * 删除任务的评分明细（重新录音评估前清理上一次的结果）
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from FollowReadTaskResult r where r.taskId = :taskId")
+    int deleteByTaskId(@Param("taskId") Long taskId);
+
+    /**
+     * 批量删除视频下所有句子的跟读评分明细
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from FollowReadTaskResult r where r.taskId in ("
+        + "select t.id from FollowReadTask t where t.sentenceId in ("
+        + "select s.id from FollowReadSentence s where s.youtubeVideoId = :videoId))")
+    int deleteAllByYoutubeVideoId(@Param("videoId") Long youtubeVideoId);
 }
 
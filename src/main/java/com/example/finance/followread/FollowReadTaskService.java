@@ -3,28 +3,33 @@ package com.example.finance.followread;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @Service
 public class FollowReadTaskService {
 
     private static final Logger log = LoggerFactory.getLogger(FollowReadTaskService.class);
     
-    private static final String AUDIO_DIR = "uploads/audio/user/";
-    
     @Autowired
     private FollowReadTaskRepository taskRepository;
     
@@ -33,10 +38,34 @@ public class FollowReadTaskService {
     
     @Autowired
     private FollowReadSentenceRepository sentenceRepository;
+
+    @Autowired
+    private RecordingUploadStore uploadStore;
+
+    @Autowired
+    private EvaluationScheduler evaluationScheduler;
+
+    @Autowired
+    private ReviewScheduler reviewScheduler;
+
+    @Autowired
+    private MediaFileCleaner mediaFileCleaner;
+
+    @Autowired
+    private StorageLifecycleManager storageLifecycleManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // 任务状态 SSE 订阅，状态推送时间上限
+    @Value("${evaluation.sse-timeout-ms:300000}")
+    private long sseTimeoutMs;
+
+    private final Map<Long, List<SseEmitter>> taskEmitters = new ConcurrentHashMap<>();
     
     public FollowReadTaskService() {
         // 确保目录存在
-        new File(AUDIO_DIR).mkdirs();
+        new File(RecordingUploadStore.RECORDING_DIR).mkdirs();
     }
     
     /**
@@ -59,91 +88,131 @@ public class FollowReadTaskService {
     }
     
     /**
-     * 提交录音并开始评估
+     * 提交录音并放入评估队列（见 EvaluationScheduler），评估结果通过 {@link #subscribe} 推送
+     *
+     * 先占评估名额再接收上传：队列已满时抛出 EvaluationQueueFullException，不读取录音内容。
+     * 录音先流式写入临时文件（见 RecordingUploadStore），不在数据库事务中接收上传，避免长时间占用写连接。
+     * 与任务当前录音内容相同的重复提交直接返回任务，不会重新评估；任务正在评估时提交新录音返回 409。
+     * 换下的旧录音没有其他任务引用时在提交后删除。
+     *
+     * @param declaredLength 请求声明的长度，未知时为 -1
      */
-    @Transactional
-    public FollowReadTask submitRecording(Long taskId, MultipartFile audioFile, Long userId) {
+    public FollowReadTask submitRecording(Long taskId, InputStream audio, long declaredLength, Long userId) throws IOException {
         Optional<FollowReadTask> taskOpt = taskRepository.findByIdAndUserId(taskId, userId);
         if (!taskOpt.isPresent()) {
             throw new RuntimeException("Task not found or access denied");
         }
         
         FollowReadTask task = taskOpt.get();
-        
-        try {
-            // 保存录音文件
-            String fileName = String.format("user_%d_%d.wav", userId, System.currentTimeMillis());
-            Path filePath = Paths.get(AUDIO_DIR + fileName);
-            Files.copy(audioFile.getInputStream(), filePath);
-            
-            task.setAudioUrl("/" + AUDIO_DIR + fileName);
-            task.setStatus("processing");
-            task.setSubmittedAt(LocalDateTime.now());
-            taskRepository.save(task);
-            
-            // 异步处理评估
-            evaluateRecordingAsync(taskId);
+
+        try (EvaluationScheduler.Slot slot = evaluationScheduler.reserve()) {
+            // 超过大小/时长上限时抛出 RecordingRejectedException，任务保持原状态，可以重新录音
+            RecordingUploadStore.StoredRecording received = uploadStore.receive(audio, declaredLength);
             
+            RecordingUploadStore.StoredRecording stored;
+            try {
+                stored = uploadStore.keep(received, "user_" + userId);
+            } catch (Exception e) {
+                uploadStore.discard(received);
+                log.error("保存录音文件失败", e);
+                task.setStatus("failed");
+                task.setErrorMessage("Failed to save recording: " + e.getMessage());
+                taskRepository.save(task);
+                throw new RuntimeException("Failed to save recording", e);
+            }
+            if (stored.isDuplicate() && stored.getUrl().equals(task.getAudioUrl()) && !"failed".equals(task.getStatus())) {
+                log.info("重复提交相同录音，沿用已有评估: taskId={}, status={}", taskId, task.getStatus());
+                return task;
+            }
+
+            // 换录音和领取评估是一条条件更新：任务正在评估时拒绝，同一任务不会有两次评估并发写结果
+            String replaced = task.getAudioUrl();
+            LocalDateTime submittedAt = LocalDateTime.now();
+            if (taskRepository.claimForEvaluation(taskId, stored.getUrl(), submittedAt) == 0) {
+                log.info("任务正在评估，拒绝再次提交: taskId={}", taskId);
+                releaseRecording(stored.getUrl());
+                throw new RecordingRejectedException(409, "该任务正在评估，请等评估完成后再提交新的录音");
+            }
+            releaseRecording(replaced);
+
+            task.setAudioUrl(stored.getUrl());
+            task.setStatus("evaluating");
+            task.setErrorMessage(null);
+            task.setSubmittedAt(submittedAt);
+            publish(taskId, "queued", null);
+            slot.submit(task.getSentenceId(), null, stored.getFile(), () -> publish(taskId, "evaluating", null))
+                .whenComplete((result, error) -> finishEvaluation(taskId, result, error));
             return task;
-        } catch (Exception e) {
-            log.error("保存录音文件失败", e);
-            task.setStatus("failed");
-            task.setErrorMessage("Failed to save recording: " + e.getMessage());
-            taskRepository.save(task);
-            throw new RuntimeException("Failed to save recording", e);
         }
     }
-    
+
     /**
-     * 异步评估录音（目前使用模拟评分，后续可集成真实的语音评估服务）
+     * 删除不再被任何任务引用的录音（换下的旧录音、被拒绝的新录音）；相同内容的录音共用一个文件，还有引用时保留
      */
-    @Async
-    @Transactional
-    public void evaluateRecordingAsync(Long taskId) {
+    private void releaseRecording(String audioUrl) {
+        if (audioUrl == null || taskRepository.existsByAudioUrl(audioUrl)) {
+            return;
+        }
+        mediaFileCleaner.deleteAfterCommit(List.of(audioUrl));
+        storageLifecycleManager.forget(List.of(audioUrl));
+    }
+
+    /**
+     * 保存评估结果（在评估线程中执行）
+     *
+     * 替换单词明细和更新任务在同一个事务中完成，收到 completed 时明细一定已经可读，也不会留下上一次录音的明细
+     */
+    private void finishEvaluation(Long taskId, PronunciationResult result, Throwable error) {
+        long start = System.nanoTime();
         try {
-            Optional<FollowReadTask> taskOpt = taskRepository.findById(taskId);
-            if (!taskOpt.isPresent()) {
-                log.error("Task not found: {}", taskId);
+            FollowReadTask task = new TransactionTemplate(transactionManager).execute(status -> {
+                Optional<FollowReadTask> taskOpt = taskRepository.findById(taskId);
+                if (!taskOpt.isPresent()) {
+                    log.error("Task not found: {}", taskId);
+                    return null;
+                }
+                FollowReadTask current = taskOpt.get();
+                if (!"evaluating".equals(current.getStatus())) {
+                    // 评估期间任务已被标记为失败（如服务重启前的遗留评估），不再覆盖
+                    log.warn("任务已不在评估中，丢弃评估结果: taskId={}, status={}", taskId, current.getStatus());
+                    return null;
+                }
+
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    log.error("评估录音失败: taskId={}, error={}", taskId, cause.getMessage());
+                    current.setStatus("failed");
+                    current.setErrorMessage(cause instanceof RecordingRejectedException
+                        ? cause.getMessage() : "Evaluation failed: " + cause.getMessage());
+                    return taskRepository.save(current);
+                }
+
+                resultRepository.deleteByTaskId(taskId);
+                generateWordLevelFeedback(current, result);
+
+                current.setPronunciationScore(result.getPronunciationScore());
+                current.setFluencyScore(result.getFluencyScore());
+                current.setIntonationScore(result.getIntonationScore());
+                current.setOverallScore(result.getOverallScore());
+                current.setStatus("completed");
+                current.setErrorMessage(null);
+                current.setCompletedAt(LocalDateTime.now());
+                return taskRepository.save(current);
+            });
+            if (task == null) {
                 return;
             }
-            
-            FollowReadTask task = taskOpt.get();
-            
-            // 获取句子信息
-            Optional<FollowReadSentence> sentenceOpt = sentenceRepository.findById(task.getSentenceId());
-            if (!sentenceOpt.isPresent()) {
-                task.setStatus("failed");
-                task.setErrorMessage("Sentence not found");
-                taskRepository.save(task);
+            if ("failed".equals(task.getStatus())) {
+                publish(taskId, "failed", task.getErrorMessage());
                 return;
             }
+            evaluationScheduler.recordStage("persist", start);
+            publish(taskId, "completed", null);
             
-            FollowReadSentence sentence = sentenceOpt.get();
-            
-            // 模拟评估过程（延迟1-2秒）
-            Thread.sleep(1500);
-            
-            // 生成模拟评分
-            Random random = new Random();
-            int pronunciationScore = 70 + random.nextInt(25); // 70-95
-            int fluencyScore = 65 + random.nextInt(30); // 65-95
-            int intonationScore = 68 + random.nextInt(27); // 68-95
-            int overallScore = (pronunciationScore + fluencyScore + intonationScore) / 3;
-            
-            task.setPronunciationScore(pronunciationScore);
-            task.setFluencyScore(fluencyScore);
-            task.setIntonationScore(intonationScore);
-            task.setOverallScore(overallScore);
-            task.setStatus("completed");
-            task.setCompletedAt(LocalDateTime.now());
-            taskRepository.save(task);
-            
-            // 生成单词级别的反馈
-            generateWordLevelFeedback(task, sentence);
-            
-            log.info("评估完成: taskId={}, overallScore={}", taskId, overallScore);
+            log.info("评估完成: taskId={}, overallScore={}", taskId, result.getOverallScore());
+            recordReview(task, result);
         } catch (Exception e) {
-            log.error("评估录音失败: taskId={}", taskId, e);
+            log.error("保存评估结果失败: taskId={}", taskId, e);
             Optional<FollowReadTask> taskOpt = taskRepository.findById(taskId);
             if (taskOpt.isPresent()) {
                 FollowReadTask task = taskOpt.get();
@@ -151,41 +220,117 @@ public class FollowReadTaskService {
                 task.setErrorMessage("Evaluation failed: " + e.getMessage());
                 taskRepository.save(task);
             }
+            publish(taskId, "failed", "Evaluation failed: " + e.getMessage());
         }
     }
-    
+
     /**
-     * 生成单词级别的反馈
+     * 订阅任务状态（SSE，事件名 task-status）：queued → evaluating → completed / failed，结束状态推送后关闭连接
      */
-    private void generateWordLevelFeedback(FollowReadTask task, FollowReadSentence sentence) {
-        String[] words = sentence.getText().split("\\s+");
-        Random random = new Random();
-        
+    public SseEmitter subscribe(Long taskId, Long userId) {
+        FollowReadTask task = getTaskDetails(taskId, userId);
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        List<SseEmitter> emitters = taskEmitters.computeIfAbsent(taskId, k -> new CopyOnWriteArrayList<>());
+        emitters.add(emitter);
+        emitter.onCompletion(() -> removeEmitter(taskId, emitter));
+        emitter.onTimeout(() -> removeEmitter(taskId, emitter));
+        emitter.onError(e -> removeEmitter(taskId, emitter));
+
+        // 先注册再读取当前状态，订阅前刚结束的评估也不会漏掉
+        task = taskRepository.findById(taskId).orElse(task);
+        try {
+            emitter.send(statusEvent(taskId, task.getStatus(), task.getErrorMessage()));
+            if (isFinished(task.getStatus())) {
+                emitter.complete();
+            }
+        } catch (IOException e) {
+            removeEmitter(taskId, emitter);
+        }
+        return emitter;
+    }
+
+    private void publish(Long taskId, String status, String errorMessage) {
+        List<SseEmitter> emitters = taskEmitters.get(taskId);
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(statusEvent(taskId, status, errorMessage));
+                if (isFinished(status)) {
+                    emitter.complete();
+                }
+            } catch (Exception e) {
+                removeEmitter(taskId, emitter);
+            }
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder statusEvent(Long taskId, String status, String errorMessage) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("taskId", taskId);
+        data.put("status", status);
+        if (errorMessage != null) {
+            data.put("errorMessage", errorMessage);
+        }
+        return SseEmitter.event().name("task-status").data(data);
+    }
+
+    private void removeEmitter(Long taskId, SseEmitter emitter) {
+        taskEmitters.computeIfPresent(taskId, (k, list) -> {
+            list.remove(emitter);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private static boolean isFinished(String status) {
+        return "completed".equals(status) || "failed".equals(status);
+    }
+
+    /**
+     * 评估队列在内存中，重启前未评估完的任务标记为失败，用户重新提交即可（相同录音也会重新评估）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedEvaluations() {
+        int count = taskRepository.failUnfinishedEvaluations("评估被服务重启中断，请重新提交录音");
+        if (count > 0) {
+            log.warn("{} 个跟读任务的评估被重启中断，已标记为失败", count);
+        }
+    }
+
+    /**
+     * 更新复习计划，失败不影响评估结果
+     */
+    private void recordReview(FollowReadTask task, PronunciationResult result) {
+        try {
+            reviewScheduler.recordReview(task.getUserId(), task.getSentenceId(), result, task.getCompletedAt());
+        } catch (Exception e) {
+            log.warn("更新复习计划失败: taskId={}, error={}", task.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 保存单词级别的反馈
+     */
+    private void generateWordLevelFeedback(FollowReadTask task, PronunciationResult result) {
         List<FollowReadTaskResult> results = new ArrayList<>();
         
-        for (int i = 0; i < words.length; i++) {
-            String word = words[i].replaceAll("[^a-zA-Z]", ""); // 移除标点
-            if (word.isEmpty()) continue;
-            
-            FollowReadTaskResult result = new FollowReadTaskResult();
-            result.setTaskId(task.getId());
-            result.setWord(word);
-            result.setWordPosition(i);
-            
-            // 模拟：80%的单词正确，20%需要改进
-            boolean isCorrect = random.nextDouble() > 0.2;
+        for (PronunciationResult.WordScore wordScore : result.getWords()) {
+            FollowReadTaskResult item = new FollowReadTaskResult();
+            item.setTaskId(task.getId());
+            item.setWord(wordScore.getWord());
+            item.setWordPosition(wordScore.getPosition());
+            item.setScore(wordScore.getScore());
             
-            if (isCorrect) {
-                result.setStatus("correct");
-                result.setScore(85 + random.nextInt(15)); // 85-100
-                result.setFeedback("Good pronunciation");
+            if (wordScore.isCorrect()) {
+                item.setStatus("correct");
+                item.setFeedback("Good pronunciation");
             } else {
-                result.setStatus("incorrect");
-                result.setScore(50 + random.nextInt(30)); // 50-80
-                result.setFeedback("Pay attention to the pronunciation of '" + word + "'");
+                item.setStatus("incorrect");
+                item.setFeedback("Pay attention to the pronunciation of '" + wordScore.getWord() + "'");
             }
             
-            results.add(result);
+            results.add(item);
         }
         
         resultRepository.saveAll(results);
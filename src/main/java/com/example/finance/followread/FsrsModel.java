@@ -0,0 +1,86 @@
+package com.example.finance.followread;
+
+/**
+ * FSRS 记忆模型（FSRS-4.5 公式与默认参数）
+ *
+ * 每个句子的记忆状态只有两个数：稳定性 S（天，可提取率从 100% 降到 90% 所需的时间）和难度 D（1-10）。
+ * 可提取率 R(t) = (1 + FACTOR·t/S)^DECAY；每次复习按评级更新 D 和 S，
+ * 下次复习安排在 R 降到目标保持率的时刻。
+ */
+final class FsrsModel {
+
+    static final int AGAIN = 1;
+    static final int HARD = 2;
+    static final int GOOD = 3;
+    static final int EASY = 4;
+
+    private static final double DECAY = -0.5;
+    // 使 R(S) = 0.9
+    private static final double FACTOR = 19.0 / 81.0;
+
+    private static final double[] W = {
+        0.4872, 1.4003, 3.7145, 13.8206, 5.1618, 1.2298, 0.8975, 0.031, 1.6474,
+        0.1367, 1.0461, 2.1072, 0.0793, 0.3246, 1.587, 0.2272, 2.8755
+    };
+
+    private FsrsModel() {
+    }
+
+    /**
+     * 第一次复习后的稳定性（天）
+     */
+    static double initialStability(int rating) {
+        return W[rating - 1];
+    }
+
+    /**
+     * 第一次复习后的难度
+     */
+    static double initialDifficulty(int rating) {
+        return clampDifficulty(W[4] - (rating - 3) * W[5]);
+    }
+
+    /**
+     * 距上次复习 elapsedDays 天时的可提取率
+     */
+    static double retrievability(double elapsedDays, double stability) {
+        return Math.pow(1 + FACTOR * Math.max(elapsedDays, 0) / stability, DECAY);
+    }
+
+    /**
+     * 复习后的难度：按评级调整，再向"良好"的初始难度回归
+     */
+    static double nextDifficulty(double difficulty, int rating) {
+        double next = difficulty - W[6] * (rating - 3);
+        return clampDifficulty(W[7] * initialDifficulty(GOOD) + (1 - W[7]) * next);
+    }
+
+    /**
+     * 复习后的稳定性
+     *
+     * @param difficulty 复习前的难度（与参考实现一致，先算稳定性再更新难度）
+     * @param r          复习时的可提取率
+     */
+    static double nextStability(double difficulty, double stability, double r, int rating) {
+        if (rating == AGAIN) {
+            double forget = W[11] * Math.pow(difficulty, -W[12]) * (Math.pow(stability + 1, W[13]) - 1)
+                * Math.exp(W[14] * (1 - r));
+            return Math.min(forget, stability);
+        }
+        double hardPenalty = rating == HARD ? W[15] : 1;
+        double easyBonus = rating == EASY ? W[16] : 1;
+        return stability * (1 + Math.exp(W[8]) * (11 - difficulty) * Math.pow(stability, -W[9])
+            * (Math.exp(W[10] * (1 - r)) - 1) * hardPenalty * easyBonus);
+    }
+
+    /**
+     * 可提取率降到 retention 所需的天数
+     */
+    static double interval(double stability, double retention) {
+        return stability / FACTOR * (Math.pow(retention, 1 / DECAY) - 1);
+    }
+
+    private static double clampDifficulty(double difficulty) {
+        return Math.min(Math.max(difficulty, 1), 10);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.finance.followread;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按站点限制 yt-dlp 请求速率（令牌桶）
+ *
+ * 每个站点每分钟最多 requests-per-minute 次请求，空闲一段时间后允许连续发出 burst 次。
+ * 批量导入时多个工作线程共用，避免短时间内大量请求触发站点限流（HTTP 429 / 要求登录验证）。
+ */
+@Component
+public class HostRateLimiter {
+
+    @Value("${youtube.import.requests-per-minute:30}")
+    private int requestsPerMinute = 30;
+
+    @Value("${youtube.import.burst:5}")
+    private int burst = 5;
+
+    // 每个站点下一个令牌可用的时间（System.nanoTime）
+    private final Map<String, Long> nextFree = new HashMap<>();
+
+    /**
+     * 等待指定 URL 所在站点的一个令牌
+     */
+    public void acquire(String url) throws InterruptedException {
+        long waitNanos = reserve(host(url));
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * 预占一个令牌，返回需要等待的时间；等待期间其他线程预占的是之后的令牌，不会插队
+     */
+    private synchronized long reserve(String host) {
+        long interval = TimeUnit.MINUTES.toNanos(1) / Math.max(requestsPerMinute, 1);
+        long now = System.nanoTime();
+        // 空闲时最多积攒 burst 个令牌
+        long earliest = now - (Math.max(burst, 1) - 1) * interval;
+        Long free = nextFree.get(host);
+        long slot = free == null ? earliest : Math.max(free, earliest);
+        nextFree.put(host, slot + interval);
+        return Math.max(slot - now, 0);
+    }
+
+    static String host(String url) {
+        try {
+            String host = URI.create(url.trim()).getHost();
+            if (host == null) {
+                return "";
+            }
+            host = host.toLowerCase();
+            // www.youtube.com / m.youtube.com / youtu.be 是同一个站点
+            if (host.equals("youtu.be") || host.endsWith(".youtube.com") || host.equals("youtube.com")) {
+                return "youtube.com";
+            }
+            return host.startsWith("www.") ? host.substring(4) : host;
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+}
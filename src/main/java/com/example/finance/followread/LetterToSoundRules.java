@@ -0,0 +1,318 @@
+package com.example.finance.followread;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基于规则的字母到音素转换（NRL 规则），用于词典中没有的词
+ *
+ * 规则文件格式见 phonetics/letter-to-sound.rules：从左到右扫描单词，在当前字母的规则中
+ * 找第一条"匹配串 + 左右上下文"都满足的规则，输出其音素并跳过匹配串。
+ * 规则不给重音，输出后把第一个非弱读元音标为主重音。
+ */
+final class LetterToSoundRules {
+
+    // 规则输出中尚未确定重音的元音暂记为次重音，转换结束后再改写
+    private static final int PENDING_STRESS = 2;
+
+    private static final class Rule {
+        final String left;
+        final String match;
+        final String right;
+        final byte[] phones;
+
+        Rule(String left, String match, String right, byte[] phones) {
+            this.left = left;
+            this.match = match;
+            this.right = right;
+            this.phones = phones;
+        }
+    }
+
+    // 按匹配串首字母（A-Z）分组
+    private final Rule[][] rules;
+
+    private LetterToSoundRules(Rule[][] rules) {
+        this.rules = rules;
+    }
+
+    static LetterToSoundRules load(InputStream in) throws IOException {
+        List<List<Rule>> groups = new ArrayList<>();
+        for (int i = 0; i < 26; i++) {
+            groups.add(new ArrayList<>());
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            // 注释以 "# " 开头（规则的上下文也可能以 # 开头）
+            if (line.isEmpty() || line.equals("#") || line.startsWith("# ")) {
+                continue;
+            }
+            int open = line.indexOf('[');
+            int close = line.indexOf(']', open + 1);
+            int equals = line.indexOf('=', close + 1);
+            if (open < 0 || close < 0 || equals < 0 || close == open + 1) {
+                throw new IOException("规则格式错误（第 " + lineNumber + " 行）: " + line);
+            }
+            String match = line.substring(open + 1, close);
+            String output = line.substring(equals + 1).trim();
+            String[] tokens = output.isEmpty() ? new String[0] : output.split(" ");
+            byte[] phones = new byte[tokens.length];
+            for (int i = 0; i < tokens.length; i++) {
+                String token = tokens[i];
+                int code = Arpabet.encode(token);
+                if (code < 0) {
+                    throw new IOException("未知音素 " + token + "（第 " + lineNumber + " 行）");
+                }
+                // 没写重音的元音待定，显式写 0 的（AH0）是弱读
+                if (Arpabet.isVowel(Arpabet.phone(code)) && !Character.isDigit(token.charAt(token.length() - 1))) {
+                    code = Arpabet.code(Arpabet.phone(code), PENDING_STRESS);
+                }
+                phones[i] = (byte) code;
+            }
+            groups.get(match.charAt(0) - 'A').add(new Rule(line.substring(0, open), match,
+                line.substring(close + 1, equals), phones));
+        }
+        Rule[][] rules = new Rule[26][];
+        for (int i = 0; i < 26; i++) {
+            rules[i] = groups.get(i).toArray(new Rule[0]);
+        }
+        return new LetterToSoundRules(rules);
+    }
+
+    /**
+     * 转换一个小写单词（只含 a-z 和撇号），返回带重音的音素序列
+     */
+    byte[] transcribe(String word) {
+        String text = word.toUpperCase();
+        byte[] out = new byte[text.length() * 3];
+        int length = 0;
+        int pos = 0;
+        while (pos < text.length()) {
+            char c = text.charAt(pos);
+            if (c < 'A' || c > 'Z') {
+                pos++;
+                continue;
+            }
+            Rule applied = null;
+            for (Rule rule : rules[c - 'A']) {
+                if (text.startsWith(rule.match, pos)
+                        && matchLeft(rule.left, text, pos - 1)
+                        && matchRight(rule.right, text, pos + rule.match.length())) {
+                    applied = rule;
+                    break;
+                }
+            }
+            if (applied == null) {
+                pos++;
+                continue;
+            }
+            if (length + applied.phones.length > out.length) {
+                out = Arrays.copyOf(out, out.length * 2 + applied.phones.length);
+            }
+            System.arraycopy(applied.phones, 0, out, length, applied.phones.length);
+            length += applied.phones.length;
+            pos += applied.match.length();
+        }
+        byte[] phones = Arrays.copyOf(out, length);
+        assignStress(phones);
+        return phones;
+    }
+
+    /**
+     * 第一个待定元音为主重音，其余待定元音不重读；没有待定元音时第一个元音为主重音
+     */
+    private static void assignStress(byte[] phones) {
+        int primary = -1;
+        int firstVowel = -1;
+        for (int i = 0; i < phones.length; i++) {
+            int phone = Arpabet.phone(phones[i]);
+            if (!Arpabet.isVowel(phone)) {
+                continue;
+            }
+            if (firstVowel < 0) {
+                firstVowel = i;
+            }
+            if (Arpabet.stress(phones[i]) == PENDING_STRESS) {
+                if (primary < 0) {
+                    primary = i;
+                }
+                phones[i] = (byte) Arpabet.code(phone, 0);
+            }
+        }
+        if (primary < 0) {
+            primary = firstVowel;
+        }
+        if (primary >= 0) {
+            phones[primary] = (byte) Arpabet.code(Arpabet.phone(phones[primary]), 1);
+        }
+    }
+
+    /**
+     * 左上下文从右往左匹配，pos 为匹配串前一个字符的位置
+     */
+    private static boolean matchLeft(String pattern, String text, int pos) {
+        int t = pos;
+        for (int p = pattern.length() - 1; p >= 0; p--) {
+            char symbol = pattern.charAt(p);
+            switch (symbol) {
+                case '_':
+                    if (isLetter(at(text, t))) {
+                        return false;
+                    }
+                    t--;
+                    break;
+                case '#':
+                    if (!isVowel(at(text, t))) {
+                        return false;
+                    }
+                    while (isVowel(at(text, t))) {
+                        t--;
+                    }
+                    break;
+                case ':':
+                    while (isConsonant(at(text, t))) {
+                        t--;
+                    }
+                    break;
+                case '^':
+                    if (!isConsonant(at(text, t))) {
+                        return false;
+                    }
+                    t--;
+                    break;
+                case '.':
+                    if (!isVoiced(at(text, t))) {
+                        return false;
+                    }
+                    t--;
+                    break;
+                case '+':
+                    if (!isFrontVowel(at(text, t))) {
+                        return false;
+                    }
+                    t--;
+                    break;
+                case '@':
+                    char c = at(text, t);
+                    if (c == 'H' && "TCS".indexOf(at(text, t - 1)) >= 0) {
+                        t -= 2;
+                    } else if ("TSRDLZNJ".indexOf(c) >= 0) {
+                        t--;
+                    } else {
+                        return false;
+                    }
+                    break;
+                default:
+                    if (at(text, t) != symbol) {
+                        return false;
+                    }
+                    t--;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 右上下文从左往右匹配，pos 为匹配串后一个字符的位置
+     */
+    private static boolean matchRight(String pattern, String text, int pos) {
+        int t = pos;
+        for (int p = 0; p < pattern.length(); p++) {
+            char symbol = pattern.charAt(p);
+            switch (symbol) {
+                case '_':
+                    if (isLetter(at(text, t))) {
+                        return false;
+                    }
+                    t++;
+                    break;
+                case '#':
+                    if (!isVowel(at(text, t))) {
+                        return false;
+                    }
+                    while (isVowel(at(text, t))) {
+                        t++;
+                    }
+                    break;
+                case ':':
+                    while (isConsonant(at(text, t))) {
+                        t++;
+                    }
+                    break;
+                case '^':
+                    if (!isConsonant(at(text, t))) {
+                        return false;
+                    }
+                    t++;
+                    break;
+                case '.':
+                    if (!isVoiced(at(text, t))) {
+                        return false;
+                    }
+                    t++;
+                    break;
+                case '+':
+                    if (!isFrontVowel(at(text, t))) {
+                        return false;
+                    }
+                    t++;
+                    break;
+                case '%':
+                    // 后缀 ING、ELY、ER、ES、ED、E
+                    if (text.startsWith("ING", t)) {
+                        t += 3;
+                    } else if (text.startsWith("ELY", t)) {
+                        t += 3;
+                    } else if (text.startsWith("ER", t) || text.startsWith("ES", t) || text.startsWith("ED", t)) {
+                        t += 2;
+                    } else if (at(text, t) == 'E') {
+                        t++;
+                    } else {
+                        return false;
+                    }
+                    break;
+                default:
+                    if (at(text, t) != symbol) {
+                        return false;
+                    }
+                    t++;
+            }
+        }
+        return true;
+    }
+
+    // 越界视为词边界
+    private static char at(String text, int i) {
+        return i >= 0 && i < text.length() ? text.charAt(i) : 0;
+    }
+
+    private static boolean isLetter(char c) {
+        return c >= 'A' && c <= 'Z' || c == '\'';
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'A' || c == 'E' || c == 'I' || c == 'O' || c == 'U';
+    }
+
+    private static boolean isConsonant(char c) {
+        return c >= 'A' && c <= 'Z' && !isVowel(c);
+    }
+
+    private static boolean isVoiced(char c) {
+        return c != 0 && "BDVGJLMNRWZ".indexOf(c) >= 0;
+    }
+
+    private static boolean isFrontVowel(char c) {
+        return c == 'E' || c == 'I' || c == 'Y';
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.finance.followread;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 媒体文件清理器
+ *
+ * 删除视频/任务时，下载文件、字幕文件、录音文件的删除放到后台线程执行：
+ * - 在事务中调用时，等事务提交后才删除（回滚则不删）
+ * - 使用独立的单线程执行器，不占用下载线程池，也不阻塞请求
+ */
+@Component
+public class MediaFileCleaner {
+
+    private static final Logger log = LoggerFactory.getLogger(MediaFileCleaner.class);
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "file-cleaner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 删除文件（路径可以是 "/uploads/..." 形式的 URL 路径，会按相对路径处理）
+     */
+    public void deleteAfterCommit(Collection<String> files) {
+        List<String> snapshot = new ArrayList<>(files);
+        if (snapshot.isEmpty()) {
+            return;
+        }
+        schedule(() -> {
+            for (String file : snapshot) {
+                deleteQuietly(toPath(file));
+            }
+        });
+    }
+
+    /**
+     * 删除目录下以 prefix 开头的所有文件（如某个视频的各语言字幕）
+     */
+    public void deleteByPrefixAfterCommit(String directory, String prefix) {
+        schedule(() -> {
+            Path dir = Paths.get(directory);
+            if (!Files.isDirectory(dir)) {
+                return;
+            }
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, prefix + "*")) {
+                for (Path path : stream) {
+                    deleteQuietly(path);
+                }
+            } catch (IOException e) {
+                log.warn("扫描待删除文件失败: dir={}, prefix={}, error={}", directory, prefix, e.getMessage());
+            }
+        });
+    }
+
+    private void schedule(Runnable cleanup) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executor.execute(cleanup);
+                }
+            });
+        } else {
+            executor.execute(cleanup);
+        }
+    }
+
+    private Path toPath(String file) {
+        // 录音等文件以 "/uploads/..." 形式保存，对应工作目录下的相对路径
+        if (file.startsWith("/uploads/")) {
+            file = file.substring(1);
+        }
+        return Paths.get(file);
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            if (Files.deleteIfExists(path)) {
+                log.info("已删除文件: {}", path);
+            }
+        } catch (Exception e) {
+            log.warn("删除文件失败: file={}, error={}", path, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
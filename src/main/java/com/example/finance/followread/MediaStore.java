@@ -0,0 +1,252 @@
+package com.example.finance.followread;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 内容寻址的下载存储
+ *
+ * 下载文件按内容键 SHA-256(平台, 视频 ID, 格式选择) 存放在 downloads/store/{键前两位}/{键}.{扩展名}，
+ * 文件路径和引用计数记在 stored_files 表，查找已下载的文件只需按键查一次索引，不扫描目录，也不会因标题相同而串文件。
+ * 不同用户下载同一视频的同一格式共用一个文件：每个下载成功的任务持有一个引用，删除任务只减引用，
+ * 引用为 0 的文件作为缓存保留，由 {@link StorageLifecycleManager} 按磁盘预算淘汰。
+ * yt-dlp 下载到 downloads/.tmp/{键}/（与存储目录在同一文件系统），完成后原子改名进入存储，
+ * 同一内容键同一时间只有一个任务在下载（{@link #lease}），其他任务等它完成后直接复用。
+ */
+@Component
+public class MediaStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MediaStore.class);
+
+    static final String STORE_DIR = DownloadEngine.DOWNLOAD_DIR + "store/";
+    static final String TEMP_DIR = DownloadEngine.DOWNLOAD_DIR + ".tmp/";
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Autowired
+    private MediaFileCleaner mediaFileCleaner;
+
+    // 内容键 → 锁（有人持有或等待时才在表中）
+    private final Map<String, KeyLock> locks = new HashMap<>();
+
+    /**
+     * 内容键：SHA-256(平台, 视频 ID, 格式选择) 的十六进制
+     */
+    public static String contentKey(String platform, String videoId, String formatKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((platform + "\n" + videoId + "\n" + formatKey).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 是否是存储中的文件（旧版本按标题命名的下载文件不是）
+     */
+    public static boolean isStoreFile(String path) {
+        return path != null && path.startsWith(STORE_DIR);
+    }
+
+    /**
+     * 登记对内容键的使用，拿到锁之后才能查找、下载或淘汰该内容（用完 close）
+     */
+    public Lease lease(String contentKey) {
+        KeyLock keyLock;
+        synchronized (locks) {
+            keyLock = locks.computeIfAbsent(contentKey, key -> new KeyLock());
+            keyLock.holders++;
+        }
+        return new Lease(contentKey, keyLock);
+    }
+
+    /**
+     * 内容键是否有任务在使用（其临时目录不能清理）
+     */
+    public boolean isInUse(String contentKey) {
+        synchronized (locks) {
+            return locks.containsKey(contentKey);
+        }
+    }
+
+    /**
+     * 已存储的内容：存在时引用计数加一并返回；索引还在但文件已丢失时删除索引返回 null（需持有锁）
+     */
+    public StoredFile attach(String contentKey) {
+        Optional<StoredFile> stored = storedFileRepository.findByContentKey(contentKey);
+        if (!stored.isPresent()) {
+            return null;
+        }
+        StoredFile file = stored.get();
+        if (!Files.isRegularFile(Paths.get(file.getPath()))) {
+            log.warn("存储的下载文件已丢失，重新下载: {}", file.getPath());
+            storedFileRepository.deleteByPath(file.getPath());
+            return null;
+        }
+        storedFileRepository.addReferences(file.getPath(), 1);
+        return file;
+    }
+
+    /**
+     * 内容键的下载临时目录
+     */
+    public Path tempDir(String contentKey) throws IOException {
+        return Files.createDirectories(Paths.get(TEMP_DIR, contentKey));
+    }
+
+    /**
+     * 下载完成：原子改名进入存储并登记索引（引用计数为 1，即发起下载的任务），删除临时目录（需持有锁）
+     */
+    public StoredFile commit(String contentKey, String platform, String videoId, String formatKey, Path downloaded)
+            throws IOException {
+        String name = downloaded.getFileName().toString();
+        String extension = name.contains(".") ? name.substring(name.lastIndexOf('.')) : "";
+        Path target = Paths.get(STORE_DIR, contentKey.substring(0, 2), contentKey + extension);
+        Files.createDirectories(target.getParent());
+        Files.move(downloaded, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        deleteTempDir(contentKey);
+
+        String path = target.toString();
+        StoredFile file = storedFileRepository.findByPath(path).orElseGet(StoredFile::new);
+        file.setPath(path);
+        file.setArea(StorageLifecycleManager.Area.DOWNLOADS.getKey());
+        file.setSizeBytes(Files.size(target));
+        file.setContentKey(contentKey);
+        file.setPlatform(platform);
+        file.setVideoId(videoId);
+        file.setFormatKey(formatKey);
+        file.setRefCount(1);
+        file.setLastAccessedAt(LocalDateTime.now());
+        storedFileRepository.save(file);
+        log.info("下载文件已存入存储: key={}, file={}, size={}", contentKey, path, file.getSizeBytes());
+        return file;
+    }
+
+    /**
+     * 下载任务不再使用这些文件：存储中的文件引用计数减一（文件保留，等待淘汰），
+     * 旧版本的下载文件不共用，事务提交后直接删除
+     */
+    public void release(Collection<String> files) {
+        for (String file : files) {
+            if (isStoreFile(file)) {
+                storedFileRepository.addReferences(file, -1);
+            } else {
+                storedFileRepository.deleteByPath(file);
+                mediaFileCleaner.deleteAfterCommit(List.of(file));
+            }
+        }
+    }
+
+    /**
+     * 清理超过 maxAgeMillis 未修改且没有任务在使用的下载临时目录（取消或失败的下载留下的）
+     */
+    public int sweepTempDirs(long maxAgeMillis) {
+        Path tempRoot = Paths.get(TEMP_DIR);
+        if (!Files.isDirectory(tempRoot)) {
+            return 0;
+        }
+        long cutoff = System.currentTimeMillis() - maxAgeMillis;
+        int removed = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(tempRoot)) {
+            for (Path dir : stream) {
+                String contentKey = dir.getFileName().toString();
+                if (isInUse(contentKey) || Files.getLastModifiedTime(dir).toMillis() > cutoff) {
+                    continue;
+                }
+                try (Lease lease = lease(contentKey)) {
+                    if (lease.tryLock(0, TimeUnit.MILLISECONDS)) {
+                        deleteTempDir(contentKey);
+                        removed++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("扫描下载临时目录失败: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return removed;
+    }
+
+    private void deleteTempDir(String contentKey) {
+        Path dir = Paths.get(TEMP_DIR, contentKey);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path path : stream) {
+                Files.deleteIfExists(path);
+            }
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            log.warn("删除下载临时目录失败: dir={}, error={}", dir, e.getMessage());
+        }
+    }
+
+    private static final class KeyLock {
+
+        final ReentrantLock lock = new ReentrantLock();
+        int holders;
+    }
+
+    /**
+     * 对一个内容键的使用登记，close 时释放锁并注销
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final String contentKey;
+        private final KeyLock keyLock;
+        private boolean locked;
+
+        private Lease(String contentKey, KeyLock keyLock) {
+            this.contentKey = contentKey;
+            this.keyLock = keyLock;
+        }
+
+        /**
+         * 在 timeout 内拿到锁返回 true
+         */
+        public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+            if (!locked) {
+                locked = keyLock.lock.tryLock(timeout, unit);
+            }
+            return locked;
+        }
+
+        @Override
+        public void close() {
+            if (locked) {
+                locked = false;
+                keyLock.lock.unlock();
+            }
+            synchronized (locks) {
+                if (--keyLock.holders == 0) {
+                    locks.remove(contentKey);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.finance.followread;
+
+import java.util.Arrays;
+
+/**
+ * MFCC + 能量 + 音高特征提取（16kHz，帧长 25ms，帧移 10ms）
+ *
+ * 窗函数、FFT 旋转因子、位反转表、Mel 滤波器组和 DCT 矩阵都在类加载时预计算；
+ * 每个实例持有固定大小的工作缓冲区，逐帧处理时不分配内存，内层循环都是对 float 数组的顺序乘加，
+ * JIT 可以自动向量化。实例非线程安全，由调用方按线程复用。
+ *
+ * 音高用 4 倍降采样（4kHz）后的归一化自相关估计，搜索 60 ~ 400Hz，
+ * 比在 16kHz 上做自相关或额外的逆 FFT 便宜一个数量级。
+ */
+final class MfccExtractor {
+
+    static final int SAMPLE_RATE = AudioDecoder.SAMPLE_RATE;
+    static final int FRAME_LENGTH = 400;
+    static final int HOP = 160;
+    // 每秒帧数
+    static final int FRAME_RATE = SAMPLE_RATE / HOP;
+
+    private static final int FFT_SIZE = 512;
+    private static final int FFT_LOG2 = 9;
+    private static final int BINS = FFT_SIZE / 2 + 1;
+    private static final int NUM_FILTERS = 26;
+    private static final int NUM_CEPS = AcousticFeatures.NUM_CEPS;
+    private static final float PRE_EMPHASIS = 0.97f;
+    private static final float LOG_FLOOR = 1e-10f;
+
+    // 音高：降采样 4 倍后每帧 100 个点，延迟 10 ~ 66 对应 400 ~ 60Hz
+    private static final int PITCH_DECIMATION = 4;
+    private static final int PITCH_FRAME = FRAME_LENGTH / PITCH_DECIMATION;
+    private static final int PITCH_RATE = SAMPLE_RATE / PITCH_DECIMATION;
+    private static final int MIN_LAG = PITCH_RATE / 400;
+    private static final int MAX_LAG = PITCH_RATE / 60;
+    private static final float VOICING_THRESHOLD = 0.5f;
+    private static final float OCTAVE_RATIO = 0.85f;
+
+    private static final float[] WINDOW = new float[FRAME_LENGTH];
+    private static final float[] COS = new float[FFT_SIZE / 2];
+    private static final float[] SIN = new float[FFT_SIZE / 2];
+    private static final int[] BIT_REVERSE = new int[FFT_SIZE];
+    // Mel 滤波器 f 覆盖频点 [FILTER_START[f], FILTER_START[f] + FILTER_LENGTH[f])，权重从 FILTER_OFFSET[f] 开始
+    private static final int[] FILTER_START = new int[NUM_FILTERS];
+    private static final int[] FILTER_LENGTH = new int[NUM_FILTERS];
+    private static final int[] FILTER_OFFSET = new int[NUM_FILTERS];
+    private static final float[] FILTER_WEIGHTS;
+    private static final float[] DCT = new float[NUM_CEPS * NUM_FILTERS];
+
+    static {
+        for (int i = 0; i < FRAME_LENGTH; i++) {
+            WINDOW[i] = (float) (0.54 - 0.46 * Math.cos(2 * Math.PI * i / (FRAME_LENGTH - 1)));
+        }
+        for (int i = 0; i < FFT_SIZE / 2; i++) {
+            COS[i] = (float) Math.cos(-2 * Math.PI * i / FFT_SIZE);
+            SIN[i] = (float) Math.sin(-2 * Math.PI * i / FFT_SIZE);
+        }
+        for (int i = 0; i < FFT_SIZE; i++) {
+            BIT_REVERSE[i] = Integer.reverse(i) >>> (32 - FFT_LOG2);
+        }
+
+        // Mel 滤波器组：20Hz ~ 8kHz 之间等 Mel 间隔的三角滤波器
+        double melLow = hzToMel(20);
+        double melHigh = hzToMel(SAMPLE_RATE / 2.0);
+        double[] edges = new double[NUM_FILTERS + 2];
+        for (int i = 0; i < edges.length; i++) {
+            double hz = melToHz(melLow + (melHigh - melLow) * i / (NUM_FILTERS + 1));
+            edges[i] = hz * FFT_SIZE / SAMPLE_RATE;
+        }
+        float[] weights = new float[NUM_FILTERS * BINS];
+        int offset = 0;
+        for (int f = 0; f < NUM_FILTERS; f++) {
+            int start = (int) Math.ceil(edges[f]);
+            int end = Math.min(BINS - 1, (int) Math.floor(edges[f + 2]));
+            FILTER_START[f] = start;
+            FILTER_OFFSET[f] = offset;
+            for (int bin = start; bin <= end; bin++) {
+                double w = bin <= edges[f + 1]
+                    ? (bin - edges[f]) / (edges[f + 1] - edges[f])
+                    : (edges[f + 2] - bin) / (edges[f + 2] - edges[f + 1]);
+                weights[offset++] = (float) Math.max(0, w);
+            }
+            FILTER_LENGTH[f] = Math.max(0, end - start + 1);
+        }
+        FILTER_WEIGHTS = Arrays.copyOf(weights, offset);
+
+        // DCT-II（正交归一化）
+        for (int k = 0; k < NUM_CEPS; k++) {
+            double scale = Math.sqrt((k == 0 ? 1.0 : 2.0) / NUM_FILTERS);
+            for (int f = 0; f < NUM_FILTERS; f++) {
+                DCT[k * NUM_FILTERS + f] = (float) (scale * Math.cos(Math.PI * k * (f + 0.5) / NUM_FILTERS));
+            }
+        }
+    }
+
+    private final float[] re = new float[FFT_SIZE];
+    private final float[] im = new float[FFT_SIZE];
+    private final float[] power = new float[BINS];
+    private final float[] logMel = new float[NUM_FILTERS];
+    private final float[] decimated = new float[PITCH_FRAME];
+    private final float[] energyPrefix = new float[PITCH_FRAME + 1];
+    private final float[] nccf = new float[MAX_LAG + 2];
+
+    /**
+     * 提取整段音频的特征，不足一帧时返回 0 帧
+     */
+    AcousticFeatures extract(float[] samples) {
+        int frames = samples.length < FRAME_LENGTH ? 0 : 1 + (samples.length - FRAME_LENGTH) / HOP;
+        AcousticFeatures features = new AcousticFeatures(frames);
+        for (int frame = 0; frame < frames; frame++) {
+            int offset = frame * HOP;
+            features.logEnergy[frame] = spectrum(samples, offset);
+            cepstrum(features.mfcc, frame * NUM_CEPS);
+            features.pitch[frame] = pitch(samples, offset);
+        }
+        return features;
+    }
+
+    /**
+     * 预加重 + 加窗 + FFT，结果写入 power，返回帧的对数能量
+     */
+    private float spectrum(float[] samples, int offset) {
+        float energy = 0;
+        float previous = offset > 0 ? samples[offset - 1] : 0;
+        for (int i = 0; i < FRAME_LENGTH; i++) {
+            float x = samples[offset + i];
+            energy += x * x;
+            re[i] = (x - PRE_EMPHASIS * previous) * WINDOW[i];
+            previous = x;
+        }
+        Arrays.fill(re, FRAME_LENGTH, FFT_SIZE, 0f);
+        Arrays.fill(im, 0f);
+        fft();
+        for (int k = 0; k < BINS; k++) {
+            power[k] = re[k] * re[k] + im[k] * im[k];
+        }
+        return (float) Math.log(energy + LOG_FLOOR);
+    }
+
+    private void cepstrum(float[] out, int outOffset) {
+        for (int f = 0; f < NUM_FILTERS; f++) {
+            int start = FILTER_START[f];
+            int w = FILTER_OFFSET[f];
+            float sum = 0;
+            for (int k = 0; k < FILTER_LENGTH[f]; k++) {
+                sum += FILTER_WEIGHTS[w + k] * power[start + k];
+            }
+            logMel[f] = (float) Math.log(sum + LOG_FLOOR);
+        }
+        for (int k = 0; k < NUM_CEPS; k++) {
+            int row = k * NUM_FILTERS;
+            float sum = 0;
+            for (int f = 0; f < NUM_FILTERS; f++) {
+                sum += DCT[row + f] * logMel[f];
+            }
+            out[outOffset + k] = sum;
+        }
+    }
+
+    /**
+     * 归一化自相关估计音高，返回相对 100Hz 的半音数，清音返回 NaN
+     */
+    private float pitch(float[] samples, int offset) {
+        float mean = 0;
+        for (int j = 0; j < PITCH_FRAME; j++) {
+            int p = offset + j * PITCH_DECIMATION;
+            float v = (samples[p] + samples[p + 1] + samples[p + 2] + samples[p + 3]) * 0.25f;
+            decimated[j] = v;
+            mean += v;
+        }
+        mean /= PITCH_FRAME;
+        energyPrefix[0] = 0;
+        for (int j = 0; j < PITCH_FRAME; j++) {
+            float v = decimated[j] - mean;
+            decimated[j] = v;
+            energyPrefix[j + 1] = energyPrefix[j] + v * v;
+        }
+        if (energyPrefix[PITCH_FRAME] < 1e-6f) {
+            return Float.NaN;
+        }
+
+        float maxValue = VOICING_THRESHOLD;
+        boolean voiced = false;
+        for (int lag = MIN_LAG - 1; lag <= MAX_LAG + 1; lag++) {
+            int n = PITCH_FRAME - lag;
+            float sum = 0;
+            for (int j = 0; j < n; j++) {
+                sum += decimated[j] * decimated[j + lag];
+            }
+            float e0 = energyPrefix[n];
+            float e1 = energyPrefix[PITCH_FRAME] - energyPrefix[lag];
+            float value = sum / (float) Math.sqrt(e0 * e1 + 1e-12f);
+            nccf[lag - MIN_LAG + 1] = value;
+            if (lag >= MIN_LAG && lag <= MAX_LAG && value >= maxValue) {
+                maxValue = value;
+                voiced = true;
+            }
+        }
+        if (!voiced) {
+            return Float.NaN;
+        }
+        // 周期信号在 2 倍、3 倍周期处的相关也接近最大值，取接近最大值的第一个局部峰，避免低八度错误
+        int best = -1;
+        for (int lag = MIN_LAG; lag <= MAX_LAG; lag++) {
+            float value = nccf[lag - MIN_LAG + 1];
+            if (value >= OCTAVE_RATIO * maxValue
+                && value >= nccf[lag - MIN_LAG] && value >= nccf[lag - MIN_LAG + 2]) {
+                best = lag;
+                break;
+            }
+        }
+        if (best < 0) {
+            return Float.NaN;
+        }
+        // 抛物线插值得到分数延迟
+        float left = nccf[best - MIN_LAG];
+        float center = nccf[best - MIN_LAG + 1];
+        float right = nccf[best - MIN_LAG + 2];
+        float denominator = left - 2 * center + right;
+        float shift = denominator < 0 ? 0.5f * (left - right) / denominator : 0;
+        float f0 = PITCH_RATE / (best + Math.max(-0.5f, Math.min(0.5f, shift)));
+        return (float) (12 * Math.log(f0 / 100.0) / Math.log(2));
+    }
+
+    /**
+     * 原地基 2 FFT（re, im）
+     */
+    private void fft() {
+        for (int i = 0; i < FFT_SIZE; i++) {
+            int j = BIT_REVERSE[i];
+            if (j > i) {
+                float t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+        for (int size = 2; size <= FFT_SIZE; size <<= 1) {
+            int half = size >> 1;
+            int step = FFT_SIZE / size;
+            for (int start = 0; start < FFT_SIZE; start += size) {
+                for (int k = 0; k < half; k++) {
+                    float wr = COS[k * step];
+                    float wi = SIN[k * step];
+                    int a = start + k;
+                    int b = a + half;
+                    float tr = re[b] * wr - im[b] * wi;
+                    float ti = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+
+    private static double hzToMel(double hz) {
+        return 2595 * Math.log10(1 + hz / 700);
+    }
+
+    private static double melToHz(double mel) {
+        return 700 * (Math.pow(10, mel / 2595) - 1);
+    }
+}
@@ -0,0 +1,382 @@
+package com.example.finance.followread;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 只读发音词典（CMUdict 格式），用最小完美哈希（hash-and-displace，CHD）组织
+ *
+ * n 个词映射到 [0, n) 的 n 个槽位，没有空槽也没有冲突链：每个词先落入一个桶（平均 4 个词），
+ * 构建时从大桶开始为每个桶找一组位移 (d0, d1)，使桶内所有词的槽位 (f1 + d0 * f2 + d1) mod n 都未被占用；
+ * 只有一个词的桶直接记录槽位，不用在快满的表里线性搜索。
+ * 查询时算一次哈希、读一次位移就能定位槽位，再比对词本身排除词典外的词。
+ *
+ * 词和音素按槽位顺序分别拼接成一个 byte[]（词为小写 ASCII，音素见 {@link Arpabet}），
+ * 另用两组 int 偏移定位，没有逐词对象，十几万词的完整 CMUdict 也只占几 MB。
+ *
+ * 构建完美哈希是加载文本词典的主要开销（完整 CMUdict 约 600ms），因此构建时由 {@link PhoneticLexiconCompiler}
+ * 预先算好，把位移、偏移、词、音素数组原样写成二进制资源（{@link #write}），启动时一次读入直接使用（{@link #read}）。
+ */
+final class PhoneticLexicon {
+
+    private static final int BUCKET_SIZE = 4;
+    private static final long SEED_BUCKET = 0x9E3779B97F4A7C15L;
+    private static final long SEED_SLOT = 0xC2B2AE3D27D4EB4FL;
+    // 二进制格式："PLX1"、词数、桶数、词字节数、音素字节数，随后依次是位移、词偏移、音素偏移（int，大端）、词、音素
+    private static final int MAGIC = 0x504C5831;
+    private static final int HEADER_BYTES = 5 * Integer.BYTES;
+
+    private final int size;
+    private final int[] displacements;
+    private final byte[] words;
+    private final int[] wordOffsets;
+    private final byte[] phones;
+    private final int[] phoneOffsets;
+
+    private PhoneticLexicon(int size, int[] displacements, byte[] words, int[] wordOffsets,
+                            byte[] phones, int[] phoneOffsets) {
+        this.size = size;
+        this.displacements = displacements;
+        this.words = words;
+        this.wordOffsets = wordOffsets;
+        this.phones = phones;
+        this.phoneOffsets = phoneOffsets;
+    }
+
+    /**
+     * 读取 CMUdict 格式的词典：每行 "WORD  PH1 PH2 ..."，";;;" 开头为注释；
+     * 多音词的其余读音（"WORD(2)"）、含非 ASCII 字符或未知音素的词条跳过，重复的词保留第一条
+     */
+    static PhoneticLexicon load(InputStream in) throws IOException {
+        List<String> keys = new ArrayList<>();
+        List<byte[]> values = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        byte[] codes = new byte[64];
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int length = line.length();
+            int wordEnd = 0;
+            while (wordEnd < length && line.charAt(wordEnd) > ' ') {
+                wordEnd++;
+            }
+            if (wordEnd == 0 || line.startsWith(";;;")) {
+                continue;
+            }
+            // 逐个音素手工切分（不用正则），加载完整 CMUdict 时这里是主要开销
+            int count = 0;
+            int pos = wordEnd;
+            boolean valid = true;
+            while (pos < length) {
+                while (pos < length && line.charAt(pos) <= ' ') {
+                    pos++;
+                }
+                int start = pos;
+                while (pos < length && line.charAt(pos) > ' ') {
+                    pos++;
+                }
+                if (start == pos) {
+                    break;
+                }
+                int code = Arpabet.encode(line, start, pos);
+                if (code < 0 || count == codes.length) {
+                    valid = false;
+                    break;
+                }
+                codes[count++] = (byte) code;
+            }
+            if (!valid || count == 0) {
+                continue;
+            }
+            String word = toLowerAscii(line, wordEnd);
+            if (word != null && seen.add(word)) {
+                keys.add(word);
+                values.add(Arrays.copyOf(codes, count));
+            }
+        }
+        return build(keys, values);
+    }
+
+    /**
+     * 读取 {@link #write} 写出的二进制词典：整个资源一次读入，数组按块拷贝，不重新构建哈希
+     */
+    static PhoneticLexicon read(InputStream in) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(in.readAllBytes());
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException("不是编译后的音标词典");
+        }
+        int size = buffer.getInt();
+        int bucketCount = buffer.getInt();
+        int wordBytes = buffer.getInt();
+        int phoneBytes = buffer.getInt();
+        long expected = 4L * (bucketCount + 2L * (size + 1)) + wordBytes + phoneBytes;
+        if (size < 0 || bucketCount < 0 || wordBytes < 0 || phoneBytes < 0 || buffer.remaining() != expected) {
+            throw new IOException("音标词典文件已损坏");
+        }
+        int[] displacements = readInts(buffer, bucketCount);
+        int[] wordOffsets = readInts(buffer, size + 1);
+        int[] phoneOffsets = readInts(buffer, size + 1);
+        byte[] words = new byte[wordBytes];
+        buffer.get(words);
+        byte[] phones = new byte[phoneBytes];
+        buffer.get(phones);
+        return new PhoneticLexicon(size, displacements, words, wordOffsets, phones, phoneOffsets);
+    }
+
+    /**
+     * 写出二进制词典（格式见 MAGIC），与构建时使用的 {@link Arpabet} 音素编码绑定
+     */
+    void write(OutputStream out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES
+            + 4 * (displacements.length + wordOffsets.length + phoneOffsets.length) + words.length + phones.length);
+        buffer.putInt(MAGIC).putInt(size).putInt(displacements.length).putInt(words.length).putInt(phones.length);
+        writeInts(buffer, displacements);
+        writeInts(buffer, wordOffsets);
+        writeInts(buffer, phoneOffsets);
+        buffer.put(words).put(phones);
+        out.write(buffer.array());
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * count);
+        return values;
+    }
+
+    private static void writeInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + 4 * values.length);
+    }
+
+    private static PhoneticLexicon build(List<String> keys, List<byte[]> values) {
+        int n = keys.size();
+        if (n == 0) {
+            return new PhoneticLexicon(0, new int[0], new byte[0], new int[1], new byte[0], new int[1]);
+        }
+        int bucketCount = Math.max(1, n / BUCKET_SIZE);
+
+        // 按桶分组（计数排序），大桶先放，剩下的单词桶一定能找到空槽
+        long[] bucketHashes = new long[n];
+        long[] slotHashes = new long[n];
+        int[] bucketSizes = new int[bucketCount + 1];
+        for (int i = 0; i < n; i++) {
+            String key = keys.get(i);
+            bucketHashes[i] = hash(key, 0, key.length(), SEED_BUCKET);
+            slotHashes[i] = hash(key, 0, key.length(), SEED_SLOT);
+            bucketSizes[bucket(bucketHashes[i], bucketCount) + 1]++;
+        }
+        int[] bucketStarts = new int[bucketCount + 1];
+        for (int b = 0; b < bucketCount; b++) {
+            bucketStarts[b + 1] = bucketStarts[b] + bucketSizes[b + 1];
+        }
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(bucketStarts, bucketCount);
+        for (int i = 0; i < n; i++) {
+            members[fill[bucket(bucketHashes[i], bucketCount)]++] = i;
+        }
+        // 桶按大小降序排列（同样用计数排序）
+        int maxSize = 0;
+        for (int b = 0; b < bucketCount; b++) {
+            maxSize = Math.max(maxSize, bucketStarts[b + 1] - bucketStarts[b]);
+        }
+        int[] sizeStarts = new int[maxSize + 2];
+        for (int b = 0; b < bucketCount; b++) {
+            sizeStarts[maxSize - (bucketStarts[b + 1] - bucketStarts[b]) + 1]++;
+        }
+        for (int k = 0; k <= maxSize; k++) {
+            sizeStarts[k + 1] += sizeStarts[k];
+        }
+        int[] order = new int[bucketCount];
+        for (int b = 0; b < bucketCount; b++) {
+            order[sizeStarts[maxSize - (bucketStarts[b + 1] - bucketStarts[b])]++] = b;
+        }
+        int[] f1 = new int[n];
+        int[] f2 = new int[n];
+        for (int i = 0; i < n; i++) {
+            f1[i] = (int) Long.remainderUnsigned(slotHashes[i], n);
+            f2[i] = (int) (Long.remainderUnsigned(slotHashes[i] >>> 17, n) | 1);
+        }
+
+        int[] displacements = new int[bucketCount];
+        int[] slotOf = new int[n];
+        boolean[] taken = new boolean[n];
+        int[] trial = new int[BUCKET_SIZE * 8];
+        int freeCursor = 0;
+        for (int b : order) {
+            int from = bucketStarts[b];
+            int count = bucketStarts[b + 1] - from;
+            if (count == 0) {
+                continue;
+            }
+            if (count == 1) {
+                // 单词桶不必搜索位移，直接放进下一个空槽，位移存为 -(槽位 + 1)
+                while (taken[freeCursor]) {
+                    freeCursor++;
+                }
+                taken[freeCursor] = true;
+                slotOf[members[from]] = freeCursor;
+                displacements[b] = -(freeCursor + 1);
+                continue;
+            }
+            if (trial.length < count) {
+                trial = new int[count];
+            }
+            int found = -1;
+            search:
+            for (int d0 = 0; d0 < n; d0++) {
+                for (int d1 = 0; d1 < n; d1++) {
+                    int placed = 0;
+                    for (; placed < count; placed++) {
+                        int key = members[from + placed];
+                        int slot = (int) ((f1[key] + (long) d0 * f2[key] + d1) % n);
+                        if (taken[slot]) {
+                            break;
+                        }
+                        taken[slot] = true;
+                        trial[placed] = slot;
+                    }
+                    if (placed == count) {
+                        found = pack(d0, d1, n);
+                        break search;
+                    }
+                    for (int k = 0; k < placed; k++) {
+                        taken[trial[k]] = false;
+                    }
+                }
+            }
+            if (found < 0) {
+                throw new IllegalStateException("无法为词典构建完美哈希");
+            }
+            displacements[b] = found;
+            for (int k = 0; k < count; k++) {
+                slotOf[members[from + k]] = trial[k];
+            }
+        }
+
+        // 按槽位顺序拼接词和音素
+        int[] keyAtSlot = new int[n];
+        int wordBytes = 0;
+        int phoneBytes = 0;
+        for (int i = 0; i < n; i++) {
+            keyAtSlot[slotOf[i]] = i;
+            wordBytes += keys.get(i).length();
+            phoneBytes += values.get(i).length;
+        }
+        byte[] words = new byte[wordBytes];
+        int[] wordOffsets = new int[n + 1];
+        byte[] phones = new byte[phoneBytes];
+        int[] phoneOffsets = new int[n + 1];
+        for (int s = 0; s < n; s++) {
+            String key = keys.get(keyAtSlot[s]);
+            byte[] value = values.get(keyAtSlot[s]);
+            for (int c = 0; c < key.length(); c++) {
+                words[wordOffsets[s] + c] = (byte) key.charAt(c);
+            }
+            System.arraycopy(value, 0, phones, phoneOffsets[s], value.length);
+            wordOffsets[s + 1] = wordOffsets[s] + key.length();
+            phoneOffsets[s + 1] = phoneOffsets[s] + value.length;
+        }
+        return new PhoneticLexicon(n, displacements, words, wordOffsets, phones, phoneOffsets);
+    }
+
+    /**
+     * 查询小写词的音素序列，不在词典中时返回 null
+     */
+    byte[] lookup(CharSequence word) {
+        if (size == 0 || word.length() == 0) {
+            return null;
+        }
+        int length = word.length();
+        int displacement = displacements[bucket(hash(word, 0, length, SEED_BUCKET), displacements.length)];
+        int slot = displacement < 0 ? -displacement - 1
+            : slot(hash(word, 0, length, SEED_SLOT), displacement / size, displacement % size, size);
+        int start = wordOffsets[slot];
+        if (wordOffsets[slot + 1] - start != length) {
+            return null;
+        }
+        for (int c = 0; c < length; c++) {
+            if (words[start + c] != word.charAt(c)) {
+                return null;
+            }
+        }
+        return Arrays.copyOfRange(phones, phoneOffsets[slot], phoneOffsets[slot + 1]);
+    }
+
+    boolean contains(CharSequence word) {
+        return lookup(word) != null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 词和音素数据占用的字节数（不含对象头）
+     */
+    long footprintBytes() {
+        return words.length + phones.length + 4L * (wordOffsets.length + phoneOffsets.length + displacements.length);
+    }
+
+    private static int bucket(long hash, int bucketCount) {
+        return (int) Long.remainderUnsigned(hash, bucketCount);
+    }
+
+    // 与 build 中预先算好 f1、f2 的搜索循环保持一致
+    private static int slot(long hash, int d0, int d1, int n) {
+        long f1 = Long.remainderUnsigned(hash, n);
+        long f2 = Long.remainderUnsigned(hash >>> 17, n) | 1;
+        return (int) ((f1 + (long) d0 * f2 + d1) % n);
+    }
+
+    // 位移 (d0, d1) 压成一个 int；d0 实际只有个位数，超出 int 范围时视为构建失败
+    private static int pack(int d0, int d1, int n) {
+        long packed = (long) d0 * n + d1;
+        if (packed > Integer.MAX_VALUE) {
+            return -1;
+        }
+        return (int) packed;
+    }
+
+    /**
+     * FNV-1a 加 MurmurHash3 的 fmix64 收尾，只用于 ASCII 词
+     */
+    private static long hash(CharSequence key, int from, int to, long seed) {
+        long h = 0xCBF29CE484222325L ^ seed;
+        for (int i = from; i < to; i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB93FE1A85EC3L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 词条的小写形式；多音词的其余读音（"WORD(2)"）和含非 ASCII 字符的词返回 null
+     */
+    private static String toLowerAscii(String line, int end) {
+        char[] word = new char[end];
+        for (int i = 0; i < end; i++) {
+            char c = line.charAt(i);
+            if (c > 0x7F || c == '(') {
+                return null;
+            }
+            word[i] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return new String(word);
+    }
+}
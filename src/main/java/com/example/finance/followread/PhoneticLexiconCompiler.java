@@ -0,0 +1,53 @@
+package com.example.finance.followread;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 构建时把 CMUdict 格式的文本词典编译成二进制词典（完美哈希已构建好，见 {@link PhoneticLexicon#write}）
+ *
+ * Maven 在 process-classes 阶段执行：src/main/resources/phonetics/cmudict-common.dict
+ * → target/classes/phonetics/cmudict-common.lex，随包发布。替换为完整 CMUdict 时也可以手工执行：
+ * java -cp target/classes com.example.finance.followread.PhoneticLexiconCompiler cmudict-0.7b cmudict.lex
+ * 再用 phonetic.lexicon-file 指定生成的文件。
+ */
+public final class PhoneticLexiconCompiler {
+
+    private PhoneticLexiconCompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("用法: PhoneticLexiconCompiler <词典.dict> <输出.lex>");
+            System.exit(2);
+        }
+        Path source = Paths.get(args[0]);
+        Path target = Paths.get(args[1]);
+        long start = System.nanoTime();
+        int size = compile(source, target);
+        System.out.printf("音标词典已编译: %s → %s, %d 个词, %d ms%n",
+            source, target, size, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 编译文本词典，返回收录的词数
+     */
+    public static int compile(Path source, Path target) throws IOException {
+        PhoneticLexicon lexicon;
+        try (InputStream in = Files.newInputStream(source)) {
+            lexicon = PhoneticLexicon.load(in);
+        }
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+            lexicon.write(out);
+        }
+        return lexicon.size();
+    }
+}
@@ -0,0 +1,386 @@
+package com.example.finance.followread;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 英文句子音标生成（离线 G2P），切句时为每个学习句子填写 IPA 音标
+ *
+ * 查词顺序：
+ * 1. 随包发布的 CMUdict 格式词典（phonetics/cmudict-common.dict，见 {@link PhoneticLexicon}），
+ *    构建时已编译为二进制（phonetics/cmudict-common.lex，见 {@link PhoneticLexiconCompiler}），启动时直接读入
+ * 2. 词形变化：-s/-es/-ed/-ing/-er/-est/-ly 等规则后缀和 's、n't 等缩写，词干在词典中时按词干拼接
+ * 3. NRL 字母到音素规则（见 {@link LetterToSoundRules}）
+ * 转写结果（IPA）按词放在 LRU 缓存中，字幕里反复出现的词只查一次词典、生词只推导一次。
+ *
+ * 输出形如 "/ðə ˈkwɪk braʊn fɑks/"：逐词转写，多音节词标重音，数字等无法转写的词原样保留。
+ */
+@Component
+public class PhoneticTranscriber {
+
+    private static final Logger log = LoggerFactory.getLogger(PhoneticTranscriber.class);
+
+    static final String LEXICON_RESOURCE = "phonetics/cmudict-common.dict";
+    static final String COMPILED_LEXICON_RESOURCE = "phonetics/cmudict-common.lex";
+    static final String RULES_RESOURCE = "phonetics/letter-to-sound.rules";
+    // 与 FollowReadSentence.phonetic 列长度一致
+    private static final int MAX_LENGTH = 2000;
+    // 词形变化最多剥两层（如 "players'" → players → player）
+    private static final int MAX_DERIVATION_DEPTH = 2;
+
+    @Value("${phonetic.cache-size:20000}")
+    private int cacheSize = 20000;
+
+    // 外部词典文件（如编译好的完整 CMUdict，.dict 结尾按文本读取），为空时使用随包发布的词典
+    @Value("${phonetic.lexicon-file:}")
+    private String lexiconFile = "";
+
+    private PhoneticLexicon lexicon;
+    private LetterToSoundRules rules;
+    // 词 → IPA，热门词和推导出的生词都在这里，同一视频反复出现的词只转写一次
+    private Map<String, String> cache;
+
+    @PostConstruct
+    public void init() {
+        long start = System.nanoTime();
+        lexicon = loadLexicon();
+        try (InputStream in = open(RULES_RESOURCE)) {
+            rules = LetterToSoundRules.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("加载字母到音素规则失败: " + RULES_RESOURCE, e);
+        }
+        cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        log.info("音标词典加载完成: {} 个词, {} KB, 耗时 {} ms", lexicon.size(),
+            lexicon.footprintBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void setLexiconFile(String lexiconFile) {
+        this.lexiconFile = lexiconFile;
+    }
+
+    /**
+     * 优先读取编译好的二进制词典；从 IDE 直接运行、没有经过 Maven 编译词典时退回到解析文本词典
+     */
+    private PhoneticLexicon loadLexicon() {
+        if (lexiconFile != null && !lexiconFile.isBlank()) {
+            Path file = Paths.get(lexiconFile);
+            try (InputStream in = Files.newInputStream(file)) {
+                return lexiconFile.endsWith(".dict") ? PhoneticLexicon.load(in) : PhoneticLexicon.read(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException("加载音标词典失败: " + file, e);
+            }
+        }
+        InputStream compiled = PhoneticTranscriber.class.getClassLoader().getResourceAsStream(COMPILED_LEXICON_RESOURCE);
+        if (compiled != null) {
+            try (InputStream in = compiled) {
+                return PhoneticLexicon.read(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException("加载音标词典失败: " + COMPILED_LEXICON_RESOURCE, e);
+            }
+        }
+        log.info("未找到编译后的音标词典 {}，解析文本词典", COMPILED_LEXICON_RESOURCE);
+        try (InputStream in = open(LEXICON_RESOURCE)) {
+            return PhoneticLexicon.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("加载音标词典失败: " + LEXICON_RESOURCE, e);
+        }
+    }
+
+    /**
+     * 是否为该字幕语言生成音标（目前只有英文）
+     */
+    public static boolean supports(String language) {
+        return "en".equals(SubtitleLanguage.languageCode(language));
+    }
+
+    /**
+     * 把一句英文转写为 IPA，句中没有可转写的词时返回空字符串
+     */
+    public String transcribe(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(text.length() * 2);
+        out.append('/');
+        int words = 0;
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            char c = text.charAt(i);
+            if (!isWordChar(c)) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && isWordChar(text.charAt(i))) {
+                i++;
+            }
+            String token = normalize(text, start, i);
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (words++ > 0) {
+                out.append(' ');
+            }
+            String ipa = isAsciiWord(token) ? ipa(token) : "";
+            out.append(ipa.isEmpty() ? token : ipa);
+        }
+        if (words == 0) {
+            return "";
+        }
+        out.append('/');
+        if (out.length() > MAX_LENGTH) {
+            out.setLength(MAX_LENGTH - 2);
+            out.append("…/");
+        }
+        return out.toString();
+    }
+
+    private String ipa(String word) {
+        String ipa;
+        synchronized (cache) {
+            ipa = cache.get(word);
+        }
+        if (ipa != null) {
+            return ipa;
+        }
+        byte[] phones = lexicon.lookup(word);
+        if (phones == null) {
+            phones = derive(word, MAX_DERIVATION_DEPTH);
+        }
+        if (phones == null) {
+            phones = rules.transcribe(word);
+        }
+        StringBuilder out = new StringBuilder(phones.length * 2);
+        Arpabet.toIpa(phones, out);
+        ipa = out.toString();
+        synchronized (cache) {
+            cache.put(word, ipa);
+        }
+        return ipa;
+    }
+
+    /**
+     * 词典中的词或能由词典中的词干加规则后缀得到的词，否则返回 null
+     */
+    private byte[] lookupOrDerive(String word, int depth) {
+        if (word.length() < 2) {
+            return null;
+        }
+        byte[] phones = lexicon.lookup(word);
+        return phones != null ? phones : derive(word, depth);
+    }
+
+    private byte[] derive(String word, int depth) {
+        if (depth == 0) {
+            return null;
+        }
+        int next = depth - 1;
+        byte[] stem;
+
+        // 缩写
+        if (word.endsWith("'s") && (stem = lookupOrDerive(cut(word, 2), next)) != null) {
+            return plural(stem);
+        }
+        if (word.endsWith("s'") && (stem = lookupOrDerive(cut(word, 1), next)) != null) {
+            return stem;
+        }
+        if (word.endsWith("n't") && (stem = lookupOrDerive(cut(word, 3), next)) != null) {
+            return append(stem, "AH0", "N", "T");
+        }
+        if (word.endsWith("'ll") && (stem = lookupOrDerive(cut(word, 3), next)) != null) {
+            return append(stem, "L");
+        }
+        if (word.endsWith("'re") && (stem = lookupOrDerive(cut(word, 3), next)) != null) {
+            return append(stem, "R");
+        }
+        if (word.endsWith("'ve") && (stem = lookupOrDerive(cut(word, 3), next)) != null) {
+            return append(stem, "V");
+        }
+        if (word.endsWith("'d") && (stem = lookupOrDerive(cut(word, 2), next)) != null) {
+            return append(stem, "D");
+        }
+
+        // 复数、第三人称单数
+        if (word.endsWith("ies") && (stem = lookupOrDerive(cut(word, 3) + "y", next)) != null) {
+            return plural(stem);
+        }
+        if (word.endsWith("s") && !word.endsWith("ss") && (stem = lookupOrDerive(cut(word, 1), next)) != null) {
+            return plural(stem);
+        }
+        if (word.endsWith("es") && (stem = lookupOrDerive(cut(word, 2), next)) != null) {
+            return plural(stem);
+        }
+
+        // 过去式、进行时
+        if (word.endsWith("ied") && (stem = lookupOrDerive(cut(word, 3) + "y", next)) != null) {
+            return past(stem);
+        }
+        if (word.endsWith("ed") && (stem = stemOf(word, 2, next)) != null) {
+            return past(stem);
+        }
+        if (word.endsWith("ing") && (stem = stemOf(word, 3, next)) != null) {
+            return append(stem, "IH0", "NG");
+        }
+
+        // 比较级、最高级
+        if (word.endsWith("ier") && (stem = lookupOrDerive(cut(word, 3) + "y", next)) != null) {
+            return append(stem, "ER0");
+        }
+        if (word.endsWith("iest") && (stem = lookupOrDerive(cut(word, 4) + "y", next)) != null) {
+            return append(stem, "AH0", "S", "T");
+        }
+        if (word.endsWith("er") && (stem = stemOf(word, 2, next)) != null) {
+            return append(stem, "ER0");
+        }
+        if (word.endsWith("est") && (stem = stemOf(word, 3, next)) != null) {
+            return append(stem, "AH0", "S", "T");
+        }
+
+        // 派生后缀
+        if (word.endsWith("ily") && (stem = lookupOrDerive(cut(word, 3) + "y", next)) != null) {
+            return append(dropFinal(stem, Arpabet.IY), "AH0", "L", "IY0");
+        }
+        if (word.endsWith("ly") && (stem = lookupOrDerive(cut(word, 2), next)) != null) {
+            return append(stem, "L", "IY0");
+        }
+        if (word.endsWith("ness") && (stem = lookupOrDerive(cut(word, 4), next)) != null) {
+            return append(stem, "N", "AH0", "S");
+        }
+        if (word.endsWith("ment") && (stem = lookupOrDerive(cut(word, 4), next)) != null) {
+            return append(stem, "M", "AH0", "N", "T");
+        }
+        if (word.endsWith("ful") && (stem = lookupOrDerive(cut(word, 3), next)) != null) {
+            return append(stem, "F", "AH0", "L");
+        }
+        if (word.endsWith("less") && (stem = lookupOrDerive(cut(word, 4), next)) != null) {
+            return append(stem, "L", "AH0", "S");
+        }
+        return null;
+    }
+
+    /**
+     * 去掉后缀后的词干：先补回 e（hoped → hope，而不是 hop），再原样，最后去掉双写辅音（stopped → stop）
+     */
+    private byte[] stemOf(String word, int suffixLength, int depth) {
+        String stem = cut(word, suffixLength);
+        if (stem.length() < 2) {
+            return null;
+        }
+        byte[] phones = lexicon.lookup(stem + "e");
+        if (phones == null) {
+            phones = lookupOrDerive(stem, depth);
+        }
+        int n = stem.length();
+        if (phones == null && n >= 3 && stem.charAt(n - 1) == stem.charAt(n - 2) && !isVowelLetter(stem.charAt(n - 1))) {
+            phones = lexicon.lookup(stem.substring(0, n - 1));
+        }
+        return phones;
+    }
+
+    /**
+     * 复数/所有格词尾：咝音后 /ɪz/，清辅音后 /s/，其余 /z/
+     */
+    private static byte[] plural(byte[] stem) {
+        int last = Arpabet.phone(stem[stem.length - 1]);
+        if (Arpabet.isSibilant(last)) {
+            return append(stem, "IH0", "Z");
+        }
+        return append(stem, Arpabet.isVoiceless(last) ? "S" : "Z");
+    }
+
+    /**
+     * 过去式词尾：t/d 后 /ɪd/，清辅音后 /t/，其余 /d/
+     */
+    private static byte[] past(byte[] stem) {
+        int last = Arpabet.phone(stem[stem.length - 1]);
+        if (last == Arpabet.T || last == Arpabet.D) {
+            return append(stem, "IH0", "D");
+        }
+        return append(stem, Arpabet.isVoiceless(last) ? "T" : "D");
+    }
+
+    private static byte[] append(byte[] stem, String... suffix) {
+        byte[] out = Arrays.copyOf(stem, stem.length + suffix.length);
+        for (int i = 0; i < suffix.length; i++) {
+            out[stem.length + i] = (byte) Arpabet.encode(suffix[i]);
+        }
+        return out;
+    }
+
+    private static byte[] dropFinal(byte[] stem, int phone) {
+        if (stem.length > 1 && Arpabet.phone(stem[stem.length - 1]) == phone) {
+            return Arrays.copyOf(stem, stem.length - 1);
+        }
+        return stem;
+    }
+
+    private static String cut(String word, int suffixLength) {
+        return word.substring(0, Math.max(0, word.length() - suffixLength));
+    }
+
+    /**
+     * 小写，统一弯撇号，去掉首尾撇号
+     */
+    private static String normalize(String text, int start, int end) {
+        StringBuilder word = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            word.append(c == '’' ? '\'' : Character.toLowerCase(c));
+        }
+        int from = 0;
+        int to = word.length();
+        while (from < to && word.charAt(from) == '\'') {
+            from++;
+        }
+        while (to > from && word.charAt(to - 1) == '\'' && !(to - from > 2 && word.charAt(to - 2) == 's')) {
+            to--;
+        }
+        return word.substring(from, to);
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '\'' || c == '’';
+    }
+
+    // 只转写纯字母（含撇号）的 ASCII 词，数字和其他文字原样保留
+    private static boolean isAsciiWord(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c == '\'')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVowelLetter(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+
+    private static InputStream open(String resource) {
+        InputStream in = PhoneticTranscriber.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            throw new IllegalStateException("找不到资源: " + resource);
+        }
+        return in;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.finance.followread;
+
+import java.util.List;
+
+/**
+ * 一次跟读录音的评分结果（各项 0 ~ 100）
+ */
+public final class PronunciationResult {
+
+    private final int overallScore;
+    private final int pronunciationScore;
+    private final int fluencyScore;
+    private final int intonationScore;
+    private final List<WordScore> words;
+
+    PronunciationResult(int pronunciationScore, int fluencyScore, int intonationScore, List<WordScore> words) {
+        this.pronunciationScore = pronunciationScore;
+        this.fluencyScore = fluencyScore;
+        this.intonationScore = intonationScore;
+        this.overallScore = (pronunciationScore + fluencyScore + intonationScore) / 3;
+        this.words = words;
+    }
+
+    public int getOverallScore() {
+        return overallScore;
+    }
+
+    public int getPronunciationScore() {
+        return pronunciationScore;
+    }
+
+    public int getFluencyScore() {
+        return fluencyScore;
+    }
+
+    public int getIntonationScore() {
+        return intonationScore;
+    }
+
+    public List<WordScore> getWords() {
+        return words;
+    }
+
+    /**
+     * 单词得分，position 是词在句子中的序号
+     */
+    public static final class WordScore {
+
+        private final String word;
+        private final int position;
+        private final int score;
+        private final boolean correct;
+
+        WordScore(String word, int position, int score, boolean correct) {
+            this.word = word;
+            this.position = position;
+            this.score = score;
+            this.correct = correct;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public boolean isCorrect() {
+            return correct;
+        }
+    }
+}
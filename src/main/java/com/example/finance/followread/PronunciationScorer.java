@@ -0,0 +1,461 @@
+package com.example.finance.followread;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 本地发音评分：参考音频与用户录音各自提取 MFCC，用 DTW 对齐后按词统计声学距离
+ *
+ * - 发音：每个词在参考音频中的帧区间 → 对齐路径上对应点的平均距离 → S 形曲线映射为 0 ~ 100
+ * - 流利度：有效语音时长与参考的比例 + 多出来的长停顿
+ * - 语调：对齐后两段音高曲线的相关系数（浊音帧太少时退化为能量曲线）
+ *
+ * 词在参考音频中的位置优先使用自动字幕的逐词时间，没有时按字符数在参考语音段内均分。
+ * 纯 CPU 计算，不依赖外部服务；特征提取器和对齐器按线程复用缓冲区，10 秒的句子评分耗时几十毫秒。
+ */
+@Component
+public class PronunciationScorer {
+
+    // 语音端点检测：比整段最大帧能量低 5（自然对数，约 22dB）以内的帧视为语音，两端各保留 0.1 秒
+    private static final float SPEECH_ENERGY_RANGE = 5f;
+    private static final float SILENCE_ENERGY_FLOOR = (float) Math.log(1e-6);
+    private static final int SPEECH_MARGIN_FRAMES = 10;
+    // 不足 0.2 秒的语音按没有说话处理
+    private static final int MIN_SPEECH_FRAMES = 20;
+    // 语句中间超过 0.25 秒的静音算作一次停顿，每次多余的停顿扣 8 分，最多扣 40 分
+    private static final int PAUSE_FRAMES = 25;
+    private static final int PAUSE_PENALTY = 8;
+    private static final int MAX_PAUSE_PENALTY = 40;
+    // 对齐路径上的浊音帧对少于此数时，语调改用能量曲线比较
+    private static final int MIN_VOICED_PAIRS = 10;
+    // 发音分低于此值时说明读的不是这句话，流利度和语调按比例打折（否则读别的内容或噪声也能拿高分）
+    private static final double CONTENT_GATE = 60;
+
+    private static final ThreadLocal<MfccExtractor> EXTRACTOR = ThreadLocal.withInitial(MfccExtractor::new);
+    private static final ThreadLocal<DtwAligner> ALIGNER = ThreadLocal.withInitial(DtwAligner::new);
+
+    // 词的平均距离等于 midpoint 时得 50 分，scale 越小曲线越陡
+    @Value("${pronunciation.word-score-midpoint:3.6}")
+    private double wordScoreMidpoint = 3.6;
+
+    @Value("${pronunciation.word-score-scale:0.3}")
+    private double wordScoreScale = 0.3;
+
+    // 单词得分不低于此值判为正确
+    @Value("${pronunciation.correct-threshold:70}")
+    private int correctThreshold = 70;
+
+    /**
+     * 参考音频预处理后的特征（截掉首尾静音、CMVN 归一化、音高折叠），同一句的多次评分可以共用，评分时只读
+     */
+    public static final class PreparedReference {
+
+        // 语音段特征，参考音频中没有语音时为 null
+        final AcousticFeatures speech;
+        // 语音段在整段参考音频中的起始帧
+        final int speechStart;
+        // 停顿检测的能量阈值
+        final float threshold;
+
+        PreparedReference(AcousticFeatures speech, int speechStart, float threshold) {
+            this.speech = speech;
+            this.speechStart = speechStart;
+            this.threshold = threshold;
+        }
+
+        public boolean hasSpeech() {
+            return speech != null;
+        }
+    }
+
+    /**
+     * 提取并预处理参考音频特征
+     */
+    public PreparedReference prepare(float[] reference) {
+        AcousticFeatures all = EXTRACTOR.get().extract(reference);
+        int[] speech = speechRange(all);
+        if (speech == null) {
+            return new PreparedReference(null, 0, 0);
+        }
+        AcousticFeatures ref = all.slice(speech[0], speech[1]);
+        ref.normalize();
+        foldOctaves(ref.pitch);
+        return new PreparedReference(ref, speech[0], speechThreshold(all));
+    }
+
+    /**
+     * 评分
+     *
+     * @param reference  参考音频（16kHz 单声道）
+     * @param recording  用户录音（16kHz 单声道）
+     * @param text       句子文本
+     * @param wordStarts 每个词（与 {@link #splitWords(String)} 一一对应）在参考音频中的开始时间（秒），未知时为 null
+     */
+    public PronunciationResult score(float[] reference, float[] recording, String text, double[] wordStarts) {
+        return score(prepare(reference), recording, text, wordStarts);
+    }
+
+    /**
+     * 用预处理过的参考特征评分（同一句的多条录音只提取一次参考特征）
+     */
+    public PronunciationResult score(PreparedReference prepared, float[] recording, String text, double[] wordStarts) {
+        List<String> words = splitWords(text);
+        AcousticFeatures recAll = EXTRACTOR.get().extract(recording);
+
+        int[] recSpeech = speechRange(recAll);
+        if (!prepared.hasSpeech() || recSpeech == null) {
+            // 参考或录音中没有检测到语音
+            return silentResult(words);
+        }
+        AcousticFeatures ref = prepared.speech;
+        AcousticFeatures rec = recAll.slice(recSpeech[0], recSpeech[1]);
+        float refThreshold = prepared.threshold;
+        float recThreshold = speechThreshold(recAll);
+        rec.normalize();
+        foldOctaves(rec.pitch);
+
+        DtwAligner.Alignment path = ALIGNER.get().align(ref, rec);
+        if (words.isEmpty()) {
+            // 没有可拆分的词（如全是标点），整句作为一个整体评分
+            double sum = 0;
+            for (int k = 0; k < path.length; k++) {
+                sum += path.distance[k];
+            }
+            int pronunciation = wordScore(sum / path.length);
+            double gate = Math.min(1, pronunciation / CONTENT_GATE);
+            return new PronunciationResult(pronunciation,
+                (int) Math.round(gate * fluencyScore(ref, rec, refThreshold, recThreshold)),
+                (int) Math.round(gate * intonationScore(ref, rec, path)), new ArrayList<>());
+        }
+
+        // 每个词在（截掉首尾静音后的）参考特征中的帧区间
+        int[] bounds = wordBoundaries(words, wordStarts, prepared.speechStart, ref.frames);
+        double[] distanceSum = new double[words.size()];
+        int[] pointCount = new int[words.size()];
+        int word = 0;
+        for (int k = 0; k < path.length; k++) {
+            int frame = path.reference[k];
+            while (word + 1 < words.size() && frame >= bounds[word + 1]) {
+                word++;
+            }
+            distanceSum[word] += path.distance[k];
+            pointCount[word]++;
+        }
+
+        List<PronunciationResult.WordScore> wordScores = new ArrayList<>(words.size());
+        double weighted = 0;
+        int totalFrames = 0;
+        for (int w = 0; w < words.size(); w++) {
+            int score = pointCount[w] > 0 ? wordScore(distanceSum[w] / pointCount[w]) : 0;
+            int frames = Math.max(1, bounds[w + 1] - bounds[w]);
+            weighted += (double) score * frames;
+            totalFrames += frames;
+            wordScores.add(new PronunciationResult.WordScore(words.get(w), w, score, score >= correctThreshold));
+        }
+        int pronunciation = totalFrames > 0 ? (int) Math.round(weighted / totalFrames) : 0;
+
+        double gate = Math.min(1, pronunciation / CONTENT_GATE);
+        int fluency = (int) Math.round(gate * fluencyScore(ref, rec, refThreshold, recThreshold));
+        int intonation = (int) Math.round(gate * intonationScore(ref, rec, path));
+        return new PronunciationResult(pronunciation, fluency, intonation, wordScores);
+    }
+
+    /**
+     * 拆分句子中的词：按空白拆分并去掉首尾标点，中文和日文假名按单字拆分
+     */
+    public static List<String> splitWords(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        for (String token : text.trim().split("\\s+")) {
+            String word = token.replaceAll("^[^\\p{L}\\p{N}]+|[^\\p{L}\\p{N}]+$", "");
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (!containsCjk(word)) {
+                words.add(word);
+                continue;
+            }
+            StringBuilder latin = new StringBuilder();
+            word.codePoints().forEach(cp -> {
+                if (isCjk(cp)) {
+                    if (latin.length() > 0) {
+                        words.add(latin.toString());
+                        latin.setLength(0);
+                    }
+                    words.add(new String(Character.toChars(cp)));
+                } else if (Character.isLetterOrDigit(cp)) {
+                    latin.appendCodePoint(cp);
+                }
+            });
+            if (latin.length() > 0) {
+                words.add(latin.toString());
+            }
+        }
+        return words;
+    }
+
+    /**
+     * 用自动字幕的逐词时间定位句子中的词：依次在轨道中向后查找同一个词（允许跳过几个），
+     * 返回各词相对参考音频开头 clipStart 的开始时间（秒）；一个词都没匹配上时返回 null。
+     * 未匹配的词在前后已知时间（或音频首尾）之间按字符数插值。
+     */
+    public static double[] matchWordStarts(List<String> words, WordTimingTrack track,
+                                           double clipStart, double clipDuration) {
+        if (track == null || track.size() == 0 || words.isEmpty()) {
+            return null;
+        }
+        int n = words.size();
+        double[] starts = new double[n];
+        Arrays.fill(starts, Double.NaN);
+        int cursor = 0;
+        int missed = 0;
+        int matched = 0;
+        for (int w = 0; w < n && cursor < track.size(); w++) {
+            String target = normalizeWord(words.get(w));
+            int limit = Math.min(track.size(), cursor + 4 + missed);
+            int found = -1;
+            for (int j = cursor; j < limit; j++) {
+                if (target.equals(normalizeWord(track.word(j)))) {
+                    found = j;
+                    break;
+                }
+            }
+            if (found < 0) {
+                missed++;
+                continue;
+            }
+            starts[w] = Math.max(0, Math.min(clipDuration, track.startTime(found) - clipStart));
+            cursor = found + 1;
+            missed = 0;
+            matched++;
+        }
+        if (matched == 0) {
+            return null;
+        }
+
+        int w = 0;
+        while (w < n) {
+            if (!Double.isNaN(starts[w])) {
+                w++;
+                continue;
+            }
+            int end = w;
+            while (end < n && Double.isNaN(starts[end])) {
+                end++;
+            }
+            // 前一个已知词和这段未知词一起分享 [from, to)
+            int first = w > 0 ? w - 1 : w;
+            double from = w > 0 ? starts[w - 1] : 0;
+            double to = Math.max(from, end < n ? starts[end] : clipDuration);
+            int total = 0;
+            for (int k = first; k < end; k++) {
+                total += words.get(k).length();
+            }
+            int chars = 0;
+            for (int k = first; k < end; k++) {
+                if (k >= w) {
+                    starts[k] = from + (to - from) * chars / Math.max(1, total);
+                }
+                chars += words.get(k).length();
+            }
+            w = end;
+        }
+        return starts;
+    }
+
+    private int wordScore(double meanDistance) {
+        double score = 100 / (1 + Math.exp((meanDistance - wordScoreMidpoint) / wordScoreScale));
+        return (int) Math.round(score);
+    }
+
+    /**
+     * 词边界（帧）：bounds[w] ~ bounds[w + 1] 是第 w 个词，bounds[0] = 0，bounds[词数] = frames
+     */
+    private static int[] wordBoundaries(List<String> words, double[] wordStarts, int speechStart, int frames) {
+        int n = words.size();
+        int[] bounds = new int[n + 1];
+        bounds[n] = frames;
+        if (wordStarts != null && wordStarts.length == n) {
+            for (int w = 1; w < n; w++) {
+                int frame = (int) Math.round(wordStarts[w] * MfccExtractor.FRAME_RATE) - speechStart;
+                bounds[w] = Math.max(bounds[w - 1], Math.min(frames, frame));
+            }
+            return bounds;
+        }
+        int totalChars = 0;
+        for (String word : words) {
+            totalChars += word.length();
+        }
+        int chars = 0;
+        for (int w = 1; w < n; w++) {
+            chars += words.get(w - 1).length();
+            bounds[w] = (int) ((long) frames * chars / totalChars);
+        }
+        return bounds;
+    }
+
+    private static int fluencyScore(AcousticFeatures ref, AcousticFeatures rec, float refThreshold, float recThreshold) {
+        double ratio = (double) rec.frames / ref.frames;
+        double tempo = 100 * Math.exp(-Math.abs(Math.log(ratio)));
+        int extraPauses = Math.max(0, countPauses(rec, recThreshold) - countPauses(ref, refThreshold));
+        int penalty = Math.min(MAX_PAUSE_PENALTY, extraPauses * PAUSE_PENALTY);
+        return (int) Math.max(0, Math.round(tempo) - penalty);
+    }
+
+    private static int countPauses(AcousticFeatures features, float threshold) {
+        int pauses = 0;
+        int run = 0;
+        for (int f = 0; f < features.frames; f++) {
+            if (features.logEnergy[f] < threshold) {
+                run++;
+            } else {
+                if (run >= PAUSE_FRAMES) {
+                    pauses++;
+                }
+                run = 0;
+            }
+        }
+        return pauses;
+    }
+
+    /**
+     * 沿对齐路径比较音高曲线（半音，相关系数与调高无关），相关系数 1 → 100 分，0 → 40 分
+     */
+    private static int intonationScore(AcousticFeatures ref, AcousticFeatures rec, DtwAligner.Alignment path) {
+        float[] a = new float[path.length];
+        float[] b = new float[path.length];
+        int pairs = 0;
+        for (int k = 0; k < path.length; k++) {
+            float p = ref.pitch[path.reference[k]];
+            float q = rec.pitch[path.recording[k]];
+            if (!Float.isNaN(p) && !Float.isNaN(q)) {
+                a[pairs] = p;
+                b[pairs] = q;
+                pairs++;
+            }
+        }
+        if (pairs < MIN_VOICED_PAIRS) {
+            pairs = path.length;
+            for (int k = 0; k < pairs; k++) {
+                a[k] = ref.logEnergy[path.reference[k]];
+                b[k] = rec.logEnergy[path.recording[k]];
+            }
+        }
+        double correlation = correlation(a, b, pairs);
+        return (int) Math.round(Math.max(0, Math.min(100, 100 * (0.4 + 0.6 * correlation))));
+    }
+
+    /**
+     * 把偶发的倍频/半频错误折回到中位音高上下半个八度以内
+     */
+    private static void foldOctaves(float[] pitch) {
+        float[] voiced = new float[pitch.length];
+        int n = 0;
+        for (float p : pitch) {
+            if (!Float.isNaN(p)) {
+                voiced[n++] = p;
+            }
+        }
+        if (n == 0) {
+            return;
+        }
+        Arrays.sort(voiced, 0, n);
+        float median = voiced[n / 2];
+        for (int f = 0; f < pitch.length; f++) {
+            float p = pitch[f];
+            if (Float.isNaN(p)) {
+                continue;
+            }
+            while (p > median + 6) {
+                p -= 12;
+            }
+            while (p < median - 6) {
+                p += 12;
+            }
+            pitch[f] = p;
+        }
+    }
+
+    private static double correlation(float[] a, float[] b, int n) {
+        if (n < 2) {
+            return 0;
+        }
+        double meanA = 0;
+        double meanB = 0;
+        for (int i = 0; i < n; i++) {
+            meanA += a[i];
+            meanB += b[i];
+        }
+        meanA /= n;
+        meanB /= n;
+        double cov = 0;
+        double varA = 0;
+        double varB = 0;
+        for (int i = 0; i < n; i++) {
+            double da = a[i] - meanA;
+            double db = b[i] - meanB;
+            cov += da * db;
+            varA += da * da;
+            varB += db * db;
+        }
+        return varA > 0 && varB > 0 ? cov / Math.sqrt(varA * varB) : 0;
+    }
+
+    private static float speechThreshold(AcousticFeatures features) {
+        float max = Float.NEGATIVE_INFINITY;
+        for (int f = 0; f < features.frames; f++) {
+            max = Math.max(max, features.logEnergy[f]);
+        }
+        return Math.max(SILENCE_ENERGY_FLOOR, max - SPEECH_ENERGY_RANGE);
+    }
+
+    /**
+     * 首尾静音裁剪后的语音帧区间 [from, to)，没有足够语音时返回 null
+     */
+    private static int[] speechRange(AcousticFeatures features) {
+        float threshold = speechThreshold(features);
+        int first = -1;
+        int last = -1;
+        for (int f = 0; f < features.frames; f++) {
+            if (features.logEnergy[f] >= threshold) {
+                if (first < 0) {
+                    first = f;
+                }
+                last = f;
+            }
+        }
+        if (first < 0 || last - first + 1 < MIN_SPEECH_FRAMES) {
+            return null;
+        }
+        return new int[]{Math.max(0, first - SPEECH_MARGIN_FRAMES), Math.min(features.frames, last + 1 + SPEECH_MARGIN_FRAMES)};
+    }
+
+    private PronunciationResult silentResult(List<String> words) {
+        List<PronunciationResult.WordScore> scores = new ArrayList<>(words.size());
+        for (int w = 0; w < words.size(); w++) {
+            scores.add(new PronunciationResult.WordScore(words.get(w), w, 0, false));
+        }
+        return new PronunciationResult(0, 0, 0, scores);
+    }
+
+    private static String normalizeWord(String word) {
+        return word.replaceAll("[^\\p{L}\\p{N}]", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean containsCjk(String word) {
+        return word.codePoints().anyMatch(PronunciationScorer::isCjk);
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+            || script == Character.UnicodeScript.KATAKANA;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.finance.followread;
+
+/**
+ * 录音不符合上传限制（过大、过长、为空）或任务正在评估，status 是返回给客户端的 HTTP 状态码
+ */
+public class RecordingRejectedException extends RuntimeException {
+
+    private final int status;
+
+    public RecordingRejectedException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
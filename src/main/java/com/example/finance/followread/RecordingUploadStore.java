@@ -0,0 +1,255 @@
+package com.example.finance.followread;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 录音上传存储
+ *
+ * 上传内容（multipart 文件或原始请求体，支持 chunked）通过 NIO 通道以 64KB 为单位直接写入临时文件，
+ * 同时计算 SHA-256，内存占用与文件大小无关；超过大小上限立即中断并删除临时文件。
+ * 保存时按内容哈希命名，同一用户重复提交相同录音只保留一份文件。
+ * 评估只拿文件路径，解码时再按时长上限读取（见 {@link #decode(Path)}）。
+ * 保存的录音登记到 {@link StorageLifecycleManager}，超出磁盘预算时淘汰最久未用的录音。
+ */
+@Component
+public class RecordingUploadStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordingUploadStore.class);
+
+    public static final String RECORDING_DIR = "uploads/audio/user/";
+    // 临时文件与正式目录在同一文件系统，保存时可以原子改名
+    private static final String INCOMING_DIR = RECORDING_DIR + ".incoming/";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // 文件名中保留的哈希长度（十六进制字符）
+    private static final int HASH_NAME_LENGTH = 16;
+    // WAV 头部检查读取的字节数
+    private static final int HEADER_BYTES = 4096;
+
+    @Value("${recording.max-size:10MB}")
+    private DataSize maxSize = DataSize.ofMegabytes(10);
+
+    @Value("${recording.max-duration-seconds:60}")
+    private double maxDurationSeconds = 60;
+
+    @Autowired
+    private AudioDecoder decoder;
+
+    @Autowired
+    private StorageLifecycleManager storageLifecycleManager;
+
+    /**
+     * 已接收的录音文件
+     */
+    public static final class StoredRecording {
+
+        private final Path file;
+        private final String sha256;
+        private final long size;
+        private final String extension;
+        private final boolean duplicate;
+
+        StoredRecording(Path file, String sha256, long size, String extension, boolean duplicate) {
+            this.file = file;
+            this.sha256 = sha256;
+            this.size = size;
+            this.extension = extension;
+            this.duplicate = duplicate;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * 以 "/uploads/..." 形式表示的访问路径
+         */
+        public String getUrl() {
+            return "/" + file.toString().replace('\\', '/');
+        }
+
+        /**
+         * 保存时是否已有相同内容的文件
+         */
+        public boolean isDuplicate() {
+            return duplicate;
+        }
+    }
+
+    /**
+     * 把上传内容流式写入临时文件，检查大小和（WAV）时长，返回临时文件
+     *
+     * @param declaredLength 请求声明的长度（Content-Length），未知时为 -1；超过上限时不读取内容直接拒绝
+     */
+    public StoredRecording receive(InputStream in, long declaredLength) throws IOException {
+        long limit = maxSize.toBytes();
+        if (declaredLength > limit) {
+            throw new RecordingRejectedException(413, tooLargeMessage());
+        }
+        Files.createDirectories(Paths.get(INCOMING_DIR));
+        Path temp = Files.createTempFile(Paths.get(INCOMING_DIR), "upload-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long size = 0;
+            try (ReadableByteChannel source = Channels.newChannel(in);
+                 FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                int read;
+                while ((read = source.read(buffer)) != -1) {
+                    size += read;
+                    if (size > limit) {
+                        throw new RecordingRejectedException(413, tooLargeMessage());
+                    }
+                    buffer.flip();
+                    digest.update(buffer.array(), 0, buffer.limit());
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+            if (size == 0) {
+                throw new RecordingRejectedException(400, "音频文件不能为空");
+            }
+
+            ByteBuffer header = readHeader(temp);
+            double seconds = AudioDecoder.wavDurationSeconds(header, size);
+            if (seconds > maxDurationSeconds) {
+                throw new RecordingRejectedException(413, tooLongMessage());
+            }
+            return new StoredRecording(temp, HexFormat.of().formatHex(digest.digest()), size, extension(header), false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * 把临时文件保存到录音目录，命名为 {prefix}_{内容哈希}.{扩展名}；相同内容的文件已存在时删除临时文件并复用
+     */
+    public StoredRecording keep(StoredRecording received, String prefix) throws IOException {
+        String name = prefix + "_" + received.sha256.substring(0, HASH_NAME_LENGTH) + "." + received.extension;
+        Path target = Paths.get(RECORDING_DIR, name);
+        boolean duplicate = Files.exists(target);
+        if (duplicate) {
+            Files.deleteIfExists(received.file);
+            log.info("重复提交的录音，复用已有文件: {}", target);
+        } else {
+            // 两个相同内容的请求同时保存时，后一个原子覆盖，内容一致
+            Files.move(received.file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        storageLifecycleManager.register(StorageLifecycleManager.Area.RECORDINGS, target.toString());
+        return new StoredRecording(target, received.sha256, received.size, received.extension, duplicate);
+    }
+
+    /**
+     * 删除临时文件
+     */
+    public void discard(StoredRecording received) {
+        try {
+            Files.deleteIfExists(received.file);
+        } catch (IOException e) {
+            log.warn("删除临时录音失败: {}", received.file, e);
+        }
+    }
+
+    /**
+     * 解码录音，最多读取上限时长多 1 秒的数据，超过上限时拒绝
+     */
+    public float[] decode(Path file) throws IOException {
+        float[] samples = decoder.decodeAtMost(file, maxDurationSeconds + 1);
+        if (samples.length > maxDurationSeconds * AudioDecoder.SAMPLE_RATE) {
+            throw new RecordingRejectedException(413, tooLongMessage());
+        }
+        return samples;
+    }
+
+    private String tooLargeMessage() {
+        return "录音文件超过 " + maxSize.toMegabytes() + "MB 上限";
+    }
+
+    private String tooLongMessage() {
+        return "录音时长超过 " + Math.round(maxDurationSeconds) + " 秒上限";
+    }
+
+    private static ByteBuffer readHeader(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate((int) Math.min(HEADER_BYTES, channel.size()));
+            while (header.hasRemaining() && channel.read(header) > 0) {
+                // 读满头部
+            }
+            header.flip();
+            return header;
+        }
+    }
+
+    /**
+     * 按文件头识别容器格式（浏览器 MediaRecorder 一般是 WebM，Safari 是 MP4）
+     */
+    private static String extension(ByteBuffer header) {
+        if (startsWith(header, 0, "RIFF")) {
+            return "wav";
+        }
+        if (header.limit() >= 4 && header.getInt(0) == 0x1A45DFA3) {
+            return "webm";
+        }
+        if (startsWith(header, 0, "OggS")) {
+            return "ogg";
+        }
+        if (startsWith(header, 4, "ftyp")) {
+            return "m4a";
+        }
+        if (startsWith(header, 0, "ID3") || (header.limit() >= 2
+                && (header.get(0) & 0xFF) == 0xFF && (header.get(1) & 0xE0) == 0xE0)) {
+            return "mp3";
+        }
+        return "audio";
+    }
+
+    private static boolean startsWith(ByteBuffer data, int offset, String magic) {
+        if (data.limit() < offset + magic.length()) {
+            return false;
+        }
+        for (int i = 0; i < magic.length(); i++) {
+            if (data.get(offset + i) != magic.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.finance.followread;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 跟读句子的参考音频（16kHz 单声道）
+ *
+ * 查找顺序：
+ * 1. 句子自带的标准音频（audioUrl）
+ * 2. 已截取过的缓存 uploads/audio/standard/video_{视频ID}_{句子ID}.wav
+ * 3. 本地已下载的视频/音频文件，用 ffmpeg 截取句子时间段
+ * 4. yt-dlp 取得音频流地址，ffmpeg 只拉取句子对应的片段（可关闭）
+ *
+ * YouTube 句子的参考片段前后各多截 0.25 秒，避免字幕时间略晚时截掉首尾音节；截取结果写入缓存。
+ */
+@Component
+public class ReferenceAudioProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceAudioProvider.class);
+
+    public static final String CACHE_DIR = "uploads/audio/standard/";
+    private static final double PADDING_SECONDS = 0.25;
+    private static final long YT_DLP_TIMEOUT_SECONDS = 30;
+
+    @Autowired
+    private AudioDecoder decoder;
+
+    @Autowired
+    private YoutubeVideoRepository videoRepository;
+
+    @Autowired
+    private VideoDownloadTaskRepository downloadTaskRepository;
+
+    @Autowired
+    private StorageLifecycleManager storageLifecycleManager;
+
+    @Autowired
+    private SubtitleWordTimingsRepository wordTimingsRepository;
+
+    @Autowired
+    private YtDlpBudget ytDlpBudget;
+
+    // 本地没有视频文件时是否从 YouTube 拉取句子片段
+    @Value("${pronunciation.reference.remote-enabled:true}")
+    private boolean remoteEnabled;
+
+    /**
+     * 参考音频及其在视频中的开始时间（非视频句子为 NaN）
+     */
+    public static final class ReferenceAudio {
+
+        private final float[] samples;
+        private final double clipStart;
+
+        ReferenceAudio(float[] samples, double clipStart) {
+            this.samples = samples;
+            this.clipStart = clipStart;
+        }
+
+        public float[] getSamples() {
+            return samples;
+        }
+
+        public double getClipStart() {
+            return clipStart;
+        }
+
+        public double getDuration() {
+            return samples.length / (double) AudioDecoder.SAMPLE_RATE;
+        }
+    }
+
+    /**
+     * 加载句子的参考音频，找不到时返回 null
+     */
+    public ReferenceAudio load(FollowReadSentence sentence) throws IOException {
+        if (hasOwnAudio(sentence)) {
+            Path file = toPath(sentence.getAudioUrl());
+            if (Files.isRegularFile(file)) {
+                return new ReferenceAudio(decoder.decode(file), Double.NaN);
+            }
+        }
+        if (sentence.getYoutubeVideoId() == null || sentence.getStartTime() == null || sentence.getEndTime() == null) {
+            return null;
+        }
+
+        double clipStart = clipStart(sentence);
+        double duration = clipEnd(sentence) - clipStart;
+        Path cache = Paths.get(CACHE_DIR, cacheFileName(sentence));
+        if (Files.isRegularFile(cache)) {
+            return new ReferenceAudio(decoder.decode(cache), clipStart);
+        }
+
+        float[] samples = cutFromDownloads(sentence.getYoutubeVideoId(), clipStart, duration);
+        if (samples == null && remoteEnabled) {
+            samples = cutFromRemote(sentence.getYoutubeVideoId(), clipStart, duration);
+        }
+        if (samples == null) {
+            return null;
+        }
+        // 先写临时文件再改名，并发评估同一句时不会读到写了一半的缓存
+        Path temp = Paths.get(CACHE_DIR, cache.getFileName() + "." + Thread.currentThread().getId() + ".tmp");
+        AudioDecoder.writeWav(temp, samples);
+        Files.move(temp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new ReferenceAudio(samples, clipStart);
+    }
+
+    /**
+     * YouTube 句子用自动字幕的逐词时间定位 text 中每个词在参考音频里的开始时间，
+     * 没有逐词时间时返回 null（评分时按字符数均分）
+     */
+    public double[] wordStarts(FollowReadSentence sentence, ReferenceAudio reference, String text) {
+        return wordStarts(sentence, reference.getClipStart(), reference.getDuration(), text);
+    }
+
+    /**
+     * 同上，参考片段由开始时间和时长给出（如来自特征缓存）
+     */
+    public double[] wordStarts(FollowReadSentence sentence, double clipStart, double duration, String text) {
+        if (sentence.getYoutubeVideoId() == null || Double.isNaN(clipStart)) {
+            return null;
+        }
+        WordTimingTrack track = wordTimingsRepository.findById(sentence.getYoutubeVideoId())
+            .map(SubtitleWordTimings::toTrack)
+            .orElse(null);
+        if (track == null) {
+            return null;
+        }
+        WordTimingTrack clip = track.slice(clipStart, clipStart + duration);
+        return PronunciationScorer.matchWordStarts(PronunciationScorer.splitWords(text), clip, clipStart, duration);
+    }
+
+    /**
+     * 是否使用句子自带的标准音频（而不是从视频中截取）
+     */
+    static boolean hasOwnAudio(FollowReadSentence sentence) {
+        return sentence.getAudioUrl() != null && !sentence.getAudioUrl().isBlank();
+    }
+
+    /**
+     * 视频句子参考片段在视频中的开始/结束时间（秒），前后各多截 0.25 秒
+     */
+    static double clipStart(FollowReadSentence sentence) {
+        return Math.max(0, sentence.getStartTime() - PADDING_SECONDS);
+    }
+
+    static double clipEnd(FollowReadSentence sentence) {
+        return sentence.getEndTime() + PADDING_SECONDS;
+    }
+
+    /**
+     * 视频的参考音频缓存文件名前缀（删除视频时清理用）
+     */
+    public static String cachePrefix(Long youtubeVideoId) {
+        return "video_" + youtubeVideoId + "_";
+    }
+
+    private static String cacheFileName(FollowReadSentence sentence) {
+        return cachePrefix(sentence.getYoutubeVideoId()) + sentence.getId() + ".wav";
+    }
+
+    private float[] cutFromDownloads(Long youtubeVideoId, double clipStart, double duration) {
+        List<String> files = downloadTaskRepository.findOutputFilesByYoutubeVideoId(youtubeVideoId);
+        for (String name : files) {
+            Path file = Paths.get(name);
+            if (!Files.isRegularFile(file)) {
+                continue;
+            }
+            try (StorageLifecycleManager.Pin pin = storageLifecycleManager.pin(name)) {
+                float[] samples = decoder.decode(file, clipStart, duration);
+                if (samples.length > 0) {
+                    return samples;
+                }
+            } catch (IOException e) {
+                log.warn("从下载文件截取参考音频失败: file={}, error={}", file, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private float[] cutFromRemote(Long youtubeVideoId, double clipStart, double duration) {
+        Optional<YoutubeVideo> videoOpt = videoRepository.findById(youtubeVideoId);
+        if (!videoOpt.isPresent() || videoOpt.get().getSourceUrl() == null) {
+            return null;
+        }
+        try {
+            String streamUrl = resolveAudioStream(videoOpt.get().getSourceUrl());
+            if (streamUrl == null) {
+                return null;
+            }
+            float[] samples = decoder.decodeUrl(streamUrl, clipStart, duration);
+            return samples.length > 0 ? samples : null;
+        } catch (IOException e) {
+            log.warn("从 YouTube 截取参考音频失败: videoId={}, error={}", youtubeVideoId, e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * yt-dlp -g 取得最佳音频流的直链（占用全局 yt-dlp 并发预算，见 YtDlpBudget）
+     */
+    private String resolveAudioStream(String sourceUrl) throws IOException, InterruptedException {
+        try (YtDlpBudget.Permit permit = ytDlpBudget.acquire()) {
+            Process process = new ProcessBuilder("yt-dlp", "-f", "bestaudio", "-g", sourceUrl)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            String url;
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                url = reader.readLine();
+            }
+            if (!process.waitFor(YT_DLP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return null;
+            }
+            return process.exitValue() == 0 && url != null && url.startsWith("http") ? url.trim() : null;
+        }
+    }
+
+    private static Path toPath(String url) {
+        // 与录音一样以 "/uploads/..." 形式保存，对应工作目录下的相对路径
+        return Paths.get(url.startsWith("/uploads/") ? url.substring(1) : url);
+    }
+}
@@ -0,0 +1,474 @@
+package com.example.finance.followread;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 参考音频特征缓存（按句子 ID）
+ *
+ * 缓存的是 {@link PronunciationScorer#prepare} 的结果（截掉首尾静音、归一化后的 MFCC、能量和音高），
+ * 命中时跳过参考音频的截取、解码和特征提取。每个句子一个文件，位于 uploads/features/reference/，
+ * 读取时内存映射后整块拷贝到数组；文件头记录句子的时间段和音频地址指纹，句子改过后自动失效。
+ *
+ * - 批量预热：视频下载完成后按约 5 分钟一段解码下载文件，一次切出段内所有句子的特征（{@link #populateVideoAsync}）
+ * - 淘汰：按最近使用顺序（文件修改时间，命中时更新）在磁盘预算内保留，超出时删除最久未用的文件
+ * - 指标：命中/未命中计数、条目数和占用字节数（followread.reference.cache*）
+ */
+@Component
+public class ReferenceFeatureCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceFeatureCache.class);
+
+    public static final String CACHE_DIR = "uploads/features/reference/";
+    private static final String EXTENSION = ".feat";
+
+    private static final int MAGIC = 0x52464331; // "RFC1"
+    // 特征提取参数或文件格式变化时加一，旧文件自动失效（2：指纹改为 SHA-256 的前 64 位）
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 48;
+    private static final int NUM_CEPS = AcousticFeatures.NUM_CEPS;
+    // 批量预热时每次解码的最长音频（秒）
+    private static final double WINDOW_SECONDS = 300;
+
+    @Value("${reference-features.max-disk-size:256MB}")
+    private DataSize maxDiskSize = DataSize.ofMegabytes(256);
+
+    @Autowired
+    private ReferenceAudioProvider referenceAudioProvider;
+
+    @Autowired
+    private PronunciationScorer pronunciationScorer;
+
+    @Autowired
+    private AudioDecoder decoder;
+
+    @Autowired
+    private FollowReadSentenceRepository sentenceRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StorageLifecycleManager storageLifecycleManager;
+
+    @Autowired
+    private MediaFileCleaner mediaFileCleaner;
+
+    // 文件名 → 字节数，按最近使用排序
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private Counter hits;
+    private Counter misses;
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong populatedCount = new AtomicLong();
+
+    /**
+     * 句子的参考特征，以及参考片段在视频中的开始时间（非视频句子为 NaN）和时长
+     */
+    public static final class CachedReference {
+
+        private final PronunciationScorer.PreparedReference prepared;
+        private final double clipStart;
+        private final double duration;
+
+        CachedReference(PronunciationScorer.PreparedReference prepared, double clipStart, double duration) {
+            this.prepared = prepared;
+            this.clipStart = clipStart;
+            this.duration = duration;
+        }
+
+        public PronunciationScorer.PreparedReference getPrepared() {
+            return prepared;
+        }
+
+        public double getClipStart() {
+            return clipStart;
+        }
+
+        public double getDuration() {
+            return duration;
+        }
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Path dir = Paths.get(CACHE_DIR);
+        Files.createDirectories(dir);
+        // 启动时按修改时间（最近使用时间）从旧到新重建索引
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.comparing(ReferenceFeatureCache::lastModified));
+        synchronized (index) {
+            for (Path file : files) {
+                long size = Files.size(file);
+                index.put(file.getFileName().toString(), size);
+                totalBytes += size;
+            }
+        }
+        evictOverBudget();
+
+        hits = Counter.builder("followread.reference.cache").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("followread.reference.cache").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("followread.reference.cache.entries", index, map -> {
+            synchronized (map) {
+                return map.size();
+            }
+        }).register(meterRegistry);
+        Gauge.builder("followread.reference.cache.bytes", this, cache -> cache.diskBytes()).register(meterRegistry);
+        log.info("参考特征缓存: {} 个文件, {} KB, 上限 {} MB", files.size(), diskBytes() / 1024, maxDiskSize.toMegabytes());
+    }
+
+    /**
+     * 取句子的参考特征，未缓存时加载参考音频提取并写入缓存；没有参考音频时返回 null
+     */
+    public CachedReference get(FollowReadSentence sentence) throws IOException {
+        Path file = file(sentence);
+        CachedReference cached = read(file, fingerprint(sentence));
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        ReferenceAudioProvider.ReferenceAudio reference = referenceAudioProvider.load(sentence);
+        if (reference == null) {
+            return null;
+        }
+        CachedReference prepared = new CachedReference(pronunciationScorer.prepare(reference.getSamples()),
+            reference.getClipStart(), reference.getDuration());
+        write(file, fingerprint(sentence), prepared);
+        return prepared;
+    }
+
+    /**
+     * 视频下载完成后批量提取该视频所有句子的参考特征（已缓存的跳过）
+     */
+    @Async
+    public void populateVideoAsync(Long youtubeVideoId, String mediaFile) {
+        Path media = Paths.get(mediaFile);
+        if (!Files.isRegularFile(media)) {
+            return;
+        }
+        List<FollowReadSentence> sentences = new ArrayList<>();
+        for (FollowReadSentence sentence : sentenceRepository.findByYoutubeVideoId(youtubeVideoId)) {
+            if (sentence.getStartTime() != null && sentence.getEndTime() != null
+                    && !ReferenceAudioProvider.hasOwnAudio(sentence)
+                    && !isCached(file(sentence), fingerprint(sentence))) {
+                sentences.add(sentence);
+            }
+        }
+        if (sentences.isEmpty()) {
+            return;
+        }
+        sentences.sort(Comparator.comparing(FollowReadSentence::getStartTime));
+
+        // 解码期间下载文件不被存储清理淘汰
+        try (StorageLifecycleManager.Pin pin = storageLifecycleManager.pin(mediaFile)) {
+            long start = System.currentTimeMillis();
+            int populated = 0;
+            int i = 0;
+            while (i < sentences.size()) {
+                // 把开始时间相近的句子合并到一个解码窗口
+                double windowStart = ReferenceAudioProvider.clipStart(sentences.get(i));
+                double windowEnd = ReferenceAudioProvider.clipEnd(sentences.get(i));
+                int j = i + 1;
+                while (j < sentences.size() && ReferenceAudioProvider.clipEnd(sentences.get(j)) - windowStart <= WINDOW_SECONDS) {
+                    windowEnd = Math.max(windowEnd, ReferenceAudioProvider.clipEnd(sentences.get(j)));
+                    j++;
+                }
+                try {
+                    float[] window = decoder.decode(media, windowStart, windowEnd - windowStart);
+                    for (int k = i; k < j; k++) {
+                        FollowReadSentence sentence = sentences.get(k);
+                        double clipStart = ReferenceAudioProvider.clipStart(sentence);
+                        int from = (int) Math.round((clipStart - windowStart) * AudioDecoder.SAMPLE_RATE);
+                        int to = (int) Math.min(window.length,
+                            Math.round((ReferenceAudioProvider.clipEnd(sentence) - windowStart) * AudioDecoder.SAMPLE_RATE));
+                        if (to <= from) {
+                            continue;
+                        }
+                        float[] samples = Arrays.copyOfRange(window, from, to);
+                        write(file(sentence), fingerprint(sentence), new CachedReference(
+                            pronunciationScorer.prepare(samples), clipStart, samples.length / (double) AudioDecoder.SAMPLE_RATE));
+                        populated++;
+                    }
+                } catch (IOException e) {
+                    log.warn("批量提取参考特征失败: videoId={}, window={}s, error={}", youtubeVideoId, windowStart, e.getMessage());
+                }
+                i = j;
+            }
+            populatedCount.addAndGet(populated);
+            log.info("参考特征预热完成: videoId={}, 句子数={}, 耗时 {}ms", youtubeVideoId, populated, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 删除视频的全部特征文件：文件由 MediaFileCleaner 在提交后删除，索引条目和占用字节数同时在提交后移除，
+     * 不会因为残留的条目提前淘汰仍在使用的缓存
+     */
+    public void removeVideo(Long youtubeVideoId) {
+        String prefix = ReferenceAudioProvider.cachePrefix(youtubeVideoId);
+        mediaFileCleaner.deleteByPrefixAfterCommit(CACHE_DIR, prefix);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    forgetByPrefix(prefix);
+                }
+            });
+        } else {
+            forgetByPrefix(prefix);
+        }
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (index) {
+            stats.put("entries", index.size());
+        }
+        stats.put("bytes", diskBytes());
+        stats.put("maxBytes", maxDiskSize.toBytes());
+        stats.put("hits", (long) hits.count());
+        stats.put("misses", (long) misses.count());
+        stats.put("populated", populatedCount.get());
+        stats.put("evicted", evictedCount.get());
+        return stats;
+    }
+
+    private long diskBytes() {
+        synchronized (index) {
+            return totalBytes;
+        }
+    }
+
+    private static Path file(FollowReadSentence sentence) {
+        String name = sentence.getYoutubeVideoId() != null
+            ? ReferenceAudioProvider.cachePrefix(sentence.getYoutubeVideoId()) + sentence.getId()
+            : "sentence_" + sentence.getId();
+        return Paths.get(CACHE_DIR, name + EXTENSION);
+    }
+
+    /**
+     * 决定参考音频内容的字段的指纹：句子时间段或标准音频地址变化后缓存失效
+     *
+     * 取 SHA-256 的前 64 位；32 位的 Objects.hash 在几十万个句子时已经可能碰撞，碰撞会读到别的时间段的特征
+     */
+    private static long fingerprint(FollowReadSentence sentence) {
+        String key = FORMAT_VERSION + "|" + sentence.getAudioUrl() + "|" + sentence.getYoutubeVideoId()
+            + "|" + sentence.getStartTime() + "|" + sentence.getEndTime();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean isCached(Path file, long fingerprint) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) > 0) {
+                // 读满头部
+            }
+            return header.position() == HEADER_BYTES && header.getInt(0) == MAGIC
+                && header.getInt(4) == FORMAT_VERSION && header.getLong(8) == fingerprint;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 读取缓存文件，不存在、格式不对或指纹不一致时返回 null
+     *
+     * 文件被外部删除时，索引中残留的条目在这里清掉（删除视频时见 {@link #removeVideo}）。
+     */
+    private CachedReference read(Path file, long fingerprint) {
+        String name = file.getFileName().toString();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                return null;
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            data.order(ByteOrder.LITTLE_ENDIAN);
+            if (data.getInt(0) != MAGIC || data.getInt(4) != FORMAT_VERSION || data.getLong(8) != fingerprint) {
+                return null;
+            }
+            int frames = data.getInt(16);
+            int speechStart = data.getInt(20);
+            float threshold = data.getFloat(24);
+            double clipStart = data.getDouble(28);
+            double duration = data.getDouble(36);
+
+            AcousticFeatures speech = null;
+            if (frames >= 0) {
+                if (size != HEADER_BYTES + (long) frames * (NUM_CEPS + 2) * Float.BYTES) {
+                    return null;
+                }
+                speech = new AcousticFeatures(frames);
+                FloatBuffer floats = data.position(HEADER_BYTES).slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+                floats.get(speech.mfcc).get(speech.logEnergy).get(speech.pitch);
+            }
+            touch(file, name);
+            return new CachedReference(new PronunciationScorer.PreparedReference(speech, speechStart, threshold),
+                clipStart, duration);
+        } catch (NoSuchFileException e) {
+            forget(name);
+            return null;
+        } catch (IOException e) {
+            log.warn("读取参考特征缓存失败: file={}, error={}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(Path file, long fingerprint, CachedReference reference) {
+        PronunciationScorer.PreparedReference prepared = reference.getPrepared();
+        AcousticFeatures speech = prepared.speech;
+        int frames = speech != null ? speech.frames : -1;
+        int size = HEADER_BYTES + Math.max(0, frames) * (NUM_CEPS + 2) * Float.BYTES;
+        ByteBuffer data = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        data.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(fingerprint)
+            .putInt(frames).putInt(prepared.speechStart).putFloat(prepared.threshold)
+            .putDouble(reference.getClipStart()).putDouble(reference.getDuration());
+        data.position(HEADER_BYTES);
+        if (speech != null) {
+            FloatBuffer floats = data.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            floats.put(speech.mfcc).put(speech.logEnergy).put(speech.pitch);
+        }
+        data.position(0);
+
+        // 先写临时文件再改名，并发读取不会读到写了一半的文件
+        Path temp = Paths.get(CACHE_DIR, file.getFileName() + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("写入参考特征缓存失败: file={}, error={}", file, e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // 临时文件留给下次覆盖
+            }
+            return;
+        }
+        synchronized (index) {
+            Long previous = index.put(file.getFileName().toString(), (long) size);
+            totalBytes += size - (previous != null ? previous : 0);
+        }
+        evictOverBudget();
+    }
+
+    /**
+     * 命中时更新使用顺序和文件修改时间（重启后按修改时间恢复 LRU 顺序）
+     */
+    private void touch(Path file, String name) {
+        synchronized (index) {
+            index.get(name);
+        }
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // 只影响重启后的淘汰顺序
+        }
+    }
+
+    private void forget(String name) {
+        synchronized (index) {
+            Long size = index.remove(name);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+    }
+
+    private void forgetByPrefix(String prefix) {
+        synchronized (index) {
+            Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Long> entry = it.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    totalBytes -= entry.getValue();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private void evictOverBudget() {
+        long budget = maxDiskSize.toBytes();
+        List<String> victims = new ArrayList<>();
+        synchronized (index) {
+            Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+            while (totalBytes > budget && it.hasNext()) {
+                Map.Entry<String, Long> eldest = it.next();
+                totalBytes -= eldest.getValue();
+                victims.add(eldest.getKey());
+                it.remove();
+            }
+        }
+        for (String name : victims) {
+            try {
+                Files.deleteIfExists(Paths.get(CACHE_DIR, name));
+                evictedCount.incrementAndGet();
+            } catch (IOException e) {
+                log.warn("淘汰参考特征缓存失败: file={}, error={}", name, e.getMessage());
+            }
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
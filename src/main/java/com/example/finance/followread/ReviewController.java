@@ -0,0 +1,56 @@
+package com.example.finance.followread;
+
+import com.example.finance.CurrentUserResolver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 跟读复习 API：当前用户已到期、该复习的句子
+ */
+@RestController
+@RequestMapping("/api/follow-read/reviews")
+@CrossOrigin(origins = "*")
+public class ReviewController {
+
+    private static final int MAX_LIMIT = 200;
+
+    @Autowired
+    private ReviewScheduler reviewScheduler;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
+    /**
+     * 已到期的句子（最早到期的在前）
+     * GET /api/follow-read/reviews/due?limit=20
+     */
+    @GetMapping("/due")
+    public ResponseEntity<?> getDue(@RequestParam(defaultValue = "20") int limit, Authentication authentication) {
+        try {
+            Long userId = getUserId(authentication);
+            long dueCount = reviewScheduler.countDue(userId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("items", reviewScheduler.findDue(userId, Math.max(1, Math.min(limit, MAX_LIMIT))));
+            response.put("dueCount", dueCount);
+            response.put("total", reviewScheduler.countTracked(userId));
+            if (dueCount == 0) {
+                response.put("nextDueAt", reviewScheduler.nextDueAt(userId));
+            }
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    private Long getUserId(Authentication authentication) {
+        return currentUserResolver.resolveUserId(authentication, 0L);
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.finance.followread;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 跟读句子的间隔复习调度（FSRS，见 {@link FsrsModel}）
+ *
+ * 每次评估完成时按得分给出评级，增量更新该用户对该句子的记忆状态（review_states 表一行）并算出下次复习时间。
+ * "现在该复习什么"直接按 (user_id, due_at) 索引取最早到期的若干行，不扫描跟读任务历史。
+ */
+@Service
+public class ReviewScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewScheduler.class);
+
+    // 评级阈值：总分低于 50 或超过一半的词没读对为 again，低于 70（与单词正确线一致）或超过 1/5 的词没读对为 hard，
+    // 90 分以上且每个词都读对为 easy，其余为 good
+    private static final int AGAIN_BELOW = 50;
+    private static final int HARD_BELOW = 70;
+    private static final int EASY_FROM = 90;
+
+    private static final int SAVE_CHUNK = 500;
+
+    // 目标保持率：下次复习安排在可提取率降到该值时
+    @Value("${review.desired-retention:0.9}")
+    private double desiredRetention = 0.9;
+
+    @Value("${review.maximum-interval-days:365}")
+    private int maximumIntervalDays = 365;
+
+    // 评级为 again 时隔多久重新出现（分钟）
+    @Value("${review.relearn-minutes:10}")
+    private int relearnMinutes = 10;
+
+    @Autowired
+    private ReviewStateRepository stateRepository;
+
+    @Autowired
+    private FollowReadTaskRepository taskRepository;
+
+    @Autowired
+    private FollowReadSentenceRepository sentenceRepository;
+
+    /**
+     * 评估完成后更新记忆状态（在评估线程中调用）
+     */
+    @Transactional
+    public ReviewState recordReview(Long userId, Long sentenceId, PronunciationResult result, LocalDateTime reviewedAt) {
+        int incorrect = 0;
+        for (PronunciationResult.WordScore word : result.getWords()) {
+            if (!word.isCorrect()) {
+                incorrect++;
+            }
+        }
+        int rating = rating(result.getOverallScore(), result.getWords().size(), incorrect);
+        ReviewState state = stateRepository.findById(new ReviewState.Key(userId, sentenceId))
+            .orElseGet(() -> new ReviewState(userId, sentenceId));
+        apply(state, rating, result.getOverallScore(), reviewedAt);
+        return stateRepository.save(state);
+    }
+
+    /**
+     * 已到期的句子（最早到期的在前），附带句子内容
+     */
+    public List<Map<String, Object>> findDue(Long userId, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ReviewState> states = stateRepository.findDue(userId, now, PageRequest.of(0, limit));
+        List<Long> sentenceIds = new ArrayList<>(states.size());
+        for (ReviewState state : states) {
+            sentenceIds.add(state.getSentenceId());
+        }
+        Map<Long, FollowReadSentence> sentences = new HashMap<>();
+        for (FollowReadSentence sentence : sentenceRepository.findAllById(sentenceIds)) {
+            sentences.put(sentence.getId(), sentence);
+        }
+
+        List<Map<String, Object>> items = new ArrayList<>(states.size());
+        for (ReviewState state : states) {
+            FollowReadSentence sentence = sentences.get(state.getSentenceId());
+            if (sentence == null) {
+                continue;
+            }
+            double elapsedDays = state.getLastReviewAt() != null ? days(state.getLastReviewAt(), now) : 0;
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("sentenceId", sentence.getId());
+            item.put("text", sentence.getText());
+            item.put("youtubeVideoId", sentence.getYoutubeVideoId());
+            item.put("startTime", sentence.getStartTime());
+            item.put("endTime", sentence.getEndTime());
+            item.put("dueAt", state.getDueAt());
+            item.put("lastReviewAt", state.getLastReviewAt());
+            item.put("lastScore", state.getLastScore());
+            item.put("reps", state.getReps());
+            item.put("lapses", state.getLapses());
+            item.put("stability", Math.round(state.getStability() * 100) / 100.0);
+            item.put("difficulty", Math.round(state.getDifficulty() * 100) / 100.0);
+            item.put("retrievability", Math.round(FsrsModel.retrievability(elapsedDays, state.getStability()) * 100) / 100.0);
+            items.add(item);
+        }
+        return items;
+    }
+
+    public long countDue(Long userId) {
+        return stateRepository.countByUserIdAndDueAtLessThanEqual(userId, LocalDateTime.now());
+    }
+
+    public long countTracked(Long userId) {
+        return stateRepository.countByUserId(userId);
+    }
+
+    public LocalDateTime nextDueAt(Long userId) {
+        return stateRepository.findNextDueAt(userId);
+    }
+
+    /**
+     * 首次启用时用已完成的跟读任务回放出记忆状态（按完成时间顺序，只用总分评级），之后只做增量更新
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        if (stateRepository.count() > 0) {
+            return;
+        }
+        long started = System.nanoTime();
+        Map<ReviewState.Key, ReviewState> states = new HashMap<>();
+        int reviews = 0;
+        for (Object[] row : taskRepository.findCompletedScores()) {
+            Long userId = (Long) row[0];
+            Long sentenceId = (Long) row[1];
+            int score = (Integer) row[2];
+            ReviewState state = states.computeIfAbsent(new ReviewState.Key(userId, sentenceId),
+                key -> new ReviewState(userId, sentenceId));
+            apply(state, rating(score, 0, 0), score, (LocalDateTime) row[3]);
+            reviews++;
+        }
+        if (states.isEmpty()) {
+            return;
+        }
+        List<ReviewState> chunk = new ArrayList<>(SAVE_CHUNK);
+        for (ReviewState state : states.values()) {
+            chunk.add(state);
+            if (chunk.size() == SAVE_CHUNK) {
+                stateRepository.saveAll(chunk);
+                chunk.clear();
+            }
+        }
+        stateRepository.saveAll(chunk);
+        log.info("已从 {} 次跟读记录生成 {} 个句子的复习计划, 耗时 {} ms",
+            reviews, states.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    static int rating(int overallScore, int words, int incorrect) {
+        if (overallScore < AGAIN_BELOW || incorrect * 2 > words) {
+            return FsrsModel.AGAIN;
+        }
+        if (overallScore < HARD_BELOW || incorrect * 5 > words) {
+            return FsrsModel.HARD;
+        }
+        if (overallScore >= EASY_FROM && incorrect == 0) {
+            return FsrsModel.EASY;
+        }
+        return FsrsModel.GOOD;
+    }
+
+    private void apply(ReviewState state, int rating, int score, LocalDateTime reviewedAt) {
+        double stability;
+        double difficulty;
+        if (state.getReps() == 0 || state.getLastReviewAt() == null) {
+            stability = FsrsModel.initialStability(rating);
+            difficulty = FsrsModel.initialDifficulty(rating);
+        } else {
+            double r = FsrsModel.retrievability(days(state.getLastReviewAt(), reviewedAt), state.getStability());
+            stability = FsrsModel.nextStability(state.getDifficulty(), state.getStability(), r, rating);
+            difficulty = FsrsModel.nextDifficulty(state.getDifficulty(), rating);
+        }
+        stability = Math.min(Math.max(stability, 0.1), maximumIntervalDays);
+
+        state.setStability((float) stability);
+        state.setDifficulty((float) difficulty);
+        state.setReps(state.getReps() + 1);
+        if (rating == FsrsModel.AGAIN) {
+            state.setLapses(state.getLapses() + 1);
+        }
+        state.setLastScore(score);
+        state.setLastReviewAt(reviewedAt);
+        if (rating == FsrsModel.AGAIN) {
+            state.setDueAt(reviewedAt.plusMinutes(relearnMinutes));
+        } else {
+            long intervalDays = Math.round(FsrsModel.interval(stability, desiredRetention));
+            state.setDueAt(reviewedAt.plusDays(Math.min(Math.max(intervalDays, 1), maximumIntervalDays)));
+        }
+    }
+
+    private static double days(LocalDateTime from, LocalDateTime to) {
+        return Duration.between(from, to).toMillis() / 86_400_000.0;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.finance.followread;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 用户对单个句子的记忆状态（复习调度用），每个 (用户, 句子) 一行，见 {@link ReviewScheduler}
+ */
+@Entity
+@Table(name = "review_states")
+@IdClass(ReviewState.Key.class)
+public class ReviewState {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "sentence_id")
+    private Long sentenceId;
+
+    // 稳定性（天）：可提取率降到 90% 所需的时间
+    @Column(name = "stability", nullable = false)
+    private float stability;
+
+    // 难度 1-10
+    @Column(name = "difficulty", nullable = false)
+    private float difficulty;
+
+    // 复习次数 / 遗忘次数（评级为 again）
+    @Column(name = "reps", nullable = false)
+    private int reps;
+
+    @Column(name = "lapses", nullable = false)
+    private int lapses;
+
+    // 最近一次跟读的总分
+    @Column(name = "last_score")
+    private Integer lastScore;
+
+    @Column(name = "last_review_at")
+    private LocalDateTime lastReviewAt;
+
+    // 下次复习时间，与 user_id 组成索引
+    @Column(name = "due_at", nullable = false)
+    private LocalDateTime dueAt;
+
+    public ReviewState() {
+    }
+
+    public ReviewState(Long userId, Long sentenceId) {
+        this.userId = userId;
+        this.sentenceId = sentenceId;
+    }
+
+    public static class Key implements Serializable {
+        private Long userId;
+        private Long sentenceId;
+
+        public Key() {
+        }
+
+        public Key(Long userId, Long sentenceId) {
+            this.userId = userId;
+            this.sentenceId = sentenceId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(userId, key.userId) && Objects.equals(sentenceId, key.sentenceId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, sentenceId);
+        }
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getSentenceId() {
+        return sentenceId;
+    }
+
+    public float getStability() {
+        return stability;
+    }
+
+    public void setStability(float stability) {
+        this.stability = stability;
+    }
+
+    public float getDifficulty() {
+        return difficulty;
+    }
+
+    public void setDifficulty(float difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    public int getReps() {
+        return reps;
+    }
+
+    public void setReps(int reps) {
+        this.reps = reps;
+    }
+
+    public int getLapses() {
+        return lapses;
+    }
+
+    public void setLapses(int lapses) {
+        this.lapses = lapses;
+    }
+
+    public Integer getLastScore() {
+        return lastScore;
+    }
+
+    public void setLastScore(Integer lastScore) {
+        this.lastScore = lastScore;
+    }
+
+    public LocalDateTime getLastReviewAt() {
+        return lastReviewAt;
+    }
+
+    public void setLastReviewAt(LocalDateTime lastReviewAt) {
+        this.lastReviewAt = lastReviewAt;
+    }
+
+    public LocalDateTime getDueAt() {
+        return dueAt;
+    }
+
+    public void setDueAt(LocalDateTime dueAt) {
+        this.dueAt = dueAt;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.finance.followread;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 到期查询都走 (user_id, due_at) 索引的范围扫描，不读取跟读任务
+ */
+@Repository
+public interface ReviewStateRepository extends JpaRepository<ReviewState, ReviewState.Key> {
+
+    /**
+     * 已到期的句子，最早到期的在前
+     */
+    @Query("select r from ReviewState r where r.userId = :userId and r.dueAt <= :now order by r.dueAt")
+    List<ReviewState> findDue(@Param("userId") Long userId, @Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByUserIdAndDueAtLessThanEqual(Long userId, LocalDateTime now);
+
+    long countByUserId(Long userId);
+
+    /**
+     * 最早的下次复习时间（没有到期句子时告诉用户还要等多久）
+     */
+    @Query("select min(r.dueAt) from ReviewState r where r.userId = :userId")
+    LocalDateTime findNextDueAt(@Param("userId") Long userId);
+
+    /**
+     * 批量删除视频下所有句子的记忆状态（删除视频或重新解析时）
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from ReviewState r where r.sentenceId in ("
+        + "select s.id from FollowReadSentence s where s.youtubeVideoId = :videoId)")
+    int deleteAllByYoutubeVideoId(@Param("videoId") Long youtubeVideoId);
+}
@@ -0,0 +1,233 @@
+package com.example.finance.followread;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式句子切分：逐个接收字幕片段，按真实的句子边界生成学习句子
+ *
+ * 字幕片段先由 {@link SentenceTokenizer} 切成带时间的词：自动字幕使用逐词时间戳，
+ * 其他字幕按字符位置在片段时间内插值。逐词判断边界：
+ * - 句末标点（排除缩写）处断句
+ * - 词间停顿超过 maxGap 时断句；整个视频还没出现过句末标点时（无标点的自动字幕），
+ *   停顿超过 {@link #SOFT_PAUSE} 且已有一定长度也断句
+ * - 句子超过长度或时长上限时，优先在最后一个分句标点处断开，其次在最大的停顿处断开
+ * - 整条字幕是声音标注（[Music] 等）时断句并丢弃该字幕
+ *
+ * 每个词只处理常数次（超长切分只重新扫描未输出的部分），整体线性时间。
+ * 句子定稿时移除填充词，并一次性计算长度统计、是否过滤和难度。不修改传入的字幕片段。
+ *
+ * 非线程安全，每次生成创建一个实例。
+ */
+public class SentenceBuilder {
+
+    // 句子长度上限：英文按词数，中日韩按字符数
+    private static final int MAX_SENTENCE_WORDS = 40;
+    private static final int MAX_SENTENCE_CHARS = 80;
+    private static final double MAX_SENTENCE_DURATION = 20;
+
+    // 无标点字幕按停顿断句
+    static final double SOFT_PAUSE = 0.8;
+    private static final int SOFT_PAUSE_MIN_WORDS = 6;
+    private static final int SOFT_PAUSE_MIN_CHARS = 10;
+
+    // 跟读句子的过滤范围
+    private static final int MIN_WORDS = 3;
+    private static final int MAX_WORDS = 80;
+    private static final int MIN_CHARS = 3;
+    private static final int MAX_CHARS = 200;
+    private static final double MIN_DURATION = 0.5;
+    private static final double MAX_DURATION = 40;
+
+    private final SentenceTokenizer tokenizer;
+    private final double maxGap;
+    private final String difficultyPreference;
+    // 只在自动评估难度时使用
+    private final DifficultyModel difficultyModel;
+    private final int maxWeight;
+    private final int softPauseMinWeight;
+
+    private final List<SentenceUnit> units = new ArrayList<>();
+    // 当前句子尚未输出的词
+    private final List<WordTiming> current = new ArrayList<>();
+    private final List<WordTiming> scratch = new ArrayList<>();
+    private final StringBuilder text = new StringBuilder(256);
+    private int currentWeight;
+    private boolean punctuated;
+    private int segmentCount;
+
+    /**
+     * @param maxGap 词间停顿超过该值（秒）时一定断句
+     * @param difficultyPreference 用户选择的难度，"auto" 时按句子内容评估
+     * @param difficultyModel 字幕语言的词频排名，没有时（null）只按长度评估
+     */
+    public SentenceBuilder(SentenceTokenizer tokenizer, double maxGap, String difficultyPreference,
+                           DifficultyModel difficultyModel) {
+        this.tokenizer = tokenizer;
+        this.maxGap = maxGap;
+        this.difficultyPreference = difficultyPreference;
+        this.difficultyModel = "auto".equals(difficultyPreference) ? difficultyModel : null;
+        this.maxWeight = tokenizer.isCharacterBased() ? MAX_SENTENCE_CHARS : MAX_SENTENCE_WORDS;
+        this.softPauseMinWeight = tokenizer.isCharacterBased() ? SOFT_PAUSE_MIN_CHARS : SOFT_PAUSE_MIN_WORDS;
+    }
+
+    /**
+     * 接收下一个字幕片段（按时间顺序）
+     */
+    public void accept(SubtitleSegment segment) {
+        segmentCount++;
+        // [Music]、（笑）之类的声音标注不属于任何句子，同时也是一个句子边界
+        if (isSoundAnnotation(segment.getRawText())) {
+            emit(current.size());
+            return;
+        }
+        scratch.clear();
+        List<WordTiming> words = segment.getWordTimings();
+        if (words != null && !words.isEmpty()) {
+            for (WordTiming word : words) {
+                tokenizer.tokenize(word.getText(), word.getStartTime(), word.getEndTime(), word.isSpaceBefore(), scratch);
+            }
+        } else if (segment.getCleanText() != null) {
+            // 片段之间：英文用空格连接，中日韩直接连接
+            tokenizer.tokenize(segment.getCleanText(), segment.getStartTime(), segment.getEndTime(),
+                !tokenizer.isCharacterBased(), scratch);
+        }
+        for (WordTiming word : scratch) {
+            acceptWord(word);
+        }
+    }
+
+    /**
+     * 结束输入，返回全部候选句子（包含被过滤的句子，见 {@link SentenceUnit#isAccepted()}）
+     */
+    public List<SentenceUnit> finish() {
+        emit(current.size());
+        return units;
+    }
+
+    /**
+     * 已接收的字幕片段数
+     */
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    private void acceptWord(WordTiming word) {
+        if (!current.isEmpty()) {
+            double pause = word.getStartTime() - current.get(current.size() - 1).getEndTime();
+            if (pause > maxGap || (!punctuated && pause >= SOFT_PAUSE && currentWeight >= softPauseMinWeight)) {
+                emit(current.size());
+            }
+        }
+
+        current.add(word);
+        currentWeight += tokenizer.weight(word.getText());
+
+        if (tokenizer.endsSentence(word.getText())) {
+            punctuated = true;
+            emit(current.size());
+            return;
+        }
+        // 还没出现过句末标点时（无标点的自动字幕）只能按停顿和长度断句，上限减半，避免产生过长的句子
+        int limit = punctuated ? maxWeight : maxWeight / 2;
+        double durationLimit = punctuated ? MAX_SENTENCE_DURATION : MAX_SENTENCE_DURATION / 2;
+        if (currentWeight > limit || word.getEndTime() - current.get(0).getStartTime() > durationLimit) {
+            emit(findSplitPoint());
+        }
+    }
+
+    /**
+     * 整个片段是否只是方括号/圆括号包围的声音标注
+     */
+    static boolean isSoundAnnotation(String rawText) {
+        if (rawText == null) return false;
+        String text = rawText.trim();
+        if (text.length() < 3) return false;
+        char open = text.charAt(0);
+        char close = text.charAt(text.length() - 1);
+        return (open == '[' && close == ']') || (open == '(' && close == ')') || (open == '（' && close == '）');
+    }
+
+    /**
+     * 超长句子的断开位置（输出前 k 个词）：后 2/3 中最后一个分句标点之后，
+     * 否则是后 2/3 中停顿最大的位置，都没有时整句输出
+     */
+    private int findSplitPoint() {
+        int n = current.size();
+        int minSplit = Math.max(1, n / 3);
+        for (int k = n - 1; k >= minSplit; k--) {
+            if (tokenizer.endsClause(current.get(k - 1).getText())) {
+                return k;
+            }
+        }
+        int best = n;
+        double bestPause = 0;
+        for (int k = minSplit; k < n; k++) {
+            double pause = current.get(k).getStartTime() - current.get(k - 1).getEndTime();
+            if (pause > bestPause) {
+                bestPause = pause;
+                best = k;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 把当前句子的前 count 个词输出为一个句子，剩余的词留在当前句子
+     */
+    private void emit(int count) {
+        if (count <= 0) {
+            return;
+        }
+        text.setLength(0);
+        for (int k = 0; k < count; k++) {
+            WordTiming word = current.get(k);
+            if (k > 0 && word.isSpaceBefore()) {
+                text.append(' ');
+            }
+            text.append(word.getText());
+        }
+        double startTime = current.get(0).getStartTime();
+        double endTime = current.get(count - 1).getEndTime();
+
+        current.subList(0, count).clear();
+        currentWeight = 0;
+        for (WordTiming word : current) {
+            currentWeight += tokenizer.weight(word.getText());
+        }
+
+        String sentence = text.toString().trim();
+        if (sentence.isEmpty()) {
+            return;
+        }
+        sentence = tokenizer.removeFillerWords(sentence);
+        if (sentence.isEmpty()) {
+            return;
+        }
+
+        SentenceUnit unit = new SentenceUnit();
+        unit.text = sentence;
+        unit.startTime = startTime;
+        unit.endTime = endTime;
+        tokenizer.measure(unit, difficultyModel);
+        unit.accepted = isSuitable(unit, tokenizer.isCharacterBased());
+        unit.difficulty = "auto".equals(difficultyPreference)
+            ? DifficultyModel.evaluate(unit, tokenizer.isCharacterBased())
+            : difficultyPreference;
+        units.add(unit);
+    }
+
+    /**
+     * 过滤太短或太长的句子：中文/日文基于字符数，英文等基于单词数
+     */
+    static boolean isSuitable(SentenceUnit unit, boolean characterBased) {
+        double duration = unit.getDuration();
+        if (duration < MIN_DURATION || duration > MAX_DURATION) {
+            return false;
+        }
+        if (characterBased) {
+            return unit.charCount >= MIN_CHARS && unit.charCount <= MAX_CHARS;
+        }
+        return unit.wordCount >= MIN_WORDS && unit.wordCount <= MAX_WORDS;
+    }
+}
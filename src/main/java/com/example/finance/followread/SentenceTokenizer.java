@@ -0,0 +1,106 @@
+package com.example.finance.followread;
+
+import java.util.List;
+
+/**
+ * 句子分词策略（按语言可插拔）
+ *
+ * SentenceBuilder 只依赖这个接口：把字幕文本切成带时间的词，用 {@link #endsSentence} /
+ * {@link #endsClause} 判断句子和分句边界，句子定稿时移除填充词并一次性统计长度信息，
+ * 过滤和难度评估都基于这份统计。
+ */
+public interface SentenceTokenizer {
+
+    /**
+     * 把一段文本切成词追加到 out，词的时间按字符位置在 [start, end] 内线性插值
+     *
+     * @param spaceBefore 第一个词与前文之间是否有空格
+     */
+    void tokenize(String text, double start, double end, boolean spaceBefore, List<WordTiming> out);
+
+    /**
+     * 词是否以句末标点结束（已排除缩写等例外）
+     */
+    boolean endsSentence(String word);
+
+    /**
+     * 词是否以分句标点结束（逗号、分号等），句子过长时优先在这里断开
+     */
+    boolean endsClause(String word);
+
+    /**
+     * 词在句子长度上限中的权重：英文每词 1，中日韩按字符数
+     */
+    int weight(String word);
+
+    /**
+     * 移除填充词并去掉首尾空白
+     */
+    String removeFillerWords(String text);
+
+    /**
+     * 一次遍历统计句子的词数、字符数、CJK 字符数，以及各词/字在 model 中的生僻度，写入 unit
+     *
+     * @param model 词频排名，为 null 时（没有该语言的排名表）只统计长度
+     */
+    void measure(SentenceUnit unit, DifficultyModel model);
+
+    /**
+     * 是否按字符计算句子长度（中日韩语言）
+     */
+    boolean isCharacterBased();
+
+    /**
+     * 按字幕语言选择分词策略
+     */
+    static SentenceTokenizer forLanguage(String language) {
+        return SubtitleLanguage.isCjk(language)
+            ? CjkSentenceTokenizer.forLanguage(language)
+            : WhitespaceSentenceTokenizer.ENGLISH;
+    }
+
+    /**
+     * 按 [from, to) 在文本中的字符位置插值计算时间，生成一个词
+     */
+    static WordTiming interpolate(String text, int from, int to, double start, double end, boolean spaceBefore) {
+        int len = Math.max(text.length(), 1);
+        double duration = Math.max(end - start, 0);
+        return new WordTiming(text.substring(from, to),
+            start + duration * from / len, start + duration * to / len, spaceBefore);
+    }
+
+    /**
+     * 去掉词尾的右引号、右括号，返回剩余部分的结束位置（用于判断句末标点）
+     */
+    static int stripClosing(String word) {
+        int end = word.length();
+        while (end > 0 && "\"')]}»”’」』）】》".indexOf(word.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * 统计空白分隔的词数，与 {@code text.trim().split("\\s+").length} 一致（空文本为 0）
+     */
+    static int countWhitespaceTokens(CharSequence text) {
+        int count = 0;
+        boolean inToken = false;
+        for (int i = 0, len = text.length(); i < len; i++) {
+            if (isWhitespace(text.charAt(i))) {
+                inToken = false;
+            } else if (!inToken) {
+                inToken = true;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 与正则 \s 相同的空白字符集合
+     */
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.finance.followread;
+
+/**
+ * 句子单元：切分后的一句学习文本及其在视频中的时间范围
+ *
+ * 长度统计、过滤结果和难度在 SentenceBuilder 定稿时一次性计算，后续直接读取。
+ */
+public class SentenceUnit {
+    String text;
+    double startTime;
+    double endTime;
+
+    // 分词统计（SentenceTokenizer.measure 填充）
+    int wordCount;
+    int charCount;
+    int cjkCharCount;
+    // 参与难度评估的词/字数及其生僻度之和（见 DifficultyModel）
+    int rankedCount;
+    double rarity;
+
+    // 是否适合跟读（长度和时长都在范围内）
+    boolean accepted;
+    String difficulty;
+
+    public String getText() {
+        return text;
+    }
+
+    public double getStartTime() {
+        return startTime;
+    }
+
+    public double getEndTime() {
+        return endTime;
+    }
+
+    public double getDuration() {
+        return endTime - startTime;
+    }
+
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    public int getRankedCount() {
+        return rankedCount;
+    }
+
+    public double getRarity() {
+        return rarity;
+    }
+
+    public int getCharCount() {
+        return charCount;
+    }
+
+    public int getCjkCharCount() {
+        return cjkCharCount;
+    }
+
+    public boolean isAccepted() {
+        return accepted;
+    }
+
+    public String getDifficulty() {
+        return difficulty;
+    }
+}
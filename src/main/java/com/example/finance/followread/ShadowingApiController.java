@@ -1,14 +1,23 @@
 package com.example.finance.followread;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Shadowing API Controller - 专为 Chrome 插件设计的轻量级 API
@@ -21,6 +30,8 @@ public class ShadowingApiController {
 
     private static final Logger log = LoggerFactory.getLogger(ShadowingApiController.class);
 
+    private static final int RECENT_EVALUATIONS = 256;
+
     @Autowired
     private YoutubeVideoService videoService;
 
@@ -30,6 +41,24 @@ public class ShadowingApiController {
     @Autowired
     private FollowReadSentenceRepository sentenceRepository;
 
+    @Autowired
+    private EvaluationScheduler evaluationScheduler;
+
+    @Autowired
+    private RecordingUploadStore uploadStore;
+
+    // 最近的评估结果（录音内容哈希 + 句子 → 结果），插件重试/重复提交同一段录音时直接返回，不重新评分
+    private final Map<String, Map<String, Object>> recentEvaluations = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+            return size() > RECENT_EVALUATIONS;
+        }
+    };
+
+    // 评估排队 + 计算的最长等待时间
+    @Value("${evaluation.request-timeout-ms:30000}")
+    private long evaluationTimeoutMs;
+
     /**
      * 解析视频字幕（Chrome 插件专用）
      * POST /api/youtube/parse
@@ -268,31 +297,85 @@ public class ShadowingApiController {
 
     /**
      * 评估录音（Chrome Extension 专用，无需认证）
-     * POST /api/youtube/evaluate-recording
+     * POST /api/youtube/evaluate-recording（multipart，字段名 audio）
      */
-    @PostMapping("/evaluate-recording")
+    @PostMapping(value = "/evaluate-recording", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> evaluateRecording(
             @RequestParam("audio") MultipartFile audioFile,
             @RequestParam(value = "sentenceId", required = false) Long sentenceId,
             @RequestParam(value = "sentenceText", required = false) String sentenceText) {
-        try {
-            log.info("📥 收到录音评估请求: sentenceId={}, audioSize={} bytes", 
-                sentenceId, audioFile != null ? audioFile.getSize() : 0);
+        log.info("📥 收到录音评估请求: sentenceId={}, audioSize={} bytes", 
+            sentenceId, audioFile != null ? audioFile.getSize() : 0);
 
-            if (audioFile == null || audioFile.isEmpty()) {
-                return ResponseEntity.badRequest()
-                    .body(Map.of("error", "音频文件不能为空"));
-            }
+        if (audioFile == null || audioFile.isEmpty()) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "音频文件不能为空"));
+        }
+        try (InputStream audio = audioFile.getInputStream()) {
+            return evaluate(audio, audioFile.getSize(), sentenceId, sentenceText);
+        } catch (IOException e) {
+            log.error("❌ 录音评估失败", e);
+            return ResponseEntity.status(500)
+                .body(Map.of("error", "评估失败: " + e.getMessage()));
+        }
+    }
 
-            // 模拟评估过程（延迟模拟真实评估）
-            Thread.sleep(1000);
+    /**
+     * 评估录音（请求体就是音频内容，可以 chunked 传输）
+     * POST /api/youtube/evaluate-recording?sentenceId=...
+     * Content-Type: application/octet-stream 或 audio/*
+     */
+    @PostMapping(value = "/evaluate-recording", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "audio/*"})
+    public ResponseEntity<?> evaluateRecordingStream(
+            HttpServletRequest request,
+            @RequestParam(value = "sentenceId", required = false) Long sentenceId,
+            @RequestParam(value = "sentenceText", required = false) String sentenceText) {
+        log.info("📥 收到录音评估请求(流式): sentenceId={}, contentLength={}", sentenceId, request.getContentLengthLong());
+        try (InputStream audio = request.getInputStream()) {
+            return evaluate(audio, request.getContentLengthLong(), sentenceId, sentenceText);
+        } catch (IOException e) {
+            log.error("❌ 录音评估失败", e);
+            return ResponseEntity.status(500)
+                .body(Map.of("error", "评估失败: " + e.getMessage()));
+        }
+    }
 
-            // 生成模拟评分
-            Random random = new Random();
-            int pronunciationScore = 70 + random.nextInt(25); // 70-95
-            int fluencyScore = 65 + random.nextInt(30); // 65-95
-            int intonationScore = 68 + random.nextInt(27); // 68-95
-            int overallScore = (pronunciationScore + fluencyScore + intonationScore) / 3;
+    private ResponseEntity<?> evaluate(InputStream audio, long declaredLength, Long sentenceId, String sentenceText) {
+        RecordingUploadStore.StoredRecording received = null;
+        CompletableFuture<PronunciationResult> pendingEvaluation = null;
+        try {
+            if (sentenceId == null) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("error", "sentenceId 不能为空"));
+            }
+            Optional<FollowReadSentence> sentenceOpt = sentenceRepository.findById(sentenceId);
+            if (!sentenceOpt.isPresent()) {
+                return ResponseEntity.status(404)
+                    .body(Map.of("error", "句子不存在: " + sentenceId));
+            }
+            FollowReadSentence sentence = sentenceOpt.get();
+            String text = sentenceText != null && !sentenceText.trim().isEmpty() ? sentenceText : sentence.getText();
+
+            // 先占评估名额，队列已满时不读取录音直接返回 429
+            String cacheKey;
+            PronunciationResult evaluation;
+            try (EvaluationScheduler.Slot slot = evaluationScheduler.reserve()) {
+                // 录音流式写入临时文件，评估只通过文件读取
+                received = uploadStore.receive(audio, declaredLength);
+                cacheKey = received.getSha256() + ":" + sentenceId + ":" + text;
+                Map<String, Object> cached = getRecentEvaluation(cacheKey);
+                if (cached != null) {
+                    log.info("重复提交的录音，返回上次评估结果: sentenceId={}", sentenceId);
+                    return ResponseEntity.ok(cached);
+                }
+                // 同一句子的并发请求在评估队列中共用一次参考音频加载和特征提取
+                pendingEvaluation = slot.submit(sentenceId, text, received.getFile(), null);
+                evaluation = pendingEvaluation.get(evaluationTimeoutMs, TimeUnit.MILLISECONDS);
+            }
+            int pronunciationScore = evaluation.getPronunciationScore();
+            int fluencyScore = evaluation.getFluencyScore();
+            int intonationScore = evaluation.getIntonationScore();
+            int overallScore = evaluation.getOverallScore();
 
             // 生成优化建议
             List<String> suggestions = new ArrayList<>();
@@ -311,18 +394,12 @@ public class ShadowingApiController {
                 suggestions.add("语调自然流畅，非常好");
             }
 
-            // 如果有句子文本，可以生成单词级别的建议
-            if (sentenceText != null && !sentenceText.trim().isEmpty()) {
-                String[] words = sentenceText.split("\\s+");
-                if (words.length > 0 && overallScore < 80) {
-                    // 随机选择一个可能需要改进的单词
-                    int wordIndex = random.nextInt(Math.min(words.length, 5));
-                    String word = words[wordIndex].replaceAll("[^a-zA-Z]", "");
-                    if (!word.isEmpty()) {
-                        suggestions.add(String.format("注意单词 '%s' 的发音", word));
-                    }
-                }
-            }
+            // 得分最低的几个不合格单词
+            evaluation.getWords().stream()
+                .filter(word -> !word.isCorrect())
+                .sorted(Comparator.comparingInt(PronunciationResult.WordScore::getScore))
+                .limit(3)
+                .forEach(word -> suggestions.add(String.format("注意单词 '%s' 的发音", word.getWord())));
 
             Map<String, Object> result = new HashMap<>();
             result.put("overallScore", overallScore);
@@ -330,16 +407,60 @@ public class ShadowingApiController {
             result.put("fluencyScore", fluencyScore);
             result.put("intonationScore", intonationScore);
             result.put("suggestions", suggestions);
+            result.put("words", evaluation.getWords());
             result.put("message", "评估完成");
 
             log.info("✅ 录音评估完成: overallScore={}", overallScore);
+            putRecentEvaluation(cacheKey, result);
 
             return ResponseEntity.ok(result);
 
+        } catch (RecordingRejectedException e) {
+            return ResponseEntity.status(e.getStatus())
+                .body(Map.of("error", e.getMessage()));
+        } catch (EvaluationQueueFullException e) {
+            return ResponseEntity.status(429)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RecordingRejectedException rejected) {
+                return ResponseEntity.status(rejected.getStatus())
+                    .body(Map.of("error", rejected.getMessage()));
+            }
+            log.error("❌ 录音评估失败", e.getCause());
+            return ResponseEntity.status(500)
+                .body(Map.of("error", "评估失败: " + e.getCause().getMessage()));
+        } catch (TimeoutException e) {
+            log.warn("录音评估超时: sentenceId={}", sentenceId);
+            return ResponseEntity.status(503)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "评估超时，请稍后重试"));
         } catch (Exception e) {
             log.error("❌ 录音评估失败", e);
             return ResponseEntity.status(500)
                 .body(Map.of("error", "评估失败: " + e.getMessage()));
+        } finally {
+            if (received != null) {
+                // 等待超时时录音还在评估队列中，评估结束后再删除
+                RecordingUploadStore.StoredRecording recording = received;
+                if (pendingEvaluation != null) {
+                    pendingEvaluation.whenComplete((result, error) -> uploadStore.discard(recording));
+                } else {
+                    uploadStore.discard(recording);
+                }
+            }
+        }
+    }
+
+    private Map<String, Object> getRecentEvaluation(String key) {
+        synchronized (recentEvaluations) {
+            return recentEvaluations.get(key);
+        }
+    }
+
+    private void putRecentEvaluation(String key, Map<String, Object> result) {
+        synchronized (recentEvaluations) {
+            recentEvaluations.put(key, result);
         }
     }
 
@@ -0,0 +1,520 @@
+package com.example.finance.followread;
+
+import com.example.finance.persistence.SingleWriterQueue;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 媒体文件生命周期管理
+ *
+ * 下载文件、字幕文件、用户录音和 /tmp 下的 cookies 文件各自有磁盘预算，文件的大小、最近访问时间和访问次数
+ * 记在 stored_files 表（写入时登记，读取时经写队列合并更新），已用空间和淘汰顺序都查索引，不遍历目录。
+ * 后台线程定期检查：超出预算的区域按 LRU（最久未访问）或 LFU（访问最少）淘汰到预算的 90%，未被引用的下载文件优先；
+ * cookies 文件超过保留时间未使用即删除。正在使用的文件不淘汰：显式 {@link #pin} 的文件、
+ * 未完成跟读任务的录音、正在下载的临时目录。被淘汰的下载文件对应的任务标记为 EXPIRED，需要重新下载。
+ * 每次最多淘汰 max-evictions-per-run 个文件，剩下的留到下一轮，不长时间占用数据库。
+ * 升级前已有的文件在启动时登记：索引中还没有某个区域的记录时遍历一次该目录。
+ */
+@Component
+public class StorageLifecycleManager {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageLifecycleManager.class);
+
+    // 超出预算时淘汰到预算的这个比例，避免每轮都只淘汰一两个文件
+    private static final double LOW_WATERMARK = 0.9;
+    private static final long INITIAL_DELAY_SECONDS = 30;
+    private static final int BOOTSTRAP_BATCH = 500;
+    private static final List<String> ACTIVE_FOLLOW_READ_STATUSES = List.of("pending", "processing", "evaluating");
+    // 工作目录（uploads/、downloads/ 等相对路径的基准）
+    private static final Path WORK_DIR = Paths.get("").toAbsolutePath().normalize();
+
+    /**
+     * 受管理的区域：目录和（cookies 的）文件名前缀
+     */
+    public enum Area {
+        DOWNLOADS("downloads", DownloadEngine.DOWNLOAD_DIR, ""),
+        SUBTITLES("subtitles", "uploads/subtitles/", ""),
+        RECORDINGS("recordings", RecordingUploadStore.RECORDING_DIR, ""),
+        COOKIES("cookies", "/tmp/", "youtube_cookies_");
+
+        private final String key;
+        private final String directory;
+        private final String prefix;
+
+        Area(String key, String directory, String prefix) {
+            this.key = key;
+            this.directory = directory;
+            this.prefix = prefix;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    // 检查间隔（秒），0 表示不做后台清理
+    @Value("${storage.lifecycle.interval-seconds:300}")
+    private long intervalSeconds = 300;
+
+    // 每轮最多淘汰的文件数
+    @Value("${storage.lifecycle.max-evictions-per-run:200}")
+    private int maxEvictionsPerRun = 200;
+
+    // 各区域的磁盘预算（0 表示不限）和淘汰策略（lru / lfu）
+    @Value("${storage.downloads.max-size:20GB}")
+    private DataSize downloadsMaxSize = DataSize.ofGigabytes(20);
+
+    @Value("${storage.downloads.policy:lru}")
+    private String downloadsPolicy = "lru";
+
+    @Value("${storage.subtitles.max-size:1GB}")
+    private DataSize subtitlesMaxSize = DataSize.ofGigabytes(1);
+
+    @Value("${storage.subtitles.policy:lru}")
+    private String subtitlesPolicy = "lru";
+
+    @Value("${storage.recordings.max-size:5GB}")
+    private DataSize recordingsMaxSize = DataSize.ofGigabytes(5);
+
+    @Value("${storage.recordings.policy:lru}")
+    private String recordingsPolicy = "lru";
+
+    // cookies 文件超过这个分钟数未使用即删除
+    @Value("${storage.cookies.max-age-minutes:60}")
+    private long cookiesMaxAgeMinutes = 60;
+
+    // 取消或失败的下载留下的临时目录保留小时数
+    @Value("${storage.downloads.temp-max-age-hours:24}")
+    private long downloadTempMaxAgeHours = 24;
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Autowired
+    private VideoDownloadTaskRepository downloadTaskRepository;
+
+    @Autowired
+    private FollowReadTaskRepository followReadTaskRepository;
+
+    @Autowired
+    private SingleWriterQueue writeQueue;
+
+    // 正在读取的文件 → 使用数
+    private final Map<String, Integer> pins = new ConcurrentHashMap<>();
+
+    // 已确认登记过已有文件的区域
+    private final Set<Area> bootstrapped = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "storage-lifecycle");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // 启动后先登记已有文件，之后新写入的文件都经 register 登记
+        executor.execute(() -> {
+            try {
+                relativizeLegacyPaths();
+                for (Area area : Area.values()) {
+                    bootstrap(area);
+                }
+            } catch (Exception e) {
+                log.error("登记已有文件失败", e);
+            }
+        });
+        if (intervalSeconds > 0) {
+            executor.scheduleWithFixedDelay(this::runQuietly,
+                Math.min(INITIAL_DELAY_SECONDS, intervalSeconds), intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 登记新写入（或被覆盖）的文件，访问时间记为现在
+     */
+    public void register(Area area, String file) {
+        String path = normalize(file);
+        long size;
+        try {
+            size = Files.size(Paths.get(path));
+        } catch (IOException e) {
+            log.warn("登记文件失败: file={}, error={}", path, e.getMessage());
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        writeQueue.submit("stored-file:" + path, () -> {
+            StoredFile stored = storedFileRepository.findByPath(path).orElseGet(StoredFile::new);
+            stored.setPath(path);
+            stored.setArea(area.getKey());
+            stored.setSizeBytes(size);
+            stored.setLastAccessedAt(now);
+            stored.setAccessCount(stored.getAccessCount() + 1);
+            storedFileRepository.save(stored);
+        });
+    }
+
+    /**
+     * 记录一次读取（同一文件未落库的访问合并为一次更新）
+     */
+    public void touch(String file) {
+        String path = normalize(file);
+        LocalDateTime now = LocalDateTime.now();
+        writeQueue.submit("stored-file-touch:" + path, () -> storedFileRepository.touch(path, now));
+    }
+
+    /**
+     * 读取期间不淘汰该文件，用完 close
+     */
+    public Pin pin(String file) {
+        String path = normalize(file);
+        pins.merge(path, 1, Integer::sum);
+        touch(path);
+        return new Pin(path);
+    }
+
+    /**
+     * 文件被业务代码删除（如删除视频、换下的录音），从索引中移除
+     *
+     * 与 register 使用同一个写队列 key：刚登记还未落库的文件不会在删除后又被登记回来
+     */
+    public void forget(Collection<String> files) {
+        for (String file : files) {
+            String path = normalize(file);
+            writeQueue.submit("stored-file:" + path, () -> storedFileRepository.deleteByPath(path));
+        }
+    }
+
+    /**
+     * 目录下以 prefix 开头的文件被删除，从索引中移除
+     */
+    public void forgetByPrefix(String directory, String prefix) {
+        String from = normalize(directory + prefix);
+        String pattern = from.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        storedFileRepository.deleteByPathPrefix(from, from + Character.MAX_VALUE, pattern);
+    }
+
+    /**
+     * 各区域的已用空间、文件数和预算
+     */
+    public List<Map<String, Object>> usage() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Area area : Area.values()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("area", area.getKey());
+            item.put("usedBytes", storedFileRepository.sumSizeByArea(area.getKey()));
+            item.put("files", storedFileRepository.countByArea(area.getKey()));
+            item.put("maxBytes", maxSize(area));
+            item.put("policy", policy(area));
+            result.add(item);
+        }
+        return result;
+    }
+
+    private void runQuietly() {
+        try {
+            runOnce();
+        } catch (Exception e) {
+            log.error("存储清理失败", e);
+        }
+    }
+
+    /**
+     * 一轮检查：按预算淘汰、清理过期的 cookies 和下载临时目录
+     */
+    public void runOnce() {
+        int budget = maxEvictionsPerRun;
+        for (Area area : Area.values()) {
+            if (budget <= 0) {
+                break;
+            }
+            budget -= evictOverBudget(area, budget);
+        }
+        if (budget > 0 && cookiesMaxAgeMinutes > 0) {
+            budget -= expire(Area.COOKIES, LocalDateTime.now().minusMinutes(cookiesMaxAgeMinutes), budget);
+        }
+        int tempDirs = mediaStore.sweepTempDirs(TimeUnit.HOURS.toMillis(downloadTempMaxAgeHours));
+        if (tempDirs > 0) {
+            log.info("已清理下载临时目录: {} 个", tempDirs);
+        }
+    }
+
+    /**
+     * 区域超出预算时按策略淘汰到低水位，返回淘汰的文件数
+     */
+    private int evictOverBudget(Area area, int limit) {
+        long maxBytes = maxSize(area);
+        if (maxBytes <= 0) {
+            return 0;
+        }
+        long used = storedFileRepository.sumSizeByArea(area.getKey());
+        if (used <= maxBytes) {
+            return 0;
+        }
+        long target = (long) (maxBytes * LOW_WATERMARK);
+        Sort order = "lfu".equalsIgnoreCase(policy(area))
+            ? Sort.by("refCount", "accessCount", "lastAccessedAt")
+            : Sort.by("refCount", "lastAccessedAt");
+        int evicted = 0;
+        long freed = 0;
+        for (StoredFile file : storedFileRepository.findByArea(area.getKey(), PageRequest.of(0, limit, order))) {
+            if (used - freed <= target) {
+                break;
+            }
+            if (evict(area, file)) {
+                freed += file.getSizeBytes();
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.info("存储超出预算，已淘汰: area={}, files={}, freed={}, used={}/{}",
+                area.getKey(), evicted, freed, used - freed, maxBytes);
+        }
+        if (used - freed > maxBytes) {
+            log.warn("存储仍超出预算（剩余文件正在使用或本轮淘汰数已达上限）: area={}, used={}/{}", area.getKey(), used - freed, maxBytes);
+        }
+        return evicted;
+    }
+
+    /**
+     * 删除 cutoff 之前最后访问的文件，返回删除的文件数
+     */
+    private int expire(Area area, LocalDateTime cutoff, int limit) {
+        int expired = 0;
+        for (StoredFile file : storedFileRepository.findByAreaAndLastAccessedAtBeforeOrderByLastAccessedAt(
+                area.getKey(), cutoff, PageRequest.of(0, limit))) {
+            if (evict(area, file)) {
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            log.info("已删除过期文件: area={}, files={}", area.getKey(), expired);
+        }
+        return expired;
+    }
+
+    /**
+     * 淘汰一个文件：删除文件和索引，被淘汰的下载文件对应的任务标记为 EXPIRED；正在使用时跳过
+     */
+    private boolean evict(Area area, StoredFile file) {
+        if (isPinned(area, file)) {
+            return false;
+        }
+        if (file.getContentKey() == null) {
+            delete(area, file);
+            return true;
+        }
+        // 存储中的下载文件：拿不到锁说明有任务正在复用它，本轮跳过
+        try (MediaStore.Lease lease = mediaStore.lease(file.getContentKey())) {
+            if (!lease.tryLock(0, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+            delete(area, file);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void delete(Area area, StoredFile file) {
+        try {
+            Files.deleteIfExists(Paths.get(file.getPath()));
+        } catch (IOException e) {
+            log.warn("删除文件失败: file={}, error={}", file.getPath(), e.getMessage());
+            return;
+        }
+        storedFileRepository.deleteByPath(file.getPath());
+        if (area == Area.DOWNLOADS) {
+            int expired = downloadTaskRepository.expireByOutputFile(file.getPath(), "文件已被清理，请重新下载");
+            if (expired > 0) {
+                log.info("下载文件已被淘汰，{} 个任务标记为 EXPIRED: {}", expired, file.getPath());
+            }
+        }
+        log.debug("已淘汰文件: area={}, file={}", area.getKey(), file.getPath());
+    }
+
+    private boolean isPinned(Area area, StoredFile file) {
+        if (pins.containsKey(file.getPath())) {
+            return true;
+        }
+        // 录音在跟读任务评估完成前还要读取
+        return area == Area.RECORDINGS
+            && followReadTaskRepository.existsByAudioUrlAndStatusIn("/" + file.getPath(), ACTIVE_FOLLOW_READ_STATUSES);
+    }
+
+    /**
+     * 区域在索引中还没有记录时，遍历一次目录登记已有文件（访问时间取文件修改时间）
+     */
+    private void bootstrap(Area area) {
+        if (bootstrapped.contains(area)) {
+            return;
+        }
+        if (storedFileRepository.countByArea(area.getKey()) == 0) {
+            Path dir = Paths.get(area.directory);
+            List<StoredFile> batch = new ArrayList<>();
+            int registered = 0;
+            if (Files.isDirectory(dir)) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, area.prefix + "*")) {
+                    for (Path path : stream) {
+                        // 跳过隐藏文件（.cookies.txt、.incoming/、.tmp/ 等）和子目录（下载存储的文件建立时已登记）
+                        if (!Files.isRegularFile(path) || path.getFileName().toString().startsWith(".")
+                                || path.getFileName().toString().endsWith(".part")) {
+                            continue;
+                        }
+                        if (storedFileRepository.findByPath(path.toString()).isPresent()) {
+                            continue;
+                        }
+                        batch.add(existingFile(area, path));
+                        if (batch.size() == BOOTSTRAP_BATCH) {
+                            storedFileRepository.saveAll(batch);
+                            registered += batch.size();
+                            batch.clear();
+                        }
+                    }
+                } catch (IOException e) {
+                    log.warn("登记已有文件失败: area={}, error={}", area.getKey(), e.getMessage());
+                    return;
+                }
+            }
+            storedFileRepository.saveAll(batch);
+            registered += batch.size();
+            if (registered > 0) {
+                log.info("已登记已有文件: area={}, files={}", area.getKey(), registered);
+            }
+        }
+        bootstrapped.add(area);
+    }
+
+    /**
+     * 早期版本按绝对路径登记过字幕文件，与启动时登记的相对路径重复计数，视频删除时也按相对路径前缀删不掉：
+     * 相对路径已登记的删掉绝对路径这一行，否则改成相对路径
+     */
+    private void relativizeLegacyPaths() {
+        String from = WORK_DIR.toString() + File.separator;
+        List<StoredFile> legacy = storedFileRepository.findByPathRange(from, from + Character.MAX_VALUE);
+        int fixed = 0;
+        for (StoredFile file : legacy) {
+            String path = normalize(file.getPath());
+            if (path.equals(file.getPath())) {
+                continue;
+            }
+            if (storedFileRepository.findByPath(path).isPresent()) {
+                storedFileRepository.deleteByPath(file.getPath());
+            } else {
+                file.setPath(path);
+                storedFileRepository.save(file);
+            }
+            fixed++;
+        }
+        if (fixed > 0) {
+            log.info("已将 {} 个按绝对路径登记的文件改为相对路径", fixed);
+        }
+    }
+
+    private StoredFile existingFile(Area area, Path path) throws IOException {
+        StoredFile file = new StoredFile();
+        file.setPath(path.toString());
+        file.setArea(area.getKey());
+        file.setSizeBytes(Files.size(path));
+        file.setLastAccessedAt(LocalDateTime.ofInstant(
+            Instant.ofEpochMilli(Files.getLastModifiedTime(path).toMillis()), ZoneId.systemDefault()));
+        return file;
+    }
+
+    private long maxSize(Area area) {
+        switch (area) {
+            case DOWNLOADS:
+                return downloadsMaxSize.toBytes();
+            case SUBTITLES:
+                return subtitlesMaxSize.toBytes();
+            case RECORDINGS:
+                return recordingsMaxSize.toBytes();
+            default:
+                return 0;
+        }
+    }
+
+    private String policy(Area area) {
+        switch (area) {
+            case DOWNLOADS:
+                return downloadsPolicy;
+            case SUBTITLES:
+                return subtitlesPolicy;
+            case RECORDINGS:
+                return recordingsPolicy;
+            default:
+                return "lru";
+        }
+    }
+
+    /**
+     * 统一路径写法，同一文件只登记一行："/uploads/..." 形式的 URL 路径和工作目录下的绝对路径
+     * 都转成相对工作目录的路径（与启动时登记、按前缀删除使用的写法一致），工作目录外的路径（如临时目录）保持绝对路径
+     */
+    private static String normalize(String file) {
+        if (file.startsWith("/uploads/")) {
+            file = file.substring(1);
+        }
+        Path path = Paths.get(file).normalize();
+        if (path.isAbsolute() && path.startsWith(WORK_DIR)) {
+            path = WORK_DIR.relativize(path);
+        }
+        return path.toString();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 文件的使用登记，close 时解除
+     */
+    public final class Pin implements AutoCloseable {
+
+        private final String path;
+
+        private Pin(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public void close() {
+            pins.computeIfPresent(path, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+}
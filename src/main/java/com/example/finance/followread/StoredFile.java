@@ -0,0 +1,160 @@
+package com.example.finance.followread;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 受管理的媒体文件索引：每个文件一行，记录所在区域、大小和访问情况，
+ * {@link StorageLifecycleManager} 据此按区域预算淘汰文件，不需要遍历目录。
+ * 下载存储（{@link MediaStore}）中的文件另有内容键和引用计数。
+ */
+@Entity
+@Table(name = "stored_files")
+public class StoredFile {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stored_files_seq")
+    @SequenceGenerator(name = "stored_files_seq", sequenceName = "stored_files_seq", allocationSize = 50)
+    private Long id;
+
+    // 工作目录下的相对路径（如 downloads/store/ab/ab12....mp4），临时目录的文件为绝对路径
+    @Column(name = "path", nullable = false, length = 500)
+    private String path;
+
+    // 所在区域，见 StorageLifecycleManager.Area
+    @Column(name = "area", nullable = false, length = 20)
+    private String area;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    // 下载存储的内容键：SHA-256(平台, 视频 ID, 格式选择)，其他区域的文件为空
+    @Column(name = "content_key", length = 64)
+    private String contentKey;
+
+    @Column(name = "platform", length = 20)
+    private String platform;
+
+    @Column(name = "video_id", length = 100)
+    private String videoId;
+
+    @Column(name = "format_key", length = 300)
+    private String formatKey;
+
+    // 引用该文件的下载成功任务数，为 0 时文件作为缓存保留，优先被淘汰
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "access_count", nullable = false)
+    private long accessCount;
+
+    @Column(name = "last_accessed_at", nullable = false)
+    private LocalDateTime lastAccessedAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (lastAccessedAt == null) {
+            lastAccessedAt = createdAt;
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getArea() {
+        return area;
+    }
+
+    public void setArea(String area) {
+        this.area = area;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public String getContentKey() {
+        return contentKey;
+    }
+
+    public void setContentKey(String contentKey) {
+        this.contentKey = contentKey;
+    }
+
+    public String getPlatform() {
+        return platform;
+    }
+
+    public void setPlatform(String platform) {
+        this.platform = platform;
+    }
+
+    public String getVideoId() {
+        return videoId;
+    }
+
+    public void setVideoId(String videoId) {
+        this.videoId = videoId;
+    }
+
+    public String getFormatKey() {
+        return formatKey;
+    }
+
+    public void setFormatKey(String formatKey) {
+        this.formatKey = formatKey;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(int refCount) {
+        this.refCount = refCount;
+    }
+
+    public long getAccessCount() {
+        return accessCount;
+    }
+
+    public void setAccessCount(long accessCount) {
+        this.accessCount = accessCount;
+    }
+
+    public LocalDateTime getLastAccessedAt() {
+        return lastAccessedAt;
+    }
+
+    public void setLastAccessedAt(LocalDateTime lastAccessedAt) {
+        this.lastAccessedAt = lastAccessedAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
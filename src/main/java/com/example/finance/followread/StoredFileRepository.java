@@ -0,0 +1,77 @@
+package com.example.finance.followread;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredFileRepository extends JpaRepository<StoredFile, Long> {
+
+    Optional<StoredFile> findByPath(String path);
+
+    Optional<StoredFile> findByContentKey(String contentKey);
+
+    long countByArea(String area);
+
+    /**
+     * path 在 [from, to) 区间内的文件（按前缀查找，走 path 唯一索引）
+     */
+    @Query("select s from StoredFile s where s.path >= :from and s.path < :to")
+    List<StoredFile> findByPathRange(@Param("from") String from, @Param("to") String to);
+
+    /**
+     * 区域已用空间（字节）
+     */
+    @Query("select coalesce(sum(s.sizeBytes), 0) from StoredFile s where s.area = :area")
+    long sumSizeByArea(@Param("area") String area);
+
+    /**
+     * 淘汰候选（排序由 pageable 决定：未被引用的在前，再按最近访问时间或访问次数）
+     */
+    List<StoredFile> findByArea(String area, Pageable pageable);
+
+    /**
+     * 超过保留时间未访问的文件（走 (area, last_accessed_at) 索引）
+     */
+    List<StoredFile> findByAreaAndLastAccessedAtBeforeOrderByLastAccessedAt(String area, LocalDateTime cutoff, Pageable pageable);
+
+    /**
+     * 记录一次访问
+     */
+    @Modifying
+    @Transactional
+    @Query("update StoredFile s set s.lastAccessedAt = :accessedAt, s.accessCount = s.accessCount + 1 where s.path = :path")
+    int touch(@Param("path") String path, @Param("accessedAt") LocalDateTime accessedAt);
+
+    /**
+     * 调整引用计数（不低于 0）
+     */
+    @Modifying
+    @Transactional
+    @Query("update StoredFile s set s.refCount = case when s.refCount + :delta < 0 then 0 else s.refCount + :delta end "
+        + "where s.path = :path")
+    int addReferences(@Param("path") String path, @Param("delta") int delta);
+
+    @Modifying
+    @Transactional
+    @Query("delete from StoredFile s where s.path = :path")
+    int deleteByPath(@Param("path") String path);
+
+    /**
+     * 删除路径以 prefix 开头的索引（如某个视频的各语言字幕）：[from, to) 是前缀对应的 path 区间，走 path 唯一索引，
+     * pattern 是 ! 转义后的 LIKE 前缀，保证结果精确
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from StoredFile s where s.path >= :from and s.path < :to "
+        + "and s.path like concat(:pattern, '%') escape '!'")
+    int deleteByPathPrefix(@Param("from") String from, @Param("to") String to, @Param("pattern") String pattern);
+}
@@ -7,7 +7,8 @@ import java.time.LocalDateTime;
 @Table(name = "study_notes")
 public class StudyNote {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "study_notes_seq")
+    @SequenceGenerator(name = "study_notes_seq", sequenceName = "study_notes_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "video_id", nullable = false, length = 20)
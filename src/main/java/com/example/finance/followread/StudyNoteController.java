@@ -1,7 +1,6 @@
 package com.example.finance.followread;
 
-import com.example.finance.User;
-import com.example.finance.UserRepository;
+import com.example.finance.CurrentUserResolver;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -21,7 +20,7 @@ public class StudyNoteController {
     private StudyNoteService studyNoteService;
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserResolver currentUserResolver;
 
     @PostMapping
     public ResponseEntity<?> createNote(@RequestBody Map<String, String> request, Authentication authentication) {
@@ -139,15 +138,6 @@ public class StudyNoteController {
     }
 
     private Long getUserId(Authentication authentication) {
-        Long userId = 0L;
-        if (authentication != null && authentication.isAuthenticated()
-                && !"anonymousUser".equals(authentication.getPrincipal())) {
-            String username = authentication.getName();
-            Optional<User> userOpt = userRepository.findByUsername(username);
-            if (userOpt.isPresent()) {
-                userId = userOpt.get().getId();
-            }
-        }
-        return userId;
+        return currentUserResolver.resolveUserId(authentication, 0L);
     }
 }
@@ -1,9 +1,21 @@
 package com.example.finance.followread;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 public interface StudyNoteRepository extends JpaRepository<StudyNote, Long> {
     List<StudyNote> findByVideoIdAndUserIdOrderByUpdatedAtDesc(String videoId, Long userId);
     List<StudyNote> findByUserIdOrderByUpdatedAtDesc(Long userId);
+
+    /**
+     * 批量删除视频的全部笔记（videoId 为 YouTube 视频 ID）
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from StudyNote n where n.videoId = :videoId")
+    int deleteAllByVideoId(@Param("videoId") String videoId);
 }
@@ -0,0 +1,40 @@
+package com.example.finance.followread;
+
+/**
+ * 字幕语言判断工具（解析、清洗、切句共用）
+ */
+public final class SubtitleLanguage {
+
+    private SubtitleLanguage() {
+    }
+
+    /**
+     * 判断是否是中日韩语言（CJK）
+     */
+    public static boolean isCjk(String language) {
+        if (language == null) return false;
+        String lang = language.toLowerCase();
+        return lang.startsWith("zh") || lang.startsWith("ja") || 
+               lang.startsWith("ko") || lang.equals("jpn") || 
+               lang.equals("chi") || lang.equals("kor") ||
+               lang.equals("zh-cn") || lang.equals("zh-tw") ||
+               lang.equals("zh-hans") || lang.equals("zh-hant");
+    }
+
+    /**
+     * 获取语言代码的简化形式（用于文件名）
+     */
+    public static String languageCode(String language) {
+        if (language == null) return "en";
+        String lang = language.toLowerCase();
+        // 处理 zh-Hans, zh-Hant 等格式
+        if (lang.startsWith("zh")) {
+            if (lang.contains("hans") || lang.contains("cn")) return "zh";
+            if (lang.contains("hant") || lang.contains("tw")) return "zh";
+            return "zh";
+        }
+        if (lang.startsWith("ja")) return "ja";
+        if (lang.startsWith("ko")) return "ko";
+        return lang.split("-")[0]; // 取主要部分，如 en-US -> en
+    }
+}
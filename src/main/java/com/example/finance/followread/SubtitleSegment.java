@@ -2,12 +2,14 @@ package com.example.finance.followread;
 
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Entity
 @Table(name = "subtitle_segments")
 public class SubtitleSegment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "subtitle_segments_seq")
+    @SequenceGenerator(name = "subtitle_segments_seq", sequenceName = "subtitle_segments_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "video_id", nullable = false)
@@ -31,6 +33,9 @@ public class SubtitleSegment {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    @Transient
+    private List<WordTiming> wordTimings; // 逐词时间（仅解析自动字幕时存在，不入库）
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -100,5 +105,12 @@ public class SubtitleSegment {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
-}
 
+    public List<WordTiming> getWordTimings() {
+        return wordTimings;
+    }
+
+    public void setWordTimings(List<WordTiming> wordTimings) {
+        this.wordTimings = wordTimings;
+    }
+}
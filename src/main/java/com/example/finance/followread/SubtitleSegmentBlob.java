@@ -0,0 +1,62 @@
+package com.example.finance.followread;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 列式压缩存储的字幕片段：每个视频一行，内容见 {@link SubtitleSegmentCodec}
+ */
+@Entity
+@Table(name = "subtitle_segment_blobs")
+public class SubtitleSegmentBlob {
+    @Id
+    @Column(name = "video_id")
+    private Long videoId; // 关联到 YoutubeVideo
+
+    @Column(name = "segment_count", nullable = false)
+    private Integer segmentCount;
+
+    @Column(name = "data", nullable = false)
+    private byte[] data;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getVideoId() {
+        return videoId;
+    }
+
+    public void setVideoId(Long videoId) {
+        this.videoId = videoId;
+    }
+
+    public Integer getSegmentCount() {
+        return segmentCount;
+    }
+
+    public void setSegmentCount(Integer segmentCount) {
+        this.segmentCount = segmentCount;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.finance.followread;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SubtitleSegmentBlobRepository extends JpaRepository<SubtitleSegmentBlob, Long> {
+
+    /**
+     * 只查片段数，不读取 blob
+     */
+    @Query("select b.segmentCount from SubtitleSegmentBlob b where b.videoId = :videoId")
+    Integer findSegmentCountByVideoId(@Param("videoId") Long videoId);
+
+    @Modifying
+    @Query("delete from SubtitleSegmentBlob b where b.videoId = :videoId")
+    int deleteByVideoId(@Param("videoId") Long videoId);
+}
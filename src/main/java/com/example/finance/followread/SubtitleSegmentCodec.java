@@ -0,0 +1,249 @@
+package com.example.finance.followread;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 字幕片段的列式压缩格式：一个视频的全部片段编码为一个 blob
+ *
+ * 布局（版本 2）：
+ *   version:byte, count:varint,
+ *   时间列：每个片段 zigzag varint(startMs - 上一个 startMs), zigzag varint(endMs - startMs)
+ *   顺序列：每个片段 zigzag varint(segmentOrder - 上一个 segmentOrder - 1)，连续编号时每个占 1 字节
+ *   文本列：compressedLength:varint + Deflate 压缩的
+ *           { cleanText: varint(字节数 + 1，0 表示 null) + UTF-8,
+ *             rawText:   varint(0 表示 null，1 表示与 cleanText 相同，否则字节数 + 2) + UTF-8 }
+ * 版本 1 的 rawText 没有 null 标记（0 表示与 cleanText 相同，否则字节数 + 1），仍可解码。
+ *
+ * 时间按毫秒存储（VTT 本身就是毫秒精度）。片段 ID 和逐条创建时间不保存，
+ * 解码出的片段 id 为 null，createdAt 取整个 blob 的创建时间。
+ */
+public final class SubtitleSegmentCodec {
+
+    private static final int VERSION = 2;
+    private static final int VERSION_1 = 1;
+
+    private SubtitleSegmentCodec() {
+    }
+
+    public static byte[] encode(List<SubtitleSegment> segments) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(segments.size() * 4 + 64);
+        out.write(VERSION);
+        writeVarint(out, segments.size());
+
+        long previousStart = 0;
+        for (SubtitleSegment segment : segments) {
+            long start = toMillis(segment.getStartTime());
+            writeVarint(out, zigzag(start - previousStart));
+            writeVarint(out, zigzag(toMillis(segment.getEndTime()) - start));
+            previousStart = start;
+        }
+        long previousOrder = -1;
+        for (SubtitleSegment segment : segments) {
+            long order = segment.getSegmentOrder();
+            writeVarint(out, zigzag(order - previousOrder - 1));
+            previousOrder = order;
+        }
+
+        ByteArrayOutputStream text = new ByteArrayOutputStream(segments.size() * 48);
+        for (SubtitleSegment segment : segments) {
+            String clean = segment.getCleanText();
+            writeNullableString(text, clean);
+            String raw = segment.getRawText();
+            if (raw == null) {
+                writeVarint(text, 0);
+            } else if (raw.equals(clean)) {
+                writeVarint(text, 1);
+            } else {
+                byte[] bytes = raw.getBytes(StandardCharsets.UTF_8);
+                writeVarint(text, bytes.length + 2L);
+                text.writeBytes(bytes);
+            }
+        }
+        byte[] compressed = deflate(text.toByteArray());
+        writeVarint(out, compressed.length);
+        out.writeBytes(compressed);
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码为只读列表：读取头部后立即返回，时间列和文本列在第一次访问片段时才解码
+     */
+    public static List<SubtitleSegment> decode(byte[] data, Long videoId, LocalDateTime createdAt) {
+        return new CompactSegmentList(data, videoId, createdAt);
+    }
+
+    private static final class CompactSegmentList extends AbstractList<SubtitleSegment> implements RandomAccess {
+        private final byte[] data;
+        private final Long videoId;
+        private final LocalDateTime createdAt;
+        private final int version;
+        private final int count;
+        private final int columnsOffset;
+        private SubtitleSegment[] segments;
+
+        CompactSegmentList(byte[] data, Long videoId, LocalDateTime createdAt) {
+            if (data.length == 0 || (data[0] != VERSION && data[0] != VERSION_1)) {
+                throw new IllegalArgumentException("不支持的字幕片段格式版本");
+            }
+            this.data = data;
+            this.version = data[0];
+            this.videoId = videoId;
+            this.createdAt = createdAt;
+            int[] pos = {1};
+            this.count = (int) readVarint(data, pos);
+            this.columnsOffset = pos[0];
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public SubtitleSegment get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+            }
+            if (segments == null) {
+                segments = decodeAll();
+            }
+            return segments[index];
+        }
+
+        private SubtitleSegment[] decodeAll() {
+            SubtitleSegment[] result = new SubtitleSegment[count];
+            int[] pos = {columnsOffset};
+            long start = 0;
+            for (int k = 0; k < count; k++) {
+                start += unzigzag(readVarint(data, pos));
+                long end = start + unzigzag(readVarint(data, pos));
+                SubtitleSegment segment = new SubtitleSegment();
+                segment.setVideoId(videoId);
+                segment.setStartTime(start / 1000.0);
+                segment.setEndTime(end / 1000.0);
+                segment.setCreatedAt(createdAt);
+                result[k] = segment;
+            }
+            long order = -1;
+            for (int k = 0; k < count; k++) {
+                order += unzigzag(readVarint(data, pos)) + 1;
+                result[k].setSegmentOrder((int) order);
+            }
+
+            int compressedLength = (int) readVarint(data, pos);
+            byte[] text = inflate(data, pos[0], compressedLength);
+            int[] textPos = {0};
+            for (int k = 0; k < count; k++) {
+                String clean = readNullableString(text, textPos);
+                result[k].setCleanText(clean);
+                int marker = (int) readVarint(text, textPos);
+                if (version == VERSION_1) {
+                    result[k].setRawText(marker == 0 ? clean : readString(text, textPos, marker - 1));
+                } else {
+                    result[k].setRawText(marker == 0 ? null : marker == 1 ? clean : readString(text, textPos, marker - 2));
+                }
+            }
+            return result;
+        }
+    }
+
+    private static long toMillis(Double seconds) {
+        return seconds != null ? Math.round(seconds * 1000) : 0;
+    }
+
+    private static void writeNullableString(ByteArrayOutputStream out, String s) {
+        if (s == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length + 1L);
+        out.writeBytes(bytes);
+    }
+
+    private static String readNullableString(byte[] data, int[] pos) {
+        int length = (int) readVarint(data, pos);
+        return length == 0 ? null : readString(data, pos, length - 1);
+    }
+
+    private static String readString(byte[] data, int[] pos, int length) {
+        String s = new String(data, pos[0], length, StandardCharsets.UTF_8);
+        pos[0] += length;
+        return s;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] data, int[] pos) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = data[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 3 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int offset, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, length);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("字幕文本列数据不完整");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("字幕文本列解压失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
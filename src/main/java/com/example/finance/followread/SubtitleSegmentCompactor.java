@@ -0,0 +1,87 @@
+package com.example.finance.followread;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 一次性迁移工具：把已有的逐行字幕片段转换为列式压缩 blob
+ *
+ * 启动时加 --subtitle.storage.migrate=true 运行，每个视频一个事务（写 blob + 删除逐行数据），
+ * 中途失败的视频保持逐行存储，可以重复运行。完成后日志输出迁移前后的数据量。
+ * SQLite 删除行后文件不会自动变小，需要停机后执行一次 VACUUM 回收空间。
+ */
+@Component
+@ConditionalOnProperty(name = "subtitle.storage.migrate", havingValue = "true")
+public class SubtitleSegmentCompactor implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SubtitleSegmentCompactor.class);
+
+    // 逐行存储每行除文本外的固定列：id、video_id、segment_order、两个时间、created_at
+    private static final int ROW_FIXED_BYTES = 8 + 8 + 4 + 8 + 8 + 26;
+
+    @Autowired
+    private SubtitleSegmentRepository segmentRepository;
+
+    @Autowired
+    private SubtitleSegmentBlobRepository blobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<Long> videoIds = segmentRepository.findVideoIdsWithRows();
+        log.info("开始迁移字幕片段到压缩存储: {} 个视频", videoIds.size());
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        long rows = 0;
+        long rowBytes = 0;
+        long blobBytes = 0;
+        int migrated = 0;
+        for (Long videoId : videoIds) {
+            try {
+                // 已有 blob 时读取会优先返回 blob，所以先确认没有 blob 再读逐行数据
+                if (blobRepository.existsById(videoId)) {
+                    log.warn("视频已有压缩字幕，跳过并保留逐行数据: videoId={}", videoId);
+                    continue;
+                }
+                List<SubtitleSegment> segments = segmentRepository.findByVideoIdOrderBySegmentOrder(videoId);
+                SubtitleSegmentBlob blob = new SubtitleSegmentBlob();
+                blob.setVideoId(videoId);
+                blob.setSegmentCount(segments.size());
+                blob.setData(SubtitleSegmentCodec.encode(segments));
+                tx.executeWithoutResult(status -> {
+                    blobRepository.save(blob);
+                    segmentRepository.deleteRowsByVideoId(videoId);
+                });
+
+                rows += segments.size();
+                for (SubtitleSegment segment : segments) {
+                    rowBytes += ROW_FIXED_BYTES + utf8Length(segment.getRawText()) + utf8Length(segment.getCleanText());
+                }
+                blobBytes += blob.getData().length;
+                migrated++;
+            } catch (Exception e) {
+                log.error("迁移字幕片段失败，保留逐行数据: videoId={}", videoId, e);
+            }
+        }
+
+        log.info("字幕片段迁移完成: {} 个视频, {} 个片段, 逐行约 {} KB → 压缩 {} KB（{}%）",
+            migrated, rows, rowBytes / 1024, blobBytes / 1024,
+            rowBytes > 0 ? Math.round(blobBytes * 100.0 / rowBytes) : 0);
+    }
+
+    private static int utf8Length(String s) {
+        return s != null ? s.getBytes(StandardCharsets.UTF_8).length : 0;
+    }
+}
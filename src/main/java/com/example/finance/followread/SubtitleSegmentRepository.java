@@ -1,13 +1,30 @@
 package com.example.finance.followread;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
+/**
+ * 字幕片段。读取、保存和删除视频的片段请使用 {@link SubtitleSegmentRepositoryCustom} 中的方法，
+ * 它们同时处理逐行存储和列式压缩 blob
+ */
 @Repository
-public interface SubtitleSegmentRepository extends JpaRepository<SubtitleSegment, Long> {
-    List<SubtitleSegment> findByVideoIdOrderBySegmentOrder(Long videoId);
-    void deleteByVideoId(Long videoId);
-}
+public interface SubtitleSegmentRepository extends JpaRepository<SubtitleSegment, Long>, SubtitleSegmentRepositoryCustom {
+
+    /**
+     * 仍有逐行数据的视频（迁移到 blob 时使用）
+     */
+    @Query("select distinct s.videoId from SubtitleSegment s")
+    List<Long> findVideoIdsWithRows();
 
+    /**
+     * 只删除逐行数据（迁移到 blob 后使用），删除视频请用 {@link #deleteByVideoId(Long)}
+     */
+    @Modifying
+    @Query("delete from SubtitleSegment s where s.videoId = :videoId")
+    int deleteRowsByVideoId(@Param("videoId") Long videoId);
+}
@@ -0,0 +1,27 @@
+package com.example.finance.followread;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * 字幕片段的存储方式对调用方透明：逐行存储或每个视频一个列式压缩 blob（subtitle.storage.compact）
+ */
+public interface SubtitleSegmentRepositoryCustom {
+
+    /**
+     * 视频的全部字幕片段（按顺序）。有压缩 blob 时从 blob 延迟解码，否则读取逐行数据
+     */
+    List<SubtitleSegment> findByVideoIdOrderBySegmentOrder(Long videoId);
+
+    /**
+     * 保存一个视频解析出的全部字幕片段
+     *
+     * @param onSaved 每保存一批后回调已保存的数量（可为 null）
+     */
+    void saveVideoSegments(Long videoId, List<SubtitleSegment> segments, IntConsumer onSaved);
+
+    /**
+     * 删除视频的全部字幕片段（逐行数据和 blob），返回删除的片段数
+     */
+    int deleteByVideoId(Long videoId);
+}
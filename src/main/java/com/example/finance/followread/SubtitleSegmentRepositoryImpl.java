@@ -0,0 +1,87 @@
+package com.example.finance.followread;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * {@link SubtitleSegmentRepositoryCustom} 的实现
+ *
+ * 读取时优先使用 blob（迁移过或以压缩模式保存的视频），没有 blob 再查逐行数据，
+ * 所以两种存储可以并存，切换配置不需要一次性迁移全部数据。
+ */
+public class SubtitleSegmentRepositoryImpl implements SubtitleSegmentRepositoryCustom {
+
+    // 逐行保存时每批的数量，每批一个事务
+    private static final int SAVE_BATCH = 100;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private SubtitleSegmentBlobRepository blobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // 新解析的字幕是否以列式压缩 blob 保存
+    @Value("${subtitle.storage.compact:false}")
+    private boolean compact;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SubtitleSegment> findByVideoIdOrderBySegmentOrder(Long videoId) {
+        SubtitleSegmentBlob blob = blobRepository.findById(videoId).orElse(null);
+        if (blob != null) {
+            return SubtitleSegmentCodec.decode(blob.getData(), videoId, blob.getCreatedAt());
+        }
+        return entityManager.createQuery(
+                "select s from SubtitleSegment s where s.videoId = :videoId order by s.segmentOrder",
+                SubtitleSegment.class)
+            .setParameter("videoId", videoId)
+            .getResultList();
+    }
+
+    @Override
+    public void saveVideoSegments(Long videoId, List<SubtitleSegment> segments, IntConsumer onSaved) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        if (compact) {
+            SubtitleSegmentBlob blob = new SubtitleSegmentBlob();
+            blob.setVideoId(videoId);
+            blob.setSegmentCount(segments.size());
+            blob.setData(SubtitleSegmentCodec.encode(segments));
+            tx.executeWithoutResult(status -> blobRepository.save(blob));
+            if (onSaved != null) {
+                onSaved.accept(segments.size());
+            }
+            return;
+        }
+        for (int from = 0; from < segments.size(); from += SAVE_BATCH) {
+            List<SubtitleSegment> batch = segments.subList(from, Math.min(from + SAVE_BATCH, segments.size()));
+            tx.executeWithoutResult(status -> batch.forEach(entityManager::persist));
+            if (onSaved != null) {
+                onSaved.accept(from + batch.size());
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public int deleteByVideoId(Long videoId) {
+        Integer blobSegments = blobRepository.findSegmentCountByVideoId(videoId);
+        if (blobSegments != null) {
+            blobRepository.deleteByVideoId(videoId);
+        }
+        int rows = entityManager.createQuery("delete from SubtitleSegment s where s.videoId = :videoId")
+            .setParameter("videoId", videoId)
+            .executeUpdate();
+        return rows + (blobSegments != null ? blobSegments : 0);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.finance.followread;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 学习句子生成规则：按句子边界切分字幕、移除填充词、评估难度
+ *
+ * 具体的流式构建见 {@link SentenceBuilder}，语言相关的分词见 {@link SentenceTokenizer}，
+ * 难度按 {@link DifficultyModel} 的词频排名评估（排名表由 {@link DifficultyModelUpdater} 定期用字幕语料刷新）。
+ */
+@Component
+public class SubtitleSentenceProcessor {
+
+    private volatile DifficultyModel difficultyModel = DifficultyModel.bundled();
+
+    /**
+     * 创建句子构建器（调用方逐个 accept 字幕片段）
+     */
+    public SentenceBuilder newBuilder(String language, double maxGap, String difficultyPreference) {
+        return new SentenceBuilder(SentenceTokenizer.forLanguage(language), maxGap, difficultyPreference,
+            difficultyModelFor(language));
+    }
+
+    /**
+     * 切分字幕片段生成候选句子（包含被过滤的句子）
+     */
+    public List<SentenceUnit> buildSentences(List<SubtitleSegment> segments, String language,
+                                             double maxGap, String difficultyPreference) {
+        SentenceBuilder builder = newBuilder(language, maxGap, difficultyPreference);
+        for (SubtitleSegment segment : segments) {
+            builder.accept(segment);
+        }
+        return builder.finish();
+    }
+
+    /**
+     * 移除 filler words（支持多语言）
+     */
+    public String removeFillerWords(String text, String language) {
+        return SentenceTokenizer.forLanguage(language).removeFillerWords(text.trim());
+    }
+
+    /**
+     * 计算难度（支持多语言）
+     */
+    public String calculateDifficulty(String text, String userPreference, String language) {
+        if (!"auto".equals(userPreference)) {
+            return userPreference;
+        }
+        SentenceTokenizer tokenizer = SentenceTokenizer.forLanguage(language);
+        SentenceUnit unit = new SentenceUnit();
+        unit.text = text;
+        tokenizer.measure(unit, difficultyModelFor(language));
+        return DifficultyModel.evaluate(unit, tokenizer.isCharacterBased());
+    }
+
+    public DifficultyModel getDifficultyModel() {
+        return difficultyModel;
+    }
+
+    /**
+     * 替换词频排名（刷新后已在生成中的句子构建器继续使用旧排名）
+     */
+    public void setDifficultyModel(DifficultyModel difficultyModel) {
+        this.difficultyModel = difficultyModel;
+    }
+
+    /**
+     * 排名表只有英文词和中日韩字，其他语言只按长度评估
+     */
+    private DifficultyModel difficultyModelFor(String language) {
+        return SubtitleLanguage.isCjk(language) || "en".equals(SubtitleLanguage.languageCode(language))
+            ? difficultyModel
+            : null;
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.finance.followread;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * 字幕文本单遍清洗
+ *
+ * 一次扫描完成：HTML 实体解码 → 去除标签 → 合并空白 → 按语言过滤字符 → 去首尾空格，
+ * 结果与原来的 replace/replaceAll 链一致（实体只解码一层，"&amp;lt;" 得到 "&lt;" 而不是 "<"）。
+ * 每个线程复用一个输出缓冲区，不产生中间字符串，也不编译/执行正则。
+ *
+ * 语义说明：
+ * - 实体：&nbsp; &amp; &lt; &gt; &quot; &#39; &apos; &ndash; &mdash; &hellip; &#160;，其他 &#数字; 直接删除
+ * - 标签：解码后的 '<' 到下一个 '>' 之间至少一个字符视为标签（同 {@code <[^>]+>}），没有闭合的 '<' 原样保留
+ * - 空白：连续的 [ \t\n\x0B\f\r] 合并为一个空格（先合并再过滤，被过滤掉的字符也会打断空白）
+ * - 过滤：CJK 只删除 ASCII 控制字符；其他语言只保留字母、数字、空格和 ,.!?'-
+ */
+@Component
+public class SubtitleTextNormalizer {
+
+    private static final int STATE_TEXT = 0;
+    private static final int STATE_TAG = 1;
+
+    // 缓冲区超过这个容量后不再复用，避免偶发的超长文本长期占用内存
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    /**
+     * 清洗字幕文本
+     *
+     * @param cjk 是否中日韩语言（只删除控制字符，保留所有 Unicode 字符和标点）
+     */
+    public String normalize(String text, boolean cjk) {
+        if (text == null || text.isEmpty()) return "";
+        Buffers b = buffers.get();
+        try {
+            normalizeInto(text, cjk, b);
+            return b.out.toString();
+        } finally {
+            b.reset();
+        }
+    }
+
+    /**
+     * 清洗结果追加到调用方提供的缓冲区（批量处理时可复用同一个 StringBuilder）
+     */
+    public void normalizeInto(CharSequence text, boolean cjk, StringBuilder out) {
+        if (text == null || text.length() == 0) return;
+        Buffers b = buffers.get();
+        try {
+            normalizeInto(text, cjk, b);
+            out.append(b.out);
+        } finally {
+            b.reset();
+        }
+    }
+
+    private void normalizeInto(CharSequence text, boolean cjk, Buffers b) {
+        Scanner scanner = b.scanner;
+        scanner.cjk = cjk;
+        scanner.out = b.out;
+        scanner.tag = b.tag;
+        scanner.state = STATE_TEXT;
+        scanner.lastWasSpace = false;
+
+        int len = text.length();
+        int i = 0;
+        while (i < len) {
+            char c = text.charAt(i);
+            if (c == '&') {
+                int consumed = decodeEntity(text, i, len, scanner);
+                if (consumed > 0) {
+                    i += consumed;
+                    continue;
+                }
+            }
+            scanner.accept(c);
+            i++;
+        }
+        scanner.finish();
+        trimTrailingSpace(b.out);
+    }
+
+    /**
+     * 尝试在 start 位置解码实体，成功时把解码结果交给 scanner 并返回消耗的字符数，否则返回 0
+     */
+    private int decodeEntity(CharSequence text, int start, int len, Scanner scanner) {
+        int semicolon = -1;
+        // 支持的实体最长为 "&hellip;"，数字实体不限长度
+        for (int j = start + 1; j < len; j++) {
+            char c = text.charAt(j);
+            if (c == ';') {
+                semicolon = j;
+                break;
+            }
+            if (!(c == '#' && j == start + 1) && !isAsciiLetterOrDigit(c)) {
+                return 0;
+            }
+        }
+        if (semicolon < 0 || semicolon == start + 1) return 0;
+
+        if (text.charAt(start + 1) == '#') {
+            if (semicolon == start + 2) return 0;
+            int value = 0;
+            for (int j = start + 2; j < semicolon; j++) {
+                char c = text.charAt(j);
+                if (c < '0' || c > '9') return 0;
+                // 只需要区分 39 / 160 和其他值，超长数字不会溢出成这两个值
+                value = value > 1000 ? value : value * 10 + (c - '0');
+            }
+            int digits = semicolon - start - 2;
+            if (digits == 2 && value == 39) {
+                scanner.accept('\'');
+            } else if (digits == 3 && value == 160) {
+                scanner.accept(' ');
+            }
+            // 其他数字实体直接删除
+            return semicolon - start + 1;
+        }
+
+        switch (nameLength(start, semicolon)) {
+            case 2:
+                if (regionMatches(text, start + 1, "lt")) { scanner.accept('<'); return 4; }
+                if (regionMatches(text, start + 1, "gt")) { scanner.accept('>'); return 4; }
+                return 0;
+            case 3:
+                if (regionMatches(text, start + 1, "amp")) { scanner.accept('&'); return 5; }
+                return 0;
+            case 4:
+                if (regionMatches(text, start + 1, "nbsp")) { scanner.accept(' '); return 6; }
+                if (regionMatches(text, start + 1, "quot")) { scanner.accept('"'); return 6; }
+                if (regionMatches(text, start + 1, "apos")) { scanner.accept('\''); return 6; }
+                return 0;
+            case 5:
+                if (regionMatches(text, start + 1, "ndash") || regionMatches(text, start + 1, "mdash")) {
+                    scanner.accept('-');
+                    return 7;
+                }
+                return 0;
+            case 6:
+                if (regionMatches(text, start + 1, "hellip")) {
+                    scanner.accept('.');
+                    scanner.accept('.');
+                    scanner.accept('.');
+                    return 8;
+                }
+                return 0;
+            default:
+                return 0;
+        }
+    }
+
+    private static int nameLength(int start, int semicolon) {
+        return semicolon - start - 1;
+    }
+
+    private static boolean regionMatches(CharSequence text, int offset, String name) {
+        for (int k = 0; k < name.length(); k++) {
+            if (text.charAt(offset + k) != name.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private static void trimTrailingSpace(StringBuilder out) {
+        int end = out.length();
+        while (end > 0 && out.charAt(end - 1) == ' ') {
+            end--;
+        }
+        out.setLength(end);
+    }
+
+    /**
+     * 解码后字符的状态机：标签识别 + 空白合并 + 字符过滤
+     */
+    private static final class Scanner {
+        boolean cjk;
+        StringBuilder out;
+        // 进入标签状态后暂存的字符，遇到 '>' 丢弃，文本结束仍未闭合时按普通文本输出
+        StringBuilder tag;
+        int state;
+        boolean lastWasSpace;
+
+        void accept(char c) {
+            if (state == STATE_TAG) {
+                if (c == '>' && tag.length() > 1) {
+                    // 完整标签，整体删除（标签不打断空白合并）
+                    tag.setLength(0);
+                    state = STATE_TEXT;
+                } else if (c == '>') {
+                    // "<>" 不是标签，两个字符都按普通文本处理
+                    tag.setLength(0);
+                    state = STATE_TEXT;
+                    emit('<');
+                    emit('>');
+                } else {
+                    tag.append(c);
+                }
+                return;
+            }
+            if (c == '<') {
+                state = STATE_TAG;
+                tag.append(c);
+                return;
+            }
+            emit(c);
+        }
+
+        void finish() {
+            if (state == STATE_TAG) {
+                // 未闭合的 '<' 之后不可能再有标签，剩余字符全部按普通文本输出
+                state = STATE_TEXT;
+                for (int k = 0; k < tag.length(); k++) {
+                    emit(tag.charAt(k));
+                }
+                tag.setLength(0);
+            }
+        }
+
+        private void emit(char c) {
+            if (isRegexWhitespace(c)) {
+                if (!lastWasSpace) {
+                    lastWasSpace = true;
+                    // 行首空白直接去掉（等价于最后 trim）
+                    if (out.length() > 0) {
+                        out.append(' ');
+                    }
+                }
+                return;
+            }
+            lastWasSpace = false;
+            if (cjk ? !isAsciiControl(c) : isAllowedLatin(c)) {
+                out.append(c);
+            }
+        }
+
+        private static boolean isRegexWhitespace(char c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+        }
+
+        private static boolean isAsciiControl(char c) {
+            return c < 0x20 || c == 0x7F;
+        }
+
+        private static boolean isAllowedLatin(char c) {
+            return isAsciiLetterOrDigit(c)
+                || c == ',' || c == '.' || c == '!' || c == '?' || c == '\'' || c == '-';
+        }
+    }
+
+    private static final class Buffers {
+        final StringBuilder out = new StringBuilder(256);
+        final StringBuilder tag = new StringBuilder(64);
+        final Scanner scanner = new Scanner();
+
+        void reset() {
+            out.setLength(0);
+            tag.setLength(0);
+            if (out.capacity() > MAX_RETAINED_CAPACITY) {
+                out.trimToSize();
+            }
+            if (tag.capacity() > MAX_RETAINED_CAPACITY) {
+                tag.trimToSize();
+            }
+        }
+    }
+}
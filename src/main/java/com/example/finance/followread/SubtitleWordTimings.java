@@ -0,0 +1,99 @@
+package com.example.finance.followread;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 视频的逐词时间存储：每个视频一行，内容见 {@link WordTimingTrack}
+ */
+@Entity
+@Table(name = "subtitle_word_timings")
+public class SubtitleWordTimings {
+    @Id
+    @Column(name = "video_id")
+    private Long videoId; // 关联到 YoutubeVideo
+
+    @Column(name = "language", length = 20)
+    private String language; // 字幕语言
+
+    @Column(name = "word_count", nullable = false)
+    private Integer wordCount;
+
+    @Column(name = "timings", nullable = false)
+    private byte[] timings; // 打包的 (startMs, textOffset)
+
+    @Column(name = "text", nullable = false)
+    private byte[] text; // UTF-8 文本
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public SubtitleWordTimings() {
+    }
+
+    public SubtitleWordTimings(Long videoId, String language, WordTimingTrack track) {
+        this.videoId = videoId;
+        this.language = language;
+        this.wordCount = track.size();
+        this.timings = track.encodeTimings();
+        this.text = track.getText();
+    }
+
+    public WordTimingTrack toTrack() {
+        return WordTimingTrack.decode(timings, text);
+    }
+
+    // Getters and Setters
+    public Long getVideoId() {
+        return videoId;
+    }
+
+    public void setVideoId(Long videoId) {
+        this.videoId = videoId;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public Integer getWordCount() {
+        return wordCount;
+    }
+
+    public void setWordCount(Integer wordCount) {
+        this.wordCount = wordCount;
+    }
+
+    public byte[] getTimings() {
+        return timings;
+    }
+
+    public void setTimings(byte[] timings) {
+        this.timings = timings;
+    }
+
+    public byte[] getText() {
+        return text;
+    }
+
+    public void setText(byte[] text) {
+        this.text = text;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
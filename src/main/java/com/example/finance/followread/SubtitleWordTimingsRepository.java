@@ -0,0 +1,20 @@
+package com.example.finance.followread;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface SubtitleWordTimingsRepository extends JpaRepository<SubtitleWordTimings, Long> {
+
+    /**
+     * 删除视频的逐词时间（单条 DELETE，不加载实体）
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from SubtitleWordTimings w where w.videoId = :videoId")
+    int deleteByVideoId(@Param("videoId") Long videoId);
+}
@@ -1,7 +1,6 @@
 package com.example.finance.followread;
 
-import com.example.finance.User;
-import com.example.finance.UserRepository;
+import com.example.finance.CurrentUserResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,13 +29,19 @@ public class VideoDownloadController {
     private static final Logger log = LoggerFactory.getLogger(VideoDownloadController.class);
 
     @Autowired
-    private VideoDownloadService downloadService;
+    private DownloadEngine downloadEngine;
 
     @Autowired
     private YoutubeVideoRepository videoRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private BandwidthScheduler bandwidthScheduler;
+
+    @Autowired
+    private StorageLifecycleManager storageLifecycleManager;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
 
     /**
      * 获取视频的可用格式列表
@@ -50,7 +55,7 @@ public class VideoDownloadController {
             }
 
             YoutubeVideo video = videoOpt.get();
-            List<VideoFormat> formats = downloadService.getAvailableFormats(video.getSourceUrl());
+            List<VideoFormat> formats = downloadEngine.getAvailableFormats(YoutubeDownloadAdapter.PLATFORM, video.getSourceUrl());
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -81,16 +86,17 @@ public class VideoDownloadController {
             String downloadType = (String) request.getOrDefault("downloadType", "video");
             String formatId = (String) request.get("formatId");
             String quality = (String) request.getOrDefault("quality", "best");
+            String priority = (String) request.getOrDefault("priority", "normal");
             
             Long userId = getUserId(authentication);
             
             // 创建任务
-            VideoDownloadTask task = downloadService.createDownloadTask(
-                videoId, downloadType, formatId, quality, userId
+            VideoDownloadTask task = downloadEngine.createDownloadTask(
+                YoutubeDownloadAdapter.PLATFORM, videoId, downloadType, formatId, quality, priority, userId
             );
             
-            // 异步开始下载
-            downloadService.executeDownloadAsync(task.getId());
+            // 加入下载队列
+            downloadEngine.submit(task.getId());
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -114,7 +120,7 @@ public class VideoDownloadController {
     @GetMapping("/tasks/{taskId}")
     public ResponseEntity<?> getTaskStatus(@PathVariable Long taskId) {
         try {
-            VideoDownloadTask task = downloadService.getTaskDetails(taskId);
+            VideoDownloadTask task = downloadEngine.getTaskDetails(taskId);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -135,7 +141,7 @@ public class VideoDownloadController {
     @GetMapping("/tasks")
     public ResponseEntity<?> getUserTasks(Authentication authentication) {
         Long userId = getUserId(authentication);
-        List<VideoDownloadTask> tasks = downloadService.getUserDownloadTasks(userId);
+        List<VideoDownloadTask> tasks = downloadEngine.getUserDownloadTasks(userId, YoutubeDownloadAdapter.PLATFORM);
         
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -144,12 +150,34 @@ public class VideoDownloadController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 下载中任务（所有平台）的带宽分配和实际吞吐量
+     */
+    @GetMapping("/bandwidth")
+    public ResponseEntity<?> getBandwidth() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("tasks", bandwidthScheduler.snapshot());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 各存储区域的已用空间和预算
+     */
+    @GetMapping("/storage")
+    public ResponseEntity<?> getStorage() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("areas", storageLifecycleManager.usage());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * 获取视频的所有下载任务
      */
     @GetMapping("/video/{videoId}/tasks")
     public ResponseEntity<?> getVideoTasks(@PathVariable Long videoId) {
-        List<VideoDownloadTask> tasks = downloadService.getVideoDownloadTasks(videoId);
+        List<VideoDownloadTask> tasks = downloadEngine.getVideoDownloadTasks(YoutubeDownloadAdapter.PLATFORM, videoId);
         
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -164,7 +192,7 @@ public class VideoDownloadController {
     @GetMapping("/file/{taskId}")
     public ResponseEntity<Resource> downloadFile(@PathVariable Long taskId) {
         try {
-            VideoDownloadTask task = downloadService.getTaskDetails(taskId);
+            VideoDownloadTask task = downloadEngine.getTaskDetails(taskId);
             
             if (!"SUCCESS".equals(task.getStatus()) || task.getOutputFile() == null) {
                 return ResponseEntity.notFound().build();
@@ -177,8 +205,9 @@ public class VideoDownloadController {
             
             Resource resource = new FileSystemResource(file);
             
-            // 获取文件名（已经是清理后的标题）
-            String filename = file.getName();
+            // 下载文件名：视频标题（存储中的文件按内容键命名）
+            String filename = downloadEngine.getDownloadFilename(task);
+            storageLifecycleManager.touch(task.getOutputFile());
             
             // URL 编码文件名以支持中文和特殊字符
             String encodedFilename;
@@ -208,7 +237,7 @@ public class VideoDownloadController {
     @DeleteMapping("/tasks/{taskId}")
     public ResponseEntity<?> deleteTask(@PathVariable Long taskId) {
         try {
-            downloadService.deleteDownloadTask(taskId);
+            downloadEngine.deleteDownloadTask(taskId);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -231,18 +260,19 @@ public class VideoDownloadController {
     public ResponseEntity<?> quickDownload(
             @PathVariable Long videoId,
             @RequestParam(defaultValue = "video") String type,
+            @RequestParam(defaultValue = "normal") String priority,
             Authentication authentication) {
         
         try {
             Long userId = getUserId(authentication);
             
             // 使用默认设置创建任务
-            VideoDownloadTask task = downloadService.createDownloadTask(
-                videoId, type, null, "best", userId
+            VideoDownloadTask task = downloadEngine.createDownloadTask(
+                YoutubeDownloadAdapter.PLATFORM, videoId, type, null, "best", priority, userId
             );
             
-            // 异步开始下载
-            downloadService.executeDownloadAsync(task.getId());
+            // 加入下载队列
+            downloadEngine.submit(task.getId());
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -263,18 +293,7 @@ public class VideoDownloadController {
      * 从请求中获取用户 ID
      */
     private Long getUserId(Authentication authentication) {
-        Long userId = 0L;
-        
-        if (authentication != null && authentication.isAuthenticated() 
-            && !"anonymousUser".equals(authentication.getPrincipal())) {
-            String username = authentication.getName();
-            Optional<User> userOpt = userRepository.findByUsername(username);
-            if (userOpt.isPresent()) {
-                userId = userOpt.get().getId();
-            }
-        }
-        
-        return userId;
+        return currentUserResolver.resolveUserId(authentication, 0L);
     }
 }
 
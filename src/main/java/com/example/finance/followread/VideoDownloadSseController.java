@@ -17,10 +17,10 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 public class VideoDownloadSseController {
 
     @Autowired
-    private VideoDownloadService downloadService;
+    private DownloadEngine downloadEngine;
 
     @GetMapping(value = "/progress/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public SseEmitter streamProgress() {
-        return downloadService.createSseEmitter();
+        return downloadEngine.createSseEmitter(YoutubeDownloadAdapter.PLATFORM);
     }
 }
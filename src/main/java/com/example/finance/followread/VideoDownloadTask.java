@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 public class VideoDownloadTask {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "video_download_tasks_seq")
+    @SequenceGenerator(name = "video_download_tasks_seq", sequenceName = "video_download_tasks_seq", allocationSize = 50)
     private Long id;
     
     // 关联的 YouTube 视频
@@ -42,7 +43,7 @@ public class VideoDownloadTask {
     @Column(name = "quality")
     private String quality;
     
-    // 任务状态: INIT, PARSING, DOWNLOADING, MERGING, SUCCESS, FAILED
+    // 任务状态: INIT, QUEUED, PARSING, DOWNLOADING, SUCCESS, FAILED, EXPIRED（文件已被存储管理淘汰）
     @Column(name = "status")
     private String status;
     
@@ -89,6 +90,22 @@ public class VideoDownloadTask {
     // 创建者 ID
     @Column(name = "created_by")
     private Long createdBy;
+
+    // 下载优先级: 0 低, 1 普通, 2 高（见 BandwidthScheduler）
+    @Column(name = "priority")
+    private Integer priority;
+
+    // 当前下载进程的分片并发数
+    @Column(name = "concurrent_fragments")
+    private Integer concurrentFragments;
+
+    // 当前下载进程的限速（字节/秒，0 表示不限速）
+    @Column(name = "rate_limit")
+    private Long rateLimit;
+
+    // 实际平均下载速度（字节/秒），下载结束时记录
+    @Column(name = "average_speed")
+    private Long averageSpeed;
     
     @PrePersist
     protected void onCreate() {
@@ -99,6 +116,9 @@ public class VideoDownloadTask {
         if (progress == null) {
             progress = 0;
         }
+        if (priority == null) {
+            priority = BandwidthScheduler.PRIORITY_NORMAL;
+        }
     }
 
     // Getters and Setters
@@ -261,5 +281,36 @@ public class VideoDownloadTask {
     public void setCreatedBy(Long createdBy) {
         this.createdBy = createdBy;
     }
-}
 
+    public Integer getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
+
+    public Integer getConcurrentFragments() {
+        return concurrentFragments;
+    }
+
+    public void setConcurrentFragments(Integer concurrentFragments) {
+        this.concurrentFragments = concurrentFragments;
+    }
+
+    public Long getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(Long rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    public Long getAverageSpeed() {
+        return averageSpeed;
+    }
+
+    public void setAverageSpeed(Long averageSpeed) {
+        this.averageSpeed = averageSpeed;
+    }
+}
@@ -1,8 +1,13 @@
 package com.example.finance.followread;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,6 +15,8 @@ import java.util.Optional;
 public interface VideoDownloadTaskRepository extends JpaRepository<VideoDownloadTask, Long> {
     
     List<VideoDownloadTask> findByCreatedByOrderByCreatedAtDesc(Long userId);
+
+    List<VideoDownloadTask> findByCreatedByAndPlatformOrderByCreatedAtDesc(Long userId, String platform);
     
     List<VideoDownloadTask> findByYoutubeVideoId(Long youtubeVideoId);
     
@@ -18,5 +25,45 @@ public interface VideoDownloadTaskRepository extends JpaRepository<VideoDownload
     Optional<VideoDownloadTask> findByIdAndCreatedBy(Long id, Long userId);
     
     List<VideoDownloadTask> findByStatus(String status);
+
+    List<VideoDownloadTask> findByStatusIn(Collection<String> statuses);
+
+    /**
+     * 视频下载成功的任务的输出文件（删除视频时释放文件用）
+     */
+    @Query("select t.outputFile from VideoDownloadTask t where t.youtubeVideoId = :videoId and t.outputFile is not null "
+        + "and t.status = 'SUCCESS'")
+    List<String> findOutputFilesByYoutubeVideoId(@Param("videoId") Long youtubeVideoId);
+
+    /**
+     * 输出文件被存储清理淘汰：下载成功的任务改为 EXPIRED（走 output_file 索引）
+     */
+    @Modifying
+    @Transactional
+    @Query("update VideoDownloadTask t set t.status = 'EXPIRED', t.progressMessage = :message "
+        + "where t.outputFile = :file and t.status = 'SUCCESS'")
+    int expireByOutputFile(@Param("file") String file, @Param("message") String message);
+
+    /**
+     * 批量删除视频的全部下载任务
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from VideoDownloadTask t where t.youtubeVideoId = :videoId")
+    int deleteAllByYoutubeVideoId(@Param("videoId") Long youtubeVideoId);
+
+    /**
+     * 只更新下载进度相关字段（仅在下载中状态生效，避免覆盖已完成/失败的任务）
+     */
+    @Modifying
+    @Query("update VideoDownloadTask t set t.progress = :progress, t.progressMessage = :message, "
+        + "t.downloadSpeed = :speed, t.downloadedBytes = :downloadedBytes, t.totalBytes = :totalBytes "
+        + "where t.id = :id and t.status = 'DOWNLOADING'")
+    int updateDownloadProgress(@Param("id") Long id,
+                               @Param("progress") Integer progress,
+                               @Param("message") String message,
+                               @Param("speed") String speed,
+                               @Param("downloadedBytes") Long downloadedBytes,
+                               @Param("totalBytes") Long totalBytes);
 }
 
@@ -0,0 +1,94 @@
+package com.example.finance.followread;
+
+import com.example.finance.CurrentUserResolver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 词汇索引查询：视频中的生词、覆盖指定词表的视频
+ */
+@RestController
+@RequestMapping("/api/vocabulary")
+@CrossOrigin(origins = "*")
+public class VocabularyController {
+
+    private static final int MAX_LIMIT = 500;
+
+    @Autowired
+    private VocabularyIndex vocabularyIndex;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
+    /**
+     * 视频中最值得学的生词
+     */
+    @GetMapping("/videos/{id}/unknown-words")
+    public ResponseEntity<?> getUnknownWords(@PathVariable Long id,
+                                             @RequestParam(defaultValue = "50") int limit,
+                                             Authentication authentication) {
+        try {
+            List<Map<String, Object>> words = vocabularyIndex.topUnknownWords(id, getUserId(authentication), clamp(limit));
+            if (words == null) {
+                Map<String, Object> error = new HashMap<>();
+                error.put("error", "视频未解析完成或不存在");
+                error.put("indexing", !vocabularyIndex.isLoaded());
+                return ResponseEntity.status(404).body(error);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("videoId", id);
+            response.put("words", words);
+            response.put("indexing", !vocabularyIndex.isLoaded());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * 覆盖词表最多的视频
+     *
+     * 请求体: {"words": ["economy", "inflation"], "limit": 20, "mine": true}，mine 为 true 时只查当前用户的视频
+     */
+    @PostMapping("/coverage")
+    public ResponseEntity<?> getCoverage(@RequestBody Map<String, Object> request, Authentication authentication) {
+        try {
+            Object words = request.get("words");
+            if (!(words instanceof Collection<?> list) || list.isEmpty()) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "words is required");
+                return ResponseEntity.badRequest().body(error);
+            }
+            List<String> wordList = list.stream().filter(w -> w != null).map(Object::toString).toList();
+            int limit = request.get("limit") instanceof Number number ? number.intValue() : 20;
+            Long userId = Boolean.TRUE.equals(request.get("mine")) ? getUserId(authentication) : null;
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("videos", vocabularyIndex.videosCovering(wordList, userId, clamp(limit)));
+            response.put("indexing", !vocabularyIndex.isLoaded());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    private Long getUserId(Authentication authentication) {
+        return currentUserResolver.resolveUserId(authentication, 0L);
+    }
+}
@@ -0,0 +1,504 @@
+package com.example.finance.followread;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 词汇索引：统计每个视频、每个用户（视频的 createdBy）字幕中各词出现的次数
+ *
+ * 增量维护，不做全量重扫：
+ * - 字幕解析完成时用内存中的字幕片段建立该视频的词频（重新解析时替换旧的），并累加到所属用户
+ * - 解析失败或删除视频时从用户汇总中减掉该视频的词频（删除在事务提交后生效）
+ * 只有启动时在后台把已完成的视频逐个载入一次。
+ *
+ * 英文等按空白分词并转小写（与 {@link DifficultyModel#normalizeWord} 一致），中日韩按单个汉字/韩文音节统计。
+ * 词先编号（只增不减），视频词频是按编号排序的 int[] + 次数 int[]，用户汇总是开放寻址的 int → int 表，
+ * 每个视频的内存约为 8 字节 × 不同词数。
+ */
+@Component
+public class VocabularyIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(VocabularyIndex.class);
+
+    @Autowired
+    private YoutubeVideoRepository videoRepository;
+
+    @Autowired
+    private SubtitleSegmentRepository segmentRepository;
+
+    @Autowired
+    private SubtitleSentenceProcessor sentenceProcessor;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // 词 → 编号
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final Map<Long, VideoTerms> videos = new HashMap<>();
+    private final Map<Long, TermCounts> users = new HashMap<>();
+    // 启动载入期间被删除的视频，载入时跳过
+    private final Set<Long> removedDuringLoad = new HashSet<>();
+    private volatile boolean loaded;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "vocabulary-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 一个视频的词频：terms 按编号升序，counts 为对应次数
+     */
+    static final class VideoTerms {
+        final long videoId;
+        final Long userId;
+        final boolean characterBased;
+        final int[] terms;
+        final int[] counts;
+        final int tokens;
+
+        VideoTerms(long videoId, Long userId, boolean characterBased, int[] terms, int[] counts, int tokens) {
+            this.videoId = videoId;
+            this.userId = userId;
+            this.characterBased = characterBased;
+            this.terms = terms;
+            this.counts = counts;
+            this.tokens = tokens;
+        }
+
+        int count(int term) {
+            int i = Arrays.binarySearch(terms, term);
+            return i >= 0 ? counts[i] : 0;
+        }
+    }
+
+    /**
+     * 用户汇总：词编号 → (总次数, 出现该词的视频数)，开放寻址，容量为 2 的幂
+     */
+    static final class TermCounts {
+        private int[] keys = new int[64];
+        private int[] counts = new int[64];
+        private int[] videos = new int[64];
+        private int size;
+
+        void add(int term, int count, int videoDelta) {
+            int slot = slot(term);
+            if (keys[slot] == 0) {
+                keys[slot] = term + 1;
+                if (++size * 2 > keys.length) {
+                    grow();
+                    slot = slot(term);
+                }
+            }
+            counts[slot] += count;
+            videos[slot] += videoDelta;
+        }
+
+        int count(int term) {
+            int slot = slot(term);
+            return keys[slot] == 0 ? 0 : counts[slot];
+        }
+
+        int videos(int term) {
+            int slot = slot(term);
+            return keys[slot] == 0 ? 0 : videos[slot];
+        }
+
+        private int slot(int term) {
+            int mask = keys.length - 1;
+            int slot = (term * 0x9E3779B9) >>> 7 & mask;
+            while (keys[slot] != 0 && keys[slot] != term + 1) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            int[] oldVideos = videos;
+            keys = new int[oldKeys.length * 2];
+            counts = new int[keys.length];
+            videos = new int[keys.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = slot(oldKeys[i] - 1);
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                    videos[slot] = oldVideos[i];
+                }
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        executor.execute(this::loadExisting);
+    }
+
+    /**
+     * 启动时载入已解析完成的视频（已被解析事件索引过的跳过）
+     */
+    private void loadExisting() {
+        long started = System.nanoTime();
+        int count = 0;
+        try {
+            for (Object[] row : videoRepository.findCompletedSubtitleLanguages()) {
+                Long videoId = (Long) row[0];
+                if (isIndexed(videoId)) {
+                    continue;
+                }
+                List<SubtitleSegment> segments = segmentRepository.findByVideoIdOrderBySegmentOrder(videoId);
+                VideoTerms entry = build(videoId, (Long) row[2], (String) row[1], segments);
+                lock.writeLock().lock();
+                try {
+                    if (!videos.containsKey(videoId) && !removedDuringLoad.contains(videoId)) {
+                        put(entry);
+                        count++;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            log.info("词汇索引载入完成: {} 个视频, {} 个词, 耗时 {} ms",
+                count, terms.size(), (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            log.error("词汇索引载入失败，只包含之后解析的视频", e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                removedDuringLoad.clear();
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * 字幕解析完成后索引视频（重新解析时替换旧的词频）
+     */
+    public void indexVideo(YoutubeVideo video, List<SubtitleSegment> segments) {
+        VideoTerms entry = build(video.getId(), video.getCreatedBy(), video.getSubtitleLanguage(), segments);
+        lock.writeLock().lock();
+        try {
+            remove(video.getId());
+            put(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 从索引中移除视频；在事务中调用时等事务提交后才移除
+     */
+    public void removeVideo(Long videoId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeNow(videoId);
+                }
+            });
+        } else {
+            removeNow(videoId);
+        }
+    }
+
+    private void removeNow(Long videoId) {
+        lock.writeLock().lock();
+        try {
+            remove(videoId);
+            if (!loaded) {
+                removedDuringLoad.add(videoId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    private boolean isIndexed(Long videoId) {
+        lock.readLock().lock();
+        try {
+            return videos.containsKey(videoId) || removedDuringLoad.contains(videoId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 视频中最值得学的词：不在常用词表中（按 {@link DifficultyModel} 排名），
+     * 按"本视频出现次数 ×（1 + ln 用户库中出现该词的视频数）"排序，在用户其他视频里反复出现的词靠前
+     *
+     * @return 视频未索引时返回 null
+     */
+    public List<Map<String, Object>> topUnknownWords(Long videoId, Long userId, int limit) {
+        DifficultyModel model = sentenceProcessor.getDifficultyModel();
+        lock.readLock().lock();
+        try {
+            VideoTerms video = videos.get(videoId);
+            if (video == null) {
+                return null;
+            }
+            TermCounts library = users.get(userId != null && userId > 0 ? userId : video.userId);
+            int n = video.terms.length;
+            int[] candidates = new int[n];
+            double[] scores = new double[n];
+            double[] rarities = new double[n];
+            int found = 0;
+            for (int i = 0; i < n; i++) {
+                String term = terms.get(video.terms[i]);
+                double rarity = rarity(model, term, video.characterBased);
+                if (rarity <= 0) {
+                    continue;
+                }
+                int libraryVideos = library != null ? Math.max(library.videos(video.terms[i]), 1) : 1;
+                candidates[found] = i;
+                scores[found] = video.counts[i] * (1 + Math.log(libraryVideos));
+                rarities[found] = rarity;
+                found++;
+            }
+            Integer[] order = new Integer[found];
+            for (int k = 0; k < found; k++) {
+                order[k] = k;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+
+            List<Map<String, Object>> words = new ArrayList<>();
+            for (int k = 0; k < found && k < limit; k++) {
+                int i = candidates[order[k]];
+                int term = video.terms[i];
+                Map<String, Object> word = new LinkedHashMap<>();
+                word.put("word", terms.get(term));
+                word.put("count", video.counts[i]);
+                word.put("libraryCount", library != null ? library.count(term) : video.counts[i]);
+                word.put("libraryVideos", library != null ? library.videos(term) : 1);
+                word.put("rarity", Math.round(rarities[order[k]] * 100) / 100.0);
+                words.add(word);
+            }
+            return words;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 覆盖词表最多的视频：按包含的不同词数、再按这些词的总出现次数排序
+     *
+     * @param userId 不为 null 时只在该用户的视频中查找
+     */
+    public List<Map<String, Object>> videosCovering(Collection<String> words, Long userId, int limit) {
+        lock.readLock().lock();
+        try {
+            // 查询词去重：英文转小写，中日韩词拆成单字（索引按字统计）
+            Set<String> queryTerms = new LinkedHashSet<>();
+            for (String word : words) {
+                addQueryTerms(word, queryTerms);
+            }
+            List<String> matchedWords = new ArrayList<>();
+            List<Integer> wanted = new ArrayList<>();
+            for (String term : queryTerms) {
+                Integer id = termIds.get(term);
+                if (id != null) {
+                    wanted.add(id);
+                    matchedWords.add(term);
+                }
+            }
+            List<Map<String, Object>> results = new ArrayList<>();
+            if (wanted.isEmpty()) {
+                return results;
+            }
+            List<long[]> ranked = new ArrayList<>();
+            for (VideoTerms video : videos.values()) {
+                if (userId != null && !userId.equals(video.userId)) {
+                    continue;
+                }
+                int covered = 0;
+                long occurrences = 0;
+                for (int term : wanted) {
+                    int count = video.count(term);
+                    if (count > 0) {
+                        covered++;
+                        occurrences += count;
+                    }
+                }
+                if (covered > 0) {
+                    ranked.add(new long[]{video.videoId, covered, occurrences});
+                }
+            }
+            ranked.sort((a, b) -> a[1] != b[1] ? Long.compare(b[1], a[1]) : Long.compare(b[2], a[2]));
+            for (int k = 0; k < ranked.size() && k < limit; k++) {
+                long[] row = ranked.get(k);
+                VideoTerms video = videos.get(row[0]);
+                List<String> present = new ArrayList<>();
+                for (int w = 0; w < wanted.size(); w++) {
+                    if (video.count(wanted.get(w)) > 0) {
+                        present.add(matchedWords.get(w));
+                    }
+                }
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("id", row[0]);
+                result.put("covered", row[1]);
+                result.put("coverage", Math.round(row[1] * 1000.0 / queryTerms.size()) / 1000.0);
+                result.put("occurrences", row[2]);
+                result.put("tokens", video.tokens);
+                result.put("words", present);
+                results.add(result);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static double rarity(DifficultyModel model, String term, boolean characterBased) {
+        if (characterBased) {
+            return DifficultyModel.rarity(model.charRank(term.codePointAt(0)), true);
+        }
+        int rank = model.wordRank(term, 0, term.length(), true);
+        return rank < 0 ? 0 : DifficultyModel.rarity(rank, false);
+    }
+
+    /**
+     * 统计字幕片段的词频（不持有锁，词编号在 put 时分配）
+     */
+    private VideoTerms build(long videoId, Long userId, String language, List<SubtitleSegment> segments) {
+        boolean characterBased = SubtitleLanguage.isCjk(language);
+        Map<String, int[]> counts = new HashMap<>();
+        int tokens = 0;
+        for (SubtitleSegment segment : segments) {
+            String text = segment.getCleanText();
+            if (text == null) {
+                continue;
+            }
+            if (characterBased) {
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    if (DifficultyModel.isHan(c) || DifficultyModel.isHangul(c)) {
+                        counts.computeIfAbsent(String.valueOf(c), key -> new int[1])[0]++;
+                        tokens++;
+                    }
+                }
+                continue;
+            }
+            int len = text.length();
+            int i = 0;
+            while (i < len) {
+                while (i < len && SentenceTokenizer.isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+                int start = i;
+                while (i < len && !SentenceTokenizer.isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+                String term = i > start ? DifficultyModel.normalizeWord(text.substring(start, i)) : null;
+                if (term != null) {
+                    counts.computeIfAbsent(term, key -> new int[1])[0]++;
+                    tokens++;
+                }
+            }
+        }
+        // 词编号在写锁内分配，排序和建数组在锁外
+        String[] words = counts.keySet().toArray(new String[0]);
+        long[] packed = new long[words.length];
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < words.length; i++) {
+                packed[i] = (long) termId(words[i]) << 32 | i;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Arrays.sort(packed);
+        int[] termArray = new int[words.length];
+        int[] countArray = new int[words.length];
+        for (int k = 0; k < packed.length; k++) {
+            termArray[k] = (int) (packed[k] >>> 32);
+            countArray[k] = counts.get(words[(int) packed[k]])[0];
+        }
+        return new VideoTerms(videoId, userId, characterBased, termArray, countArray, tokens);
+    }
+
+    private int termId(String term) {
+        Integer id = termIds.get(term);
+        if (id == null) {
+            id = terms.size();
+            termIds.put(term, id);
+            terms.add(term);
+        }
+        return id;
+    }
+
+    private static void addQueryTerms(String word, Set<String> out) {
+        if (word == null) {
+            return;
+        }
+        boolean cjk = false;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (DifficultyModel.isHan(c) || DifficultyModel.isHangul(c)) {
+                out.add(String.valueOf(c));
+                cjk = true;
+            }
+        }
+        if (!cjk) {
+            String term = DifficultyModel.normalizeWord(word.trim());
+            if (term != null) {
+                out.add(term);
+            }
+        }
+    }
+
+    private void put(VideoTerms entry) {
+        videos.put(entry.videoId, entry);
+        if (entry.userId != null) {
+            TermCounts library = users.computeIfAbsent(entry.userId, id -> new TermCounts());
+            for (int i = 0; i < entry.terms.length; i++) {
+                library.add(entry.terms[i], entry.counts[i], 1);
+            }
+        }
+    }
+
+    private void remove(Long videoId) {
+        VideoTerms old = videos.remove(videoId);
+        if (old == null || old.userId == null) {
+            return;
+        }
+        TermCounts library = users.get(old.userId);
+        if (library != null) {
+            for (int i = 0; i < old.terms.length; i++) {
+                library.add(old.terms[i], -old.counts[i], -1);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.finance.followread;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * VTT 字幕解析：把 VTT 文本行解析为字幕片段（不涉及文件查找和持久化）
+ *
+ * 支持普通 VTT 和 YouTube 自动字幕的滚动格式（每个 cue 包含旧行 + 带 {@code <c>} 标签的新行）。
+ */
+@Component
+public class VttSubtitleParser {
+
+    // YouTube 自动字幕中的逐词时间戳，如 <00:00:01.234>
+    private static final Pattern WORD_TIMESTAMP = Pattern.compile("<\\d{2}:\\d{2}:\\d{2}\\.\\d{3}>");
+    // 行内的时间戳和 <c> 标签
+    private static final Pattern WORD_TAG = Pattern.compile("<[^>]*>");
+
+    // 单个词的最长时长：自动字幕只给出每个词的开始时间，词的结束时间取下一个词的开始时间，
+    // 但不超过这个上限，这样词之间的停顿才能体现出来
+    static final double MAX_WORD_DURATION = 1.2;
+
+    private final SubtitleTextNormalizer normalizer;
+
+    public VttSubtitleParser(SubtitleTextNormalizer normalizer) {
+        this.normalizer = normalizer;
+    }
+
+    /**
+     * 解析 VTT 文本行
+     *
+     * @param language 字幕语言，决定文本清洗策略（可为 null）
+     */
+    public List<SubtitleSegment> parse(List<String> lines, Long videoId, String language) {
+        List<SubtitleSegment> segments = new ArrayList<>();
+        boolean cjk = SubtitleLanguage.isCjk(language);
+
+        // 检测是否为 YouTube 自动生成字幕（滚动格式：每个 cue 包含旧行 + 新行）
+        boolean isRollingFormat = false;
+        for (String l : lines) {
+            if (l.contains("<c>") || WORD_TIMESTAMP.matcher(l).find()) {
+                isRollingFormat = true;
+                break;
+            }
+        }
+
+        int order = 0;
+        int i = 0;
+        // 滚动字幕中上一个 cue 的最后一行，下一个 cue 会把它去掉标签后作为旧行重复一次
+        String previousRollingLine = null;
+
+        while (i < lines.size()) {
+            String line = lines.get(i).trim();
+
+            // 跳过 WEBVTT 头部和空行
+            if (line.isEmpty() || line.startsWith("WEBVTT") || line.startsWith("NOTE") || line.startsWith("Kind:") || line.startsWith("Language:")) {
+                i++;
+                continue;
+            }
+
+            // 时间戳行格式: 00:00:00.000 --> 00:00:03.000 [可能有额外属性]
+            if (line.contains("-->")) {
+                String[] times = line.split("-->");
+                // 清理时间戳，移除额外的属性（如 align:start position:0%）
+                String startTimeStr = times[0].trim();
+                String endTimeStr = times[1].trim().split("\\s+")[0]; // 只取第一个空格前的部分
+
+                double startTime = parseVttTime(startTimeStr);
+                double endTime = parseVttTime(endTimeStr);
+
+                // 读取 cue 中所有文本行
+                i++;
+                // 滚动字幕的第一个 cue（以及长时间静音之后）用只含空格的行占位旧行，跳过占位行而不是当作 cue 结束
+                if (isRollingFormat && i + 1 < lines.size() && !lines.get(i).isEmpty() && lines.get(i).trim().isEmpty()
+                        && !lines.get(i + 1).trim().isEmpty() && !lines.get(i + 1).contains("-->")) {
+                    i++;
+                }
+                List<String> cueLines = new ArrayList<>();
+                while (i < lines.size() && !lines.get(i).trim().isEmpty() && !lines.get(i).contains("-->")) {
+                    cueLines.add(lines.get(i).trim());
+                    i++;
+                }
+
+                // 跳过零时长的 cue（YouTube 用来清屏旧文本的）
+                if (endTime - startTime < 0.05) {
+                    continue;
+                }
+
+                String rawText;
+                List<WordTiming> wordTimings = null;
+                if (isRollingFormat) {
+                    // YouTube 滚动字幕格式：只取包含 <c> 标签的行（新内容行）
+                    // 另一行是上一条已显示过的纯文本（重复内容），跳过
+                    StringBuilder newContent = new StringBuilder();
+                    for (String cueLine : cueLines) {
+                        if (cueLine.contains("<c>") || WORD_TIMESTAMP.matcher(cueLine).find()) {
+                            newContent.append(cueLine).append(" ");
+                            if (wordTimings == null) {
+                                wordTimings = new ArrayList<>();
+                            }
+                            parseWordTimings(cueLine, startTime, endTime, cjk, wordTimings);
+                        }
+                    }
+                    rawText = newContent.toString().trim();
+                    // 如果没有带标签的行，说明不是滚动格式的 cue，取所有行
+                    // （跳过与上一条新内容相同的行，避免滚动字幕的旧行重复出现，如 [Music] 之类的无时间戳行）
+                    if (rawText.isEmpty()) {
+                        StringBuilder sb = new StringBuilder();
+                        for (String cueLine : cueLines) {
+                            if (previousRollingLine == null
+                                    || !cueLine.equals(WORD_TAG.matcher(previousRollingLine).replaceAll(""))) {
+                                sb.append(cueLine).append(" ");
+                            }
+                        }
+                        rawText = sb.toString().trim();
+                    }
+                    if (!cueLines.isEmpty()) {
+                        previousRollingLine = cueLines.get(cueLines.size() - 1);
+                    }
+                } else {
+                    // 普通 VTT：取所有行
+                    StringBuilder sb = new StringBuilder();
+                    for (String cueLine : cueLines) {
+                        sb.append(cueLine).append(" ");
+                    }
+                    rawText = sb.toString().trim();
+                }
+
+                if (!rawText.isEmpty()) {
+                    SubtitleSegment segment = new SubtitleSegment();
+                    segment.setVideoId(videoId);
+                    segment.setStartTime(startTime);
+                    segment.setEndTime(endTime);
+                    segment.setRawText(rawText);
+                    segment.setCleanText(normalizer.normalize(rawText, cjk)); // 传入语言参数
+                    segment.setSegmentOrder(order++);
+                    if (wordTimings != null && !wordTimings.isEmpty()) {
+                        segment.setWordTimings(wordTimings);
+                    }
+                    segments.add(segment);
+                }
+            } else {
+                i++;
+            }
+        }
+        
+        return segments;
+    }
+
+    /**
+     * 解析滚动字幕新内容行中的逐词时间戳
+     *
+     * 格式：{@code so<00:00:00.480><c> today</c><00:00:00.719><c> i</c>}，第一个词从 cue 开始时间算起，
+     * 之后每个时间戳是紧随其后那个词的开始时间。每个词单独清洗，清洗后为空的词丢弃。
+     */
+    void parseWordTimings(String line, double cueStart, double cueEnd, boolean cjk, List<WordTiming> out) {
+        int firstNew = out.size();
+        double wordStart = cueStart;
+        StringBuilder chunk = new StringBuilder();
+        int len = line.length();
+        int pos = 0;
+        while (pos < len) {
+            char c = line.charAt(pos);
+            if (c == '<') {
+                int close = line.indexOf('>', pos + 1);
+                if (close > 0) {
+                    if (isTimestampTag(line, pos, close)) {
+                        addWord(chunk, wordStart, cjk, out);
+                        chunk.setLength(0);
+                        wordStart = Math.max(wordStart, timestampTagSeconds(line, pos + 1));
+                    }
+                    // <c>、</c>、<c.color> 等样式标签直接跳过
+                    pos = close + 1;
+                    continue;
+                }
+            }
+            chunk.append(c);
+            pos++;
+        }
+        addWord(chunk, wordStart, cjk, out);
+
+        // 结束时间：下一个词的开始时间（最后一个词取 cue 结束时间），不超过 MAX_WORD_DURATION
+        for (int k = firstNew; k < out.size(); k++) {
+            WordTiming word = out.get(k);
+            double next = k + 1 < out.size() ? out.get(k + 1).getStartTime() : cueEnd;
+            word.setEndTime(Math.max(word.getStartTime(), Math.min(next, word.getStartTime() + MAX_WORD_DURATION)));
+        }
+    }
+
+    /**
+     * line[open, close] 是否是 <hh:mm:ss.mmm> 形式的时间戳
+     */
+    private static boolean isTimestampTag(String line, int open, int close) {
+        if (close - open != 13) return false;
+        for (int k = 1; k <= 12; k++) {
+            char c = line.charAt(open + k);
+            boolean separator = k == 3 || k == 6 || k == 9;
+            if (separator ? c != (k == 9 ? '.' : ':') : (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double timestampTagSeconds(String line, int from) {
+        int hours = digits(line, from, 2);
+        int minutes = digits(line, from + 3, 2);
+        int seconds = digits(line, from + 6, 2);
+        int millis = digits(line, from + 9, 3);
+        return hours * 3600 + minutes * 60 + seconds + millis / 1000.0;
+    }
+
+    private static int digits(String line, int from, int count) {
+        int value = 0;
+        for (int k = 0; k < count; k++) {
+            value = value * 10 + (line.charAt(from + k) - '0');
+        }
+        return value;
+    }
+
+    private void addWord(StringBuilder chunk, double start, boolean cjk, List<WordTiming> out) {
+        if (chunk.length() == 0) return;
+        String text = normalizer.normalize(chunk.toString(), cjk);
+        if (text.isEmpty()) return;
+        // 英文词之间总有空格；中日韩文本只有原文带空格时才保留
+        boolean spaceBefore = !cjk || Character.isWhitespace(chunk.charAt(0));
+        out.add(new WordTiming(text, start, start, spaceBefore));
+    }
+
+    /**
+     * 解析 VTT 时间戳（格式: 00:00:00.000 或 00:00.000）
+     */
+    double parseVttTime(String timeStr) {
+        String[] parts = timeStr.split(":");
+        double seconds = 0;
+        
+        if (parts.length == 3) {
+            // HH:MM:SS.mmm
+            seconds = Integer.parseInt(parts[0]) * 3600 +
+                     Integer.parseInt(parts[1]) * 60 +
+                     Double.parseDouble(parts[2]);
+        } else if (parts.length == 2) {
+            // MM:SS.mmm
+            seconds = Integer.parseInt(parts[0]) * 60 +
+                     Double.parseDouble(parts[1]);
+        }
+        
+        return seconds;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.finance.followread;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 按空白分词（英文等拉丁语言）
+ */
+public class WhitespaceSentenceTokenizer implements SentenceTokenizer {
+
+    // Filler words to remove (English)
+    static final Set<String> FILLER_WORDS_EN = new HashSet<>(Arrays.asList(
+        "uh", "um", "you know", "like", "so", "well", "actually", "basically", "literally"
+    ));
+
+    // 句点不表示句末的常见缩写（小写、不含结尾句点）；同时是普通单词的缩写（no、co、st、est、mar、dec）不收录，
+    // 否则 "The answer is no." 这样的句子不会断开
+    private static final Set<String> ABBREVIATIONS = new HashSet<>(Arrays.asList(
+        "mr", "mrs", "ms", "dr", "prof", "sr", "jr", "mt", "vs", "vol", "fig",
+        "inc", "ltd", "corp", "dept", "approx", "ave", "jan", "feb", "apr",
+        "jun", "jul", "aug", "sep", "sept", "oct", "nov"
+    ));
+
+    public static final WhitespaceSentenceTokenizer ENGLISH = new WhitespaceSentenceTokenizer(FILLER_WORDS_EN);
+
+    private final Set<String> fillerWords;
+    // 填充词的最大字母数，超过的词不需要再查表
+    private final int maxFillerLength;
+
+    public WhitespaceSentenceTokenizer(Set<String> fillerWords) {
+        this.fillerWords = fillerWords;
+        this.maxFillerLength = fillerWords.stream().mapToInt(String::length).max().orElse(0);
+    }
+
+    @Override
+    public void tokenize(String text, double start, double end, boolean spaceBefore, List<WordTiming> out) {
+        int len = text.length();
+        int i = 0;
+        boolean first = true;
+        while (i < len) {
+            while (i < len && SentenceTokenizer.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (i >= len) break;
+            int from = i;
+            while (i < len && !SentenceTokenizer.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            out.add(SentenceTokenizer.interpolate(text, from, i, start, end, !first || spaceBefore));
+            first = false;
+        }
+    }
+
+    /**
+     * 以 . ! ? 或省略号结尾的词是句末；以 . 结尾的常见缩写（Mr. Dr. e.g.）、
+     * 单个字母缩写（J.）和带内部句点的缩写（U.S.）不算
+     */
+    @Override
+    public boolean endsSentence(String word) {
+        int end = SentenceTokenizer.stripClosing(word);
+        if (end == 0) return false;
+        char last = word.charAt(end - 1);
+        if (last == '!' || last == '?' || last == '…') return true;
+        if (last != '.') return false;
+        // 省略号
+        if (end >= 3 && word.charAt(end - 2) == '.' && word.charAt(end - 3) == '.') return true;
+
+        String stem = word.substring(0, end - 1).toLowerCase();
+        if (stem.isEmpty()) return true;
+        if (stem.length() == 1 && Character.isLetter(stem.charAt(0))) return false;
+        if (stem.indexOf('.') >= 0 && Character.isLetter(stem.charAt(stem.length() - 1))) return false;
+        return !ABBREVIATIONS.contains(stem);
+    }
+
+    @Override
+    public boolean endsClause(String word) {
+        int end = SentenceTokenizer.stripClosing(word);
+        if (end == 0) return false;
+        char last = word.charAt(end - 1);
+        return last == ',' || last == ';' || last == ':' || last == '-';
+    }
+
+    @Override
+    public int weight(String word) {
+        return 1;
+    }
+
+    /**
+     * 按空白切词，词的小写字母部分命中填充词表时移除，其余词保留原始大小写和标点
+     */
+    @Override
+    public String removeFillerWords(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        StringBuilder key = new StringBuilder(maxFillerLength);
+        int len = text.length();
+        int i = 0;
+        while (i < len) {
+            while (i < len && SentenceTokenizer.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (i >= len) break;
+            int start = i;
+            key.setLength(0);
+            boolean candidate = true;
+            while (i < len && !SentenceTokenizer.isWhitespace(text.charAt(i))) {
+                if (candidate) {
+                    char c = Character.toLowerCase(text.charAt(i));
+                    if (c >= 'a' && c <= 'z') {
+                        if (key.length() < maxFillerLength) {
+                            key.append(c);
+                        } else {
+                            candidate = false;
+                        }
+                    }
+                }
+                i++;
+            }
+            if (candidate && fillerWords.contains(key.toString())) {
+                continue;
+            }
+            if (result.length() > 0) {
+                result.append(' ');
+            }
+            result.append(text, start, i);
+        }
+        return result.toString();
+    }
+
+    @Override
+    public void measure(SentenceUnit unit, DifficultyModel model) {
+        String text = unit.text;
+        int words = 0;
+        int ranked = 0;
+        double rarity = 0;
+        int tokenStart = 0;
+        for (int i = 0, len = text.length(); i <= len; i++) {
+            if (i == len || SentenceTokenizer.isWhitespace(text.charAt(i))) {
+                if (i > tokenStart) {
+                    int rank = model != null ? model.wordRank(text, tokenStart, i, words == 0) : -1;
+                    words++;
+                    if (rank >= 0) {
+                        ranked++;
+                        rarity += DifficultyModel.rarity(rank, false);
+                    }
+                }
+                tokenStart = i + 1;
+            }
+        }
+        unit.wordCount = words;
+        unit.charCount = text.length();
+        unit.cjkCharCount = 0;
+        unit.rankedCount = ranked;
+        unit.rarity = rarity;
+    }
+
+    @Override
+    public boolean isCharacterBased() {
+        return false;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.finance.followread;
+
+/**
+ * 单词级时间信息（来自 YouTube 自动字幕的逐词时间戳，或按字符长度插值）
+ *
+ * 中日韩文本中的"词"是一段连续字符，spaceBefore 表示与前一个词之间是否有空格。
+ */
+public class WordTiming {
+    private final String text;
+    private final double startTime;
+    private double endTime;
+    private final boolean spaceBefore;
+
+    public WordTiming(String text, double startTime, double endTime, boolean spaceBefore) {
+        this.text = text;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.spaceBefore = spaceBefore;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public double getStartTime() {
+        return startTime;
+    }
+
+    public double getEndTime() {
+        return endTime;
+    }
+
+    void setEndTime(double endTime) {
+        this.endTime = endTime;
+    }
+
+    public boolean isSpaceBefore() {
+        return spaceBefore;
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.finance.followread;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 一个视频的逐词时间轨道（紧凑二进制格式）
+ *
+ * 不按词建对象或数据库行，而是两块连续数据：
+ * - timings：每个词 8 字节 (startMs:int, textOffset:int)，大端序，按时间顺序
+ * - text：全部词的 UTF-8 文本首尾相接，第 i 个词是 text[textOffset[i], textOffset[i+1])，
+ *   需要空格的词把前导空格包含在自己的区间里，所以整块 text 就是可直接显示的字幕全文
+ *
+ * 词的结束时间不单独存储：客户端取下一个词的开始时间，不超过 {@link VttSubtitleParser#MAX_WORD_DURATION} 秒。
+ */
+public final class WordTimingTrack {
+
+    // 一个词在 timings 中占用的字节数
+    public static final int BYTES_PER_WORD = 8;
+    // toBinary 的头部：wordCount:int, textLength:int
+    public static final int HEADER_BYTES = 8;
+
+    private final int[] startMs;
+    private final int[] textOffsets;
+    private final byte[] text;
+
+    private WordTimingTrack(int[] startMs, int[] textOffsets, byte[] text) {
+        this.startMs = startMs;
+        this.textOffsets = textOffsets;
+        this.text = text;
+    }
+
+    /**
+     * 从解析出的字幕片段收集逐词时间（只有自动字幕的片段带逐词时间），没有任何词时返回 null
+     */
+    public static WordTimingTrack fromSegments(List<SubtitleSegment> segments) {
+        int count = 0;
+        for (SubtitleSegment segment : segments) {
+            if (segment.getWordTimings() != null) {
+                count += segment.getWordTimings().size();
+            }
+        }
+        if (count == 0) {
+            return null;
+        }
+
+        int[] startMs = new int[count];
+        int[] offsets = new int[count];
+        ByteArrayOutputStream out = new ByteArrayOutputStream(count * 6);
+        int n = 0;
+        int lastStart = 0;
+        for (SubtitleSegment segment : segments) {
+            if (segment.getWordTimings() == null) continue;
+            for (WordTiming word : segment.getWordTimings()) {
+                // 保证开始时间单调不减，二分查找依赖这一点
+                lastStart = Math.max(lastStart, toMillis(word.getStartTime()));
+                startMs[n] = lastStart;
+                offsets[n] = out.size();
+                if (n > 0 && word.isSpaceBefore()) {
+                    out.write(' ');
+                }
+                out.writeBytes(word.getText().getBytes(StandardCharsets.UTF_8));
+                n++;
+            }
+        }
+        return new WordTimingTrack(startMs, offsets, out.toByteArray());
+    }
+
+    /**
+     * 从存储的两块数据还原
+     */
+    public static WordTimingTrack decode(byte[] timings, byte[] text) {
+        if (timings.length % BYTES_PER_WORD != 0) {
+            throw new IllegalArgumentException("逐词时间数据长度错误: " + timings.length);
+        }
+        int count = timings.length / BYTES_PER_WORD;
+        int[] startMs = new int[count];
+        int[] offsets = new int[count];
+        ByteBuffer buffer = ByteBuffer.wrap(timings);
+        for (int k = 0; k < count; k++) {
+            startMs[k] = buffer.getInt();
+            offsets[k] = buffer.getInt();
+        }
+        return new WordTimingTrack(startMs, offsets, text);
+    }
+
+    /**
+     * 打包后的 timings 数据
+     */
+    public byte[] encodeTimings() {
+        ByteBuffer buffer = ByteBuffer.allocate(startMs.length * BYTES_PER_WORD);
+        for (int k = 0; k < startMs.length; k++) {
+            buffer.putInt(startMs[k]);
+            buffer.putInt(textOffsets[k]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * UTF-8 文本数据
+     */
+    public byte[] getText() {
+        return text;
+    }
+
+    public int size() {
+        return startMs.length;
+    }
+
+    /**
+     * 第 index 个词的开始时间（秒）
+     */
+    public double startTime(int index) {
+        return startMs[index] / 1000.0;
+    }
+
+    /**
+     * 第 index 个词的文本（去掉前导空格）
+     */
+    public String word(int index) {
+        return new String(text, textOffsets[index], textEnd(index) - textOffsets[index], StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+     * 给定时间（秒）正在朗读的词：开始时间不晚于该时间的最后一个词，时间早于第一个词时返回 -1
+     */
+    public int indexAt(double seconds) {
+        int target = toMillis(seconds);
+        int lo = 0;
+        int hi = startMs.length - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (startMs[mid] <= target) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 开始时间在 [fromSeconds, toSeconds) 内的词组成的子轨道，文本偏移从 0 重新计算
+     */
+    public WordTimingTrack slice(double fromSeconds, double toSeconds) {
+        int from = firstIndexAtOrAfter(toMillis(fromSeconds));
+        int to = firstIndexAtOrAfter(toMillis(toSeconds));
+        if (from >= to) {
+            return new WordTimingTrack(new int[0], new int[0], new byte[0]);
+        }
+        int textFrom = textOffsets[from];
+        int textTo = textEnd(to - 1);
+        int[] offsets = new int[to - from];
+        for (int k = from; k < to; k++) {
+            offsets[k - from] = textOffsets[k] - textFrom;
+        }
+        return new WordTimingTrack(Arrays.copyOfRange(startMs, from, to), offsets,
+            Arrays.copyOfRange(text, textFrom, textTo));
+    }
+
+    /**
+     * 接口返回的单块二进制：头部 (wordCount:int, textLength:int) + timings + text，大端序
+     */
+    public byte[] toBinary() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + startMs.length * BYTES_PER_WORD + text.length);
+        buffer.putInt(startMs.length);
+        buffer.putInt(text.length);
+        for (int k = 0; k < startMs.length; k++) {
+            buffer.putInt(startMs[k]);
+            buffer.putInt(textOffsets[k]);
+        }
+        buffer.put(text);
+        return buffer.array();
+    }
+
+    private int textEnd(int index) {
+        return index + 1 < textOffsets.length ? textOffsets[index + 1] : text.length;
+    }
+
+    private int firstIndexAtOrAfter(int ms) {
+        int lo = 0;
+        int hi = startMs.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (startMs[mid] < ms) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int toMillis(double seconds) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, Math.round(seconds * 1000)));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.finance.followread;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * YouTube 下载适配器：deno JS 运行时 + 远程组件解决 JS challenge，可选 cookies 文件；
+ * 下载完成后批量提取参考音频特征
+ */
+@Component
+public class YoutubeDownloadAdapter implements DownloadPlatformAdapter {
+
+    public static final String PLATFORM = "youtube";
+
+    @Autowired
+    private YoutubeVideoRepository videoRepository;
+
+    @Autowired
+    private VideoDownloadTaskRepository taskRepository;
+
+    @Autowired
+    private ReferenceFeatureCache referenceFeatureCache;
+
+    @Override
+    public String getPlatform() {
+        return PLATFORM;
+    }
+
+    @Override
+    public void bindVideo(VideoDownloadTask task, Long platformVideoId) {
+        YoutubeVideo video = videoRepository.findById(platformVideoId)
+            .orElseThrow(() -> new RuntimeException("Video not found"));
+        task.setYoutubeVideoId(platformVideoId);
+        task.setVideoId(video.getVideoId());
+    }
+
+    @Override
+    public Source resolveSource(VideoDownloadTask task) {
+        YoutubeVideo video = videoRepository.findById(task.getYoutubeVideoId())
+            .orElseThrow(() -> new RuntimeException("Video not found"));
+        return new Source(video.getSourceUrl(), video.getTitle());
+    }
+
+    @Override
+    public List<VideoDownloadTask> findVideoTasks(Long platformVideoId) {
+        return taskRepository.findByYoutubeVideoId(platformVideoId);
+    }
+
+    @Override
+    public void customizeCommand(List<String> command, Map<String, String> env) {
+        // 使用 deno JS 运行时 + 远程组件解决 YouTube JS challenge（防止 403）
+        command.add("--js-runtimes");
+        command.add("deno");
+        command.add("--remote-components");
+        command.add("ejs:github");
+
+        // Cookies 处理：仅在 cookies 文件存在时使用
+        // 注意：--cookies-from-browser chrome 在 macOS 后台进程中会因 Keychain 弹窗而挂起，不作为默认选项
+        File cookiesFile = new File(DownloadEngine.DOWNLOAD_DIR + ".cookies.txt");
+        if (cookiesFile.exists()) {
+            command.add("--cookies");
+            command.add(cookiesFile.getAbsolutePath());
+        }
+
+        // 确保 deno 在 PATH 中（安装在 ~/.deno/bin）
+        String home = System.getProperty("user.home");
+        env.put("PATH", home + "/.deno/bin:" + env.getOrDefault("PATH", ""));
+    }
+
+    @Override
+    public String loginRequiredMessage() {
+        return "下载失败：视频需要登录。请将浏览器 cookies 导出到 " + DownloadEngine.DOWNLOAD_DIR + ".cookies.txt 后重试";
+    }
+
+    @Override
+    public void onDownloaded(VideoDownloadTask task, String outputFile) {
+        // 后台批量提取该视频所有句子的参考特征，跟读评分时不必再逐句截取
+        referenceFeatureCache.populateVideoAsync(task.getYoutubeVideoId(), outputFile);
+    }
+}
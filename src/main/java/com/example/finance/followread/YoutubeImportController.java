@@ -0,0 +1,103 @@
+package com.example.finance.followread;
+
+import com.example.finance.CurrentUserResolver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 播放列表 / 频道批量导入 API
+ */
+@RestController
+@RequestMapping("/api/youtube/imports")
+@CrossOrigin(origins = "*")
+public class YoutubeImportController {
+
+    @Autowired
+    private YoutubeImportService importService;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
+    /**
+     * 开始导入
+     * POST /api/youtube/imports {"url": "...", "difficulty": "auto", "parse": true}
+     */
+    @PostMapping
+    public ResponseEntity<?> startImport(@RequestBody Map<String, Object> request, Authentication authentication) {
+        Object url = request.get("url");
+        if (url == null || url.toString().trim().isEmpty()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Playlist or channel URL is required");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            Object difficulty = request.get("difficulty");
+            boolean parse = !Boolean.FALSE.equals(request.get("parse"));
+            YoutubeImportService.ImportJob job = importService.start(url.toString().trim(), getUserId(authentication),
+                difficulty != null ? difficulty.toString() : null, parse);
+            return ResponseEntity.ok(job.toMap());
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to start import: " + e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * 当前用户的导入任务（进行中的和最近结束的）
+     */
+    @GetMapping
+    public ResponseEntity<?> listImports(Authentication authentication) {
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        for (YoutubeImportService.ImportJob job : importService.getUserJobs(getUserId(authentication))) {
+            jobs.add(job.toMap());
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobs", jobs);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 导入进度
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getImport(@PathVariable String jobId, Authentication authentication) {
+        YoutubeImportService.ImportJob job = importService.getJob(jobId, getUserId(authentication));
+        if (job == null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Import job not found");
+            return ResponseEntity.status(404).body(error);
+        }
+        return ResponseEntity.ok(job.toMap());
+    }
+
+    /**
+     * 取消导入
+     */
+    @PostMapping("/{jobId}/cancel")
+    public ResponseEntity<?> cancelImport(@PathVariable String jobId, Authentication authentication) {
+        Long userId = getUserId(authentication);
+        if (!importService.cancel(jobId, userId)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Import job not found or already finished");
+            return ResponseEntity.badRequest().body(error);
+        }
+        return ResponseEntity.ok(importService.getJob(jobId, userId).toMap());
+    }
+
+    private Long getUserId(Authentication authentication) {
+        return currentUserResolver.resolveUserId(authentication, 0L);
+    }
+}
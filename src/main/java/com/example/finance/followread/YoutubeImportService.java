@@ -0,0 +1,492 @@
+package com.example.finance.followread;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 播放列表 / 频道批量导入
+ *
+ * 一次 yt-dlp --flat-playlist 调用展开列表（只列出视频 ID、标题和时长，不逐个请求视频页），
+ * 批量写入视频记录后，由固定数量的导入线程逐个获取视频信息、解析字幕。
+ * 所有 yt-dlp 请求先经过 {@link HostRateLimiter} 按站点限速；不使用通用 @Async 线程池（队列只有 10 个名额）。
+ * 导入任务的进度保存在内存中，可随时取消：已排队的视频不再处理，正在处理的视频做完当前一步后停止。
+ */
+@Service
+public class YoutubeImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(YoutubeImportService.class);
+
+    private static final Pattern PLAYLIST_PATTERN = Pattern.compile("youtube\\.com/.*[?&]list=([a-zA-Z0-9_-]+)");
+    private static final Pattern CHANNEL_PATTERN = Pattern.compile(
+        "youtube\\.com/(@[^/?#]+|channel/[a-zA-Z0-9_-]+|c/[^/?#]+|user/[^/?#]+)(?:/([a-z]+))?");
+    private static final Pattern VIDEO_ID_PATTERN = Pattern.compile("[a-zA-Z0-9_-]{11}");
+    private static final int MAX_ERRORS = 20;
+
+    @Value("${youtube.import.workers:3}")
+    private int workers = 3;
+
+    // 单次导入最多展开的视频数
+    @Value("${youtube.import.max-videos:500}")
+    private int maxVideos = 500;
+
+    // 结束的导入任务在内存中保留的时间（分钟）
+    @Value("${youtube.import.job-retention-minutes:60}")
+    private long jobRetentionMinutes = 60;
+
+    @Autowired
+    private YoutubeVideoService videoService;
+
+    @Autowired
+    private HostRateLimiter rateLimiter;
+
+    @Autowired
+    private YtDlpBudget ytDlpBudget;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        int threads = Math.max(workers, 1);
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "youtube-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 把播放列表 / 频道 URL 规范化为 yt-dlp 展开用的 URL，不是列表 URL 时返回 null
+     *
+     * 频道首页没有指定标签页时取"视频"标签页（否则展开结果是各个标签页而不是视频）
+     */
+    public static String normalizeCollectionUrl(String url) {
+        if (url == null) {
+            return null;
+        }
+        Matcher playlist = PLAYLIST_PATTERN.matcher(url);
+        if (playlist.find()) {
+            return "https://www.youtube.com/playlist?list=" + playlist.group(1);
+        }
+        Matcher channel = CHANNEL_PATTERN.matcher(url);
+        if (channel.find()) {
+            String tab = channel.group(2);
+            if (tab == null || tab.equals("featured")) {
+                tab = "videos";
+            }
+            return "https://www.youtube.com/" + channel.group(1) + "/" + tab;
+        }
+        return null;
+    }
+
+    /**
+     * 开始导入
+     *
+     * @param parse 是否在获取视频信息后接着解析字幕
+     */
+    public ImportJob start(String url, Long userId, String difficulty, boolean parse) {
+        String collectionUrl = normalizeCollectionUrl(url);
+        if (collectionUrl == null) {
+            throw new IllegalArgumentException("Not a YouTube playlist or channel URL");
+        }
+        purgeFinishedJobs();
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), userId, collectionUrl, difficulty, parse);
+        jobs.put(job.id, job);
+        executor.execute(() -> expand(job));
+        log.info("开始批量导入: jobId={}, url={}, parse={}", job.id, collectionUrl, parse);
+        return job;
+    }
+
+    /**
+     * 查询导入任务（只能查自己的）
+     */
+    public ImportJob getJob(String jobId, Long userId) {
+        ImportJob job = jobs.get(jobId);
+        return job != null && job.userId.equals(userId) ? job : null;
+    }
+
+    public List<ImportJob> getUserJobs(Long userId) {
+        purgeFinishedJobs();
+        List<ImportJob> result = new ArrayList<>();
+        for (ImportJob job : jobs.values()) {
+            if (job.userId.equals(userId)) {
+                result.add(job);
+            }
+        }
+        result.sort(Comparator.comparing((ImportJob job) -> job.createdAt).reversed());
+        return result;
+    }
+
+    /**
+     * 取消导入：排队中的视频不再处理（已写入的视频记录保留，可以单独解析）
+     *
+     * @return 任务不存在或已结束时返回 false
+     */
+    public boolean cancel(String jobId, Long userId) {
+        ImportJob job = getJob(jobId, userId);
+        if (job == null || job.isFinished()) {
+            return false;
+        }
+        job.cancelRequested = true;
+        job.status = "cancelling";
+        // 排队中的视频直接移出队列，不必等前面其他任务的视频处理完
+        int removed = 0;
+        for (Runnable task : executor.getQueue().toArray(new Runnable[0])) {
+            if (task instanceof VideoTask && ((VideoTask) task).job == job && executor.remove(task)) {
+                job.cancelled.incrementAndGet();
+                itemDone(job);
+                removed++;
+            }
+        }
+        log.info("取消批量导入: jobId={}, 移出队列 {} 个视频", jobId, removed);
+        return true;
+    }
+
+    /**
+     * 展开列表并写入视频记录，再把每个新视频放入导入队列
+     */
+    private void expand(ImportJob job) {
+        try {
+            rateLimiter.acquire(job.sourceUrl);
+            JsonNode root = listEntries(job.sourceUrl);
+            job.title = root.path("title").asText(null);
+
+            List<YoutubeVideo> candidates = new ArrayList<>();
+            for (JsonNode entry : root.path("entries")) {
+                String videoId = entry.path("id").asText("");
+                // 频道的子列表（标签页、合集）等非视频条目跳过
+                if (!VIDEO_ID_PATTERN.matcher(videoId).matches() || "playlist".equals(entry.path("_type").asText())) {
+                    continue;
+                }
+                YoutubeVideo video = videoService.newLibraryVideo(videoId,
+                    "https://www.youtube.com/watch?v=" + videoId, job.userId, job.difficulty);
+                // 标题保持占位值：解析字幕时据此判断是否还需要获取视频信息（字幕语言在视频信息里）
+                video.setDuration(entry.path("duration").asInt(0));
+                candidates.add(video);
+            }
+            enqueue(job, candidates);
+            log.info("批量导入列表已展开: jobId={}, title={}, total={}, new={}",
+                job.id, job.title, job.total, job.created);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(job, "导入被中断");
+        } catch (Exception e) {
+            log.error("展开播放列表失败: jobId={}, url={}", job.id, job.sourceUrl, e);
+            fail(job, e.getMessage());
+        }
+    }
+
+    /**
+     * 导入一组已知 ID 的视频（频道订阅轮询发现的新视频），与列表导入共用导入线程、限速和进度查询
+     */
+    public ImportJob importVideos(String sourceUrl, String title, List<String> videoIds, Long userId, String difficulty) {
+        purgeFinishedJobs();
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), userId, sourceUrl, difficulty, true);
+        job.title = title;
+        jobs.put(job.id, job);
+        List<YoutubeVideo> candidates = new ArrayList<>(videoIds.size());
+        for (String videoId : videoIds) {
+            candidates.add(videoService.newLibraryVideo(videoId, "https://www.youtube.com/watch?v=" + videoId,
+                userId, difficulty));
+        }
+        try {
+            enqueue(job, candidates);
+        } catch (RuntimeException e) {
+            fail(job, e.getMessage());
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * 重新导入已在库中但没有导入完成的视频（频道轮询发现的上次失败的视频），与列表导入共用导入线程和进度查询
+     */
+    public ImportJob retryVideos(String sourceUrl, String title, List<Long> videoIds, Long userId) {
+        purgeFinishedJobs();
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), userId, sourceUrl, null, true);
+        job.title = title;
+        job.total = videoIds.size();
+        // 进度按 created 计数，重试的视频都要处理一遍
+        job.created = videoIds.size();
+        job.status = "running";
+        jobs.put(job.id, job);
+        for (Long videoId : videoIds) {
+            job.videoIds.add(videoId);
+            executor.execute(new VideoTask(job, videoId));
+        }
+        return job;
+    }
+
+    /**
+     * 视频是否在未结束的导入任务中（排队或正在处理）
+     */
+    public boolean isImporting(Long videoId) {
+        for (ImportJob job : jobs.values()) {
+            if (!job.isFinished() && job.videoIds.contains(videoId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 写入新视频记录（已在库中的跳过），再把每个新视频放入导入队列
+     */
+    private void enqueue(ImportJob job, List<YoutubeVideo> candidates) {
+        for (YoutubeVideo video : candidates) {
+            video.setProgressMessage("批量导入排队中");
+        }
+        job.total = candidates.size();
+        if (job.cancelRequested) {
+            finish(job);
+            return;
+        }
+
+        List<YoutubeVideo> created = videoService.addVideosToLibrary(candidates);
+        job.existing = candidates.size() - created.size();
+        job.created = created.size();
+        if (!job.cancelRequested) {
+            job.status = "running";
+        }
+        if (created.isEmpty()) {
+            finish(job);
+            return;
+        }
+        for (YoutubeVideo video : created) {
+            job.videoIds.add(video.getId());
+            executor.execute(new VideoTask(job, video.getId()));
+        }
+    }
+
+    /**
+     * 获取单个视频的信息并解析字幕（在导入线程中执行）
+     */
+    private void importVideo(ImportJob job, Long videoId) {
+        try {
+            if (job.cancelRequested) {
+                job.cancelled.incrementAndGet();
+                return;
+            }
+            rateLimiter.acquire(job.sourceUrl);
+            if (!videoService.fetchVideoInfo(videoId)) {
+                job.addError(videoId, "获取视频信息失败");
+                return;
+            }
+            job.fetched.incrementAndGet();
+            if (!job.parse) {
+                return;
+            }
+            if (job.cancelRequested) {
+                job.cancelled.incrementAndGet();
+                return;
+            }
+            rateLimiter.acquire(job.sourceUrl);
+            if (videoService.parseSubtitles(videoId, null)) {
+                job.parsed.incrementAndGet();
+            } else {
+                job.addError(videoId, "字幕解析失败");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.cancelled.incrementAndGet();
+        } catch (Exception e) {
+            log.error("批量导入视频失败: jobId={}, videoId={}", job.id, videoId, e);
+            job.addError(videoId, e.getMessage());
+        } finally {
+            itemDone(job);
+        }
+    }
+
+    private void itemDone(ImportJob job) {
+        if (job.done.incrementAndGet() == job.created) {
+            finish(job);
+        }
+    }
+
+    /**
+     * 导入队列中的一个视频（取消时按所属任务移出队列）
+     */
+    private final class VideoTask implements Runnable {
+        final ImportJob job;
+        final Long videoId;
+
+        VideoTask(ImportJob job, Long videoId) {
+            this.job = job;
+            this.videoId = videoId;
+        }
+
+        @Override
+        public void run() {
+            importVideo(job, videoId);
+        }
+    }
+
+    /**
+     * yt-dlp --flat-playlist 展开列表，只输出一个 JSON（列表标题 + 每个视频的 ID、标题、时长）
+     */
+    private JsonNode listEntries(String url) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add("yt-dlp");
+        command.add("--flat-playlist");
+        command.add("--dump-single-json");
+        command.add("--no-warnings");
+        command.add("--socket-timeout");
+        command.add("30");
+        command.add("--playlist-end");
+        command.add(String.valueOf(maxVideos));
+        command.add(url);
+
+        byte[] json;
+        String errors;
+        int exitCode;
+        try (YtDlpBudget.Permit permit = ytDlpBudget.acquire()) {
+            Process process = new ProcessBuilder(command).start();
+            json = process.getInputStream().readAllBytes();
+            errors = new String(process.getErrorStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            exitCode = process.waitFor();
+        }
+        if (exitCode != 0 || json.length == 0) {
+            String reason = errors.isEmpty() ? "exit code " + exitCode : errors.substring(errors.lastIndexOf('\n') + 1);
+            throw new IOException("Failed to list playlist: " + reason);
+        }
+        return new ObjectMapper().readTree(json);
+    }
+
+    private void finish(ImportJob job) {
+        job.status = job.cancelRequested ? "cancelled" : "completed";
+        job.finishedAt = LocalDateTime.now();
+        log.info("批量导入结束: jobId={}, status={}, new={}, fetched={}, parsed={}, failed={}, cancelled={}",
+            job.id, job.status, job.created, job.fetched.get(), job.parsed.get(), job.failed.get(), job.cancelled.get());
+    }
+
+    private void fail(ImportJob job, String message) {
+        job.addError(null, message);
+        job.status = "failed";
+        job.finishedAt = LocalDateTime.now();
+    }
+
+    private void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(jobRetentionMinutes);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 一次批量导入的进度（计数器由多个导入线程更新）
+     */
+    public static final class ImportJob {
+        final String id;
+        final Long userId;
+        final String sourceUrl;
+        final String difficulty;
+        final boolean parse;
+        final LocalDateTime createdAt = LocalDateTime.now();
+
+        // expanding → running → completed / cancelling → cancelled；展开失败为 failed
+        volatile String status = "expanding";
+        volatile String title;
+        volatile int total;
+        volatile int created;
+        volatile int existing;
+        volatile LocalDateTime finishedAt;
+        volatile boolean cancelRequested;
+
+        final AtomicInteger fetched = new AtomicInteger();
+        final AtomicInteger parsed = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicInteger cancelled = new AtomicInteger();
+        final AtomicInteger done = new AtomicInteger();
+        final List<Long> videoIds = Collections.synchronizedList(new ArrayList<>());
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+
+        ImportJob(String id, Long userId, String sourceUrl, String difficulty, boolean parse) {
+            this.id = id;
+            this.userId = userId;
+            this.sourceUrl = sourceUrl;
+            this.difficulty = difficulty;
+            this.parse = parse;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        void addError(Long videoId, String message) {
+            if (videoId != null) {
+                failed.incrementAndGet();
+            }
+            synchronized (errors) {
+                if (errors.size() < MAX_ERRORS) {
+                    Map<String, Object> error = new LinkedHashMap<>();
+                    error.put("videoId", videoId);
+                    error.put("message", message);
+                    errors.add(error);
+                }
+            }
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("jobId", id);
+            map.put("status", status);
+            map.put("sourceUrl", sourceUrl);
+            map.put("title", title);
+            map.put("parse", parse);
+            map.put("total", total);
+            map.put("created", created);
+            map.put("existing", existing);
+            map.put("fetched", fetched.get());
+            map.put("parsed", parsed.get());
+            map.put("failed", failed.get());
+            map.put("cancelled", cancelled.get());
+            map.put("pending", created - done.get());
+            map.put("progress", created > 0 ? done.get() * 100 / created : (isFinished() ? 100 : 0));
+            map.put("createdAt", createdAt);
+            map.put("finishedAt", finishedAt);
+            map.put("elapsedSeconds", Duration.between(createdAt, finishedAt != null ? finishedAt : LocalDateTime.now()).getSeconds());
+            synchronized (videoIds) {
+                map.put("videoIds", new ArrayList<>(videoIds));
+            }
+            synchronized (errors) {
+                map.put("errors", new ArrayList<>(errors));
+            }
+            return map;
+        }
+    }
+}
@@ -7,7 +7,8 @@ import java.time.LocalDateTime;
 @Table(name = "youtube_videos")
 public class YoutubeVideo {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "youtube_videos_seq")
+    @SequenceGenerator(name = "youtube_videos_seq", sequenceName = "youtube_videos_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "video_id", nullable = false, unique = true, length = 20)
@@ -82,6 +83,17 @@ public class YoutubeVideo {
         if (pinned == null) {
             pinned = false;
         }
+        ensurePinnedAt();
+    }
+
+    /**
+     * 置顶视频必须有置顶时间，否则 keyset 分页的置顶/未置顶两段都查不到它
+     */
+    @PreUpdate
+    protected void ensurePinnedAt() {
+        if (Boolean.TRUE.equals(pinned) && pinnedAt == null) {
+            pinnedAt = createdAt != null ? createdAt : LocalDateTime.now();
+        }
     }
 
     // Getters and Setters
@@ -0,0 +1,24 @@
+package com.example.finance.followread;
+
+import java.time.LocalDateTime;
+
+/**
+ * 视频卡片投影（列表页专用）
+ * 只查询卡片展示需要的列，不加载 description / errorMessage / progressMessage 等大字段
+ */
+public interface YoutubeVideoCard {
+    Long getId();
+    String getVideoId();
+    String getTitle();
+    Integer getDuration();
+    String getChannel();
+    String getThumbnailUrl();
+    String getStatus();
+    Integer getSentenceCount();
+    String getDifficultyLevel();
+    String getSubtitleLanguage();
+    Boolean getPinned();
+    LocalDateTime getPinnedAt();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getCompletedAt();
+}
@@ -1,8 +1,8 @@
 package com.example.finance.followread;
 
-import com.example.finance.User;
-import com.example.finance.UserRepository;
+import com.example.finance.CurrentUserResolver;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -21,7 +21,7 @@ public class YoutubeVideoController {
     private YoutubeVideoService youtubeVideoService;
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserResolver currentUserResolver;
 
     /**
      * 检查系统状态（yt-dlp 是否安装）
@@ -75,7 +75,11 @@ public class YoutubeVideoController {
             
         } catch (IllegalArgumentException e) {
             Map<String, String> error = new HashMap<>();
-            error.put("error", "Invalid YouTube URL: " + e.getMessage());
+            if (YoutubeImportService.normalizeCollectionUrl(url) != null) {
+                error.put("error", "Playlist or channel URL: use POST /api/youtube/imports");
+            } else {
+                error.put("error", "Invalid YouTube URL: " + e.getMessage());
+            }
             return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
@@ -151,21 +155,38 @@ public class YoutubeVideoController {
 
     /**
      * 获取所有视频（供所有用户学习，支持分页）
+     * 传入 cursor 时使用 keyset 分页（下一页），否则按页码分页（首页/跳页）
      */
     @GetMapping("/videos")
     public ResponseEntity<?> getAllVideos(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        org.springframework.data.domain.Page<YoutubeVideo> videoPage = youtubeVideoService.getAllVideosPaged(page, size);
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                Map<String, Object> response = youtubeVideoService.getVideoCardsAfter(cursor, size);
+                response.put("pageSize", size);
+                return ResponseEntity.ok(response);
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            }
+        }
+
+        org.springframework.data.domain.Page<YoutubeVideoCard> videoPage = youtubeVideoService.getAllVideosPaged(page, size);
+        List<YoutubeVideoCard> content = videoPage.getContent();
 
         Map<String, Object> response = new HashMap<>();
-        response.put("content", videoPage.getContent());
+        response.put("content", content);
         response.put("totalElements", videoPage.getTotalElements());
         response.put("totalPages", videoPage.getTotalPages());
         response.put("currentPage", videoPage.getNumber());
         response.put("pageSize", videoPage.getSize());
         response.put("hasNext", videoPage.hasNext());
         response.put("hasPrevious", videoPage.hasPrevious());
+        response.put("nextCursor", videoPage.hasNext() && !content.isEmpty()
+            ? youtubeVideoService.encodeCursor(content.get(content.size() - 1)) : null);
 
         return ResponseEntity.ok(response);
     }
@@ -200,6 +221,37 @@ public class YoutubeVideoController {
         }
     }
 
+    /**
+     * 获取视频的逐词时间（跟读卡拉OK高亮、按词跳转）
+     *
+     * 返回 application/octet-stream，大端序：
+     *   wordCount:int, textLength:int,
+     *   wordCount 个 (startMs:int, textOffset:int),
+     *   textLength 字节 UTF-8 文本
+     * 第 i 个词的文本是 text[textOffset[i], textOffset[i+1])（可能带一个前导空格），
+     * 结束时间取下一个词的开始时间。传 from/to（秒）时只返回开始时间在该区间内的词，偏移从 0 开始。
+     * 只有自动字幕有逐词时间，其他视频返回 404。
+     */
+    @GetMapping("/videos/{id}/word-timings")
+    public ResponseEntity<?> getWordTimings(
+            @PathVariable Long id,
+            @RequestParam(required = false) Double from,
+            @RequestParam(required = false) Double to) {
+        WordTimingTrack track = youtubeVideoService.getWordTimingTrack(id);
+        if (track == null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "No word timings for this video");
+            return ResponseEntity.status(404).body(error);
+        }
+        if (from != null || to != null) {
+            track = track.slice(from != null ? from : 0, to != null ? to : Double.MAX_VALUE);
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .header("X-Word-Count", String.valueOf(track.size()))
+            .body(track.toBinary());
+    }
+
     /**
      * 删除视频及其所有相关数据
      */
@@ -241,18 +293,7 @@ public class YoutubeVideoController {
      * 从请求中获取用户 ID
      */
     private Long getUserId(Authentication authentication) {
-        Long userId = 0L; // 默认匿名用户
-        
-        if (authentication != null && authentication.isAuthenticated() 
-            && !"anonymousUser".equals(authentication.getPrincipal())) {
-            String username = authentication.getName();
-            Optional<User> userOpt = userRepository.findByUsername(username);
-            if (userOpt.isPresent()) {
-                userId = userOpt.get().getId();
-            }
-        }
-        
-        return userId;
+        return currentUserResolver.resolveUserId(authentication, 0L);
     }
 }
 
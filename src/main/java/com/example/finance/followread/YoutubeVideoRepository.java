@@ -3,14 +3,32 @@ package com.example.finance.followread;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface YoutubeVideoRepository extends JpaRepository<YoutubeVideo, Long> {
     Optional<YoutubeVideo> findByVideoId(String videoId);
+
+    /**
+     * 给定 YouTube 视频 ID 中已在库中的（批量导入去重，只查 video_id 唯一索引）
+     */
+    @Query("select v.videoId from YoutubeVideo v where v.videoId in :videoIds")
+    List<String> findExistingVideoIds(@Param("videoIds") Collection<String> videoIds);
+
+    /**
+     * 用户库中没有导入完成的视频（获取信息或解析字幕失败、重启前还没处理的），频道轮询时重新导入
+     */
+    @Query("select v.id from YoutubeVideo v where v.videoId in :videoIds and v.createdBy = :userId "
+        + "and v.status in ('added', 'failed')")
+    List<Long> findUnfinishedImports(@Param("videoIds") Collection<String> videoIds, @Param("userId") Long userId);
     List<YoutubeVideo> findByCreatedBy(Long userId);
     List<YoutubeVideo> findByStatus(String status);
     List<YoutubeVideo> findByCreatedByOrderByCreatedAtDesc(Long userId);
@@ -22,5 +40,73 @@ public interface YoutubeVideoRepository extends JpaRepository<YoutubeVideo, Long
 
     // 置顶优先排序的分页查询
     Page<YoutubeVideo> findAllByOrderByPinnedDescPinnedAtDescCreatedAtDesc(Pageable pageable);
-}
 
+    /**
+     * 只更新解析进度信息
+     */
+    @Modifying
+    @Query("update YoutubeVideo v set v.progressMessage = :message where v.id = :id")
+    int updateProgressMessage(@Param("id") Long id, @Param("message") String message);
+
+    /**
+     * 已解析完成的视频的 [id, 字幕语言, 创建者]（难度排名统计、词汇索引载入只需要这几列）
+     */
+    @Query("select v.id, v.subtitleLanguage, v.createdBy from YoutubeVideo v where v.status = 'completed'")
+    List<Object[]> findCompletedSubtitleLanguages();
+
+    // ==================== 卡片投影查询（列表页） ====================
+
+    String CARD_COLUMNS = "v.id as id, v.videoId as videoId, v.title as title, v.duration as duration, "
+        + "v.channel as channel, v.thumbnailUrl as thumbnailUrl, v.status as status, "
+        + "v.sentenceCount as sentenceCount, v.difficultyLevel as difficultyLevel, "
+        + "v.subtitleLanguage as subtitleLanguage, v.pinned as pinned, v.pinnedAt as pinnedAt, "
+        + "v.createdAt as createdAt, v.completedAt as completedAt";
+
+    /**
+     * 置顶优先排序的卡片分页（OFFSET 方式，仅用于跳页）
+     */
+    @Query(value = "select " + CARD_COLUMNS + " from YoutubeVideo v "
+            + "order by v.pinned desc, v.pinnedAt desc, v.createdAt desc, v.id desc",
+        countQuery = "select count(v) from YoutubeVideo v")
+    Page<YoutubeVideoCard> findCardsOrderByPinned(Pageable pageable);
+
+    /**
+     * Keyset 分页：置顶视频中位于游标之后的部分
+     */
+    @Query("select " + CARD_COLUMNS + " from YoutubeVideo v "
+        + "where v.pinned = true and (v.pinnedAt < :pinnedAt "
+        + "or (v.pinnedAt = :pinnedAt and (v.createdAt < :createdAt "
+        + "or (v.createdAt = :createdAt and v.id < :id)))) "
+        + "order by v.pinnedAt desc, v.createdAt desc, v.id desc")
+    List<YoutubeVideoCard> findPinnedCardsAfter(@Param("pinnedAt") LocalDateTime pinnedAt,
+                                                @Param("createdAt") LocalDateTime createdAt,
+                                                @Param("id") Long id,
+                                                Pageable pageable);
+
+    /**
+     * Keyset 分页：未置顶视频（从头开始，pinned 在 V11 中已补齐为非空，走 (pinned, created_at, id) 索引）
+     */
+    @Query("select " + CARD_COLUMNS + " from YoutubeVideo v "
+        + "where v.pinned = false "
+        + "order by v.createdAt desc, v.id desc")
+    List<YoutubeVideoCard> findUnpinnedCards(Pageable pageable);
+
+    /**
+     * Keyset 分页：未置顶视频中位于游标之后的部分
+     */
+    @Query("select " + CARD_COLUMNS + " from YoutubeVideo v "
+        + "where v.pinned = false and (v.createdAt < :createdAt "
+        + "or (v.createdAt = :createdAt and v.id < :id)) "
+        + "order by v.createdAt desc, v.id desc")
+    List<YoutubeVideoCard> findUnpinnedCardsAfter(@Param("createdAt") LocalDateTime createdAt,
+                                                  @Param("id") Long id,
+                                                  Pageable pageable);
+
+    /**
+     * 按状态分页查询卡片（SEO 列表页、sitemap）
+     */
+    @Query(value = "select " + CARD_COLUMNS + " from YoutubeVideo v where v.status = :status "
+            + "order by v.createdAt desc, v.id desc",
+        countQuery = "select count(v) from YoutubeVideo v where v.status = :status")
+    Page<YoutubeVideoCard> findCardsByStatus(@Param("status") String status, Pageable pageable);
+}
@@ -5,10 +5,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.finance.persistence.SingleWriterQueue;
 import com.example.finance.search.service.SubtitleSearchService;
 
 import java.io.BufferedReader;
@@ -37,57 +42,70 @@ public class YoutubeVideoService {
     @Autowired
     private FollowReadSentenceRepository sentenceRepository;
 
+    @Autowired
+    private SubtitleWordTimingsRepository wordTimingsRepository;
+
     @Autowired(required = false)
     private SubtitleSearchService subtitleSearchService;
 
+    @Autowired
+    private SingleWriterQueue writeQueue;
+
+    @Autowired
+    private FollowReadTaskRepository followReadTaskRepository;
+
+    @Autowired
+    private FollowReadTaskResultRepository taskResultRepository;
+
+    @Autowired
+    private ReviewStateRepository reviewStateRepository;
+
+    @Autowired
+    private StudyNoteRepository studyNoteRepository;
+
+    @Autowired
+    private VideoDownloadTaskRepository downloadTaskRepository;
+
+    @Autowired
+    private MediaFileCleaner mediaFileCleaner;
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Autowired
+    private StorageLifecycleManager storageLifecycleManager;
+
+    @Autowired
+    private SubtitleTextNormalizer subtitleTextNormalizer;
+
+    @Autowired
+    private VttSubtitleParser vttSubtitleParser;
+
+    @Autowired
+    private SubtitleSentenceProcessor sentenceProcessor;
+
+    @Autowired
+    private PhoneticTranscriber phoneticTranscriber;
+
+    @Autowired
+    private VocabularyIndex vocabularyIndex;
+
+    @Autowired
+    private ReferenceFeatureCache referenceFeatureCache;
+
+    @Autowired
+    private YtDlpBudget ytDlpBudget;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private static final String SUBTITLE_DIR = "uploads/subtitles/";
+    // 批量添加时每个事务插入的视频数（SQLite 单条语句的参数个数也有上限）
+    private static final int INSERT_CHUNK = 100;
+    private static final Pattern VIDEO_URL_PATTERN = Pattern.compile(
+        "(?:youtube\\.com/(?:watch\\?(?:[^#]*&)?v=|embed/|shorts/|live/|v/)|youtu\\.be/)([a-zA-Z0-9_-]{11})");
     private static final String AUDIO_DIR = "uploads/audio/";
     
-    // Filler words to remove (English)
-    private static final Set<String> FILLER_WORDS_EN = new HashSet<>(Arrays.asList(
-        "uh", "um", "you know", "like", "so", "well", "actually", "basically", "literally"
-    ));
-    
-    // Filler words to remove (Chinese)
-    private static final Set<String> FILLER_WORDS_ZH = new HashSet<>(Arrays.asList(
-        "嗯", "那个", "就是", "然后", "这个", "那个", "呃", "啊", "哦"
-    ));
-    
-    // Filler words to remove (Japanese)
-    private static final Set<String> FILLER_WORDS_JA = new HashSet<>(Arrays.asList(
-        "えー", "あの", "まあ", "その", "なんか", "っていうか", "てか"
-    ));
-    
-    /**
-     * 判断是否是中日韩语言（CJK）
-     */
-    private boolean isCJKLanguage(String language) {
-        if (language == null) return false;
-        String lang = language.toLowerCase();
-        return lang.startsWith("zh") || lang.startsWith("ja") || 
-               lang.startsWith("ko") || lang.equals("jpn") || 
-               lang.equals("chi") || lang.equals("kor") ||
-               lang.equals("zh-cn") || lang.equals("zh-tw") ||
-               lang.equals("zh-hans") || lang.equals("zh-hant");
-    }
-    
-    /**
-     * 获取语言代码的简化形式（用于文件名）
-     */
-    private String getLanguageCode(String language) {
-        if (language == null) return "en";
-        String lang = language.toLowerCase();
-        // 处理 zh-Hans, zh-Hant 等格式
-        if (lang.startsWith("zh")) {
-            if (lang.contains("hans") || lang.contains("cn")) return "zh";
-            if (lang.contains("hant") || lang.contains("tw")) return "zh";
-            return "zh";
-        }
-        if (lang.startsWith("ja")) return "ja";
-        if (lang.startsWith("ko")) return "ko";
-        return lang.split("-")[0]; // 取主要部分，如 en-US -> en
-    }
-
     public YoutubeVideoService() {
         // 确保目录存在
         new File(SUBTITLE_DIR).mkdirs();
@@ -98,13 +116,13 @@ public class YoutubeVideoService {
      * 从 YouTube URL 提取视频 ID
      */
     public String extractVideoId(String url) {
-        // 支持多种 URL 格式
-        // https://www.youtube.com/watch?v=VIDEO_ID
+        // 支持多种 URL 格式（含 m.youtube.com / music.youtube.com）
+        // https://www.youtube.com/watch?v=VIDEO_ID（v 不必是第一个参数）
         // https://youtu.be/VIDEO_ID
         // https://www.youtube.com/embed/VIDEO_ID
-        
-        Pattern pattern = Pattern.compile("(?:youtube\\.com/watch\\?v=|youtu\\.be/|youtube\\.com/embed/)([a-zA-Z0-9_-]{11})");
-        Matcher matcher = pattern.matcher(url);
+        // https://www.youtube.com/shorts/VIDEO_ID
+        // https://www.youtube.com/live/VIDEO_ID
+        Matcher matcher = VIDEO_URL_PATTERN.matcher(url);
         
         if (matcher.find()) {
             return matcher.group(1);
@@ -137,6 +155,13 @@ public class YoutubeVideoService {
             return existing.get();
         }
 
+        return videoRepository.save(newLibraryVideo(videoId, url, userId, difficulty));
+    }
+
+    /**
+     * 新视频记录（状态 added，标题等信息在获取元数据后更新）
+     */
+    public YoutubeVideo newLibraryVideo(String videoId, String url, Long userId, String difficulty) {
         YoutubeVideo video = new YoutubeVideo();
         video.setVideoId(videoId);
         video.setSourceUrl(url);
@@ -149,19 +174,78 @@ public class YoutubeVideoService {
         video.setTitle("Loading...");
         video.setDuration(0);
         video.setProgressMessage("已添加到视频库");
-        
-        return videoRepository.save(video);
+        return video;
+    }
+
+    /**
+     * 批量添加视频到库（播放列表/频道导入）：一次查询过滤已在库中的视频，新视频分批插入
+     *
+     * @return 新添加的视频，已在库中的不返回
+     */
+    public List<YoutubeVideo> addVideosToLibrary(List<YoutubeVideo> candidates) {
+        Set<String> seen = new HashSet<>();
+        List<String> videoIds = new ArrayList<>(candidates.size());
+        for (YoutubeVideo video : candidates) {
+            videoIds.add(video.getVideoId());
+        }
+        for (int i = 0; i < videoIds.size(); i += INSERT_CHUNK) {
+            seen.addAll(videoRepository.findExistingVideoIds(videoIds.subList(i, Math.min(i + INSERT_CHUNK, videoIds.size()))));
+        }
+
+        List<YoutubeVideo> created = new ArrayList<>();
+        List<YoutubeVideo> chunk = new ArrayList<>(INSERT_CHUNK);
+        for (YoutubeVideo video : candidates) {
+            if (!seen.add(video.getVideoId())) {
+                continue;
+            }
+            chunk.add(video);
+            if (chunk.size() == INSERT_CHUNK) {
+                created.addAll(insertChunk(chunk));
+                chunk.clear();
+            }
+        }
+        created.addAll(insertChunk(chunk));
+        return created;
+    }
+
+    private List<YoutubeVideo> insertChunk(List<YoutubeVideo> chunk) {
+        if (chunk.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try {
+            return videoRepository.saveAll(chunk);
+        } catch (DataIntegrityViolationException e) {
+            // 查询之后有视频被单独添加（video_id 唯一），逐条插入并跳过冲突的视频
+            List<YoutubeVideo> created = new ArrayList<>();
+            for (YoutubeVideo video : chunk) {
+                video.setId(null);
+                try {
+                    created.add(videoRepository.save(video));
+                } catch (DataIntegrityViolationException duplicate) {
+                    log.info("视频已在库中，跳过: videoId={}", video.getVideoId());
+                }
+            }
+            return created;
+        }
     }
 
     /**
      * 异步获取视频基本信息（不解析字幕）
      */
     @Async
-    @Transactional
     public void fetchVideoInfoAsync(Long videoId) {
+        fetchVideoInfo(videoId);
+    }
+
+    /**
+     * 获取视频基本信息（在调用线程中执行，批量导入的工作线程使用）
+     *
+     * @return 是否获取成功
+     */
+    public boolean fetchVideoInfo(Long videoId) {
         Optional<YoutubeVideo> videoOpt = videoRepository.findById(videoId);
         if (!videoOpt.isPresent()) {
-            return;
+            return false;
         }
 
         YoutubeVideo video = videoOpt.get();
@@ -174,16 +258,18 @@ public class YoutubeVideoService {
             // 标记为已添加（信息已完整）
             video.setStatus("added");
             video.setProgressMessage("视频信息已获取，可以解析字幕");
-            videoRepository.save(video);
+            saveVideo(video);
             
             log.info("✅ 视频信息获取完成: videoId={}, title={}", video.getVideoId(), video.getTitle());
+            return true;
             
         } catch (Exception e) {
             video.setStatus("failed");
             video.setErrorMessage(e.getMessage());
             video.setProgressMessage("获取视频信息失败: " + e.getMessage());
-            videoRepository.save(video);
+            saveVideo(video);
             log.error("❌ 获取视频信息失败: videoId={}", video.getVideoId(), e);
+            return false;
         }
     }
 
@@ -192,7 +278,6 @@ public class YoutubeVideoService {
      * 前提：视频信息已经获取完成
      */
     @Async
-    @Transactional
     public void parseSubtitlesAsync(Long videoId) {
         parseSubtitlesAsync(videoId, null);
     }
@@ -201,28 +286,30 @@ public class YoutubeVideoService {
      * 异步解析字幕（支持指定语言）
      */
     @Async
-    @Transactional
     public void parseSubtitlesAsync(Long videoId, String language) {
+        parseSubtitles(videoId, language);
+    }
+
+    /**
+     * 解析字幕（在调用线程中执行，批量导入的工作线程使用）
+     *
+     * @return 是否解析完成
+     */
+    public boolean parseSubtitles(Long videoId, String language) {
         Optional<YoutubeVideo> videoOpt = videoRepository.findById(videoId);
         if (!videoOpt.isPresent()) {
-            return;
+            return false;
         }
 
         YoutubeVideo video = videoOpt.get();
-        
-        try {
-            // 清除旧的句子和字幕片段（重新解析时）
-            List<FollowReadSentence> oldSentences = sentenceRepository.findByYoutubeVideoId(video.getId());
-            if (!oldSentences.isEmpty()) {
-                log.info("🗑️ 清除旧句子: videoId={}, count={}", video.getVideoId(), oldSentences.size());
-                sentenceRepository.deleteAll(oldSentences);
-            }
-            segmentRepository.deleteByVideoId(video.getId());
+        // 重新解析时旧的句子、字幕片段和复习计划保留到新结果生成完毕，失败时原样保留
+        boolean reparse = "completed".equals(video.getStatus())
+            || (video.getSentenceCount() != null && video.getSentenceCount() > 0);
 
+        try {
             // 标记为解析中
             video.setStatus("parsing");
-            video.setSentenceCount(0);
-            videoRepository.save(video);
+            saveVideo(video);
 
             // Step 1: 如果视频信息还未获取，先获取
             if ("Loading...".equals(video.getTitle()) || video.getTitle() == null) {
@@ -235,22 +322,45 @@ public class YoutubeVideoService {
             String targetLanguage = language != null ? language : video.getSubtitleLanguage();
             if (targetLanguage != null) {
                 video.setSubtitleLanguage(targetLanguage);
-                videoRepository.save(video);
+                saveVideo(video);
             }
             updateProgress(video, "正在下载字幕文件...");
             List<SubtitleSegment> segments = fetchSubtitles(video, targetLanguage);
             updateProgress(video, String.format("字幕下载完成 ✓ (共 %d 个片段)", segments.size()));
             
-            // Step 3: 生成学习句子
+            // Step 3: 生成学习句子（只在内存中构建）
             updateProgress(video, "正在智能切分句子...");
-            generateLearningSentences(video, segments);
-            updateProgress(video, String.format("句子生成完成 ✓ (共 %d 个学习句子)", video.getSentenceCount()));
-            
-            // 标记完成
-            video.setStatus("completed");
-            video.setProgressMessage("字幕解析完成！");
-            video.setCompletedAt(LocalDateTime.now());
-            videoRepository.save(video);
+            List<FollowReadSentence> sentences = buildLearningSentences(video, segments);
+            WordTimingTrack track = WordTimingTrack.fromSegments(segments);
+
+            // Step 4: 一个事务内替换旧数据并标记完成，中途失败不会留下半套数据
+            updateProgress(video, String.format("正在保存字幕片段和 %d 个学习句子...", sentences.size()));
+            writeQueue.discard(progressKey(video));
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                reviewStateRepository.deleteAllByYoutubeVideoId(video.getId());
+                int oldSentences = sentenceRepository.deleteAllByYoutubeVideoId(video.getId());
+                if (oldSentences > 0) {
+                    log.info("🗑️ 替换旧句子: videoId={}, count={}", video.getVideoId(), oldSentences);
+                }
+                segmentRepository.deleteByVideoId(video.getId());
+                wordTimingsRepository.deleteByVideoId(video.getId());
+
+                segmentRepository.saveVideoSegments(video.getId(), segments, null);
+                if (track != null) {
+                    wordTimingsRepository.save(new SubtitleWordTimings(video.getId(), video.getSubtitleLanguage(), track));
+                    log.info("逐词时间已保存: videoId={}, words={}, bytes={}", video.getVideoId(), track.size(),
+                        track.size() * WordTimingTrack.BYTES_PER_WORD + track.getText().length);
+                }
+                sentenceRepository.saveAll(sentences);
+
+                video.setSentenceCount(sentences.size());
+                video.setStatus("completed");
+                video.setErrorMessage(null);
+                video.setProgressMessage("字幕解析完成！");
+                video.setCompletedAt(LocalDateTime.now());
+                videoRepository.save(video);
+            });
+            vocabularyIndex.indexVideo(video, segments);
 
             // 索引到 Elasticsearch
             if (subtitleSearchService != null) {
@@ -262,13 +372,16 @@ public class YoutubeVideoService {
             }
 
             log.info("✅ 字幕解析完成: videoId={}, sentences={}", video.getVideoId(), video.getSentenceCount());
+            return true;
             
         } catch (Exception e) {
-            video.setStatus("failed");
+            // 旧数据还在：重新解析失败时仍可按原字幕学习，只记录错误
+            video.setStatus(reparse ? "completed" : "failed");
             video.setErrorMessage(e.getMessage());
-            video.setProgressMessage("字幕解析失败: " + e.getMessage());
-            videoRepository.save(video);
-            log.error("❌ 字幕解析失败: videoId={}", video.getVideoId(), e);
+            video.setProgressMessage((reparse ? "重新解析失败，已保留原有字幕: " : "字幕解析失败: ") + e.getMessage());
+            saveVideo(video);
+            log.error("❌ 字幕解析失败: videoId={}, reparse={}", video.getVideoId(), reparse, e);
+            return false;
         }
     }
     
@@ -277,10 +390,29 @@ public class YoutubeVideoService {
      */
     private void updateProgress(YoutubeVideo video, String message) {
         video.setProgressMessage(message);
-        videoRepository.save(video);
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            // 异步解析不在事务中：进度交给写队列合并落库，不单独占用写连接
+            Long id = video.getId();
+            writeQueue.submit(progressKey(video), () -> videoRepository.updateProgressMessage(id, message));
+        }
+        // 在事务中时进度随实体一起在提交时落库
         log.info("[YouTube解析] 视频ID: {} - {}", video.getVideoId(), message);
     }
 
+    private String progressKey(YoutubeVideo video) {
+        return "youtube-video:" + video.getId();
+    }
+
+    /**
+     * 保存整条视频记录（先丢弃写队列中尚未落库的旧进度，避免覆盖新状态）
+     */
+    private void saveVideo(YoutubeVideo video) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            writeQueue.discard(progressKey(video));
+        }
+        videoRepository.save(video);
+    }
+
     /**
      * 获取视频元数据
      */
@@ -308,17 +440,20 @@ public class YoutubeVideoService {
         
         ProcessBuilder pb = new ProcessBuilder(command);
         
-        Process process = pb.start();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
         StringBuilder json = new StringBuilder();
-        String line;
-        
-        updateProgress(video, "正在读取视频元数据...");
-        while ((line = reader.readLine()) != null) {
-            json.append(line);
+        int exitCode;
+        try (YtDlpBudget.Permit permit = ytDlpBudget.acquire()) {
+            Process process = pb.start();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            String line;
+            
+            updateProgress(video, "正在读取视频元数据...");
+            while ((line = reader.readLine()) != null) {
+                json.append(line);
+            }
+            
+            exitCode = process.waitFor();
         }
-        
-        int exitCode = process.waitFor();
         if (exitCode != 0) {
             throw new RuntimeException("Failed to fetch video metadata");
         }
@@ -345,7 +480,7 @@ public class YoutubeVideoService {
         video.setHasSubtitle(hasSubtitle);
         video.setSubtitleLanguage(detectedLanguage != null ? detectedLanguage : "en");
         
-        videoRepository.save(video);
+        saveVideo(video);
         
         log.info("检测到字幕语言: videoId={}, language={}, hasSubtitle={}", 
             video.getVideoId(), detectedLanguage, hasSubtitle);
@@ -391,7 +526,7 @@ public class YoutubeVideoService {
     }
     
     /**
-     * 获取字幕（支持指定语言，如果失败会自动尝试其他语言）
+     * 获取字幕（支持指定语言，如果失败会自动尝试其他语言），只下载和解析，不落库
      */
     private List<SubtitleSegment> fetchSubtitles(YoutubeVideo video, String language) throws Exception {
         // 确定要使用的语言
@@ -427,7 +562,7 @@ public class YoutubeVideoService {
                     File subtitleFile = findSubtitleFile(video.getVideoId(), langToTry);
                     if (subtitleFile != null && subtitleFile.exists()) {
                         downloadedLanguage = langToTry;
-                        downloadedFilePath = subtitleFile.getAbsolutePath();
+                        downloadedFilePath = subtitleFile.getPath();
                         log.info("✅ 成功下载字幕: videoId={}, language={}, file={}", 
                             video.getVideoId(), langToTry, downloadedFilePath);
                         break;
@@ -450,7 +585,7 @@ public class YoutubeVideoService {
                     // 查找任何下载成功的字幕文件
                     File subtitleFile = findAnySubtitleFile(video.getVideoId());
                     if (subtitleFile != null && subtitleFile.exists()) {
-                        downloadedFilePath = subtitleFile.getAbsolutePath();
+                        downloadedFilePath = subtitleFile.getPath();
                         // 从文件名推断语言
                         String fileName = subtitleFile.getName();
                         if (fileName.contains(".zh.") || fileName.contains(".zh-Hans.") || fileName.contains(".zh-Hant.")) {
@@ -484,25 +619,14 @@ public class YoutubeVideoService {
         // 更新视频的语言信息
         if (downloadedLanguage != null) {
             video.setSubtitleLanguage(downloadedLanguage);
-            videoRepository.save(video);
+            saveVideo(video);
         }
         
-        // 解析 VTT 字幕文件
+        // 解析 VTT 字幕文件（字幕文件以 uploads/subtitles/ 下的相对路径登记到存储管理，超出预算时淘汰）
+        storageLifecycleManager.register(StorageLifecycleManager.Area.SUBTITLES, downloadedFilePath);
         updateProgress(video, "正在解析字幕文件...");
         List<SubtitleSegment> segments = parseVttFile(downloadedFilePath, video.getId(), downloadedLanguage);
         
-        // 保存字幕片段
-        updateProgress(video, String.format("正在保存字幕片段 (0/%d)...", segments.size()));
-        int count = 0;
-        for (SubtitleSegment segment : segments) {
-            segmentRepository.save(segment);
-            count++;
-            // 每100个片段更新一次进度
-            if (count % 100 == 0 || count == segments.size()) {
-                updateProgress(video, String.format("正在保存字幕片段 (%d/%d)...", count, segments.size()));
-            }
-        }
-        
         return segments;
     }
     
@@ -538,19 +662,20 @@ public class YoutubeVideoService {
         ProcessBuilder pb = new ProcessBuilder(command);
         pb.redirectErrorStream(true);
         
-        Process process = pb.start();
-        
         StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
+        int exitCode;
+        try (YtDlpBudget.Permit permit = ytDlpBudget.acquire()) {
+            Process process = pb.start();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.append(line).append("\n");
+                }
             }
+            exitCode = process.waitFor();
         }
         
-        int exitCode = process.waitFor();
-        
         if (output.length() > 0) {
             log.info("yt-dlp 输出: {}", output.toString());
         }
@@ -595,19 +720,20 @@ public class YoutubeVideoService {
         ProcessBuilder pb = new ProcessBuilder(command);
         pb.redirectErrorStream(true);
         
-        Process process = pb.start();
-        
         StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
+        int exitCode;
+        try (YtDlpBudget.Permit permit = ytDlpBudget.acquire()) {
+            Process process = pb.start();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.append(line).append("\n");
+                }
             }
+            exitCode = process.waitFor();
         }
         
-        int exitCode = process.waitFor();
-        
         if (output.length() > 0) {
             log.info("yt-dlp 输出: {}", output.toString());
         }
@@ -624,7 +750,7 @@ public class YoutubeVideoService {
             return null;
         }
         
-        String langCode = getLanguageCode(language);
+        String langCode = SubtitleLanguage.languageCode(language);
         
         // 尝试多种可能的文件名格式
         String[] possibleNames = {
@@ -702,8 +828,6 @@ public class YoutubeVideoService {
      * 解析 VTT 字幕文件（支持多语言）
      */
     private List<SubtitleSegment> parseVttFile(String filePath, Long videoId, String language) throws Exception {
-        List<SubtitleSegment> segments = new ArrayList<>();
-        
         // 提取视频ID（从文件路径中）
         String videoIdStr = new File(filePath).getName().split("\\.")[0];
         File subtitleDir = new File(SUBTITLE_DIR);
@@ -720,7 +844,7 @@ public class YoutubeVideoService {
         } else {
             // 2. 尝试带语言代码的文件名（简化版）
             if (language != null) {
-                String langCode = getLanguageCode(language);
+                String langCode = SubtitleLanguage.languageCode(language);
                 String altPath = SUBTITLE_DIR + videoIdStr + "." + langCode + ".vtt";
                 path = Paths.get(altPath);
                 triedPaths.add(altPath);
@@ -788,115 +912,7 @@ public class YoutubeVideoService {
         
         List<String> lines = Files.readAllLines(path);
 
-        // 检测是否为 YouTube 自动生成字幕（滚动格式：每个 cue 包含旧行 + 新行）
-        boolean isRollingFormat = false;
-        for (String l : lines) {
-            if (l.contains("<c>") || l.matches(".*<\\d{2}:\\d{2}:\\d{2}\\.\\d{3}>.*")) {
-                isRollingFormat = true;
-                break;
-            }
-        }
-
-        int order = 0;
-        int i = 0;
-
-        while (i < lines.size()) {
-            String line = lines.get(i).trim();
-
-            // 跳过 WEBVTT 头部和空行
-            if (line.isEmpty() || line.startsWith("WEBVTT") || line.startsWith("NOTE") || line.startsWith("Kind:") || line.startsWith("Language:")) {
-                i++;
-                continue;
-            }
-
-            // 时间戳行格式: 00:00:00.000 --> 00:00:03.000 [可能有额外属性]
-            if (line.contains("-->")) {
-                String[] times = line.split("-->");
-                // 清理时间戳，移除额外的属性（如 align:start position:0%）
-                String startTimeStr = times[0].trim();
-                String endTimeStr = times[1].trim().split("\\s+")[0]; // 只取第一个空格前的部分
-
-                double startTime = parseVttTime(startTimeStr);
-                double endTime = parseVttTime(endTimeStr);
-
-                // 读取 cue 中所有文本行
-                i++;
-                List<String> cueLines = new ArrayList<>();
-                while (i < lines.size() && !lines.get(i).trim().isEmpty() && !lines.get(i).contains("-->")) {
-                    cueLines.add(lines.get(i).trim());
-                    i++;
-                }
-
-                // 跳过零时长的 cue（YouTube 用来清屏旧文本的）
-                if (endTime - startTime < 0.05) {
-                    continue;
-                }
-
-                String rawText;
-                if (isRollingFormat) {
-                    // YouTube 滚动字幕格式：只取包含 <c> 标签的行（新内容行）
-                    // 另一行是上一条已显示过的纯文本（重复内容），跳过
-                    StringBuilder newContent = new StringBuilder();
-                    for (String cueLine : cueLines) {
-                        if (cueLine.contains("<c>") || cueLine.matches(".*<\\d{2}:\\d{2}:\\d{2}\\.\\d{3}>.*")) {
-                            newContent.append(cueLine).append(" ");
-                        }
-                    }
-                    rawText = newContent.toString().trim();
-                    // 如果没有带标签的行，说明不是滚动格式的 cue，取所有行
-                    if (rawText.isEmpty()) {
-                        StringBuilder sb = new StringBuilder();
-                        for (String cueLine : cueLines) {
-                            sb.append(cueLine).append(" ");
-                        }
-                        rawText = sb.toString().trim();
-                    }
-                } else {
-                    // 普通 VTT：取所有行
-                    StringBuilder sb = new StringBuilder();
-                    for (String cueLine : cueLines) {
-                        sb.append(cueLine).append(" ");
-                    }
-                    rawText = sb.toString().trim();
-                }
-
-                if (!rawText.isEmpty()) {
-                    SubtitleSegment segment = new SubtitleSegment();
-                    segment.setVideoId(videoId);
-                    segment.setStartTime(startTime);
-                    segment.setEndTime(endTime);
-                    segment.setRawText(rawText);
-                    segment.setCleanText(cleanText(rawText, language)); // 传入语言参数
-                    segment.setSegmentOrder(order++);
-                    segments.add(segment);
-                }
-            } else {
-                i++;
-            }
-        }
-        
-        return segments;
-    }
-
-    /**
-     * 解析 VTT 时间戳（格式: 00:00:00.000 或 00:00.000）
-     */
-    private double parseVttTime(String timeStr) {
-        String[] parts = timeStr.split(":");
-        double seconds = 0;
-        
-        if (parts.length == 3) {
-            // HH:MM:SS.mmm
-            seconds = Integer.parseInt(parts[0]) * 3600 +
-                     Integer.parseInt(parts[1]) * 60 +
-                     Double.parseDouble(parts[2]);
-        } else if (parts.length == 2) {
-            // MM:SS.mmm
-            seconds = Integer.parseInt(parts[0]) * 60 +
-                     Double.parseDouble(parts[1]);
-        }
-        
-        return seconds;
+        return vttSubtitleParser.parse(lines, videoId, language);
     }
 
     /**
@@ -907,109 +923,57 @@ public class YoutubeVideoService {
     }
     
     /**
-     * 清洗字幕文本（根据语言选择不同策略）
+     * 清洗字幕文本（根据语言选择不同策略，单遍扫描，见 SubtitleTextNormalizer）
      */
     private String cleanText(String text, String language) {
-        // 1. 解码HTML实体
-        text = decodeHtmlEntities(text);
-        
-        // 2. 移除 HTML 标签
-        text = text.replaceAll("<[^>]+>", "");
-        
-        // 3. 移除多余空格
-        text = text.replaceAll("\\s+", " ");
-        
-        // 4. 根据语言选择不同的字符过滤策略
-        if (isCJKLanguage(language)) {
-            // 中文/日文/韩文：保留所有Unicode字符，只移除控制字符
-            // 保留中文标点：，。！？；：""''（）【】《》、·等
-            text = text.replaceAll("[\\p{Cntrl}&&[^\n\r\t]]", "");
-        } else {
-            // 英文等：使用原有逻辑，保留基本ASCII字符和标点
-        text = text.replaceAll("[^a-zA-Z0-9\\s,.!?'-]", "");
-        }
-        
-        return text.trim();
+        return subtitleTextNormalizer.normalize(text, SubtitleLanguage.isCjk(language));
     }
-    
+
     /**
-     * 解码常见的HTML实体
+     * 生成学习句子（智能切分）
      */
-    private String decodeHtmlEntities(String text) {
-        if (text == null) return "";
-        
-        // 常见HTML实体替换
-        text = text.replace("&nbsp;", " ");
-        text = text.replace("&amp;", "&");
-        text = text.replace("&lt;", "<");
-        text = text.replace("&gt;", ">");
-        text = text.replace("&quot;", "\"");
-        text = text.replace("&#39;", "'");
-        text = text.replace("&apos;", "'");
-        text = text.replace("&ndash;", "-");
-        text = text.replace("&mdash;", "-");
-        text = text.replace("&hellip;", "...");
-        
-        // 处理数字实体 (如 &#160; 是 nbsp)
-        text = text.replaceAll("&#160;", " ");
-        text = text.replaceAll("&#\\d+;", "");
-        
-        return text;
+    private void generateLearningSentences(YoutubeVideo video, List<SubtitleSegment> segments) {
+        List<FollowReadSentence> sentences = buildLearningSentences(video, segments);
+        sentenceRepository.saveAll(sentences);
+        video.setSentenceCount(sentences.size());
+        saveVideo(video);
     }
 
     /**
-     * 生成学习句子（智能切分）
+     * 切分并过滤学习句子（不落库）
      */
-    private void generateLearningSentences(YoutubeVideo video, List<SubtitleSegment> segments) {
+    private List<FollowReadSentence> buildLearningSentences(YoutubeVideo video, List<SubtitleSegment> segments) {
         List<FollowReadSentence> sentences = new ArrayList<>();
         
-        // 合并相邻字幕段（间隔 < 2.5s，在准确性和句子长度间平衡）
-        updateProgress(video, "正在合并字幕片段...");
-        List<SubtitleSegment> mergedSegments = mergeNearbySegments(segments, 2.5);
-        updateProgress(video, String.format("字幕合并完成，共 %d 个片段（原始 %d 个）", mergedSegments.size(), segments.size()));
-        
-        log.info("字幕合并: {}个原始片段 → {}个合并片段", segments.size(), mergedSegments.size());
+        // 按句末标点和停顿切分句子（停顿 > 2.5s 一定断句），自动字幕使用逐词时间戳定位句子起止，一次流式完成
+        updateProgress(video, "正在按句子边界切分字幕...");
+        SentenceBuilder builder = sentenceProcessor.newBuilder(
+            video.getSubtitleLanguage(), 2.5, video.getDifficultyLevel());
+        for (SubtitleSegment segment : segments) {
+            builder.accept(segment);
+        }
+        List<SentenceUnit> sentenceUnits = builder.finish();
+        updateProgress(video, String.format("句子切分完成，共 %d 个候选句子（原始 %d 个片段）",
+            sentenceUnits.size(), builder.getSegmentCount()));
         
-        // 按语义切分句子
-        updateProgress(video, "正在按语义切分句子...");
-        List<SentenceUnit> sentenceUnits = splitIntoSentences(mergedSegments, video.getSubtitleLanguage());
-        updateProgress(video, String.format("句子切分完成，共 %d 个候选句子", sentenceUnits.size()));
+        log.info("句子切分: {}个字幕片段 → {}个候选句子", builder.getSegmentCount(), sentenceUnits.size());
         
         updateProgress(video, "正在过滤和保存学习句子...");
+        boolean cjk = SubtitleLanguage.isCjk(video.getSubtitleLanguage());
+        // 英文字幕逐句生成 IPA 音标（离线词典 + 拼读规则，耗时低于切句本身）
+        boolean phonetic = PhoneticTranscriber.supports(video.getSubtitleLanguage());
         int order = 0;
         int processed = 0;
         int filtered = 0;
         for (SentenceUnit unit : sentenceUnits) {
             processed++;
-            // 过滤太短或太长的句子（根据语言选择不同策略）
-            double duration = unit.endTime - unit.startTime;
-            boolean shouldFilter = false;
-            
-            if (isCJKLanguage(video.getSubtitleLanguage())) {
-                // 中文/日文：基于字符数
-                int charCount = unit.text.length();
-                if (charCount < 3 || charCount > 200 || duration < 0.5 || duration > 40) {
-                    shouldFilter = true;
-                }
-            } else {
-                // 英文等：基于单词数
-                int wordCount = unit.text.split("\\s+").length;
-            if (wordCount < 3 || wordCount > 80 || duration < 0.5 || duration > 40) {
-                    shouldFilter = true;
-                }
-            }
-            
-            if (shouldFilter) {
+            // 过滤太短或太长的句子（中文/日文基于字符数，英文等基于单词数，构建时已计算）
+            if (!unit.isAccepted()) {
                 filtered++;
                 String preview = unit.text.length() > 50 ? unit.text.substring(0, 50) + "..." : unit.text;
-                if (isCJKLanguage(video.getSubtitleLanguage())) {
-                    log.info("过滤句子: {} 字符, {:.2f}秒 ({}~{}) - {}", 
-                        unit.text.length(), duration, unit.startTime, unit.endTime, preview);
-                } else {
-                    int wordCount = unit.text.split("\\s+").length;
-                log.info("过滤句子: {} 词, {:.2f}秒 ({}~{}) - {}", 
-                        wordCount, duration, unit.startTime, unit.endTime, preview);
-                }
+                log.info("过滤句子: {} {}, {}秒 ({}~{}) - {}",
+                    cjk ? unit.getCharCount() : unit.getWordCount(), cjk ? "字符" : "词",
+                    String.format("%.2f", unit.getDuration()), unit.startTime, unit.endTime, preview);
                 continue; // 跳过不适合跟读的句子
             }
             
@@ -1020,9 +984,9 @@ public class YoutubeVideoService {
             
             FollowReadSentence sentence = new FollowReadSentence();
             sentence.setText(unit.text);
-            sentence.setPhonetic(""); // TODO: 生成音标
+            sentence.setPhonetic(phonetic ? phoneticTranscriber.transcribe(unit.text) : "");
             sentence.setAudioUrl(null); // YouTube句子使用视频片段，不需要单独的音频文件
-            sentence.setDifficulty(calculateDifficulty(unit.text, video.getDifficultyLevel(), video.getSubtitleLanguage()));
+            sentence.setDifficulty(unit.getDifficulty());
             sentence.setCategory("YouTube");
             sentence.setYoutubeVideoId(video.getId());
             sentence.setStartTime(unit.startTime);
@@ -1030,201 +994,73 @@ public class YoutubeVideoService {
             sentence.setSentenceOrder(order++);
             sentence.setVideoUrl(video.getSourceUrl());
             
-            sentenceRepository.save(sentence);
             sentences.add(sentence);
         }
-        
-        video.setSentenceCount(sentences.size());
-        videoRepository.save(video);
-        
-        log.info("句子生成统计: 候选{}个, 已保存{}个, 已过滤{}个", sentenceUnits.size(), sentences.size(), filtered);
-    }
 
-    /**
-     * 合并相邻的字幕段（改进版：限制合并长度）
-     */
-    private List<SubtitleSegment> mergeNearbySegments(List<SubtitleSegment> segments, double maxGap) {
-        if (segments.isEmpty()) {
-            return segments;
-        }
-        
-        List<SubtitleSegment> merged = new ArrayList<>();
-        SubtitleSegment current = segments.get(0);
-        
-        for (int i = 1; i < segments.size(); i++) {
-            SubtitleSegment next = segments.get(i);
-            double gap = next.getStartTime() - current.getEndTime();
-            
-            // 计算合并后的长度
-            int currentWordCount = current.getCleanText().split("\\s+").length;
-            int nextWordCount = next.getCleanText().split("\\s+").length;
-            double mergedDuration = next.getEndTime() - current.getStartTime();
-            
-            // 合并条件：
-            // 1. 时间间隔 <= maxGap
-            // 2. 合并后单词数 <= 60
-            // 3. 合并后时长 <= 30秒
-            if (gap <= maxGap && 
-                (currentWordCount + nextWordCount) <= 60 && 
-                mergedDuration <= 30) {
-                // 合并
-                current.setEndTime(next.getEndTime());
-                current.setCleanText(current.getCleanText() + " " + next.getCleanText());
-            } else {
-                merged.add(current);
-                current = next;
-            }
-        }
-        merged.add(current);
-        
-        return merged;
+        log.info("句子生成统计: 候选{}个, 保留{}个, 已过滤{}个", sentenceUnits.size(), sentences.size(), filtered);
+        return sentences;
     }
 
     /**
-     * 按语义切分成句子（改进版：直接使用字幕段的准确时间）
+     * 获取用户的所有视频任务
      */
-    private List<SentenceUnit> splitIntoSentences(List<SubtitleSegment> segments, String language) {
-        List<SentenceUnit> units = new ArrayList<>();
-        
-        // 简化策略：每个合并后的字幕段就是一个句子，使用其准确的时间戳
-        // 不再进行二次切分，避免时间估算不准确
-        for (SubtitleSegment segment : segments) {
-            String text = segment.getCleanText().trim();
-            
-            if (text.isEmpty()) {
-                continue;
-            }
-            
-            // 移除 filler words（根据语言）
-            text = removeFillerWords(text, language);
-            
-            if (text.isEmpty()) {
-                continue;
-            }
-            
-            SentenceUnit unit = new SentenceUnit();
-            unit.text = text;
-            unit.startTime = segment.getStartTime();  // 使用字幕段的准确开始时间
-            unit.endTime = segment.getEndTime();      // 使用字幕段的准确结束时间
-            
-            units.add(unit);
-        }
-        
-        return units;
+    public List<YoutubeVideo> getUserVideos(Long userId) {
+        return videoRepository.findByCreatedByOrderByCreatedAtDesc(userId);
     }
 
     /**
-     * 移除 filler words（支持多语言）
+     * 获取所有视频（供所有用户学习）
      */
-    private String removeFillerWords(String text, String language) {
-        if (isCJKLanguage(language)) {
-            // 中文/日文：直接移除填充词，不需要空格分割
-            String result = text;
-            Set<String> fillerWords = getFillerWords(language);
-            for (String filler : fillerWords) {
-                result = result.replace(filler, "");
-            }
-            return result.trim();
-        } else {
-            // 英文等：使用空格分割，保留原始大小写
-        String[] words = text.split("\\s+");
-        StringBuilder result = new StringBuilder();
-            Set<String> fillerWords = getFillerWords(language);
-
-        for (String word : words) {
-            String cleanWord = word.toLowerCase().replaceAll("[^a-z]", "");
-                if (!fillerWords.contains(cleanWord)) {
-                result.append(word).append(" ");
-            }
-        }
-
-        return result.toString().trim();
-    }
+    public List<YoutubeVideo> getAllVideos() {
+        return videoRepository.findAllByOrderByCreatedAtDesc();
     }
-    
+
     /**
-     * 获取指定语言的填充词列表
+     * 分页获取所有视频（卡片投影，OFFSET 方式，仅用于首页和跳页）
      */
-    private Set<String> getFillerWords(String language) {
-        if (language == null) return FILLER_WORDS_EN;
-        String lang = language.toLowerCase();
-        if (lang.startsWith("zh")) return FILLER_WORDS_ZH;
-        if (lang.startsWith("ja")) return FILLER_WORDS_JA;
-        return FILLER_WORDS_EN;
+    public org.springframework.data.domain.Page<YoutubeVideoCard> getAllVideosPaged(int page, int size) {
+        org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(page, size);
+        return videoRepository.findCardsOrderByPinned(pageable);
     }
 
     /**
-     * 计算难度（支持多语言）
+     * Keyset 分页获取视频卡片（排序键：pinned, pinnedAt, createdAt, id）
+     * 从游标位置继续读取，不使用 OFFSET，深翻页耗时不随页码增长
      */
-    private String calculateDifficulty(String text, String userPreference, String language) {
-        if (!"auto".equals(userPreference)) {
-            return userPreference;
-        }
-        
-        if (isCJKLanguage(language)) {
-            // 中文/日文：基于字符数评估
-            int charCount = text.length();
-            // 统计中文字符数（CJK统一表意文字）
-            long cjkCharCount = text.codePoints()
-                .filter(cp -> Character.UnicodeBlock.of(cp) == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS ||
-                             Character.UnicodeBlock.of(cp) == Character.UnicodeBlock.HIRAGANA ||
-                             Character.UnicodeBlock.of(cp) == Character.UnicodeBlock.KATAKANA ||
-                             Character.UnicodeBlock.of(cp) == Character.UnicodeBlock.HANGUL_SYLLABLES)
-                .count();
-            
-            // 基于字符数和CJK字符比例评估难度
-            if (charCount < 15 && cjkCharCount > charCount * 0.7) {
-                return "easy";
-            } else if (charCount > 50 || cjkCharCount < charCount * 0.3) {
-                return "hard";
-            } else {
-                return "medium";
+    public Map<String, Object> getVideoCardsAfter(String cursor, int size) {
+        VideoCursor position = VideoCursor.decode(cursor);
+        // 多取一条用于判断是否还有下一页
+        org.springframework.data.domain.Pageable limit = org.springframework.data.domain.PageRequest.of(0, size + 1);
+
+        List<YoutubeVideoCard> cards = new ArrayList<>();
+        if (position.pinned) {
+            cards.addAll(videoRepository.findPinnedCardsAfter(position.pinnedAt, position.createdAt, position.id, limit));
+            if (cards.size() <= size) {
+                // 置顶部分已读完，接着读取未置顶视频
+                org.springframework.data.domain.Pageable rest = org.springframework.data.domain.PageRequest.of(0, size + 1 - cards.size());
+                cards.addAll(videoRepository.findUnpinnedCards(rest));
             }
         } else {
-            // 英文等：使用原有逻辑（基于单词数）
-        String[] words = text.split("\\s+");
-        int wordCount = words.length;
-        int longWordCount = 0;
-        
-        for (String word : words) {
-            if (word.length() > 8) {
-                longWordCount++;
-            }
+            cards.addAll(videoRepository.findUnpinnedCardsAfter(position.createdAt, position.id, limit));
         }
-        
-            double longWordRatio = wordCount > 0 ? longWordCount / (double) wordCount : 0;
-        
-        // 调整难度阈值以适应更长的句子
-        if (wordCount < 12 && longWordRatio < 0.2) {
-            return "easy";
-        } else if (wordCount > 25 || longWordRatio > 0.4) {
-            return "hard";
-        } else {
-            return "medium";
-            }
-        }
-    }
 
-    /**
-     * 获取用户的所有视频任务
-     */
-    public List<YoutubeVideo> getUserVideos(Long userId) {
-        return videoRepository.findByCreatedByOrderByCreatedAtDesc(userId);
-    }
+        boolean hasNext = cards.size() > size;
+        if (hasNext) {
+            cards = cards.subList(0, size);
+        }
 
-    /**
-     * 获取所有视频（供所有用户学习）
-     */
-    public List<YoutubeVideo> getAllVideos() {
-        return videoRepository.findAllByOrderByCreatedAtDesc();
+        Map<String, Object> result = new HashMap<>();
+        result.put("content", cards);
+        result.put("hasNext", hasNext);
+        result.put("nextCursor", hasNext ? encodeCursor(cards.get(cards.size() - 1)) : null);
+        return result;
     }
 
     /**
-     * 分页获取所有视频
+     * 生成指向指定卡片之后位置的游标
      */
-    public org.springframework.data.domain.Page<YoutubeVideo> getAllVideosPaged(int page, int size) {
-        org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(page, size);
-        return videoRepository.findAllByOrderByPinnedDescPinnedAtDescCreatedAtDesc(pageable);
+    public String encodeCursor(YoutubeVideoCard card) {
+        return VideoCursor.of(card).encode();
     }
 
     /**
@@ -1263,6 +1099,15 @@ public class YoutubeVideoService {
         return details;
     }
 
+    /**
+     * 获取视频的逐词时间轨道（只有自动字幕有），没有时返回 null
+     */
+    public WordTimingTrack getWordTimingTrack(Long videoId) {
+        return wordTimingsRepository.findById(videoId)
+            .map(SubtitleWordTimings::toTrack)
+            .orElse(null);
+    }
+
     /**
      * 删除视频及其所有相关数据（级联删除）
      */
@@ -1276,22 +1121,42 @@ public class YoutubeVideoService {
         YoutubeVideo video = videoOpt.get();
         
         log.info("删除视频及相关数据: videoId={}, title={}", video.getVideoId(), video.getTitle());
-        
-        // 1. 删除所有生成的句子
-        List<FollowReadSentence> sentences = sentenceRepository.findByYoutubeVideoId(videoId);
-        int sentenceCount = sentences.size();
-        sentenceRepository.deleteAll(sentences);
+
+        // 先收集需要清理的文件路径（删除记录后就查不到了）
+        // 录音按用户和内容去重，可能还被其他视频的跟读任务引用，这部分保留
+        Set<String> recordings = new LinkedHashSet<>(followReadTaskRepository.findAudioUrlsByYoutubeVideoId(videoId));
+        if (!recordings.isEmpty()) {
+            recordings.removeAll(followReadTaskRepository.findAudioUrlsReferencedOutsideVideo(recordings, videoId));
+        }
+        List<String> downloads = downloadTaskRepository.findOutputFilesByYoutubeVideoId(videoId);
+
+        // 1. 删除跟读评分明细和跟读任务（依赖句子 ID，必须先于句子删除）
+        int resultCount = taskResultRepository.deleteAllByYoutubeVideoId(videoId);
+        int taskCount = followReadTaskRepository.deleteAllByYoutubeVideoId(videoId);
+        int reviewCount = reviewStateRepository.deleteAllByYoutubeVideoId(videoId);
+        log.info("已删除 {} 个跟读任务, {} 条评分明细, {} 个复习计划", taskCount, resultCount, reviewCount);
+
+        // 2. 删除所有生成的句子
+        int sentenceCount = sentenceRepository.deleteAllByYoutubeVideoId(videoId);
         log.info("已删除 {} 个学习句子", sentenceCount);
         
-        // 2. 删除所有字幕片段
-        segmentRepository.deleteByVideoId(videoId);
-        log.info("已删除字幕片段");
+        // 3. 删除所有字幕片段
+        int segmentCount = segmentRepository.deleteByVideoId(videoId);
+        wordTimingsRepository.deleteByVideoId(videoId);
+        log.info("已删除 {} 个字幕片段", segmentCount);
+
+        // 4. 删除笔记和下载任务记录
+        int noteCount = studyNoteRepository.deleteAllByVideoId(video.getVideoId());
+        int downloadCount = downloadTaskRepository.deleteAllByYoutubeVideoId(videoId);
+        log.info("已删除 {} 条笔记, {} 个下载任务", noteCount, downloadCount);
         
-        // 3. 删除视频记录
+        // 5. 删除视频记录
         videoRepository.delete(video);
         log.info("已删除视频记录: {}", video.getVideoId());
 
-        // 4. 删除 ES 索引
+        vocabularyIndex.removeVideo(videoId);
+
+        // 6. 删除 ES 索引
         if (subtitleSearchService != null) {
             try {
                 subtitleSearchService.deleteVideo(video.getVideoId());
@@ -1300,20 +1165,15 @@ public class YoutubeVideoService {
             }
         }
 
-        // 5. 可选：删除字幕文件
-        try {
-            // 根据视频的语言选择字幕文件名
-            String langCode = video.getSubtitleLanguage() != null ? 
-                getLanguageCode(video.getSubtitleLanguage()) : "en";
-            String subtitleFile = SUBTITLE_DIR + video.getVideoId() + "." + langCode + ".vtt";
-            Path path = Paths.get(subtitleFile);
-            if (Files.exists(path)) {
-                Files.delete(path);
-                log.info("已删除字幕文件: {}", subtitleFile);
-            }
-        } catch (Exception e) {
-            log.warn("删除字幕文件失败: {}", e.getMessage());
-        }
+        // 7. 事务提交后在后台删除字幕文件（所有语言）、参考音频和特征缓存和录音；
+        // 下载文件可能被其他视频记录（其他用户）共用，只释放引用，由存储清理按预算淘汰
+        mediaFileCleaner.deleteByPrefixAfterCommit(SUBTITLE_DIR, video.getVideoId() + ".");
+        mediaFileCleaner.deleteByPrefixAfterCommit(ReferenceAudioProvider.CACHE_DIR, ReferenceAudioProvider.cachePrefix(videoId));
+        referenceFeatureCache.removeVideo(videoId);
+        mediaStore.release(downloads);
+        mediaFileCleaner.deleteAfterCommit(recordings);
+        storageLifecycleManager.forgetByPrefix(SUBTITLE_DIR, video.getVideoId() + ".");
+        storageLifecycleManager.forget(recordings);
     }
 
     /**
@@ -1387,8 +1247,8 @@ public class YoutubeVideoService {
                 segment.setSegmentOrder(i);
                 
                 segments.add(segment);
-                segmentRepository.save(segment);
             }
+            segmentRepository.saveVideoSegments(video.getId(), segments, null);
             
             log.info("保存了 {} 个字幕片段", segments.size());
             
@@ -1400,6 +1260,7 @@ public class YoutubeVideoService {
             video.setProgressMessage("字幕解析完成！");
             video.setCompletedAt(LocalDateTime.now());
             videoRepository.save(video);
+            vocabularyIndex.indexVideo(video, segments);
 
             // 索引到 Elasticsearch
             if (subtitleSearchService != null) {
@@ -1441,8 +1302,9 @@ public class YoutubeVideoService {
             // 确保目录存在
             Files.createDirectories(cookiePath.getParent());
             
-            // 写入文件
+            // 写入文件（登记到存储管理，超过保留时间未使用后删除）
             Files.write(cookiePath, cookies.getBytes(StandardCharsets.UTF_8));
+            storageLifecycleManager.register(StorageLifecycleManager.Area.COOKIES, cookieFilePath);
             
             // 验证文件是否写入成功
             if (Files.exists(cookiePath)) {
@@ -1470,16 +1332,51 @@ public class YoutubeVideoService {
         String cookieFilePath = "/tmp/youtube_cookies_" + videoId + ".txt";
         if (Files.exists(Paths.get(cookieFilePath))) {
             log.info("✅ 找到 cookies 文件: {}", cookieFilePath);
+            storageLifecycleManager.touch(cookieFilePath);
             return cookieFilePath;
         }
         return null;
     }
 
-    // 内部类：句子单元
-    private static class SentenceUnit {
-        String text;
-        double startTime;
-        double endTime;
+    // 内部类：视频列表 keyset 游标（pinned|pinnedAt|createdAt|id，Base64 URL 编码）
+    private static class VideoCursor {
+        boolean pinned;
+        LocalDateTime pinnedAt;
+        LocalDateTime createdAt;
+        Long id;
+
+        static VideoCursor of(YoutubeVideoCard card) {
+            VideoCursor cursor = new VideoCursor();
+            // 置顶时间缺失的置顶视频按创建时间处理（与 YoutubeVideo.ensurePinnedAt、V10 迁移一致）
+            cursor.pinned = Boolean.TRUE.equals(card.getPinned());
+            cursor.pinnedAt = card.getPinnedAt() != null ? card.getPinnedAt() : card.getCreatedAt();
+            cursor.createdAt = card.getCreatedAt();
+            cursor.id = card.getId();
+            return cursor;
+        }
+
+        String encode() {
+            String raw = (pinned ? "1" : "0") + "|"
+                + (pinnedAt != null ? pinnedAt.toString() : "") + "|"
+                + (createdAt != null ? createdAt.toString() : "") + "|"
+                + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static VideoCursor decode(String encoded) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|", -1);
+                VideoCursor cursor = new VideoCursor();
+                cursor.pinned = "1".equals(parts[0]);
+                cursor.pinnedAt = parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]);
+                cursor.createdAt = LocalDateTime.parse(parts[2]);
+                cursor.id = Long.parseLong(parts[3]);
+                return cursor;
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
     }
 }
 
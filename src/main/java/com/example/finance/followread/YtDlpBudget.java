@@ -0,0 +1,59 @@
+package com.example.finance.followread;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * 全局 yt-dlp 并发预算：获取视频信息、下载字幕、展开播放列表、频道轮询同时运行的 yt-dlp 进程数上限
+ *
+ * 每个 yt-dlp 进程都要启动一个 Python 解释器并发起多次请求，批量导入、频道轮询和用户手动解析同时进行时
+ * 进程数没有上限会拖慢整机并更容易触发站点限流。视频文件下载有自己的并发限制（DownloadEngine），不占这里的名额。
+ */
+@Component
+public class YtDlpBudget {
+
+    @Value("${ytdlp.max-concurrent:4}")
+    private int maxConcurrent = 4;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(Math.max(maxConcurrent, 1), true);
+    }
+
+    /**
+     * 等待一个名额，用 try-with-resources 在进程结束后归还
+     */
+    public Permit acquire() throws InterruptedException {
+        permits.acquire();
+        return new Permit();
+    }
+
+    public int available() {
+        return permits.availablePermits();
+    }
+
+    public int capacity() {
+        return Math.max(maxConcurrent, 1);
+    }
+
+    public final class Permit implements AutoCloseable {
+
+        private boolean held = true;
+
+        private Permit() {
+        }
+
+        @Override
+        public void close() {
+            if (held) {
+                held = false;
+                permits.release();
+            }
+        }
+    }
+}
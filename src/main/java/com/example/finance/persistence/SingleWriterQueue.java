@@ -0,0 +1,252 @@
+package com.example.finance.persistence;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批量单写队列
+ *
+ * 高频的小 UPDATE（下载进度、解析进度等）提交到这里，由唯一的写线程攒批后在一个事务中执行，
+ * 把大量小事务合并成少量大事务，减少对单个写连接的争用。
+ *
+ * 同一个 key 的写操作会合并：队列中只保留最后一次提交（进度类更新只关心最新值）。
+ * 调用方在同步写整条记录前应先调用 {@link #discard(String)}，丢弃尚未执行的旧更新并等待
+ * 正在执行的批次提交，避免旧进度覆盖新状态。调用 discard 时不要持有写事务。
+ */
+@Component
+public class SingleWriterQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(SingleWriterQueue.class);
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${write-queue.max-batch-size:200}")
+    private int maxBatchSize;
+
+    @Value("${write-queue.linger-ms:50}")
+    private long lingerMs;
+
+    // 待执行的写操作（按提交顺序，同 key 覆盖）
+    private final LinkedHashMap<String, PendingWrite> pending = new LinkedHashMap<>();
+    // 每个 key 的最新版本号，执行时版本不一致说明已被覆盖或丢弃
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+    // 已被写线程取出、尚未提交的 key
+    private final Set<String> inFlight = new HashSet<>();
+
+    private static final long DISCARD_WAIT_MS = 5000;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong executedCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    public SingleWriterQueue(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writerThread = new Thread(this::runLoop, "db-writer");
+        this.writerThread.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        writerThread.start();
+    }
+
+    /**
+     * 提交写操作，同 key 的未执行操作会被替换
+     */
+    public void submit(String key, Runnable write) {
+        long generation = sequence.incrementAndGet();
+        synchronized (pending) {
+            generations.put(key, generation);
+            pending.remove(key);
+            pending.put(key, new PendingWrite(key, generation, write));
+            submittedCount.incrementAndGet();
+            pending.notifyAll();
+        }
+    }
+
+    /**
+     * 提交不参与合并的写操作
+     */
+    public void submit(Runnable write) {
+        submit("#" + sequence.incrementAndGet(), write);
+    }
+
+    /**
+     * 丢弃 key 对应的未执行操作；如果该 key 所在批次正在执行，等待其提交后返回
+     */
+    public void discard(String key) {
+        synchronized (pending) {
+            if (pending.remove(key) != null) {
+                skippedCount.incrementAndGet();
+            }
+            // 只有存在未完成操作时才需要作废版本
+            generations.computeIfPresent(key, (k, v) -> sequence.incrementAndGet());
+
+            long deadline = System.currentTimeMillis() + DISCARD_WAIT_MS;
+            while (inFlight.contains(key) && Thread.currentThread() != writerThread) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    log.warn("等待写批次提交超时: key={}", key);
+                    break;
+                }
+                try {
+                    pending.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 队列统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (pending) {
+            stats.put("pending", pending.size());
+        }
+        stats.put("submitted", submittedCount.get());
+        stats.put("executed", executedCount.get());
+        stats.put("skipped", skippedCount.get());
+        stats.put("batches", batchCount.get());
+        return stats;
+    }
+
+    private void runLoop() {
+        while (running || hasPending()) {
+            try {
+                List<PendingWrite> batch = takeBatch();
+                if (!batch.isEmpty()) {
+                    try {
+                        executeBatch(batch);
+                    } finally {
+                        synchronized (pending) {
+                            for (PendingWrite write : batch) {
+                                inFlight.remove(write.key);
+                            }
+                            pending.notifyAll();
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Exception e) {
+                log.error("写队列执行异常", e);
+            }
+        }
+    }
+
+    private boolean hasPending() {
+        synchronized (pending) {
+            return !pending.isEmpty();
+        }
+    }
+
+    private List<PendingWrite> takeBatch() throws InterruptedException {
+        synchronized (pending) {
+            while (pending.isEmpty() && running) {
+                pending.wait(1000);
+            }
+        }
+        // 短暂等待，让同一时间段内的更新攒成一批
+        if (running && lingerMs > 0) {
+            Thread.sleep(lingerMs);
+        }
+        List<PendingWrite> batch = new ArrayList<>();
+        synchronized (pending) {
+            Iterator<PendingWrite> it = pending.values().iterator();
+            while (it.hasNext() && batch.size() < maxBatchSize) {
+                PendingWrite write = it.next();
+                batch.add(write);
+                inFlight.add(write.key);
+                it.remove();
+            }
+        }
+        return batch;
+    }
+
+    private void executeBatch(List<PendingWrite> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (PendingWrite write : batch) {
+                    runIfCurrent(write);
+                }
+            });
+            batchCount.incrementAndGet();
+        } catch (Exception e) {
+            // 整批失败时逐条重试，避免一条坏数据拖累整批
+            log.warn("批量写入失败，逐条重试: size={}, error={}", batch.size(), e.getMessage());
+            for (PendingWrite write : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> runIfCurrent(write));
+                } catch (Exception single) {
+                    log.error("写入失败: key={}", write.key, single);
+                }
+            }
+        }
+    }
+
+    private void runIfCurrent(PendingWrite write) {
+        // 执行前再次检查版本：取出后被 discard 或被新提交覆盖的操作直接跳过
+        Long current = generations.get(write.key);
+        if (current == null || current != write.generation) {
+            skippedCount.incrementAndGet();
+            synchronized (pending) {
+                if (current != null && !pending.containsKey(write.key)) {
+                    generations.remove(write.key, current);
+                }
+            }
+            return;
+        }
+        write.action.run();
+        generations.remove(write.key, write.generation);
+        executedCount.incrementAndGet();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        synchronized (pending) {
+            pending.notifyAll();
+        }
+        // 等待剩余写操作落库
+        writerThread.join(10_000);
+    }
+
+    private static class PendingWrite {
+        final String key;
+        final long generation;
+        final Runnable action;
+
+        PendingWrite(String key, long generation, Runnable action) {
+            this.key = key;
+            this.generation = generation;
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.finance.persistence;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * SQLite 高性能模式数据源
+ *
+ * - WAL 日志 + synchronous=NORMAL：读不阻塞写，提交不再每次 fsync
+ * - busy_timeout：锁冲突时等待而不是直接抛出 SQLITE_BUSY
+ * - 读连接池（query_only）+ 单个写连接：只读事务走读池，写事务排队使用唯一的写连接
+ *
+ * 路由依据是事务的 readOnly 标记（Spring Data 的查询方法默认 readOnly=true），
+ * 由 LazyConnectionDataSourceProxy 在第一条 SQL 执行时决定取哪个连接池的连接。
+ * 仅在 spring.datasource.url 为 jdbc:sqlite: 时生效，其他数据库使用 Spring Boot 默认数据源。
+ * 同时加载 orm-sqlite.xml，把实体主键从 pooled 序列改回自增列（见该文件说明）。
+ */
+@Configuration
+@ConditionalOnExpression("'${spring.datasource.url:}'.startsWith('jdbc:sqlite:')")
+public class SqliteDataSourceConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SqliteDataSourceConfig.class);
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${sqlite.journal-mode:WAL}")
+    private String journalMode;
+
+    @Value("${sqlite.synchronous:NORMAL}")
+    private String synchronous;
+
+    @Value("${sqlite.busy-timeout-ms:10000}")
+    private int busyTimeoutMs;
+
+    @Value("${sqlite.cache-size-kb:65536}")
+    private int cacheSizeKb;
+
+    @Value("${sqlite.mmap-size-mb:256}")
+    private int mmapSizeMb;
+
+    @Value("${sqlite.read-pool-size:4}")
+    private int readPoolSize;
+
+    /**
+     * 写连接池：固定 1 个连接，BEGIN IMMEDIATE 提前拿写锁，避免读锁升级写锁时的 SQLITE_BUSY
+     */
+    @Bean(autowireCandidate = false)
+    public HikariDataSource sqliteWriteDataSource() {
+        HikariConfig config = baseConfig("sqlite-writer");
+        config.setMaximumPoolSize(1);
+        config.setMinimumIdle(1);
+        config.addDataSourceProperty("transaction_mode", "IMMEDIATE");
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * 读连接池：query_only 防止误写，WAL 模式下多个读连接可与写连接并发
+     */
+    @Bean(autowireCandidate = false)
+    public HikariDataSource sqliteReadDataSource() {
+        HikariConfig config = baseConfig("sqlite-reader");
+        config.setMaximumPoolSize(readPoolSize);
+        config.setMinimumIdle(1);
+        config.setConnectionInitSql("PRAGMA query_only = 1");
+        return new HikariDataSource(config);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource() {
+        HikariDataSource writer = sqliteWriteDataSource();
+        HikariDataSource reader = sqliteReadDataSource();
+        logEffectivePragmas(writer);
+
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(writer);
+        proxy.setReadOnlyDataSource(reader);
+        return proxy;
+    }
+
+    /**
+     * SQLite 下主键使用自增列，避免序列模拟表在独立连接上取号时与唯一的写连接互相等待
+     */
+    @Bean
+    public EntityManagerFactoryBuilderCustomizer sqliteIdentityMappingCustomizer() {
+        return builder -> builder.setPersistenceUnitPostProcessors(
+            pui -> pui.addMappingFileName("META-INF/orm-sqlite.xml"));
+    }
+
+    private HikariConfig baseConfig(String poolName) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setJdbcUrl(url);
+        config.setDriverClassName("org.sqlite.JDBC");
+        // 连接级 PRAGMA，通过驱动属性在建立连接时设置
+        config.addDataSourceProperty("journal_mode", journalMode);
+        config.addDataSourceProperty("synchronous", synchronous);
+        config.addDataSourceProperty("busy_timeout", String.valueOf(busyTimeoutMs));
+        // 负数表示以 KiB 为单位
+        config.addDataSourceProperty("cache_size", String.valueOf(-cacheSizeKb));
+        config.addDataSourceProperty("mmap_size", String.valueOf((long) mmapSizeMb * 1024 * 1024));
+        config.addDataSourceProperty("temp_store", "MEMORY");
+        // SQLite 连接不会因为空闲被服务端断开，不需要定期回收
+        config.setMaxLifetime(0);
+        config.setIdleTimeout(0);
+        return config;
+    }
+
+    private void logEffectivePragmas(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            StringBuilder pragmas = new StringBuilder();
+            for (String pragma : new String[]{"journal_mode", "synchronous", "busy_timeout", "cache_size", "mmap_size"}) {
+                try (ResultSet rs = statement.executeQuery("PRAGMA " + pragma)) {
+                    pragmas.append(pragma).append('=').append(rs.next() ? rs.getString(1) : "?").append(' ');
+                }
+            }
+            log.info("SQLite 高性能模式: {}读连接池={}, 写连接=1", pragmas, readPoolSize);
+        } catch (Exception e) {
+            log.warn("读取 SQLite PRAGMA 失败: {}", e.getMessage());
+        }
+    }
+}
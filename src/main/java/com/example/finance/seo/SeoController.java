@@ -3,17 +3,21 @@ package com.example.finance.seo;
 import com.example.finance.followread.SubtitleSegment;
 import com.example.finance.followread.SubtitleSegmentRepository;
 import com.example.finance.followread.YoutubeVideo;
+import com.example.finance.followread.YoutubeVideoCard;
 import com.example.finance.followread.YoutubeVideoRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
 import java.util.Optional;
@@ -22,6 +26,8 @@ import java.util.Optional;
 @RequestMapping("/video")
 public class SeoController {
 
+    private static final int LIST_PAGE_SIZE = 60;
+
     @Autowired
     private YoutubeVideoRepository youtubeVideoRepository;
 
@@ -63,10 +69,15 @@ public class SeoController {
     }
 
     @GetMapping("")
-    public String videoList(Model model) {
-        // 获取所有已完成的视频列表
-        List<YoutubeVideo> videos = youtubeVideoRepository.findByStatus("completed");
-        model.addAttribute("videos", videos);
+    public String videoList(@RequestParam(defaultValue = "0") int page, Model model) {
+        // 分页获取已完成的视频（卡片投影，不加载描述等大字段）
+        Page<YoutubeVideoCard> videoPage = youtubeVideoRepository.findCardsByStatus(
+            "completed", PageRequest.of(Math.max(page, 0), LIST_PAGE_SIZE));
+        model.addAttribute("videos", videoPage.getContent());
+        model.addAttribute("currentPage", videoPage.getNumber());
+        model.addAttribute("totalPages", videoPage.getTotalPages());
+        model.addAttribute("hasNext", videoPage.hasNext());
+        model.addAttribute("hasPrevious", videoPage.hasPrevious());
         return "seo/video-list";
     }
 
@@ -1,8 +1,10 @@
 package com.example.finance.seo;
 
-import com.example.finance.followread.YoutubeVideo;
+import com.example.finance.followread.YoutubeVideoCard;
 import com.example.finance.followread.YoutubeVideoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,11 +13,12 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 @Controller
 public class SitemapController {
 
+    private static final int BATCH_SIZE = 500;
+
     @Autowired
     private YoutubeVideoRepository youtubeVideoRepository;
 
@@ -30,18 +33,21 @@ public class SitemapController {
         xml.append(buildUrl("https://www.xlearning.top/", "daily", "1.0"));
         xml.append(buildUrl("https://www.xlearning.top/video", "daily", "0.9"));
 
-        // 动态生成视频页面
-        List<YoutubeVideo> videos = youtubeVideoRepository.findByStatus("completed");
+        // 动态生成视频页面（分批读取卡片投影，避免一次加载全部实体）
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-
-        for (YoutubeVideo video : videos) {
-            xml.append(buildUrlWithLastmod(
-                "https://www.xlearning.top/video/" + video.getVideoId(),
-                formatLastmod(video, formatter),
-                "weekly",
-                "0.8"
-            ));
-        }
+        int page = 0;
+        Page<YoutubeVideoCard> videos;
+        do {
+            videos = youtubeVideoRepository.findCardsByStatus("completed", PageRequest.of(page++, BATCH_SIZE));
+            for (YoutubeVideoCard video : videos) {
+                xml.append(buildUrlWithLastmod(
+                    "https://www.xlearning.top/video/" + video.getVideoId(),
+                    formatLastmod(video, formatter),
+                    "weekly",
+                    "0.8"
+                ));
+            }
+        } while (videos.hasNext());
 
         xml.append("</urlset>");
         return xml.toString();
@@ -61,7 +67,7 @@ public class SitemapController {
         );
     }
 
-    private String formatLastmod(YoutubeVideo video, DateTimeFormatter formatter) {
+    private String formatLastmod(YoutubeVideoCard video, DateTimeFormatter formatter) {
         LocalDateTime timestamp = video.getCompletedAt() != null
             ? video.getCompletedAt()
             : video.getCreatedAt();
@@ -0,0 +1,49 @@
+package com.example.finance.xiaohongshu;
+
+import com.example.finance.followread.DownloadPlatformAdapter;
+import com.example.finance.followread.VideoDownloadTask;
+import com.example.finance.followread.VideoDownloadTaskRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 小红书下载适配器：直接用 yt-dlp 下载笔记中的视频，没有额外参数
+ */
+@Component
+public class XiaohongshuDownloadAdapter implements DownloadPlatformAdapter {
+
+    public static final String PLATFORM = "xiaohongshu";
+
+    @Autowired
+    private XiaohongshuVideoRepository videoRepository;
+
+    @Autowired
+    private VideoDownloadTaskRepository taskRepository;
+
+    @Override
+    public String getPlatform() {
+        return PLATFORM;
+    }
+
+    @Override
+    public void bindVideo(VideoDownloadTask task, Long platformVideoId) {
+        XiaohongshuVideo video = videoRepository.findById(platformVideoId)
+            .orElseThrow(() -> new RuntimeException("Video not found"));
+        task.setXiaohongshuVideoId(platformVideoId);
+        task.setVideoId(video.getVideoId());
+    }
+
+    @Override
+    public Source resolveSource(VideoDownloadTask task) {
+        XiaohongshuVideo video = videoRepository.findById(task.getXiaohongshuVideoId())
+            .orElseThrow(() -> new RuntimeException("Video not found"));
+        return new Source(video.getSourceUrl(), video.getTitle());
+    }
+
+    @Override
+    public List<VideoDownloadTask> findVideoTasks(Long platformVideoId) {
+        return taskRepository.findByXiaohongshuVideoId(platformVideoId);
+    }
+}
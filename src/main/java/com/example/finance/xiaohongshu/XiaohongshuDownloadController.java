@@ -1,7 +1,8 @@
 package com.example.finance.xiaohongshu;
 
-import com.example.finance.User;
-import com.example.finance.UserRepository;
+import com.example.finance.CurrentUserResolver;
+import com.example.finance.followread.DownloadEngine;
+import com.example.finance.followread.StorageLifecycleManager;
 import com.example.finance.followread.VideoDownloadTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,12 +14,12 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.File;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 /**
  * 小红书视频下载 API 控制器
@@ -31,10 +32,13 @@ public class XiaohongshuDownloadController {
     private static final Logger log = LoggerFactory.getLogger(XiaohongshuDownloadController.class);
 
     @Autowired
-    private XiaohongshuDownloadService downloadService;
+    private DownloadEngine downloadEngine;
 
     @Autowired
-    private UserRepository userRepository;
+    private StorageLifecycleManager storageLifecycleManager;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
 
     /**
      * 创建下载任务
@@ -49,16 +53,17 @@ public class XiaohongshuDownloadController {
             String downloadType = (String) request.getOrDefault("downloadType", "video");
             String formatId = (String) request.get("formatId");
             String quality = (String) request.getOrDefault("quality", "best");
+            String priority = (String) request.getOrDefault("priority", "normal");
             
             Long userId = getUserId(authentication);
             
             // 创建任务
-            VideoDownloadTask task = downloadService.createDownloadTask(
-                videoId, downloadType, formatId, quality, userId
+            VideoDownloadTask task = downloadEngine.createDownloadTask(
+                XiaohongshuDownloadAdapter.PLATFORM, videoId, downloadType, formatId, quality, priority, userId
             );
             
-            // 异步开始下载
-            downloadService.executeDownloadAsync(task.getId());
+            // 加入下载队列
+            downloadEngine.submit(task.getId());
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -82,7 +87,7 @@ public class XiaohongshuDownloadController {
     @GetMapping("/tasks/{taskId}")
     public ResponseEntity<?> getTaskStatus(@PathVariable Long taskId) {
         try {
-            VideoDownloadTask task = downloadService.getTaskDetails(taskId);
+            VideoDownloadTask task = downloadEngine.getTaskDetails(taskId);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -103,7 +108,7 @@ public class XiaohongshuDownloadController {
     @GetMapping("/tasks")
     public ResponseEntity<?> getUserTasks(Authentication authentication) {
         Long userId = getUserId(authentication);
-        List<VideoDownloadTask> tasks = downloadService.getUserDownloadTasks(userId);
+        List<VideoDownloadTask> tasks = downloadEngine.getUserDownloadTasks(userId, XiaohongshuDownloadAdapter.PLATFORM);
         
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -117,7 +122,7 @@ public class XiaohongshuDownloadController {
      */
     @GetMapping("/video/{videoId}/tasks")
     public ResponseEntity<?> getVideoTasks(@PathVariable Long videoId) {
-        List<VideoDownloadTask> tasks = downloadService.getVideoDownloadTasks(videoId);
+        List<VideoDownloadTask> tasks = downloadEngine.getVideoDownloadTasks(XiaohongshuDownloadAdapter.PLATFORM, videoId);
         
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -132,7 +137,7 @@ public class XiaohongshuDownloadController {
     @GetMapping("/file/{taskId}")
     public ResponseEntity<Resource> downloadFile(@PathVariable Long taskId) {
         try {
-            VideoDownloadTask task = downloadService.getTaskDetails(taskId);
+            VideoDownloadTask task = downloadEngine.getTaskDetails(taskId);
             
             if (!"SUCCESS".equals(task.getStatus()) || task.getOutputFile() == null) {
                 return ResponseEntity.notFound().build();
@@ -145,8 +150,9 @@ public class XiaohongshuDownloadController {
             
             Resource resource = new FileSystemResource(file);
             
-            // 获取文件名
-            String filename = file.getName();
+            // 下载文件名：视频标题（存储中的文件按内容键命名）
+            String filename = downloadEngine.getDownloadFilename(task);
+            storageLifecycleManager.touch(task.getOutputFile());
             
             // URL 编码文件名以支持中文和特殊字符
             String encodedFilename;
@@ -176,7 +182,7 @@ public class XiaohongshuDownloadController {
     @DeleteMapping("/tasks/{taskId}")
     public ResponseEntity<?> deleteTask(@PathVariable Long taskId) {
         try {
-            downloadService.deleteDownloadTask(taskId);
+            downloadEngine.deleteDownloadTask(taskId);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -192,6 +198,14 @@ public class XiaohongshuDownloadController {
         }
     }
 
+    /**
+     * SSE 实时推送下载进度
+     */
+    @GetMapping(value = "/progress/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamProgress() {
+        return downloadEngine.createSseEmitter(XiaohongshuDownloadAdapter.PLATFORM);
+    }
+
     /**
      * 快速下载（使用默认设置）
      */
@@ -199,18 +213,19 @@ public class XiaohongshuDownloadController {
     public ResponseEntity<?> quickDownload(
             @PathVariable Long videoId,
             @RequestParam(defaultValue = "video") String type,
+            @RequestParam(defaultValue = "normal") String priority,
             Authentication authentication) {
         
         try {
             Long userId = getUserId(authentication);
             
             // 使用默认设置创建任务
-            VideoDownloadTask task = downloadService.createDownloadTask(
-                videoId, type, null, "best", userId
+            VideoDownloadTask task = downloadEngine.createDownloadTask(
+                XiaohongshuDownloadAdapter.PLATFORM, videoId, type, null, "best", priority, userId
             );
             
-            // 异步开始下载
-            downloadService.executeDownloadAsync(task.getId());
+            // 加入下载队列
+            downloadEngine.submit(task.getId());
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -231,18 +246,7 @@ public class XiaohongshuDownloadController {
      * 从请求中获取用户 ID
      */
     private Long getUserId(Authentication authentication) {
-        Long userId = 0L;
-        
-        if (authentication != null && authentication.isAuthenticated() 
-            && !"anonymousUser".equals(authentication.getPrincipal())) {
-            String username = authentication.getName();
-            Optional<User> userOpt = userRepository.findByUsername(username);
-            if (userOpt.isPresent()) {
-                userId = userOpt.get().getId();
-            }
-        }
-        
-        return userId;
+        return currentUserResolver.resolveUserId(authentication, 0L);
     }
 }
 
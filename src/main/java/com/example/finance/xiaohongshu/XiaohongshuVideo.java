@@ -7,7 +7,8 @@ import java.time.LocalDateTime;
 @Table(name = "xiaohongshu_videos")
 public class XiaohongshuVideo {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "xiaohongshu_videos_seq")
+    @SequenceGenerator(name = "xiaohongshu_videos_seq", sequenceName = "xiaohongshu_videos_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "video_id", nullable = false, unique = true, length = 50)
@@ -0,0 +1,21 @@
+package com.example.finance.xiaohongshu;
+
+import java.time.LocalDateTime;
+
+/**
+ * 小红书视频卡片投影（列表页专用）
+ * 只查询卡片展示需要的列，不加载 description / errorMessage / progressMessage 等大字段
+ */
+public interface XiaohongshuVideoCard {
+    Long getId();
+    String getVideoId();
+    String getSourceUrl();
+    String getTitle();
+    Integer getDuration();
+    String getAuthor();
+    String getThumbnailUrl();
+    String getStatus();
+    String getDifficultyLevel();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getCompletedAt();
+}
@@ -1,7 +1,6 @@
 package com.example.finance.xiaohongshu;
 
-import com.example.finance.User;
-import com.example.finance.UserRepository;
+import com.example.finance.CurrentUserResolver;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -10,7 +9,6 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/xiaohongshu")
@@ -21,7 +19,7 @@ public class XiaohongshuVideoController {
     private XiaohongshuVideoService xiaohongshuVideoService;
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserResolver currentUserResolver;
 
     /**
      * 检查系统状态（yt-dlp 是否安装）
@@ -108,7 +106,7 @@ public class XiaohongshuVideoController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         Long userId = getUserId(authentication);
-        org.springframework.data.domain.Page<XiaohongshuVideo> videoPage = xiaohongshuVideoService.getUserVideosPaged(userId, page, size);
+        org.springframework.data.domain.Page<XiaohongshuVideoCard> videoPage = xiaohongshuVideoService.getUserVideosPaged(userId, page, size);
 
         Map<String, Object> response = new HashMap<>();
         response.put("content", videoPage.getContent());
@@ -159,18 +157,7 @@ public class XiaohongshuVideoController {
      * 从请求中获取用户 ID
      */
     private Long getUserId(Authentication authentication) {
-        Long userId = 0L; // 默认匿名用户
-        
-        if (authentication != null && authentication.isAuthenticated() 
-            && !"anonymousUser".equals(authentication.getPrincipal())) {
-            String username = authentication.getName();
-            Optional<User> userOpt = userRepository.findByUsername(username);
-            if (userOpt.isPresent()) {
-                userId = userOpt.get().getId();
-            }
-        }
-        
-        return userId;
+        return currentUserResolver.resolveUserId(authentication, 0L);
     }
 }
 
@@ -3,6 +3,8 @@ package com.example.finance.xiaohongshu;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -17,5 +19,13 @@ public interface XiaohongshuVideoRepository extends JpaRepository<XiaohongshuVid
 
     // 分页查询
     Page<XiaohongshuVideo> findByCreatedByOrderByCreatedAtDesc(Long userId, Pageable pageable);
+
+    // 卡片投影分页查询（列表页）
+    @Query(value = "select v.id as id, v.videoId as videoId, v.sourceUrl as sourceUrl, v.title as title, "
+            + "v.duration as duration, v.author as author, v.thumbnailUrl as thumbnailUrl, v.status as status, "
+            + "v.difficultyLevel as difficultyLevel, v.createdAt as createdAt, v.completedAt as completedAt "
+            + "from XiaohongshuVideo v where v.createdBy = :userId order by v.createdAt desc, v.id desc",
+        countQuery = "select count(v) from XiaohongshuVideo v where v.createdBy = :userId")
+    Page<XiaohongshuVideoCard> findCardsByCreatedBy(@Param("userId") Long userId, Pageable pageable);
 }
 
@@ -87,7 +87,6 @@ public class XiaohongshuVideoService {
      * 异步获取视频基本信息
      */
     @Async
-    @Transactional
     public void fetchVideoInfoAsync(Long videoId) {
         Optional<XiaohongshuVideo> videoOpt = videoRepository.findById(videoId);
         if (!videoOpt.isPresent()) {
@@ -177,11 +176,11 @@ public class XiaohongshuVideoService {
     }
 
     /**
-     * 分页获取用户的视频任务
+     * 分页获取用户的视频任务（卡片投影）
      */
-    public org.springframework.data.domain.Page<XiaohongshuVideo> getUserVideosPaged(Long userId, int page, int size) {
+    public org.springframework.data.domain.Page<XiaohongshuVideoCard> getUserVideosPaged(Long userId, int page, int size) {
         org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(page, size);
-        return videoRepository.findByCreatedByOrderByCreatedAtDesc(userId, pageable);
+        return videoRepository.findCardsByCreatedBy(userId, pageable);
     }
 
     /**
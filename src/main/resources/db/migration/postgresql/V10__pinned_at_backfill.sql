@@ -0,0 +1,2 @@
+-- 置顶但没有置顶时间的视频按创建时间补齐：keyset 分页的未置顶段只查 pinned = false，置顶段要求 pinned_at 可比较
+UPDATE youtube_videos SET pinned_at = created_at WHERE pinned = true AND pinned_at IS NULL;
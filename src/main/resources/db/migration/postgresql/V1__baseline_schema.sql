@@ -0,0 +1,30 @@
+-- 基线表结构（PostgreSQL，与 Hibernate PostgreSQLDialect 的类型映射保持一致）
+-- 主键由 pooled 序列分配（实体 @SequenceGenerator allocationSize=50），序列步长必须与之一致
+
+CREATE TABLE IF NOT EXISTS users (id bigint not null, avatar_url varchar(255), created_at timestamp(6) not null, email varchar(255) not null unique, enabled boolean not null, full_name varchar(255), last_login_at timestamp(6), password varchar(255), provider varchar(255) not null, provider_id varchar(255), username varchar(255) not null unique, primary key (id));
+
+CREATE TABLE IF NOT EXISTS youtube_videos (id bigint not null, channel varchar(100), completed_at timestamp(6), created_at timestamp(6), created_by bigint, description varchar(2000), difficulty_level varchar(20), duration integer not null, error_message varchar(1000), has_subtitle boolean, pinned boolean, pinned_at timestamp(6), progress_message varchar(500), sentence_count integer, source_url varchar(500) not null, status varchar(255) not null, subtitle_language varchar(10), thumbnail_url varchar(500), title varchar(500) not null, video_id varchar(20) not null unique, primary key (id));
+
+CREATE TABLE IF NOT EXISTS subtitle_segments (id bigint not null, clean_text varchar(2000), created_at timestamp(6), end_time float(53) not null, raw_text varchar(2000) not null, segment_order integer not null, start_time float(53) not null, video_id bigint not null, primary key (id));
+
+CREATE TABLE IF NOT EXISTS follow_read_sentences (id bigint not null, audio_url varchar(500), category varchar(100), created_at timestamp(6), difficulty varchar(255) not null, end_time float(53), phonetic varchar(2000) not null, sentence_order integer, start_time float(53), text varchar(1000) not null, video_url varchar(500), youtube_video_id bigint, primary key (id));
+
+CREATE TABLE IF NOT EXISTS follow_read_tasks (id bigint not null, audio_url varchar(500), completed_at timestamp(6), created_at timestamp(6), error_message varchar(1000), fluency_score integer, intonation_score integer, overall_score integer, pronunciation_score integer, sentence_id bigint not null, status varchar(255), submitted_at timestamp(6), user_id bigint not null, primary key (id));
+
+CREATE TABLE IF NOT EXISTS follow_read_task_results (id bigint not null, created_at timestamp(6), feedback varchar(500), score integer, status varchar(20), task_id bigint not null, word varchar(100) not null, word_position integer, primary key (id));
+
+CREATE TABLE IF NOT EXISTS study_notes (id bigint not null, content_html text, content_json text, created_at timestamp(6), title varchar(500), updated_at timestamp(6), user_id bigint, video_id varchar(20) not null, primary key (id));
+
+CREATE TABLE IF NOT EXISTS video_download_tasks (id bigint not null, completed_at timestamp(6), created_at timestamp(6), created_by bigint, download_speed varchar(255), download_type varchar(255), downloaded_bytes bigint, error_message varchar(1000), format_id varchar(255), output_file varchar(255), platform varchar(255), progress integer, progress_message varchar(500), quality varchar(255), started_at timestamp(6), status varchar(255), total_bytes bigint, video_id varchar(255), xiaohongshu_video_id bigint, youtube_video_id bigint, primary key (id));
+
+CREATE TABLE IF NOT EXISTS xiaohongshu_videos (id bigint not null, author varchar(100), completed_at timestamp(6), created_at timestamp(6), created_by bigint, description varchar(2000), difficulty_level varchar(20), duration integer not null, error_message varchar(1000), progress_message varchar(500), source_url varchar(500) not null, status varchar(255) not null, thumbnail_url varchar(500), title varchar(500) not null, video_id varchar(50) not null unique, primary key (id));
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS youtube_videos_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS subtitle_segments_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS follow_read_sentences_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS follow_read_tasks_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS follow_read_task_results_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS study_notes_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS video_download_tasks_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS xiaohongshu_videos_seq START WITH 1 INCREMENT BY 50;
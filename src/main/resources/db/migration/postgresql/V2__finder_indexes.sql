@@ -0,0 +1,53 @@
+-- 与 Repository 查询方法一一对应的复合索引
+-- 与 sqlite/V2__finder_indexes.sql 保持一致，列顺序 = 等值条件列 + 排序列
+
+-- YoutubeVideoRepository
+-- findAllByOrderByPinnedDescPinnedAtDescCreatedAtDesc / findCardsOrderByPinned / keyset 分页
+CREATE INDEX IF NOT EXISTS idx_youtube_videos_pinned_order ON youtube_videos(pinned, pinned_at, created_at, id);
+-- findAllByOrderByCreatedAtDesc / findUnpinnedCards*
+CREATE INDEX IF NOT EXISTS idx_youtube_videos_created_at ON youtube_videos(created_at, id);
+-- findByCreatedBy / findByCreatedByOrderByCreatedAtDesc
+CREATE INDEX IF NOT EXISTS idx_youtube_videos_created_by ON youtube_videos(created_by, created_at);
+-- findByStatus / findCardsByStatus
+CREATE INDEX IF NOT EXISTS idx_youtube_videos_status ON youtube_videos(status, created_at, id);
+
+-- SubtitleSegmentRepository: findByVideoIdOrderBySegmentOrder / deleteByVideoId
+CREATE INDEX IF NOT EXISTS idx_subtitle_segments_video_order ON subtitle_segments(video_id, segment_order);
+
+-- FollowReadSentenceRepository
+-- findByYoutubeVideoId / findByYoutubeVideoIdOrderBySentenceOrder
+CREATE INDEX IF NOT EXISTS idx_follow_read_sentences_video_order ON follow_read_sentences(youtube_video_id, sentence_order);
+CREATE INDEX IF NOT EXISTS idx_follow_read_sentences_difficulty ON follow_read_sentences(difficulty);
+CREATE INDEX IF NOT EXISTS idx_follow_read_sentences_category ON follow_read_sentences(category);
+
+-- FollowReadTaskRepository
+-- findByUserIdOrderByCreatedAtDesc
+CREATE INDEX IF NOT EXISTS idx_follow_read_tasks_user_created ON follow_read_tasks(user_id, created_at);
+-- findBySentenceId
+CREATE INDEX IF NOT EXISTS idx_follow_read_tasks_sentence ON follow_read_tasks(sentence_id);
+
+-- FollowReadTaskResultRepository: findByTaskIdOrderByWordPosition
+CREATE INDEX IF NOT EXISTS idx_follow_read_task_results_task_position ON follow_read_task_results(task_id, word_position);
+
+-- StudyNoteRepository
+-- findByVideoIdAndUserIdOrderByUpdatedAtDesc
+CREATE INDEX IF NOT EXISTS idx_study_notes_video_user_updated ON study_notes(video_id, user_id, updated_at);
+-- findByUserIdOrderByUpdatedAtDesc
+CREATE INDEX IF NOT EXISTS idx_study_notes_user_updated ON study_notes(user_id, updated_at);
+
+-- VideoDownloadTaskRepository
+-- findByCreatedByOrderByCreatedAtDesc / findByIdAndCreatedBy
+CREATE INDEX IF NOT EXISTS idx_video_download_tasks_created_by ON video_download_tasks(created_by, created_at);
+CREATE INDEX IF NOT EXISTS idx_video_download_tasks_youtube_video ON video_download_tasks(youtube_video_id);
+CREATE INDEX IF NOT EXISTS idx_video_download_tasks_xiaohongshu_video ON video_download_tasks(xiaohongshu_video_id);
+CREATE INDEX IF NOT EXISTS idx_video_download_tasks_status ON video_download_tasks(status);
+
+-- XiaohongshuVideoRepository
+-- findByCreatedBy / findByCreatedByOrderByCreatedAtDesc / findCardsByCreatedBy
+CREATE INDEX IF NOT EXISTS idx_xiaohongshu_videos_created_by ON xiaohongshu_videos(created_by, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_xiaohongshu_videos_status ON xiaohongshu_videos(status);
+
+-- UserRepository（username / email 已有唯一索引）
+-- findByProviderAndProviderId
+CREATE INDEX IF NOT EXISTS idx_users_provider ON users(provider, provider_id);
+-- findByEmailAndProvider 走 email 唯一索引
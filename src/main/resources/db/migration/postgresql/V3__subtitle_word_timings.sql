@@ -0,0 +1,2 @@
+-- 逐词时间：每个视频一行，timings 为打包的 (startMs:int, textOffset:int)，text 为 UTF-8 文本
+CREATE TABLE IF NOT EXISTS subtitle_word_timings (video_id bigint not null, created_at timestamp(6), language varchar(20), text bytea not null, timings bytea not null, word_count integer not null, primary key (video_id));
@@ -0,0 +1,6 @@
+-- 跟读句子的记忆状态（ReviewScheduler）：每个 (用户, 句子) 一行
+CREATE TABLE IF NOT EXISTS review_states (user_id bigint not null, sentence_id bigint not null, difficulty real not null, due_at timestamp(6) not null, lapses integer not null, last_review_at timestamp(6), last_score integer, reps integer not null, stability real not null, primary key (user_id, sentence_id));
+-- ReviewStateRepository.findDue / countByUserIdAndDueAtLessThanEqual / findNextDueAt
+CREATE INDEX IF NOT EXISTS idx_review_states_user_due ON review_states(user_id, due_at);
+-- deleteAllByYoutubeVideoId
+CREATE INDEX IF NOT EXISTS idx_review_states_sentence ON review_states(sentence_id);
@@ -0,0 +1,6 @@
+-- 频道订阅（ChannelCrawler）：每个 (用户, 频道) 一行，记录轮询水位线
+CREATE TABLE IF NOT EXISTS channel_subscriptions (id bigint not null, channel_url varchar(500) not null, consecutive_failures integer not null, created_at timestamp(6), difficulty_level varchar(20), enabled boolean not null, imported_count integer not null, last_changed_at timestamp(6), last_checked_at timestamp(6), last_error varchar(1000), last_video_id varchar(20), listing_hash varchar(64), next_check_at timestamp(6) not null, title varchar(500), user_id bigint not null, primary key (id));
+CREATE SEQUENCE IF NOT EXISTS channel_subscriptions_seq START WITH 1 INCREMENT BY 50;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_channel_subscriptions_user_url ON channel_subscriptions(user_id, channel_url);
+-- ChannelSubscriptionRepository.findDue
+CREATE INDEX IF NOT EXISTS idx_channel_subscriptions_due ON channel_subscriptions(enabled, next_check_at);
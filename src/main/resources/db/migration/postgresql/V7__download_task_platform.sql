@@ -0,0 +1,5 @@
+-- 下载任务按 platform 区分平台（DownloadEngine 据此选择适配器），补齐早期 YouTube 任务缺失的 platform
+UPDATE video_download_tasks SET platform = 'youtube' WHERE platform IS NULL AND youtube_video_id IS NOT NULL;
+UPDATE video_download_tasks SET platform = 'xiaohongshu' WHERE platform IS NULL AND xiaohongshu_video_id IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_video_download_tasks_user_platform ON video_download_tasks(created_by, platform, created_at);
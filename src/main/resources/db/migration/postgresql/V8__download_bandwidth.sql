@@ -0,0 +1,5 @@
+-- 下载带宽调度（BandwidthScheduler）：任务优先级、当前分配的分片并发数和限速、实际平均速度
+ALTER TABLE video_download_tasks ADD COLUMN priority integer;
+ALTER TABLE video_download_tasks ADD COLUMN concurrent_fragments integer;
+ALTER TABLE video_download_tasks ADD COLUMN rate_limit bigint;
+ALTER TABLE video_download_tasks ADD COLUMN average_speed bigint;
@@ -0,0 +1,17 @@
+-- FinderQueryPlanTest 检查出的全表扫描和临时排序，补齐对应索引
+
+-- YoutubeVideoRepository.findUnpinnedCards*：未置顶段改为 pinned = false（OR pinned IS NULL 无法按索引顺序输出），先补齐空值
+UPDATE youtube_videos SET pinned = false WHERE pinned IS NULL;
+CREATE INDEX IF NOT EXISTS idx_youtube_videos_unpinned_order ON youtube_videos(pinned, created_at, id);
+
+-- FollowReadTaskRepository
+-- existsByAudioUrlAndStatusIn（录音是否仍被引用）
+CREATE INDEX IF NOT EXISTS idx_follow_read_tasks_audio_url ON follow_read_tasks(audio_url);
+-- failUnfinishedEvaluations / findCompletedScores（status = 'completed' ORDER BY completed_at）
+CREATE INDEX IF NOT EXISTS idx_follow_read_tasks_status_completed ON follow_read_tasks(status, completed_at);
+
+-- ChannelSubscriptionRepository.findByUserIdOrderByCreatedAtDesc
+CREATE INDEX IF NOT EXISTS idx_channel_subscriptions_user_created ON channel_subscriptions(user_id, created_at);
+
+-- StoredFileRepository.findByArea（LFU 策略按 ref_count, access_count, last_accessed_at 排序）
+CREATE INDEX IF NOT EXISTS idx_stored_files_eviction_lfu ON stored_files(area, ref_count, access_count, last_accessed_at);
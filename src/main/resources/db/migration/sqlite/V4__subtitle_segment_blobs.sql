@@ -0,0 +1,2 @@
+-- 列式压缩的字幕片段：每个视频一行，格式见 SubtitleSegmentCodec（subtitle.storage.compact=true 时写入）
+CREATE TABLE IF NOT EXISTS subtitle_segment_blobs (video_id bigint not null, created_at timestamp, data blob not null, segment_count integer not null, primary key (video_id));
@@ -0,0 +1,6 @@
+-- 跟读句子的记忆状态（ReviewScheduler）：每个 (用户, 句子) 一行，主键即聚簇顺序（WITHOUT ROWID）
+CREATE TABLE IF NOT EXISTS review_states (user_id bigint not null, sentence_id bigint not null, difficulty float not null, due_at timestamp not null, lapses integer not null, last_review_at timestamp, last_score integer, reps integer not null, stability float not null, primary key (user_id, sentence_id)) WITHOUT ROWID;
+-- ReviewStateRepository.findDue / countByUserIdAndDueAtLessThanEqual / findNextDueAt
+CREATE INDEX IF NOT EXISTS idx_review_states_user_due ON review_states(user_id, due_at);
+-- deleteAllByYoutubeVideoId
+CREATE INDEX IF NOT EXISTS idx_review_states_sentence ON review_states(sentence_id);
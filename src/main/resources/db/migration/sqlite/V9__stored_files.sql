@@ -0,0 +1,9 @@
+-- 受管理的媒体文件索引（StorageLifecycleManager）和内容寻址的下载存储（MediaStore）
+CREATE TABLE IF NOT EXISTS stored_files (id integer, access_count bigint not null, area varchar(20) not null, content_key varchar(64), created_at timestamp, format_key varchar(300), last_accessed_at timestamp not null, path varchar(500) not null, platform varchar(20), ref_count integer not null, size_bytes bigint not null, video_id varchar(100), primary key (id));
+CREATE UNIQUE INDEX IF NOT EXISTS idx_stored_files_path ON stored_files(path);
+CREATE UNIQUE INDEX IF NOT EXISTS idx_stored_files_content_key ON stored_files(content_key);
+-- 淘汰候选（未引用的在前，按最近访问时间）和按保留时间清理
+CREATE INDEX IF NOT EXISTS idx_stored_files_eviction ON stored_files(area, ref_count, last_accessed_at);
+CREATE INDEX IF NOT EXISTS idx_stored_files_accessed ON stored_files(area, last_accessed_at);
+-- 文件被淘汰时把引用它的下载任务标记为 EXPIRED
+CREATE INDEX IF NOT EXISTS idx_video_download_tasks_output_file ON video_download_tasks(output_file);
@@ -0,0 +1,105 @@
+package com.example.finance.followread;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * DTW 对齐：相同序列、平移、长度相差很大时的带状约束边界，以及缓冲区上限
+ */
+class DtwAlignerTest {
+
+    private static final int NUM_CEPS = AcousticFeatures.NUM_CEPS;
+
+    @Test
+    void identicalSequencesAlignOnTheDiagonal() {
+        AcousticFeatures features = randomFeatures(200, 1);
+
+        DtwAligner.Alignment path = new DtwAligner().align(features, features);
+
+        assertEquals(200, path.length);
+        for (int k = 0; k < path.length; k++) {
+            assertEquals(k, path.reference[k]);
+            assertEquals(k, path.recording[k]);
+            assertEquals(0f, path.distance[k]);
+        }
+    }
+
+    @Test
+    void leadingPaddingIsAbsorbedByTheFirstReferenceFrame() {
+        int shift = 15;
+        AcousticFeatures ref = randomFeatures(150, 2);
+        // 录音开头多停顿了 shift 帧（重复参考的第一帧），之后与参考完全相同
+        AcousticFeatures rec = new AcousticFeatures(ref.frames + shift);
+        for (int j = 0; j < rec.frames; j++) {
+            System.arraycopy(ref.mfcc, Math.max(0, j - shift) * NUM_CEPS, rec.mfcc, j * NUM_CEPS, NUM_CEPS);
+        }
+
+        DtwAligner.Alignment path = new DtwAligner().align(ref, rec);
+
+        assertValidPath(path, ref.frames, rec.frames);
+        for (int k = 0; k < path.length; k++) {
+            assertEquals(0f, path.distance[k], "k=" + k);
+            assertEquals(Math.max(0, path.recording[k] - shift), path.reference[k], "k=" + k);
+        }
+    }
+
+    @Test
+    void veryDifferentLengthsStayInsideTheBand() {
+        DtwAligner aligner = new DtwAligner();
+        int[][] sizes = {{20, 400}, {400, 20}, {1, 1}, {1, 90}, {90, 1}, {2, 300}};
+        for (int[] size : sizes) {
+            AcousticFeatures ref = randomFeatures(size[0], 3);
+            AcousticFeatures rec = randomFeatures(size[1], 4);
+
+            DtwAligner.Alignment path = aligner.align(ref, rec);
+
+            assertValidPath(path, size[0], size[1]);
+            assertTrue(path.length >= Math.max(size[0], size[1]), size[0] + "x" + size[1]);
+            assertTrue(path.length <= size[0] + size[1] - 1, size[0] + "x" + size[1]);
+        }
+    }
+
+    @Test
+    void oversizedBuffersAreNotRetained() {
+        DtwAligner aligner = new DtwAligner();
+        aligner.align(randomFeatures(300, 5), randomFeatures(320, 6));
+        int retained = ((float[]) ReflectionTestUtils.getField(aligner, "retainedCost")).length;
+        assertTrue(retained > 0 && retained <= DtwAligner.MAX_RETAINED_CELLS);
+
+        // 一分钟的参考和录音：单元格数超过上限，临时分配
+        DtwAligner.Alignment path = aligner.align(randomFeatures(6000, 7), randomFeatures(6000, 7));
+
+        assertEquals(6000, path.length);
+        assertEquals(retained, ((float[]) ReflectionTestUtils.getField(aligner, "retainedCost")).length);
+    }
+
+    /**
+     * 路径从 (0, 0) 到 (n-1, m-1)，每步两个下标各自最多前进 1 且至少一个前进
+     */
+    private static void assertValidPath(DtwAligner.Alignment path, int n, int m) {
+        assertEquals(0, path.reference[0]);
+        assertEquals(0, path.recording[0]);
+        assertEquals(n - 1, path.reference[path.length - 1]);
+        assertEquals(m - 1, path.recording[path.length - 1]);
+        for (int k = 1; k < path.length; k++) {
+            int di = path.reference[k] - path.reference[k - 1];
+            int dj = path.recording[k] - path.recording[k - 1];
+            assertTrue(di >= 0 && di <= 1 && dj >= 0 && dj <= 1 && di + dj > 0,
+                n + "x" + m + " 第 " + k + " 步: (" + di + ", " + dj + ")");
+        }
+    }
+
+    private static AcousticFeatures randomFeatures(int frames, long seed) {
+        Random random = new Random(seed);
+        AcousticFeatures features = new AcousticFeatures(frames);
+        for (int i = 0; i < features.mfcc.length; i++) {
+            features.mfcc[i] = (float) random.nextGaussian();
+        }
+        return features;
+    }
+}
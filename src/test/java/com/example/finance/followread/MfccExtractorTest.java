@@ -0,0 +1,78 @@
+package com.example.finance.followread;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 特征提取的输出形状和音高
+ */
+class MfccExtractorTest {
+
+    @Test
+    void frameCountFollowsFrameLengthAndHop() {
+        MfccExtractor extractor = new MfccExtractor();
+
+        assertShape(extractor.extract(new float[0]), 0);
+        assertShape(extractor.extract(new float[MfccExtractor.FRAME_LENGTH - 1]), 0);
+        assertShape(extractor.extract(new float[MfccExtractor.FRAME_LENGTH]), 1);
+        assertShape(extractor.extract(new float[MfccExtractor.FRAME_LENGTH + MfccExtractor.HOP - 1]), 1);
+        assertShape(extractor.extract(new float[MfccExtractor.FRAME_LENGTH + MfccExtractor.HOP]), 2);
+        // 1 秒：1 + (16000 - 400) / 160
+        assertShape(extractor.extract(new float[MfccExtractor.SAMPLE_RATE]), 98);
+    }
+
+    @Test
+    void toneHasFinitePitchAndSilenceHasNone() {
+        MfccExtractor extractor = new MfccExtractor();
+        float[] tone = new float[MfccExtractor.SAMPLE_RATE];
+        for (int i = 0; i < tone.length; i++) {
+            tone[i] = (float) (0.5 * Math.sin(2 * Math.PI * 200 * i / MfccExtractor.SAMPLE_RATE));
+        }
+
+        AcousticFeatures voiced = extractor.extract(tone);
+        AcousticFeatures silent = extractor.extract(new float[MfccExtractor.SAMPLE_RATE]);
+
+        // 200Hz 比 100Hz 高 12 个半音
+        for (int frame = 5; frame < voiced.frames - 5; frame++) {
+            assertEquals(12, voiced.pitch[frame], 0.5, "frame " + frame);
+            assertTrue(Float.isFinite(voiced.logEnergy[frame]));
+        }
+        for (int frame = 0; frame < silent.frames; frame++) {
+            assertTrue(Float.isNaN(silent.pitch[frame]), "frame " + frame);
+            assertTrue(voiced.logEnergy[frame] > silent.logEnergy[frame]);
+        }
+    }
+
+    @Test
+    void instanceIsReusableAcrossCalls() {
+        MfccExtractor extractor = new MfccExtractor();
+        float[] noise = new float[8000];
+        Random random = new Random(1);
+        for (int i = 0; i < noise.length; i++) {
+            noise[i] = (float) random.nextGaussian() * 0.1f;
+        }
+
+        AcousticFeatures first = extractor.extract(noise);
+        extractor.extract(new float[20000]);
+        AcousticFeatures second = extractor.extract(noise);
+
+        assertEquals(first.frames, second.frames);
+        for (int i = 0; i < first.mfcc.length; i++) {
+            assertEquals(first.mfcc[i], second.mfcc[i]);
+        }
+    }
+
+    private static void assertShape(AcousticFeatures features, int frames) {
+        assertEquals(frames, features.getFrames());
+        assertEquals(frames * AcousticFeatures.NUM_CEPS, features.mfcc.length);
+        assertEquals(frames, features.logEnergy.length);
+        assertEquals(frames, features.pitch.length);
+        for (float v : features.mfcc) {
+            assertTrue(Float.isFinite(v));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.finance.followread;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 构建时编译的二进制词典：词典中的词返回 CMUdict 的读音，词典外的词不会被完美哈希误命中
+ */
+class PhoneticLexiconTest {
+
+    private static PhoneticLexicon compiled;
+    // 文本词典中每个词的第一条读音（按 load 的规则跳过多音词的其余读音和无效词条）
+    private static Map<String, byte[]> expected;
+
+    @BeforeAll
+    static void loadCompiledLexicon() throws IOException {
+        try (InputStream in = resource(PhoneticTranscriber.COMPILED_LEXICON_RESOURCE)) {
+            compiled = PhoneticLexicon.read(in);
+        }
+        expected = new LinkedHashMap<>();
+        String dict;
+        try (InputStream in = resource(PhoneticTranscriber.LEXICON_RESOURCE)) {
+            dict = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        for (String line : dict.split("\n")) {
+            String[] fields = line.trim().split("\\s+");
+            if (line.startsWith(";;;") || fields.length < 2 || fields[0].contains("(")) {
+                continue;
+            }
+            byte[] phones = new byte[fields.length - 1];
+            boolean valid = true;
+            for (int k = 1; k < fields.length; k++) {
+                int code = Arpabet.encode(fields[k]);
+                valid &= code >= 0;
+                phones[k - 1] = (byte) code;
+            }
+            if (valid) {
+                expected.putIfAbsent(fields[0].toLowerCase(), phones);
+            }
+        }
+    }
+
+    @Test
+    void everyDictionaryWordReturnsItsPronunciation() {
+        assertTrue(expected.size() > 1000, "文本词典只解析出 " + expected.size() + " 个词");
+        assertEquals(expected.size(), compiled.size());
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getValue(), compiled.lookup(entry.getKey()), entry.getKey());
+        }
+    }
+
+    @Test
+    void knownPronunciations() {
+        assertPhones("hello", "HH AH0 L OW1");
+        assertPhones("world", "W ER1 L D");
+        assertPhones("the", "DH AH0");
+        assertPhones("read", "R IY1 D");
+    }
+
+    @Test
+    void wordsOutsideTheDictionaryAreNotFound() {
+        // 完美哈希把任何字符串都映射到某个槽位，必须靠比对词本身排除
+        int checked = 0;
+        for (String word : expected.keySet()) {
+            for (String probe : new String[]{word + "s", word + "zq", "x" + word, word.substring(1),
+                word.substring(0, word.length() - 1), word.toUpperCase(), new StringBuilder(word).reverse().toString()}) {
+                if (!expected.containsKey(probe)) {
+                    assertNull(compiled.lookup(probe), probe);
+                    checked++;
+                }
+            }
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            char[] chars = new char[1 + random.nextInt(12)];
+            for (int c = 0; c < chars.length; c++) {
+                chars[c] = (char) ('a' + random.nextInt(26));
+            }
+            String probe = new String(chars);
+            if (!expected.containsKey(probe)) {
+                assertNull(compiled.lookup(probe), probe);
+                checked++;
+            }
+        }
+        assertTrue(checked > 200_000);
+        assertNull(compiled.lookup(""));
+        assertNull(compiled.lookup("héllo"));
+        assertFalse(compiled.contains("zzxqv"));
+    }
+
+    @Test
+    void unknownWordsFallBackToRules() {
+        PhoneticTranscriber transcriber = new PhoneticTranscriber();
+        transcriber.init();
+
+        StringBuilder hello = new StringBuilder();
+        Arpabet.toIpa(compiled.lookup("hello"), hello);
+        assertEquals("/" + hello + "/", transcriber.transcribe("Hello"));
+
+        String unknown = transcriber.transcribe("blorft");
+        assertNull(compiled.lookup("blorft"));
+        assertFalse(unknown.isEmpty());
+        assertFalse(unknown.contains("blorft"), unknown);
+    }
+
+    @Test
+    void writeThenReadMatchesTextLexicon() throws IOException {
+        PhoneticLexicon loaded;
+        try (InputStream in = resource(PhoneticTranscriber.LEXICON_RESOURCE)) {
+            loaded = PhoneticLexicon.load(in);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        loaded.write(out);
+        PhoneticLexicon reread = PhoneticLexicon.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(loaded.size(), reread.size());
+        for (String word : expected.keySet()) {
+            assertArrayEquals(loaded.lookup(word), reread.lookup(word), word);
+        }
+    }
+
+    @Test
+    void rejectsCorruptFiles() throws IOException {
+        byte[] data;
+        try (InputStream in = resource(PhoneticTranscriber.COMPILED_LEXICON_RESOURCE)) {
+            data = in.readAllBytes();
+        }
+
+        assertThrows(IOException.class, () -> PhoneticLexicon.read(new ByteArrayInputStream(new byte[3])));
+        assertThrows(IOException.class,
+            () -> PhoneticLexicon.read(new ByteArrayInputStream(Arrays.copyOf(data, data.length - 1))));
+        byte[] badMagic = data.clone();
+        badMagic[0] = 'X';
+        assertThrows(IOException.class, () -> PhoneticLexicon.read(new ByteArrayInputStream(badMagic)));
+    }
+
+    private static void assertPhones(String word, String arpabet) {
+        String[] names = arpabet.split(" ");
+        byte[] phones = new byte[names.length];
+        for (int k = 0; k < names.length; k++) {
+            phones[k] = (byte) Arpabet.encode(names[k]);
+        }
+        assertArrayEquals(phones, compiled.lookup(word), word);
+    }
+
+    private static InputStream resource(String name) {
+        InputStream in = PhoneticLexiconTest.class.getClassLoader().getResourceAsStream(name);
+        assertNotNull(in, "缺少资源 " + name);
+        return in;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.finance.followread;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * FSRS-4.5 记忆模型与复习计划：与参考实现（默认参数）的数值对比，again 按 relearn-minutes 重新安排
+ */
+class ReviewSchedulerTest {
+
+    private static final double EPSILON = 1e-4;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+    private ReviewScheduler scheduler;
+    private ReviewState stored;
+
+    @BeforeEach
+    void setUp() {
+        ReviewStateRepository repository = mock(ReviewStateRepository.class);
+        when(repository.findById(any())).thenAnswer(invocation -> Optional.ofNullable(stored));
+        when(repository.save(any())).thenAnswer(invocation -> stored = invocation.getArgument(0));
+        scheduler = new ReviewScheduler();
+        ReflectionTestUtils.setField(scheduler, "stateRepository", repository);
+    }
+
+    @Test
+    void initialStateFollowsDefaultParameters() {
+        assertEquals(0.4872, FsrsModel.initialStability(FsrsModel.AGAIN), EPSILON);
+        assertEquals(1.4003, FsrsModel.initialStability(FsrsModel.HARD), EPSILON);
+        assertEquals(3.7145, FsrsModel.initialStability(FsrsModel.GOOD), EPSILON);
+        assertEquals(13.8206, FsrsModel.initialStability(FsrsModel.EASY), EPSILON);
+        assertEquals(7.6214, FsrsModel.initialDifficulty(FsrsModel.AGAIN), EPSILON);
+        assertEquals(5.1618, FsrsModel.initialDifficulty(FsrsModel.GOOD), EPSILON);
+        assertEquals(3.9320, FsrsModel.initialDifficulty(FsrsModel.EASY), EPSILON);
+    }
+
+    @Test
+    void stabilityIsTheNinetyPercentPoint() {
+        assertEquals(0.9, FsrsModel.retrievability(3.7145, 3.7145), 1e-9);
+        assertEquals(1.0, FsrsModel.retrievability(0, 3.7145), 1e-9);
+        assertEquals(3.7145, FsrsModel.interval(3.7145, 0.9), 1e-9);
+        // 保持率要求越高，间隔越短
+        assertEquals(3.7145 * 81 / 19 * (1 / (0.95 * 0.95) - 1), FsrsModel.interval(3.7145, 0.95), 1e-9);
+    }
+
+    @Test
+    void ratingSequenceMatchesReferenceValues() {
+        // good → 4 天后 good → 到期时 again → 10 分钟后 good
+        // 期望值按 FSRS-4.5 参考实现的公式和默认参数独立计算：稳定性用复习前的难度，然后再更新难度
+        ReviewState state = review(FsrsModel.GOOD, START);
+        assertState(state, 3.7145, 5.1618, START.plusDays(4));
+
+        state = review(FsrsModel.GOOD, START.plusDays(4));
+        assertState(state, 14.808101, 5.161800, START.plusDays(4 + 15));
+
+        LocalDateTime lapse = START.plusDays(4 + 15);
+        state = review(FsrsModel.AGAIN, lapse);
+        assertState(state, 3.149321, 6.901155, lapse.plusMinutes(10));
+        assertEquals(1, state.getLapses());
+
+        state = review(FsrsModel.GOOD, lapse.plusMinutes(10));
+        assertState(state, 3.164822, 6.847235, lapse.plusMinutes(10).plusDays(3));
+        assertEquals(4, state.getReps());
+        assertEquals(1, state.getLapses());
+    }
+
+    @Test
+    void againSchedulesRelearnMinutes() {
+        ReflectionTestUtils.setField(scheduler, "relearnMinutes", 25);
+
+        ReviewState first = review(FsrsModel.AGAIN, START);
+        assertEquals(START.plusMinutes(25), first.getDueAt());
+        assertEquals(1, first.getLapses());
+
+        LocalDateTime later = START.plusDays(30);
+        review(FsrsModel.GOOD, START.plusMinutes(25));
+        ReviewState lapsed = review(FsrsModel.AGAIN, later);
+        assertEquals(later.plusMinutes(25), lapsed.getDueAt());
+        assertEquals(2, lapsed.getLapses());
+    }
+
+    @Test
+    void scoresMapToRatings() {
+        assertEquals(FsrsModel.AGAIN, ReviewScheduler.rating(49, 10, 0));
+        assertEquals(FsrsModel.AGAIN, ReviewScheduler.rating(95, 10, 6));
+        assertEquals(FsrsModel.HARD, ReviewScheduler.rating(69, 10, 0));
+        assertEquals(FsrsModel.HARD, ReviewScheduler.rating(85, 10, 3));
+        assertEquals(FsrsModel.GOOD, ReviewScheduler.rating(85, 10, 1));
+        assertEquals(FsrsModel.GOOD, ReviewScheduler.rating(95, 10, 1));
+        assertEquals(FsrsModel.EASY, ReviewScheduler.rating(90, 10, 0));
+    }
+
+    /**
+     * 以给定评级记录一次复习（构造对应分数的评分结果）
+     */
+    private ReviewState review(int rating, LocalDateTime at) {
+        int score = switch (rating) {
+            case FsrsModel.AGAIN -> 30;
+            case FsrsModel.HARD -> 60;
+            case FsrsModel.GOOD -> 80;
+            default -> 95;
+        };
+        List<PronunciationResult.WordScore> words = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            words.add(new PronunciationResult.WordScore("w" + i, i, score, true));
+        }
+        PronunciationResult result = new PronunciationResult(score, score, score, words);
+        assertEquals(rating, ReviewScheduler.rating(result.getOverallScore(), words.size(), 0));
+        return scheduler.recordReview(1L, 2L, result, at);
+    }
+
+    private static void assertState(ReviewState state, double stability, double difficulty, LocalDateTime dueAt) {
+        assertEquals(stability, state.getStability(), EPSILON, "stability");
+        assertEquals(difficulty, state.getDifficulty(), EPSILON, "difficulty");
+        assertEquals(dueAt, state.getDueAt(), "dueAt");
+    }
+}
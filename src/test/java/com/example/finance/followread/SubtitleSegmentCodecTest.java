@@ -0,0 +1,175 @@
+package com.example.finance.followread;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 字幕片段列式压缩格式的编码/解码
+ */
+class SubtitleSegmentCodecTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Test
+    void roundTripsTimesOrdersAndText() {
+        List<SubtitleSegment> segments = List.of(
+            segment(0, 0.0, 1.5, "Hello there.", "Hello there."),
+            segment(1, 1.5, 3.25, "How are you?", "<c>How</c> are you?"),
+            segment(2, 3.25, 4.0, null, "[Music]"));
+
+        assertSegmentsEqual(segments, roundTrip(segments));
+    }
+
+    @Test
+    void negativeDeltasSurvive() {
+        // 重叠的自动字幕：开始时间回退、结束早于开始、顺序号跳跃或回退
+        List<SubtitleSegment> segments = List.of(
+            segment(5, 10.0, 12.0, "a", "a"),
+            segment(3, 9.2, 11.0, "b", "b"),
+            segment(9, 8.0, 7.5, "c", "c"),
+            segment(-2, 0.0, 0.0, "d", "d"));
+
+        assertSegmentsEqual(segments, roundTrip(segments));
+    }
+
+    @Test
+    void emptyAndNullTextAreDistinct() {
+        List<SubtitleSegment> segments = List.of(
+            segment(0, 0.0, 1.0, "", ""),
+            segment(1, 1.0, 2.0, "", null),
+            segment(2, 2.0, 3.0, null, ""),
+            segment(3, 3.0, 4.0, null, null));
+
+        List<SubtitleSegment> decoded = roundTrip(segments);
+
+        assertEquals("", decoded.get(0).getCleanText());
+        assertEquals("", decoded.get(0).getRawText());
+        assertNull(decoded.get(1).getRawText());
+        assertNull(decoded.get(2).getCleanText());
+        assertEquals("", decoded.get(2).getRawText());
+        assertNull(decoded.get(3).getCleanText());
+        assertNull(decoded.get(3).getRawText());
+    }
+
+    @Test
+    void nonAsciiText() {
+        List<SubtitleSegment> segments = List.of(
+            segment(0, 0.0, 2.0, "今天天气很好。", "今天天气很好。"),
+            segment(1, 2.0, 4.0, "こんにちは、世界", "こんにちは、<c>世界</c>"),
+            segment(2, 4.0, 6.0, "Ça va? Très bien 👍", "Ça va? Très bien 👍"),
+            segment(3, 6.0, 8.0, "안녕하세요", "안녕하세요"));
+
+        assertSegmentsEqual(segments, roundTrip(segments));
+    }
+
+    @Test
+    void manySegments() {
+        List<SubtitleSegment> segments = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            double start = i * 2.345;
+            segments.add(segment(i, start, start + 1.0 + (i % 7) * 0.111,
+                "Sentence number " + i, i % 3 == 0 ? "Sentence number " + i : "<c>raw</c> " + i));
+        }
+
+        List<SubtitleSegment> decoded = roundTrip(segments);
+
+        assertSegmentsEqual(segments, decoded);
+    }
+
+    @Test
+    void emptyList() {
+        List<SubtitleSegment> decoded = roundTrip(List.of());
+
+        assertEquals(0, decoded.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> decoded.get(0));
+    }
+
+    @Test
+    void timesAreStoredInMilliseconds() {
+        List<SubtitleSegment> decoded = roundTrip(List.of(segment(0, 1.23449, 2.0006, "x", "x")));
+
+        assertEquals(1.234, decoded.get(0).getStartTime());
+        assertEquals(2.001, decoded.get(0).getEndTime());
+    }
+
+    @Test
+    void decodedSegmentsCarryVideoAndCreationTime() {
+        SubtitleSegment decoded = roundTrip(List.of(segment(0, 0.0, 1.0, "x", "x"))).get(0);
+
+        assertNull(decoded.getId());
+        assertEquals(42L, decoded.getVideoId());
+        assertEquals(CREATED_AT, decoded.getCreatedAt());
+    }
+
+    @Test
+    void decodesVersion1Blobs() {
+        // 版本 1：rawText 标记 0 表示与 cleanText 相同，否则字节数 + 1
+        byte[] text = {6, 'h', 'e', 'l', 'l', 'o', 0, 2, 'x', 3, '<', 'y'};
+        Deflater deflater = new Deflater();
+        deflater.setInput(text);
+        deflater.finish();
+        byte[] compressed = new byte[64];
+        int compressedLength = deflater.deflate(compressed);
+        deflater.end();
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        // version, count, 时间列 (0ms, +1000ms), (+1000ms, +500ms)，顺序列连续，文本列
+        data.writeBytes(new byte[]{1, 2, 0, (byte) 0xD0, 0x0F, (byte) 0xD0, 0x0F, (byte) 0xE8, 0x07, 0, 0});
+        data.write(compressedLength);
+        data.write(compressed, 0, compressedLength);
+
+        List<SubtitleSegment> decoded = SubtitleSegmentCodec.decode(data.toByteArray(), 42L, CREATED_AT);
+
+        assertEquals(2, decoded.size());
+        assertEquals("hello", decoded.get(0).getRawText());
+        assertEquals(1.0, decoded.get(0).getEndTime());
+        assertEquals("x", decoded.get(1).getCleanText());
+        assertEquals("<y", decoded.get(1).getRawText());
+        assertEquals(1.5, decoded.get(1).getEndTime());
+        assertEquals(1, decoded.get(1).getSegmentOrder());
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] data = SubtitleSegmentCodec.encode(List.of(segment(0, 0.0, 1.0, "x", "x")));
+        data[0] = 99;
+
+        assertThrows(IllegalArgumentException.class, () -> SubtitleSegmentCodec.decode(data, 42L, CREATED_AT));
+        assertThrows(IllegalArgumentException.class, () -> SubtitleSegmentCodec.decode(new byte[0], 42L, CREATED_AT));
+    }
+
+    static SubtitleSegment segment(int order, double start, double end, String clean, String raw) {
+        SubtitleSegment segment = new SubtitleSegment();
+        segment.setSegmentOrder(order);
+        segment.setStartTime(start);
+        segment.setEndTime(end);
+        segment.setCleanText(clean);
+        segment.setRawText(raw);
+        return segment;
+    }
+
+    static void assertSegmentsEqual(List<SubtitleSegment> expected, List<SubtitleSegment> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            SubtitleSegment e = expected.get(i);
+            SubtitleSegment a = actual.get(i);
+            assertEquals(e.getSegmentOrder(), a.getSegmentOrder(), "segmentOrder #" + i);
+            assertEquals(Math.round(e.getStartTime() * 1000), Math.round(a.getStartTime() * 1000), "startTime #" + i);
+            assertEquals(Math.round(e.getEndTime() * 1000), Math.round(a.getEndTime() * 1000), "endTime #" + i);
+            assertEquals(e.getCleanText(), a.getCleanText(), "cleanText #" + i);
+            assertEquals(e.getRawText(), a.getRawText(), "rawText #" + i);
+        }
+    }
+
+    private static List<SubtitleSegment> roundTrip(List<SubtitleSegment> segments) {
+        return SubtitleSegmentCodec.decode(SubtitleSegmentCodec.encode(segments), 42L, CREATED_AT);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.finance.followread;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.finance.followread.SubtitleSegmentCodecTest.assertSegmentsEqual;
+import static com.example.finance.followread.SubtitleSegmentCodecTest.segment;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 字幕片段两种存储方式（逐行 / 压缩 blob）对调用方的一致性
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SubtitleSegmentRepositoryTest {
+
+    private static final Path DB_FILE = createDbFile();
+
+    @Autowired private SubtitleSegmentRepository segmentRepository;
+    @Autowired private SubtitleSegmentBlobRepository blobRepository;
+    @Autowired private SubtitleSegmentRepositoryImpl segmentRepositoryImpl;
+    @Autowired private EntityManager entityManager;
+
+    @DynamicPropertySource
+    static void sqlite(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + DB_FILE);
+    }
+
+    @AfterAll
+    static void cleanup() throws IOException {
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            Files.deleteIfExists(Paths.get(DB_FILE + suffix));
+        }
+    }
+
+    @AfterEach
+    void rowMode() {
+        setCompact(false);
+    }
+
+    @Test
+    void compactModeReadsBackSameSegmentsAsRows() {
+        List<Integer> progress = new ArrayList<>();
+        setCompact(false);
+        segmentRepository.saveVideoSegments(1L, segments(1L), progress::add);
+        setCompact(true);
+        segmentRepository.saveVideoSegments(2L, segments(2L), null);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<SubtitleSegment> rows = segmentRepository.findByVideoIdOrderBySegmentOrder(1L);
+        List<SubtitleSegment> compact = segmentRepository.findByVideoIdOrderBySegmentOrder(2L);
+
+        assertEquals(List.of(100, 200, 250), progress);
+        assertNull(blobRepository.findSegmentCountByVideoId(1L));
+        assertEquals(250, blobRepository.findSegmentCountByVideoId(2L));
+        assertSegmentsEqual(rows, compact);
+        assertSegmentsEqual(segments(2L), compact);
+        assertTrue(compact.stream().allMatch(s -> s.getVideoId() == 2L));
+        assertNotNull(compact.get(0).getCreatedAt());
+    }
+
+    @Test
+    void blobTakesPrecedenceAndDeleteRemovesBoth() {
+        setCompact(false);
+        segmentRepository.saveVideoSegments(3L, segments(3L).subList(0, 10), null);
+        setCompact(true);
+        segmentRepository.saveVideoSegments(3L, segments(3L), null);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(250, segmentRepository.findByVideoIdOrderBySegmentOrder(3L).size());
+        assertEquals(260, segmentRepository.deleteByVideoId(3L));
+        // 批量 delete 不更新持久化上下文，线上删除和读取在不同事务里
+        entityManager.clear();
+        assertTrue(segmentRepository.findByVideoIdOrderBySegmentOrder(3L).isEmpty());
+    }
+
+    private void setCompact(boolean compact) {
+        ReflectionTestUtils.setField(AopTestUtils.<Object>getTargetObject(segmentRepositoryImpl), "compact", compact);
+    }
+
+    private static List<SubtitleSegment> segments(Long videoId) {
+        List<SubtitleSegment> segments = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            String clean = switch (i % 5) {
+                case 0 -> "";
+                case 1 -> "字幕第 " + i + " 句。";
+                case 2 -> "Ça marche, n° " + i;
+                default -> "Segment " + i;
+            };
+            // 自动字幕的片段相互重叠，开始时间可能早于上一个片段
+            double start = i * 1.5 - (i % 4 == 3 ? 2.0 : 0.0);
+            SubtitleSegment segment = segment(i, Math.max(0, start), i * 1.5 + 1.25, clean,
+                i % 2 == 0 ? clean : "<c>" + clean + "</c>");
+            segment.setVideoId(videoId);
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    private static Path createDbFile() {
+        try {
+            return Files.createTempFile("subtitle-segments", ".db");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
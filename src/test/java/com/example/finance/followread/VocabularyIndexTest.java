@@ -0,0 +1,174 @@
+package com.example.finance.followread;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 词汇索引的增量维护：索引、重新索引、移除（事务提交后生效）和基于 int 表的查询
+ */
+class VocabularyIndexTest {
+
+    private static final long USER = 7L;
+
+    private VocabularyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new VocabularyIndex();
+        ReflectionTestUtils.setField(index, "sentenceProcessor", new SubtitleSentenceProcessor());
+        // 不调用 init()：跳过启动时从数据库载入，视为已载入
+        ReflectionTestUtils.setField(index, "loaded", true);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void indexesWordCountsPerVideoAndUser() {
+        index.indexVideo(video(1L, USER, "en"), segments("Photosynthesis needs chlorophyll.", "PHOTOSYNTHESIS again!"));
+        index.indexVideo(video(2L, USER, "en"), segments("Chlorophyll is green, photosynthesis is slow."));
+
+        Map<String, Object> word = word(index.topUnknownWords(1L, USER, 10), "photosynthesis");
+        assertEquals(2, word.get("count"));
+        assertEquals(3, word.get("libraryCount"));
+        assertEquals(2, word.get("libraryVideos"));
+
+        List<Map<String, Object>> covering = index.videosCovering(List.of("Chlorophyll", "photosynthesis"), USER, 10);
+        assertEquals(2, covering.size());
+        assertEquals(1L, covering.get(0).get("id"));
+        assertEquals(3L, covering.get(0).get("occurrences"));
+        assertEquals(2L, covering.get(1).get("covered"));
+        assertTrue(index.videosCovering(List.of("photosynthesis"), 99L, 10).isEmpty());
+        assertTrue(index.videosCovering(List.of("neverseen"), USER, 10).isEmpty());
+    }
+
+    @Test
+    void reindexReplacesPreviousCounts() {
+        index.indexVideo(video(1L, USER, "en"), segments("chlorophyll chlorophyll chlorophyll"));
+        index.indexVideo(video(1L, USER, "en"), segments("chlorophyll mitochondria"));
+
+        List<Map<String, Object>> words = index.topUnknownWords(1L, USER, 10);
+        assertEquals(1, word(words, "chlorophyll").get("count"));
+        assertEquals(1, word(words, "chlorophyll").get("libraryCount"));
+        assertEquals(1, word(words, "chlorophyll").get("libraryVideos"));
+        assertNotNull(word(words, "mitochondria"));
+    }
+
+    @Test
+    void removeOutsideTransactionIsImmediate() {
+        index.indexVideo(video(1L, USER, "en"), segments("chlorophyll"));
+        index.indexVideo(video(2L, USER, "en"), segments("chlorophyll chlorophyll"));
+
+        index.removeVideo(1L);
+
+        assertNull(index.topUnknownWords(1L, USER, 10));
+        Map<String, Object> word = word(index.topUnknownWords(2L, USER, 10), "chlorophyll");
+        assertEquals(2, word.get("libraryCount"));
+        assertEquals(1, word.get("libraryVideos"));
+        assertEquals(1, index.videosCovering(List.of("chlorophyll"), USER, 10).size());
+    }
+
+    @Test
+    void removeInTransactionWaitsForCommit() {
+        index.indexVideo(video(1L, USER, "en"), segments("chlorophyll"));
+        TransactionSynchronizationManager.initSynchronization();
+
+        index.removeVideo(1L);
+
+        assertNotNull(index.topUnknownWords(1L, USER, 10));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        assertNull(index.topUnknownWords(1L, USER, 10));
+        assertTrue(index.videosCovering(List.of("chlorophyll"), USER, 10).isEmpty());
+    }
+
+    @Test
+    void rolledBackRemoveKeepsVideo() {
+        index.indexVideo(video(1L, USER, "en"), segments("chlorophyll"));
+        TransactionSynchronizationManager.initSynchronization();
+
+        index.removeVideo(1L);
+        TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+            TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(1, word(index.topUnknownWords(1L, USER, 10), "chlorophyll").get("libraryCount"));
+    }
+
+    @Test
+    void cjkVideosAreCountedByCharacter() {
+        index.indexVideo(video(3L, USER, "zh-Hans"), segments("光合作用需要叶绿素", "叶绿素是绿色的"));
+
+        List<Map<String, Object>> covering = index.videosCovering(List.of("叶绿素"), USER, 10);
+
+        assertEquals(1, covering.size());
+        assertEquals(3L, covering.get(0).get("covered"));
+        assertEquals(List.of("叶", "绿", "素"), covering.get(0).get("words"));
+        // 叶 2 次、绿 3 次（含"绿色"）、素 2 次
+        assertEquals(7L, covering.get(0).get("occurrences"));
+    }
+
+    @Test
+    void termCountsGrowAndShrink() {
+        VocabularyIndex.TermCounts counts = new VocabularyIndex.TermCounts();
+        for (int term = 0; term < 10_000; term++) {
+            counts.add(term, term + 1, 1);
+        }
+        for (int term = 0; term < 10_000; term += 2) {
+            counts.add(term, -(term + 1), -1);
+        }
+
+        assertEquals(0, counts.count(0));
+        assertEquals(0, counts.videos(0));
+        assertEquals(2, counts.count(1));
+        assertEquals(1, counts.videos(1));
+        assertEquals(10_000, counts.count(9_999));
+        assertEquals(0, counts.count(123_456));
+        assertEquals(0, counts.videos(-5));
+    }
+
+    private static Map<String, Object> word(List<Map<String, Object>> words, String text) {
+        assertNotNull(words);
+        for (Map<String, Object> word : words) {
+            if (text.equals(word.get("word"))) {
+                return word;
+            }
+        }
+        throw new AssertionError(text + " 不在结果中: " + words);
+    }
+
+    private static YoutubeVideo video(Long id, Long userId, String language) {
+        YoutubeVideo video = new YoutubeVideo();
+        video.setId(id);
+        video.setCreatedBy(userId);
+        video.setSubtitleLanguage(language);
+        return video;
+    }
+
+    private static List<SubtitleSegment> segments(String... texts) {
+        List<SubtitleSegment> segments = new ArrayList<>();
+        for (String text : texts) {
+            SubtitleSegment segment = new SubtitleSegment();
+            segment.setCleanText(text);
+            segments.add(segment);
+        }
+        return segments;
+    }
+}
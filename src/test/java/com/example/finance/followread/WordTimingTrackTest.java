@@ -0,0 +1,146 @@
+package com.example.finance.followread;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 逐词时间轨道的编码/解码、空轨道和按片段边界切分
+ */
+class WordTimingTrackTest {
+
+    @Test
+    void decodeRestoresEncodedTrack() {
+        WordTimingTrack track = WordTimingTrack.fromSegments(List.of(
+            segment(0.0, 1.0, word("Hello", 0.0, false), word("world", 0.48, true)),
+            segment(1.0, 2.5, word("café", 1.0, true), word("日本語", 1.62, true), word("ok", 2.001, true))));
+
+        WordTimingTrack decoded = WordTimingTrack.decode(track.encodeTimings(), track.getText());
+
+        assertEquals(5, decoded.size());
+        assertEquals("Hello world café 日本語 ok", new String(decoded.getText(), StandardCharsets.UTF_8));
+        for (int i = 0; i < track.size(); i++) {
+            assertEquals(track.startTime(i), decoded.startTime(i));
+            assertEquals(track.word(i), decoded.word(i));
+        }
+        assertEquals("日本語", decoded.word(3));
+        assertEquals(2.001, decoded.startTime(4));
+        assertArrayEquals(track.toBinary(), decoded.toBinary());
+    }
+
+    @Test
+    void toBinaryWritesHeaderTimingsAndText() {
+        WordTimingTrack track = WordTimingTrack.fromSegments(List.of(
+            segment(0.0, 1.0, word("a", 0.25, false), word("bc", 0.5, true))));
+
+        ByteBuffer buffer = ByteBuffer.wrap(track.toBinary());
+
+        assertEquals(2, buffer.getInt());
+        assertEquals(4, buffer.getInt());
+        assertEquals(250, buffer.getInt());
+        assertEquals(0, buffer.getInt());
+        assertEquals(500, buffer.getInt());
+        assertEquals(1, buffer.getInt());
+        byte[] text = new byte[buffer.remaining()];
+        buffer.get(text);
+        assertEquals("a bc", new String(text, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void startTimesNeverGoBackwards() {
+        WordTimingTrack track = WordTimingTrack.fromSegments(List.of(
+            segment(0.0, 2.0, word("one", 1.0, false), word("two", 0.8, true), word("three", 1.5, true))));
+
+        assertEquals(1.0, track.startTime(1));
+        assertEquals(1, track.indexAt(1.2));
+    }
+
+    @Test
+    void segmentsWithoutWordTimingsGiveNoTrack() {
+        SubtitleSegment manual = segment(0.0, 1.0);
+        manual.setWordTimings(null);
+
+        assertNull(WordTimingTrack.fromSegments(List.of()));
+        assertNull(WordTimingTrack.fromSegments(List.of(manual, segment(1.0, 2.0))));
+    }
+
+    @Test
+    void emptyTrackRoundTrips() {
+        WordTimingTrack empty = WordTimingTrack.decode(new byte[0], new byte[0]);
+
+        assertEquals(0, empty.size());
+        assertEquals(-1, empty.indexAt(3.0));
+        assertEquals(0, empty.slice(0.0, 10.0).size());
+        assertArrayEquals(new byte[WordTimingTrack.HEADER_BYTES], empty.toBinary());
+        assertEquals(0, WordTimingTrack.decode(empty.encodeTimings(), empty.getText()).size());
+    }
+
+    @Test
+    void decodeRejectsTruncatedTimings() {
+        assertThrows(IllegalArgumentException.class,
+            () -> WordTimingTrack.decode(new byte[WordTimingTrack.BYTES_PER_WORD + 3], new byte[0]));
+    }
+
+    @Test
+    void sliceAtSegmentBoundaries() {
+        WordTimingTrack track = WordTimingTrack.fromSegments(List.of(
+            segment(0.0, 1.0, word("Hello", 0.0, false), word("world", 0.5, true)),
+            segment(1.0, 2.0, word("how", 1.0, true), word("are", 1.4, true), word("you", 1.8, true)),
+            segment(2.0, 3.0, word("fine", 2.0, true))));
+
+        // 结束时间不包含：正好在下一个片段开头的词属于下一个片段
+        WordTimingTrack first = track.slice(0.0, 1.0);
+        assertEquals(2, first.size());
+        assertEquals("Hello world", new String(first.getText(), StandardCharsets.UTF_8));
+
+        WordTimingTrack middle = track.slice(1.0, 2.0);
+        assertEquals(3, middle.size());
+        assertEquals("how", middle.word(0));
+        assertEquals("you", middle.word(2));
+        assertEquals(1.0, middle.startTime(0));
+        // 子轨道的文本从切分点开始，偏移从 0 重新计算，前导空格保留在第一个词的区间里
+        assertEquals(" how are you", new String(middle.getText(), StandardCharsets.UTF_8));
+        WordTimingTrack decoded = WordTimingTrack.decode(middle.encodeTimings(), middle.getText());
+        assertEquals("are", decoded.word(1));
+
+        WordTimingTrack last = track.slice(2.0, 3.0);
+        assertEquals(1, last.size());
+        assertEquals("fine", last.word(0));
+
+        assertEquals(0, track.slice(3.0, 4.0).size());
+        assertEquals(0, track.slice(1.5, 1.5).size());
+        assertEquals(6, track.slice(-1.0, 10.0).size());
+    }
+
+    @Test
+    void indexAtFindsWordBeingSpoken() {
+        WordTimingTrack track = WordTimingTrack.fromSegments(List.of(
+            segment(0.5, 2.0, word("a", 0.5, false), word("b", 1.0, true), word("c", 1.5, true))));
+
+        assertEquals(-1, track.indexAt(0.2));
+        assertEquals(0, track.indexAt(0.5));
+        assertEquals(0, track.indexAt(0.99));
+        assertEquals(1, track.indexAt(1.0));
+        assertEquals(2, track.indexAt(30.0));
+    }
+
+    private static SubtitleSegment segment(double start, double end, WordTiming... words) {
+        SubtitleSegment segment = new SubtitleSegment();
+        segment.setStartTime(start);
+        segment.setEndTime(end);
+        segment.setWordTimings(new ArrayList<>(List.of(words)));
+        return segment;
+    }
+
+    private static WordTiming word(String text, double start, boolean spaceBefore) {
+        return new WordTiming(text, start, start + 0.4, spaceBefore);
+    }
+}
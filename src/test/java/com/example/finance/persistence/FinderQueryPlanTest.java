@@ -0,0 +1,334 @@
+package com.example.finance.persistence;
+
+import com.example.finance.UserRepository;
+import com.example.finance.followread.ChannelSubscriptionRepository;
+import com.example.finance.followread.FollowReadSentenceRepository;
+import com.example.finance.followread.FollowReadTaskRepository;
+import com.example.finance.followread.FollowReadTaskResultRepository;
+import com.example.finance.followread.ReviewStateRepository;
+import com.example.finance.followread.StoredFileRepository;
+import com.example.finance.followread.StudyNoteRepository;
+import com.example.finance.followread.SubtitleSegmentBlobRepository;
+import com.example.finance.followread.SubtitleSegmentRepository;
+import com.example.finance.followread.SubtitleWordTimingsRepository;
+import com.example.finance.followread.VideoDownloadTaskRepository;
+import com.example.finance.followread.YoutubeVideoRepository;
+import com.example.finance.xiaohongshu.XiaohongshuVideoRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Repository 查询方法的执行计划检查
+ *
+ * 用 Flyway 在临时 SQLite 文件上建好完整表结构（不使用 ddl-auto），逐个调用查询方法，
+ * 通过 Hibernate StatementInspector 截获实际生成的 SQL，再对这些 SQL 执行 EXPLAIN QUERY PLAN：
+ * 不允许不走索引的 SCAN 表，也不允许为排序建立临时 B 树（USE TEMP B-TREE）。
+ * 新增查询方法时在 {@link #finders()} 里补一次调用，缺索引就加迁移。
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.hibernate.ddl-auto=none",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.finance.persistence.FinderQueryPlanTest$SqlCapture"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class FinderQueryPlanTest {
+
+    // "SCAN youtube_videos" 或 "SCAN TABLE youtube_videos"（旧版本格式），后面没有 USING INDEX
+    private static final Pattern FULL_SCAN = Pattern.compile("^SCAN (TABLE )?\\w+( AS \\w+)?$");
+
+    private static final Path DB_FILE = createDbFile();
+
+    @Autowired private DataSource dataSource;
+    @Autowired private UserRepository userRepository;
+    @Autowired private YoutubeVideoRepository videoRepository;
+    @Autowired private SubtitleSegmentRepository segmentRepository;
+    @Autowired private SubtitleSegmentBlobRepository blobRepository;
+    @Autowired private SubtitleWordTimingsRepository wordTimingsRepository;
+    @Autowired private FollowReadSentenceRepository sentenceRepository;
+    @Autowired private FollowReadTaskRepository taskRepository;
+    @Autowired private FollowReadTaskResultRepository taskResultRepository;
+    @Autowired private ReviewStateRepository reviewStateRepository;
+    @Autowired private StudyNoteRepository studyNoteRepository;
+    @Autowired private VideoDownloadTaskRepository downloadTaskRepository;
+    @Autowired private XiaohongshuVideoRepository xiaohongshuVideoRepository;
+    @Autowired private ChannelSubscriptionRepository subscriptionRepository;
+    @Autowired private StoredFileRepository storedFileRepository;
+
+    @DynamicPropertySource
+    static void sqlite(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + DB_FILE);
+    }
+
+    @AfterAll
+    static void cleanup() throws IOException {
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            Files.deleteIfExists(Paths.get(DB_FILE + suffix));
+        }
+    }
+
+    @Test
+    void everyFinderUsesAnIndex() throws Exception {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        // 与线上一样先收集统计信息，避免规划器因为空表选择全表扫描
+        try (PreparedStatement analyze = connection.prepareStatement("ANALYZE")) {
+            analyze.execute();
+        }
+
+        List<String> problems = new ArrayList<>();
+        for (Map.Entry<String, Runnable> finder : finders().entrySet()) {
+            SqlCapture.STATEMENTS.clear();
+            finder.getValue().run();
+            List<String> statements = new ArrayList<>(SqlCapture.STATEMENTS);
+            assertFalse(statements.isEmpty(), finder.getKey() + " 没有执行 SQL");
+            for (String sql : statements) {
+                for (String detail : plan(connection, sql)) {
+                    if (FULL_SCAN.matcher(detail).matches() || detail.contains("USE TEMP B-TREE")) {
+                        problems.add(finder.getKey() + ": " + detail + "\n    " + sql);
+                    }
+                }
+            }
+        }
+        assertTrue(problems.isEmpty(), "查询计划存在全表扫描或临时排序:\n" + String.join("\n", problems));
+    }
+
+    private static List<String> plan(Connection connection, String sql) throws Exception {
+        List<String> details = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setObject(i, null);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    details.add(rs.getString("detail"));
+                }
+            }
+        }
+        return details;
+    }
+
+    /**
+     * 查询方法 → 调用（分页查询取第 2 页，连同 count 查询一起检查）
+     */
+    private Map<String, Runnable> finders() {
+        Map<String, Runnable> finders = new LinkedHashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        PageRequest page = PageRequest.of(1, 10);
+        PageRequest first = PageRequest.of(0, 10);
+
+        // UserRepository
+        finders.put("UserRepository.findByUsername", () -> userRepository.findByUsername("u"));
+        finders.put("UserRepository.findByEmail", () -> userRepository.findByEmail("e"));
+        finders.put("UserRepository.existsByUsername", () -> userRepository.existsByUsername("u"));
+        finders.put("UserRepository.existsByEmail", () -> userRepository.existsByEmail("e"));
+        finders.put("UserRepository.findByProviderAndProviderId",
+            () -> userRepository.findByProviderAndProviderId("google", "1"));
+        finders.put("UserRepository.findByEmailAndProvider", () -> userRepository.findByEmailAndProvider("e", "google"));
+
+        // YoutubeVideoRepository
+        finders.put("YoutubeVideoRepository.findByVideoId", () -> videoRepository.findByVideoId("v"));
+        finders.put("YoutubeVideoRepository.findExistingVideoIds",
+            () -> videoRepository.findExistingVideoIds(List.of("a", "b", "c")));
+        finders.put("YoutubeVideoRepository.findUnfinishedImports",
+            () -> videoRepository.findUnfinishedImports(List.of("a", "b"), 1L));
+        finders.put("YoutubeVideoRepository.findByCreatedBy", () -> videoRepository.findByCreatedBy(1L));
+        finders.put("YoutubeVideoRepository.findByStatus", () -> videoRepository.findByStatus("completed"));
+        finders.put("YoutubeVideoRepository.findByCreatedByOrderByCreatedAtDesc",
+            () -> videoRepository.findByCreatedByOrderByCreatedAtDesc(1L, page));
+        finders.put("YoutubeVideoRepository.findAllByOrderByCreatedAtDesc",
+            () -> videoRepository.findAllByOrderByCreatedAtDesc(page));
+        finders.put("YoutubeVideoRepository.findAllByOrderByPinnedDescPinnedAtDescCreatedAtDesc",
+            () -> videoRepository.findAllByOrderByPinnedDescPinnedAtDescCreatedAtDesc(page));
+        finders.put("YoutubeVideoRepository.updateProgressMessage",
+            () -> videoRepository.updateProgressMessage(1L, "m"));
+        finders.put("YoutubeVideoRepository.findCompletedSubtitleLanguages",
+            () -> videoRepository.findCompletedSubtitleLanguages());
+        finders.put("YoutubeVideoRepository.findCardsOrderByPinned", () -> videoRepository.findCardsOrderByPinned(page));
+        finders.put("YoutubeVideoRepository.findPinnedCardsAfter",
+            () -> videoRepository.findPinnedCardsAfter(now, now, 1L, first));
+        finders.put("YoutubeVideoRepository.findUnpinnedCards", () -> videoRepository.findUnpinnedCards(first));
+        finders.put("YoutubeVideoRepository.findUnpinnedCardsAfter",
+            () -> videoRepository.findUnpinnedCardsAfter(now, 1L, first));
+        finders.put("YoutubeVideoRepository.findCardsByStatus",
+            () -> videoRepository.findCardsByStatus("completed", page));
+
+        // SubtitleSegmentRepository / SubtitleSegmentBlobRepository / SubtitleWordTimingsRepository
+        finders.put("SubtitleSegmentRepository.findByVideoIdOrderBySegmentOrder",
+            () -> segmentRepository.findByVideoIdOrderBySegmentOrder(1L));
+        finders.put("SubtitleSegmentRepository.findVideoIdsWithRows", () -> segmentRepository.findVideoIdsWithRows());
+        finders.put("SubtitleSegmentRepository.deleteRowsByVideoId", () -> segmentRepository.deleteRowsByVideoId(1L));
+        finders.put("SubtitleSegmentRepository.deleteByVideoId", () -> segmentRepository.deleteByVideoId(1L));
+        finders.put("SubtitleSegmentBlobRepository.findSegmentCountByVideoId",
+            () -> blobRepository.findSegmentCountByVideoId(1L));
+        finders.put("SubtitleSegmentBlobRepository.deleteByVideoId", () -> blobRepository.deleteByVideoId(1L));
+        finders.put("SubtitleWordTimingsRepository.findById", () -> wordTimingsRepository.findById(1L));
+        finders.put("SubtitleWordTimingsRepository.deleteByVideoId", () -> wordTimingsRepository.deleteByVideoId(1L));
+
+        // FollowReadSentenceRepository
+        finders.put("FollowReadSentenceRepository.findByDifficulty", () -> sentenceRepository.findByDifficulty("easy"));
+        finders.put("FollowReadSentenceRepository.findByCategory", () -> sentenceRepository.findByCategory("c"));
+        finders.put("FollowReadSentenceRepository.findByYoutubeVideoId", () -> sentenceRepository.findByYoutubeVideoId(1L));
+        finders.put("FollowReadSentenceRepository.findByYoutubeVideoIdOrderBySentenceOrder",
+            () -> sentenceRepository.findByYoutubeVideoIdOrderBySentenceOrder(1L));
+        finders.put("FollowReadSentenceRepository.deleteAllByYoutubeVideoId",
+            () -> sentenceRepository.deleteAllByYoutubeVideoId(1L));
+
+        // FollowReadTaskRepository
+        finders.put("FollowReadTaskRepository.findByUserIdOrderByCreatedAtDesc",
+            () -> taskRepository.findByUserIdOrderByCreatedAtDesc(1L));
+        finders.put("FollowReadTaskRepository.findBySentenceId", () -> taskRepository.findBySentenceId(1L));
+        finders.put("FollowReadTaskRepository.findByIdAndUserId", () -> taskRepository.findByIdAndUserId(1L, 1L));
+        finders.put("FollowReadTaskRepository.existsByAudioUrlAndStatusIn",
+            () -> taskRepository.existsByAudioUrlAndStatusIn("a", List.of("processing", "evaluating")));
+        finders.put("FollowReadTaskRepository.existsByAudioUrl", () -> taskRepository.existsByAudioUrl("a"));
+        finders.put("FollowReadTaskRepository.claimForEvaluation",
+            () -> taskRepository.claimForEvaluation(1L, "a", now));
+        finders.put("FollowReadTaskRepository.failUnfinishedEvaluations",
+            () -> taskRepository.failUnfinishedEvaluations("m"));
+        finders.put("FollowReadTaskRepository.findCompletedScores", () -> taskRepository.findCompletedScores());
+        finders.put("FollowReadTaskRepository.findAudioUrlsByYoutubeVideoId",
+            () -> taskRepository.findAudioUrlsByYoutubeVideoId(1L));
+        finders.put("FollowReadTaskRepository.findAudioUrlsReferencedOutsideVideo",
+            () -> taskRepository.findAudioUrlsReferencedOutsideVideo(List.of("a", "b"), 1L));
+        finders.put("FollowReadTaskRepository.deleteAllByYoutubeVideoId",
+            () -> taskRepository.deleteAllByYoutubeVideoId(1L));
+
+        // FollowReadTaskResultRepository
+        finders.put("FollowReadTaskResultRepository.findByTaskIdOrderByWordPosition",
+            () -> taskResultRepository.findByTaskIdOrderByWordPosition(1L));
+        finders.put("FollowReadTaskResultRepository.deleteByTaskId", () -> taskResultRepository.deleteByTaskId(1L));
+        finders.put("FollowReadTaskResultRepository.deleteAllByYoutubeVideoId",
+            () -> taskResultRepository.deleteAllByYoutubeVideoId(1L));
+
+        // ReviewStateRepository
+        finders.put("ReviewStateRepository.findDue", () -> reviewStateRepository.findDue(1L, now, first));
+        finders.put("ReviewStateRepository.countByUserIdAndDueAtLessThanEqual",
+            () -> reviewStateRepository.countByUserIdAndDueAtLessThanEqual(1L, now));
+        finders.put("ReviewStateRepository.countByUserId", () -> reviewStateRepository.countByUserId(1L));
+        finders.put("ReviewStateRepository.findNextDueAt", () -> reviewStateRepository.findNextDueAt(1L));
+        finders.put("ReviewStateRepository.deleteAllByYoutubeVideoId",
+            () -> reviewStateRepository.deleteAllByYoutubeVideoId(1L));
+
+        // StudyNoteRepository
+        finders.put("StudyNoteRepository.findByVideoIdAndUserIdOrderByUpdatedAtDesc",
+            () -> studyNoteRepository.findByVideoIdAndUserIdOrderByUpdatedAtDesc("v", 1L));
+        finders.put("StudyNoteRepository.findByUserIdOrderByUpdatedAtDesc",
+            () -> studyNoteRepository.findByUserIdOrderByUpdatedAtDesc(1L));
+        finders.put("StudyNoteRepository.deleteAllByVideoId", () -> studyNoteRepository.deleteAllByVideoId("v"));
+
+        // VideoDownloadTaskRepository
+        finders.put("VideoDownloadTaskRepository.findByCreatedByOrderByCreatedAtDesc",
+            () -> downloadTaskRepository.findByCreatedByOrderByCreatedAtDesc(1L));
+        finders.put("VideoDownloadTaskRepository.findByCreatedByAndPlatformOrderByCreatedAtDesc",
+            () -> downloadTaskRepository.findByCreatedByAndPlatformOrderByCreatedAtDesc(1L, "youtube"));
+        finders.put("VideoDownloadTaskRepository.findByYoutubeVideoId",
+            () -> downloadTaskRepository.findByYoutubeVideoId(1L));
+        finders.put("VideoDownloadTaskRepository.findByXiaohongshuVideoId",
+            () -> downloadTaskRepository.findByXiaohongshuVideoId(1L));
+        finders.put("VideoDownloadTaskRepository.findByIdAndCreatedBy",
+            () -> downloadTaskRepository.findByIdAndCreatedBy(1L, 1L));
+        finders.put("VideoDownloadTaskRepository.findByStatus", () -> downloadTaskRepository.findByStatus("SUCCESS"));
+        finders.put("VideoDownloadTaskRepository.findByStatusIn",
+            () -> downloadTaskRepository.findByStatusIn(List.of("PENDING", "DOWNLOADING")));
+        finders.put("VideoDownloadTaskRepository.findOutputFilesByYoutubeVideoId",
+            () -> downloadTaskRepository.findOutputFilesByYoutubeVideoId(1L));
+        finders.put("VideoDownloadTaskRepository.expireByOutputFile",
+            () -> downloadTaskRepository.expireByOutputFile("f", "m"));
+        finders.put("VideoDownloadTaskRepository.deleteAllByYoutubeVideoId",
+            () -> downloadTaskRepository.deleteAllByYoutubeVideoId(1L));
+        finders.put("VideoDownloadTaskRepository.updateDownloadProgress",
+            () -> downloadTaskRepository.updateDownloadProgress(1L, 50, "m", "1MiB/s", 1L, 2L));
+
+        // XiaohongshuVideoRepository
+        finders.put("XiaohongshuVideoRepository.findByVideoId", () -> xiaohongshuVideoRepository.findByVideoId("v"));
+        finders.put("XiaohongshuVideoRepository.findByCreatedBy", () -> xiaohongshuVideoRepository.findByCreatedBy(1L));
+        finders.put("XiaohongshuVideoRepository.findByStatus", () -> xiaohongshuVideoRepository.findByStatus("completed"));
+        finders.put("XiaohongshuVideoRepository.findByCreatedByOrderByCreatedAtDesc",
+            () -> xiaohongshuVideoRepository.findByCreatedByOrderByCreatedAtDesc(1L, page));
+        finders.put("XiaohongshuVideoRepository.findCardsByCreatedBy",
+            () -> xiaohongshuVideoRepository.findCardsByCreatedBy(1L, page));
+
+        // ChannelSubscriptionRepository
+        finders.put("ChannelSubscriptionRepository.findByUserIdOrderByCreatedAtDesc",
+            () -> subscriptionRepository.findByUserIdOrderByCreatedAtDesc(1L));
+        finders.put("ChannelSubscriptionRepository.findByIdAndUserId",
+            () -> subscriptionRepository.findByIdAndUserId(1L, 1L));
+        finders.put("ChannelSubscriptionRepository.findByUserIdAndChannelUrl",
+            () -> subscriptionRepository.findByUserIdAndChannelUrl(1L, "u"));
+        finders.put("ChannelSubscriptionRepository.findDue", () -> subscriptionRepository.findDue(now, first));
+        finders.put("ChannelSubscriptionRepository.recordPoll",
+            () -> subscriptionRepository.recordPoll(1L, "v", "h", "t", now, now, now, 1));
+        finders.put("ChannelSubscriptionRepository.recordFailure",
+            () -> subscriptionRepository.recordFailure(1L, "e", now, now));
+
+        // StoredFileRepository（排序与 StorageLifecycleManager 的 LRU / LFU 淘汰一致）
+        finders.put("StoredFileRepository.findByPath", () -> storedFileRepository.findByPath("p"));
+        finders.put("StoredFileRepository.findByContentKey", () -> storedFileRepository.findByContentKey("k"));
+        finders.put("StoredFileRepository.findByPathRange", () -> storedFileRepository.findByPathRange("a", "b"));
+        finders.put("StoredFileRepository.countByArea", () -> storedFileRepository.countByArea("downloads"));
+        finders.put("StoredFileRepository.sumSizeByArea", () -> storedFileRepository.sumSizeByArea("downloads"));
+        finders.put("StoredFileRepository.findByArea(LRU)", () -> storedFileRepository.findByArea("downloads",
+            PageRequest.of(0, 10, Sort.by("refCount", "lastAccessedAt"))));
+        finders.put("StoredFileRepository.findByArea(LFU)", () -> storedFileRepository.findByArea("downloads",
+            PageRequest.of(0, 10, Sort.by("refCount", "accessCount", "lastAccessedAt"))));
+        finders.put("StoredFileRepository.findByAreaAndLastAccessedAtBeforeOrderByLastAccessedAt",
+            () -> storedFileRepository.findByAreaAndLastAccessedAtBeforeOrderByLastAccessedAt("cookies", now, first));
+        finders.put("StoredFileRepository.touch", () -> storedFileRepository.touch("p", now));
+        finders.put("StoredFileRepository.addReferences", () -> storedFileRepository.addReferences("p", 1));
+        finders.put("StoredFileRepository.deleteByPath", () -> storedFileRepository.deleteByPath("p"));
+        finders.put("StoredFileRepository.deleteByPathPrefix",
+            () -> storedFileRepository.deleteByPathPrefix("a/", "a/" + Character.MAX_VALUE, "a/"));
+        return finders;
+    }
+
+    private static Path createDbFile() {
+        try {
+            return Files.createTempFile("finder-plan", ".db");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 记录 Hibernate 实际执行的 SQL（通过 hibernate.session_factory.statement_inspector 注册）
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}